@@ -63,6 +63,7 @@ import org.sagebionetworks.bridge.models.schedules.Activity;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
 import org.sagebionetworks.bridge.models.substudies.AccountSubstudy;
 import org.sagebionetworks.bridge.models.templates.TemplateType;
+import org.sagebionetworks.bridge.util.CompiledTemplate;
 
 import org.springframework.core.annotation.AnnotationUtils;
 
@@ -317,7 +318,8 @@ public class BridgeUtils {
     /**
      * A simple means of providing template variables in template strings, in the format <code>${variableName}</code>.
      * This value will be replaced with the value of the variable name. The variable name/value pairs are passed to the
-     * method as a map. Variables that are not found in the map will be left in the string as is.
+     * method as a map. Variables that are not found in the map will be left in the string as is. Values are inserted
+     * as is, and are not themselves resolved. Templates are compiled once and cached, see {@link CompiledTemplate}.
      *
      * @see https://sagebionetworks.jira.com/wiki/display/BRIDGE/EmailTemplate
      * 
@@ -329,13 +331,7 @@ public class BridgeUtils {
         checkNotNull(template);
         checkNotNull(values);
         
-        for (Map.Entry<String,String> entry : values.entrySet()) {
-            if (entry.getValue() != null) {
-                String var = "${"+entry.getKey()+"}";
-                template = template.replace(var, entry.getValue());
-            }
-        }
-        return template;
+        return CompiledTemplate.forTemplate(template).render(values);
     }
     
     public static String generateGuid() {
@@ -0,0 +1,163 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+/**
+ * Broadcasts invalidation messages for in-process (per-node) caches over Redis pub/sub, so that every server node
+ * can drop its stale copy of an object within milliseconds of it being changed on any node. Messages are published
+ * to a channel named for the type of object (e.g. "App"), and the message body is the key of the object to evict.
+ *
+ * The subscription is held on a dedicated connection (with no read timeout) by a worker thread started from the
+ * WorkerLauncher. If the connection is lost, messages published while reconnecting are missed, so local caches
+ * must also expire their entries after a short period.
+ */
+@Component
+public class CacheInvalidationBus implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String CHANNEL_PREFIX = "bridge-invalidate:";
+    private static final long RECONNECT_DELAY_MILLIS = 1000L;
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private final JedisPubSub pubSub = new InvalidationPubSub();
+    private JedisPool jedisPool;
+    private String redisUrl;
+    private volatile boolean running = true;
+
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.redisUrl = bridgeConfig.get("elasticache.url");
+    }
+
+    /**
+     * Register a listener that will be called with the key of each invalidated object on the given channel,
+     * including invalidations published by this node.
+     */
+    public void addListener(String channel, Consumer<String> listener) {
+        checkNotNull(channel);
+        checkNotNull(listener);
+        listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /** Publish an invalidation of the object with the given key to all server nodes. */
+    public void publish(String channel, String key) {
+        checkNotNull(channel);
+        checkNotNull(key);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.publish(CHANNEL_PREFIX + channel, key);
+        } catch (RuntimeException e) {
+            // Other nodes will pick up the change when their local copy expires.
+            LOG.warn("Could not publish invalidation of " + channel + " '" + key + "'", e);
+        }
+    }
+
+    /** Stop listening for invalidations. The worker thread exits after its subscription is closed. */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (pubSub.isSubscribed()) {
+            pubSub.punsubscribe();
+        }
+    }
+
+    /** Subscribes to invalidation messages until stopped, reconnecting if the connection to Redis is lost. */
+    @Override
+    public void run() {
+        while (running) {
+            try (Jedis jedis = createSubscriberConnection()) {
+                // This blocks until the subscription is closed or the connection fails.
+                jedis.psubscribe(pubSub, CHANNEL_PREFIX + "*");
+            } catch (Exception e) {
+                LOG.warn("Cache invalidation subscription lost, reconnecting", e);
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // A subscription holds its connection indefinitely and idles on reads, so it can neither be borrowed from the
+    // pool nor use the pool's socket timeout.
+    Jedis createSubscriberConnection() throws URISyntaxException {
+        URI redisURI = new URI(redisUrl);
+        Jedis jedis = new Jedis(redisURI.getHost(), redisURI.getPort(), 0);
+        String password = BridgeUtils.extractPasswordFromURI(redisURI);
+        if (password != null) {
+            jedis.auth(password);
+        }
+        return jedis;
+    }
+
+    void dispatch(String channel, String key) {
+        if (channel == null || !channel.startsWith(CHANNEL_PREFIX)) {
+            return;
+        }
+        List<Consumer<String>> channelListeners = listeners.get(channel.substring(CHANNEL_PREFIX.length()));
+        if (channelListeners != null) {
+            for (Consumer<String> listener : channelListeners) {
+                try {
+                    listener.accept(key);
+                } catch (RuntimeException e) {
+                    LOG.error("Error invalidating cached object '" + key + "' from channel " + channel, e);
+                }
+            }
+        }
+    }
+
+    private class InvalidationPubSub extends JedisPubSub {
+        @Override
+        public void onMessage(String channel, String message) {
+            dispatch(channel, message);
+        }
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            dispatch(channel, message);
+        }
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+        }
+        @Override
+        public void onUnsubscribe(String channel, int subscribedChannels) {
+        }
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            LOG.info("Subscribed to cache invalidations on " + pattern);
+        }
+        @Override
+        public void onPUnsubscribe(String pattern, int subscribedChannels) {
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Objects;
 import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
+import org.sagebionetworks.bridge.models.reports.ReportDataKey;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 
 import com.google.common.base.Joiner;
@@ -82,6 +83,12 @@ public final class CacheKey {
     public static final CacheKey phoneSignInRequest(SignIn signIn) {
         return new CacheKey(signIn.getPhone().getNumber(), signIn.getAppId(),"phoneSignInRequest");
     }
+    /** A report index is keyed by app, report type, and identifier. The health code of a participant report is not
+     * part of the key, since all participants share the index for a report identifier.
+     */
+    public static final CacheKey reportIndex(ReportDataKey key) {
+        return new CacheKey(key.getIdentifier(), key.getIndexKeyString(), "ReportIndex");
+    }
     public static final CacheKey requestInfo(String userId) {
         return new CacheKey(userId, "request-info");
     }
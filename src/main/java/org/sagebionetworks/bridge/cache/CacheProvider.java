@@ -2,12 +2,15 @@ package org.sagebionetworks.bridge.cache;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -18,11 +21,20 @@ import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisDataException;
 
 /**
  * A wrapper around our use of Redis.
@@ -30,19 +42,86 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 @Component
 public class CacheProvider {
     private static final String LOCAL_SERVICE_ERROR = "Cannot find cache service, have you started Redis? (original message: %s)";
+    static final String APP_INVALIDATION_CHANNEL = "App";
+    // We only have a few dozen apps, so this is effectively unbounded. Entries expire quickly as a backstop
+    // in case an invalidation message is lost.
+    private static final int LOCAL_APP_CACHE_MAX_SIZE = 500;
+    private static final int LOCAL_APP_CACHE_EXPIRE_IN_SECONDS = 60;
+    static final String SESSION_WRITE_VERSION_PROPERTY = "session.cache.write.version";
+    /**
+     * Sessions written in version 2 of the format are prefixed with this marker. They already use appId and are 
+     * bound directly to a UserSession. Unmarked (version 1) sessions may still use the older studyId properties, 
+     * and are migrated through a JSON tree before binding. 
+     */
+    static final String SESSION_V2_PREFIX = "v2:";
+    
+    // Both session scripts run atomically on the Redis server, so reading or writing a session is a single round 
+    // trip. The session key is derived from the user ID inside the read script, which is fine as long as we are 
+    // not using a sharded Redis cluster.
+    /** KEYS: tokenToUserId key. ARGV: suffix of the userIdToSession key. Returns the serialized session or nil. */
+    static final String GET_SESSION_SCRIPT = "local userId = redis.call('GET', KEYS[1]) "
+            + "if not userId then return false end "
+            + "return redis.call('GET', userId .. ARGV[1])";
+    /**
+     * KEYS: tokenToUserId key, userIdToSession key. ARGV: user ID, serialized session, default expiration. Keeps 
+     * the remaining time to expiration of an existing session, and returns the expiration used.
+     */
+    static final String SET_SESSION_SCRIPT = "local ttl = redis.call('TTL', KEYS[2]) "
+            + "if ttl <= 0 then ttl = tonumber(ARGV[3]) end "
+            + "redis.call('SETEX', KEYS[1], ttl, ARGV[1]) "
+            + "redis.call('SETEX', KEYS[2], ttl, ARGV[2]) "
+            + "return ttl";
+    static final String GET_SESSION_SHA = DigestUtils.sha1Hex(GET_SESSION_SCRIPT);
+    static final String SET_SESSION_SHA = DigestUtils.sha1Hex(SET_SESSION_SCRIPT);
+    static final String USER_ID_TO_SESSION_SUFFIX = CacheKey.userIdToSession("").toString();
+    
     private JedisOps jedisOps;
+    private JedisPool jedisPool;
     private int sessionExpireInSeconds;
+    private int sessionWriteVersion = 1;
+    private CacheInvalidationBus cacheInvalidationBus;
+    /**
+     * Per-node copy of parsed apps, in front of the Redis copy. Apps are mutable and callers modify the app they 
+     * get (e.g. to set defaults before saving it), so the parsed JSON is cached and each caller gets its own App.
+     */
+    private final com.google.common.cache.Cache<String, JsonNode> localAppCache = CacheBuilder.newBuilder()
+            .maximumSize(LOCAL_APP_CACHE_MAX_SIZE)
+            .expireAfterWrite(LOCAL_APP_CACHE_EXPIRE_IN_SECONDS, TimeUnit.SECONDS)
+            .recordStats().build();
 
     @Resource(name = "jedisOps")
     final void setJedisOps(JedisOps jedisOps) {
         this.jedisOps = jedisOps;
     }
 
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
     @Resource(name = "sessionExpireInSeconds")
     final void setSessionExpireInSeconds(@SuppressWarnings("SameParameterValue") int sessionExpireInSeconds) {
         this.sessionExpireInSeconds = sessionExpireInSeconds;
     }
     
+    /**
+     * Servers always read both session formats. The write version stays at 1 until every server in the cluster can 
+     * read version 2 sessions, and then it can be set to 2.
+     */
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        String version = bridgeConfig.get(SESSION_WRITE_VERSION_PROPERTY);
+        if (version != null) {
+            this.sessionWriteVersion = Integer.parseInt(version.trim());
+        }
+    }
+    
+    @Autowired
+    final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.addListener(APP_INVALIDATION_CHANNEL, localAppCache::invalidate);
+    }
+    
     /**
      * Take existing data in the request info object and augment with any new information 
      * in the request info object passed as a parameter, then persist that. Different calls
@@ -90,27 +169,15 @@ public class CacheProvider {
         CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(session.getSessionToken());
         CacheKey userIdToSessionKey = CacheKey.userIdToSession(session.getId());
         
-        try (JedisTransaction transaction = jedisOps.getTransaction()) {
-            // If the key exists, get the remaining time to expiration. If it doesn't exist
-            // then save with the full expiration period.
-            Long ttl = jedisOps.ttl(userIdToSessionKey.toString());
-            int expiration = (ttl != null && ttl > 0L) ? ttl.intValue() : sessionExpireInSeconds;
-                   
-            String ser = StudyParticipant.CACHE_WRITER.writeValueAsString(session);
-            
-            List<Object> results = transaction
-                .setex(tokenToUserIdKey.toString(), expiration, session.getId())
-                .setex(userIdToSessionKey.toString(), expiration, ser)
-                .exec();
+        try {
+            String ser = serializeSession(session);
             
-            if (results == null) {
+            Object result = evalScript(SET_SESSION_SCRIPT, SET_SESSION_SHA,
+                    ImmutableList.of(tokenToUserIdKey.toString(), userIdToSessionKey.toString()),
+                    ImmutableList.of(session.getId(), ser, Integer.toString(sessionExpireInSeconds)));
+            if (result == null) {
                 throw new BridgeServiceException("Session storage error.");
             }
-            for (Object result : results) {
-                if (!"OK".equals(result)) {
-                    throw new BridgeServiceException("Session storage error.");
-                }
-            }
         } catch (Throwable e) {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
@@ -122,25 +189,21 @@ public class CacheProvider {
         checkNotNull(sessionToken);
         try {
             CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(sessionToken);
-            String userId = jedisOps.get(tokenToUserIdKey.toString());
-            if (userId != null) {
-                CacheKey userIdToSessionKey = CacheKey.userIdToSession(userId);
-                String ser = jedisOps.get(userIdToSessionKey.toString());
-                if (ser != null) {
-                    JsonNode node = adjustJsonWithStudyIdentifier(ser);
-                    UserSession session = BridgeObjectMapper.get().treeToValue(node,  UserSession.class);
-                    
-                    // The token --> userId look up is not replaced on session invalidation. 
-                    // Check here and only return if the sessionToken is valid. It is possible 
-                    // to successfully sign in and then have this fail due to concurrent requests.
-                    // The client needs to manage concurrent requests if it doesn't want to 
-                    // invalidate its own session.
-                    if (session.getSessionToken().equals(sessionToken)) {
-                        return session;
-                    }
-                    // Otherwise, delete the key sessionToken key (it's known to be invalid)
-                    removeObject(tokenToUserIdKey);
+            String ser = (String) evalScript(GET_SESSION_SCRIPT, GET_SESSION_SHA,
+                    ImmutableList.of(tokenToUserIdKey.toString()), ImmutableList.of(USER_ID_TO_SESSION_SUFFIX));
+            if (ser != null) {
+                UserSession session = deserializeSession(ser);
+                
+                // The token --> userId look up is not replaced on session invalidation. 
+                // Check here and only return if the sessionToken is valid. It is possible 
+                // to successfully sign in and then have this fail due to concurrent requests.
+                // The client needs to manage concurrent requests if it doesn't want to 
+                // invalidate its own session.
+                if (session.getSessionToken().equals(sessionToken)) {
+                    return session;
                 }
+                // Otherwise, delete the key sessionToken key (it's known to be invalid)
+                removeObject(tokenToUserIdKey);
             }
             return null;
         } catch (Throwable e) {
@@ -158,14 +221,26 @@ public class CacheProvider {
             if (ser == null) {
                 return null;
             }
-            JsonNode node = adjustJsonWithStudyIdentifier(ser);
-            return BridgeObjectMapper.get().treeToValue(node,  UserSession.class);
+            return deserializeSession(ser);
         } catch(Throwable e) {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
         }
     }
 
+    String serializeSession(UserSession session) throws IOException {
+        String ser = StudyParticipant.CACHE_WRITER.writeValueAsString(session);
+        return (sessionWriteVersion >= 2) ? (SESSION_V2_PREFIX + ser) : ser;
+    }
+    
+    UserSession deserializeSession(String ser) throws Exception {
+        if (ser.startsWith(SESSION_V2_PREFIX)) {
+            return BridgeObjectMapper.get().readValue(ser.substring(SESSION_V2_PREFIX.length()), UserSession.class);
+        }
+        JsonNode node = adjustJsonWithStudyIdentifier(ser);
+        return BridgeObjectMapper.get().treeToValue(node, UserSession.class);
+    }
+
     /**
      * During a transition period away from appId, we will need special handling to
      * ensure persisted sessions, subpopulations, and subpopulation lists are deserialized 
@@ -240,18 +315,52 @@ public class CacheProvider {
         checkNotNull(app);
         CacheKey redisKey = CacheKey.app(app.getIdentifier());
         setObject(redisKey, app, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        localAppCache.put(app.getIdentifier(), BridgeObjectMapper.get().valueToTree(app));
     }
 
+    /**
+     * Get the app from this node's local cache or, if it isn't there, from Redis. Every call returns a new 
+     * instance, which the caller may modify.
+     */
     public App getApp(String appId) {
         checkNotNull(appId);
+        JsonNode node = localAppCache.getIfPresent(appId);
+        if (node != null) {
+            try {
+                return BridgeObjectMapper.get().treeToValue(node, App.class);
+            } catch (IOException e) {
+                throw new BridgeServiceException(e);
+            }
+        }
         CacheKey redisKey = CacheKey.app(appId);
-        return getObject(redisKey, App.class, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        App app = getObject(redisKey, App.class, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        if (app != null) {
+            localAppCache.put(appId, BridgeObjectMapper.get().valueToTree(app));
+        }
+        return app;
     }
 
+    /** Remove the app from Redis and from the local cache of every server node. */
     public void removeApp(String appId) {
         checkNotNull(appId);
         CacheKey redisKey = CacheKey.app(appId);
         removeObject(redisKey);
+        localAppCache.invalidate(appId);
+        broadcastAppInvalidation(appId);
+    }
+    
+    /**
+     * Tell all other server nodes to drop their local copy of this app, so they will read the current copy 
+     * from Redis on their next request.
+     */
+    public void broadcastAppInvalidation(String appId) {
+        checkNotNull(appId);
+        cacheInvalidationBus.publish(APP_INVALIDATION_CHANNEL, appId);
+    }
+    
+    /** Hit, miss, and eviction counts for the local app cache on this server node. */
+    public CacheStats getLocalAppCacheStats() {
+        return localAppCache.stats();
     }
 
     public <T> T getObject(CacheKey cacheKey, Class<T> clazz) {
@@ -396,6 +505,23 @@ public class CacheProvider {
         }        
     }
 
+    /**
+     * Run a Lua script by its SHA1 digest, so the script body is only sent to Redis the first time it is run (or 
+     * after Redis has been restarted).
+     */
+    Object evalScript(String script, String sha, List<String> keys, List<String> args) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            try {
+                return jedis.evalsha(sha, keys, args);
+            } catch (JedisDataException e) {
+                if (e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT")) {
+                    return jedis.eval(script, keys, args);
+                }
+                throw e;
+            }
+        }
+    }
+
     private void promptToStartRedisIfLocal(Throwable e) {
         if (BridgeConfigFactory.getConfig().isLocal()) {
             throw new BridgeServiceException(String.format(LOCAL_SERVICE_ERROR, e.getMessage()));
@@ -15,6 +15,9 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.servlet.Filter;
@@ -31,6 +34,8 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClient;
 import com.amazonaws.services.sns.AmazonSNSClient;
@@ -40,9 +45,9 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mchange.v2.c3p0.DriverManagerDataSource;
 
-import org.apache.commons.codec.digest.DigestUtils;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
@@ -127,12 +132,15 @@ import org.sagebionetworks.bridge.upload.DecryptHandler;
 import org.sagebionetworks.bridge.upload.InitRecordHandler;
 import org.sagebionetworks.bridge.upload.S3DownloadHandler;
 import org.sagebionetworks.bridge.upload.StrictValidationHandler;
+import org.sagebionetworks.bridge.upload.StreamingDecryptHandler;
 import org.sagebionetworks.bridge.upload.TranscribeConsentHandler;
 import org.sagebionetworks.bridge.upload.UnzipHandler;
 import org.sagebionetworks.bridge.upload.UploadArtifactsHandler;
 import org.sagebionetworks.bridge.upload.UploadFormatHandler;
 import org.sagebionetworks.bridge.upload.UploadRawZipHandler;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutor;
 import org.sagebionetworks.bridge.upload.UploadValidationHandler;
+import org.sagebionetworks.bridge.upload.UploadValidationMetrics;
 import org.sagebionetworks.client.SynapseAdminClientImpl;
 import org.sagebionetworks.client.SynapseClient;
 
@@ -279,11 +287,6 @@ public class SpringConfig {
         return new AWSSecurityTokenServiceClient(s3UploadCredentials);
     }
 
-    @Bean(name = "md5DigestUtils")
-    public DigestUtils md5DigestUtils() {
-        return new DigestUtils(DigestUtils.getMd5Digest());
-    }
-
     @Bean(name = "s3CmsHelper")
     @Resource(name = "s3CmsClient")
     public S3Helper s3CmsHelper(AmazonS3Client s3CmsClient) {
@@ -300,6 +303,20 @@ public class SpringConfig {
         return s3Helper;
     }
 
+    /**
+     * Used to write large upload attachments to S3 as multipart uploads. Attachments below the threshold are
+     * written with a single PUT through the s3Helper.
+     */
+    @Bean(name = "attachmentTransferManager")
+    @Resource(name = "s3Client")
+    public TransferManager attachmentTransferManager(AmazonS3Client s3Client) {
+        BridgeConfig bridgeConfig = bridgeConfig();
+        long multipartThreshold = bridgeConfig.getPropertyAsInt("attachment.multipart.threshold.bytes");
+        long partSize = bridgeConfig.getPropertyAsInt("attachment.multipart.part.size.bytes");
+        return TransferManagerBuilder.standard().withS3Client(s3Client)
+                .withMultipartUploadThreshold(multipartThreshold).withMinimumUploadPartSize(partSize).build();
+    }
+
     @Bean(name = "s3ConsentsCredentials")
     @Resource(name = "bridgeConfig")
     public BasicAWSCredentials s3ConsentsCredentials(BridgeConfig bridgeConfig) {
@@ -339,6 +356,52 @@ public class SpringConfig {
         return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("async.worker.thread.count"));
     }
 
+    @Bean(name = "activityQueryExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService activityQueryExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("activity.query.thread.count"));
+    }
+
+    @Bean(name = "recordUpdateExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService recordUpdateExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("record.update.thread.count"));
+    }
+
+    @Bean(name = "attachmentUploadExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService attachmentUploadExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("attachment.upload.thread.count"));
+    }
+
+    @Bean(name = "consentDeliveryExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService consentDeliveryExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("consent.delivery.thread.count");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(bridgeConfig.getPropertyAsInt("consent.delivery.queue.capacity")),
+                new ThreadFactoryBuilder().setNameFormat("consent-delivery-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(name = "credentialHashingExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService credentialHashingExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("credential.hashing.thread.count");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(bridgeConfig.getPropertyAsInt("credential.hashing.queue.capacity")),
+                new ThreadFactoryBuilder().setNameFormat("credential-hashing-%d").setDaemon(true).build());
+    }
+
+    @Bean(name = "uploadValidationExecutor")
+    @Autowired
+    public UploadValidationExecutor uploadValidationExecutor(UploadValidationMetrics uploadValidationMetrics) {
+        BridgeConfig bridgeConfig = bridgeConfig();
+        return new UploadValidationExecutor(bridgeConfig.getPropertyAsInt("upload.validation.thread.count"),
+                bridgeConfig.getPropertyAsInt("upload.validation.queue.capacity"),
+                bridgeConfig.getPropertyAsInt("upload.validation.small.upload.bytes"), uploadValidationMetrics);
+    }
+
     @Bean(name = "supportEmail")
     @Resource(name = "bridgeConfig")
     public String supportEmail(BridgeConfig bridgeConfig) {
@@ -569,10 +632,17 @@ public class SpringConfig {
     @Bean(name = "uploadValidationHandlerList")
     @Autowired
     public List<UploadValidationHandler> uploadValidationHandlerList(S3DownloadHandler s3DownloadHandler,
-            DecryptHandler decryptHandler, UnzipHandler unzipHandler,
+            DecryptHandler decryptHandler, StreamingDecryptHandler streamingDecryptHandler, UnzipHandler unzipHandler,
             InitRecordHandler initRecordHandler, UploadFormatHandler uploadFormatHandler,
             StrictValidationHandler strictValidationHandler, TranscribeConsentHandler transcribeConsentHandler,
             UploadRawZipHandler uploadRawZipHandler, UploadArtifactsHandler uploadArtifactsHandler) {
+        // In streaming mode, the upload is decrypted straight from the S3 object stream, and only spilled to disk if
+        // it's too large to hold in memory.
+        if (Boolean.valueOf(bridgeConfig().get("upload.validation.streaming"))) {
+            return ImmutableList.of(streamingDecryptHandler, unzipHandler,
+                    initRecordHandler, uploadFormatHandler, strictValidationHandler, transcribeConsentHandler,
+                    uploadRawZipHandler, uploadArtifactsHandler);
+        }
         return ImmutableList.of(s3DownloadHandler, decryptHandler, unzipHandler,
                 initRecordHandler, uploadFormatHandler, strictValidationHandler, transcribeConsentHandler,
                 uploadRawZipHandler, uploadArtifactsHandler);
@@ -6,7 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.heartbeat.HeartbeatLogger;
+import org.sagebionetworks.bridge.services.RequestInfoRecorder;
 
 /**
  * Launches worker threads. This hooks into the Spring Boot command-line runner, which is really just a big
@@ -17,6 +19,8 @@ public class WorkerLauncher implements CommandLineRunner {
     private static final Logger LOG = LoggerFactory.getLogger(WorkerLauncher.class);
 
     private HeartbeatLogger heartbeatLogger;
+    private CacheInvalidationBus cacheInvalidationBus;
+    private RequestInfoRecorder requestInfoRecorder;
 
     /** Logs heartbeat at regular intervals to keep the logs alive. */
     @Autowired
@@ -24,10 +28,32 @@ public class WorkerLauncher implements CommandLineRunner {
         this.heartbeatLogger = heartbeatLogger;
     }
 
+    /** Listens for invalidations of objects held in per-node caches. */
+    @Autowired
+    public final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    /** Writes buffered request info at regular intervals. */
+    @Autowired
+    public final void setRequestInfoRecorder(RequestInfoRecorder requestInfoRecorder) {
+        this.requestInfoRecorder = requestInfoRecorder;
+    }
+
     /** Main entry point into the app. Should only be called by Spring Boot. */
     @Override
     public void run(String... args) {
         LOG.info("Starting heartbeat...");
         new Thread(heartbeatLogger).start();
+
+        LOG.info("Starting cache invalidation listener...");
+        Thread invalidationThread = new Thread(cacheInvalidationBus, "cache-invalidation-listener");
+        invalidationThread.setDaemon(true);
+        invalidationThread.start();
+
+        LOG.info("Starting request info recorder...");
+        Thread requestInfoThread = new Thread(requestInfoRecorder, "request-info-recorder");
+        requestInfoThread.setDaemon(true);
+        requestInfoThread.start();
     }
 }
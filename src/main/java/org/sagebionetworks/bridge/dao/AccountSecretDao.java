@@ -11,16 +11,19 @@ import org.sagebionetworks.bridge.models.accounts.AccountSecretType;
  */
 public interface AccountSecretDao {
     /**
-     * Add a secret to the set of secrets. 
+     * Add a secret to the set of secrets. The secret is hashed on the credential hashing thread 
+     * pool, and counts against the app's share of it.
      */
-    void createSecret(AccountSecretType type, String accountId, String plaintext);
+    void createSecret(String appId, AccountSecretType type, String accountId, String plaintext);
     
     /**
      * Retrieve N secret records (indicated by rotations), and compare the provided secret 
      * against all of those secrets looking for a match. Return the record if a match is found,
-     * or null otherwise.
+     * or null otherwise. The comparisons run on the credential hashing thread pool, and count 
+     * against the app's share of it.
      */
-    Optional<AccountSecret> verifySecret(AccountSecretType type, String accountId, String plaintext, int rotations);
+    Optional<AccountSecret> verifySecret(String appId, AccountSecretType type, String accountId, String plaintext,
+            int rotations);
     
     /**
      * Delete all secrets for the indicated user, of the indicated type.
@@ -1,8 +1,11 @@
 package org.sagebionetworks.bridge.dao;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
 /** DAO for health data records. */
@@ -36,6 +39,29 @@ public interface HealthDataDao {
      */
     HealthDataRecord getRecordById(@Nonnull String id);
 
+    /**
+     * DAO method used to fetch many health data records at once, generally to decorate a page of uploads. Records that
+     * don't exist are absent from the result.
+     *
+     * @param ids
+     *         record IDs, must be non-null
+     * @return health data records, keyed by record ID
+     */
+    Map<String, HealthDataRecord> getRecordsByIds(@Nonnull Collection<String> ids);
+
+    /**
+     * DAO method used by worker apps to set the Synapse exporter status of an existing record. Only the exporter
+     * status (and the record version) are written, so the rest of the record isn't sent back to DynamoDB. The record's
+     * exporter status and version are updated to match.
+     *
+     * @param record
+     *         record loaded from this DAO, must be non-null
+     * @param synapseExporterStatus
+     *         exporter status to write, must be non-null
+     */
+    void updateRecordExporterStatus(@Nonnull HealthDataRecord record,
+            @Nonnull HealthDataRecord.ExporterStatus synapseExporterStatus);
+
     /**
      * DAO method used by worker apps to query all health data records uploaded for a specific date, generally used for
      * export.
@@ -46,6 +72,22 @@ public interface HealthDataDao {
      */
     List<HealthDataRecord> getRecordsForUploadDate(@Nonnull String uploadDate);
 
+    /**
+     * DAO method used by worker apps to page through the health data records uploaded for a specific date, generally
+     * used for export. Unlike {@link #getRecordsForUploadDate(String)}, only one page of records is loaded at a time,
+     * no matter how many records were uploaded that day.
+     *
+     * @param uploadDate
+     *         upload date in YYYY-MM-DD format, must be non-null, non-empty, and must represent a valid date
+     * @param offsetKey
+     *         next page offset key from the previous page, or null for the first page
+     * @param pageSize
+     *         maximum number of records in the page
+     * @return page of health records uploaded on that date, with the offset key of the next page if there is one
+     */
+    ForwardCursorPagedResourceList<HealthDataRecord> getRecordsForUploadDate(@Nonnull String uploadDate,
+            String offsetKey, int pageSize);
+
     /** Gets a list of records for the given healthCode between the specified createdOn times (inclusive). */
     List<HealthDataRecord> getRecordsByHealthCodeCreatedOn(String healthCode, long createdOnStart, long createdOnEnd);
 }
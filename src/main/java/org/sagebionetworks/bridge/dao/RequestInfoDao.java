@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
+
 import org.sagebionetworks.bridge.models.RequestInfo;
 
 public interface RequestInfoDao {
@@ -11,6 +13,12 @@ public interface RequestInfoDao {
      */    
     public void updateRequestInfo(RequestInfo requestInfo);
     
+    /**
+     * Same as updateRequestInfo, for request info objects from many users, in one read and one transaction. 
+     * There should be at most one request info object per user.
+     */
+    public void updateRequestInfos(List<RequestInfo> requestInfos);
+    
     public RequestInfo getRequestInfo(String userId);
     
     public void removeRequestInfo(String userId);
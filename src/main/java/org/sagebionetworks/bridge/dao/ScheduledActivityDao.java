@@ -1,6 +1,8 @@
 package org.sagebionetworks.bridge.dao;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -28,6 +30,12 @@ public interface ScheduledActivityDao {
      * Load an individual activity.
      */
     ScheduledActivity getActivity(DateTimeZone timeZone, String healthCode, String guid, boolean throwException);
+    
+    /**
+     * Load the activities with the given GUIDs for a user, in as few batch requests as possible. Returns a map of 
+     * activities keyed by GUID. Activities that don't exist are not in the map.
+     */
+    Map<String, ScheduledActivity> getActivitiesByGuid(DateTimeZone timeZone, String healthCode, Set<String> guids);
    
     /**
      * Get a list of activities for a user. The list is derived from the scheduler.
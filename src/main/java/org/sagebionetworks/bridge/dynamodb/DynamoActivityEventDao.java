@@ -20,8 +20,14 @@ import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.ImmutableSet;
@@ -30,10 +36,15 @@ import com.google.common.collect.Lists;
 @Component
 public class DynamoActivityEventDao implements ActivityEventDao {
 
+    static final String EVENT_ID = "eventId";
+    static final String TIMESTAMP = "timestamp";
     private static final String ANSWERED_EVENT_POSTFIX = ":"+ActivityEventType.ANSWERED.name().toLowerCase();
     private static final Set<String> IMMUTABLE_EVENTS = ImmutableSet.of(
             ActivityEventObjectType.ENROLLMENT.name().toLowerCase(),
             ActivityEventObjectType.ACTIVITIES_RETRIEVED.name().toLowerCase());
+    // Immutable events can only be written if they have not been recorded.
+    static final DynamoDBSaveExpression DOES_NOT_EXIST_EXPRESSION = new DynamoDBSaveExpression()
+            .withExpected(ImmutableMap.of(EVENT_ID, new ExpectedAttributeValue(false)));
     private DynamoDBMapper mapper;
 
     @Resource(name = "activityEventDdbMapper")
@@ -45,16 +56,14 @@ public class DynamoActivityEventDao implements ActivityEventDao {
     public boolean publishEvent(ActivityEvent event) {
         checkNotNull(event);
         
-        DynamoActivityEvent hashKey = new DynamoActivityEvent();
-        hashKey.setHealthCode(event.getHealthCode());
-        hashKey.setEventId(event.getEventId());
-        
-        ActivityEvent savedEvent = mapper.load(hashKey);
-        if (isNewOrMutable(savedEvent, event) && isLater(savedEvent, event)) {
-            mapper.save(event);
+        // A single conditional write, rather than a read followed by a write. The condition is checked by DynamoDB, 
+        // so this is also safe when the same event is published concurrently.
+        try {
+            mapper.save(event, getSaveExpression(event));
             return true;
+        } catch(ConditionalCheckFailedException e) {
+            return false;
         }
-        return false;
     }
 
     @Override
@@ -95,21 +104,18 @@ public class DynamoActivityEventDao implements ActivityEventDao {
         }
     }
     
-    // Some events can only be recorded once. 
-    private boolean isNewOrMutable(ActivityEvent savedEvent, ActivityEvent event) {
-        if (savedEvent == null) {
-            return true;
-        }
-        return (!IMMUTABLE_EVENTS.contains(event.getEventId()));
-    }
-    
-    // Events cannot be recorded unless the timestamp submitted is later than the currently
-    // recorded timestamp.
-    private boolean isLater(ActivityEvent savedEvent, ActivityEvent event) {
-        if (savedEvent == null) {
-            return true;
+    // Some events can only be recorded once. Other events cannot be recorded unless the timestamp submitted is 
+    // later than the currently recorded timestamp.
+    DynamoDBSaveExpression getSaveExpression(ActivityEvent event) {
+        if (IMMUTABLE_EVENTS.contains(event.getEventId())) {
+            return DOES_NOT_EXIST_EXPRESSION;
         }
-        return event.getTimestamp() > savedEvent.getTimestamp();
+        AttributeValue timestamp = new AttributeValue().withN(event.getTimestamp().toString());
+        Map<String, ExpectedAttributeValue> map = ImmutableMap.of(
+                EVENT_ID, new ExpectedAttributeValue(false),
+                TIMESTAMP, new ExpectedAttributeValue().withComparisonOperator(ComparisonOperator.LT)
+                        .withAttributeValueList(timestamp));
+        return new DynamoDBSaveExpression().withExpected(map).withConditionalOperator(ConditionalOperator.OR);
     }
 
     /**
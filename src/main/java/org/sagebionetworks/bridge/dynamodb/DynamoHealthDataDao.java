@@ -1,9 +1,18 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
+import static org.sagebionetworks.bridge.BridgeConstants.PAGE_SIZE_ERROR;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.document.Index;
@@ -17,15 +26,27 @@ import com.google.common.collect.Lists;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.HealthDataDao;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
+import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import org.apache.commons.lang3.StringUtils;
+import org.joda.time.LocalDate;
 import org.springframework.stereotype.Component;
 
 /** DynamoDB implementation of {@link org.sagebionetworks.bridge.dao.HealthDataDao}. */
 @Component
 public class DynamoHealthDataDao implements HealthDataDao {
+    private static final String ID = "id";
+    private static final String UPLOAD_DATE = "uploadDate";
+    private static final String UPLOAD_DATE_INDEX = "uploadDate-index";
+
+    // Writes only the attributes that are set on the record, as an UpdateItem call.
+    private static final DynamoDBMapperConfig SKIP_NULL_MAPPER_CONFIG = new DynamoDBMapperConfig.Builder()
+            .withSaveBehavior(SaveBehavior.UPDATE_SKIP_NULL_ATTRIBUTES).build();
+
     private DynamoDBMapper mapper;
     private DynamoIndexHelper healthCodeIndex;
     private DynamoIndexHelper uploadDateIndex;
@@ -98,10 +119,96 @@ public class DynamoHealthDataDao implements HealthDataDao {
         return mapper.load(DynamoHealthDataRecord.class, id);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, HealthDataRecord> getRecordsByIds(@Nonnull Collection<String> ids) {
+        Map<String, HealthDataRecord> recordMap = new HashMap<>();
+        if (ids.isEmpty()) {
+            return recordMap;
+        }
+
+        List<DynamoHealthDataRecord> keys = Lists.newArrayListWithCapacity(ids.size());
+        for (String id : ids) {
+            DynamoHealthDataRecord key = new DynamoHealthDataRecord();
+            key.setId(id);
+            keys.add(key);
+        }
+
+        // The mapper splits the keys into BatchGetItem calls of up to 100 keys, and retries unprocessed keys with
+        // backoff.
+        Map<String, List<Object>> resultMap = mapper.batchLoad(keys);
+        for (List<Object> resultList : resultMap.values()) {
+            for (Object oneResult : resultList) {
+                HealthDataRecord record = (HealthDataRecord) oneResult;
+                recordMap.put(record.getId(), record);
+            }
+        }
+        return recordMap;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateRecordExporterStatus(@Nonnull HealthDataRecord record,
+            @Nonnull HealthDataRecord.ExporterStatus synapseExporterStatus) {
+        // Only the key, the version (so concurrent writes are still detected), and the exporter status are set.
+        DynamoHealthDataRecord statusRecord = new DynamoHealthDataRecord();
+        statusRecord.setId(record.getId());
+        statusRecord.setVersion(record.getVersion());
+        statusRecord.setSynapseExporterStatus(synapseExporterStatus);
+        mapper.save(statusRecord, SKIP_NULL_MAPPER_CONFIG);
+
+        record.setSynapseExporterStatus(synapseExporterStatus);
+        record.setVersion(statusRecord.getVersion());
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<HealthDataRecord> getRecordsForUploadDate(@Nonnull String uploadDate) {
-        return uploadDateIndex.query(HealthDataRecord.class, "uploadDate", uploadDate, null);
+        return uploadDateIndex.query(HealthDataRecord.class, UPLOAD_DATE, uploadDate, null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ForwardCursorPagedResourceList<HealthDataRecord> getRecordsForUploadDate(@Nonnull String uploadDate,
+            String offsetKey, int pageSize) {
+        if (pageSize < 1 || pageSize > API_MAXIMUM_PAGE_SIZE) {
+            throw new BadRequestException(PAGE_SIZE_ERROR);
+        }
+
+        // The index only has a hash key, so the record ID is enough to pick up where the last page left off.
+        DynamoHealthDataRecord queryRecord = new DynamoHealthDataRecord();
+        queryRecord.setUploadDate(LocalDate.parse(uploadDate));
+        DynamoDBQueryExpression<DynamoHealthDataRecord> query = new DynamoDBQueryExpression<DynamoHealthDataRecord>()
+                .withIndexName(UPLOAD_DATE_INDEX)
+                .withConsistentRead(false)
+                .withHashKeyValues(queryRecord)
+                .withLimit(pageSize);
+        if (offsetKey != null) {
+            Map<String, AttributeValue> exclusiveStartKey = new HashMap<>();
+            exclusiveStartKey.put(UPLOAD_DATE, new AttributeValue().withS(uploadDate));
+            exclusiveStartKey.put(ID, new AttributeValue().withS(offsetKey));
+            query.withExclusiveStartKey(exclusiveStartKey);
+        }
+        QueryResultPage<DynamoHealthDataRecord> page = mapper.queryPage(DynamoHealthDataRecord.class, query);
+
+        // The index only projects keys, so load the full records for this page, in the order of the index.
+        List<HealthDataRecord> recordList = new ArrayList<>();
+        if (!page.getResults().isEmpty()) {
+            List<String> ids = Lists.transform(page.getResults(), DynamoHealthDataRecord::getId);
+            Map<String, HealthDataRecord> recordMap = getRecordsByIds(ids);
+            for (String id : ids) {
+                HealthDataRecord record = recordMap.get(id);
+                if (record != null) {
+                    recordList.add(record);
+                }
+            }
+        }
+
+        String nextPageOffsetKey = (page.getLastEvaluatedKey() != null) ? page.getLastEvaluatedKey().get(ID).getS()
+                : null;
+        return new ForwardCursorPagedResourceList<>(recordList, nextPageOffsetKey)
+                .withRequestParam(ResourceList.OFFSET_KEY, offsetKey)
+                .withRequestParam(ResourceList.PAGE_SIZE, pageSize);
     }
 
     /** {@inheritDoc} */
@@ -187,7 +187,7 @@ public class DynamoSchedulePlanDao implements SchedulePlanDao {
                 // which will return the plan to the caller with the criteria stubbed out in the JSON.
                 if (criteria != null) {
                     scheduleCriteria = new ScheduleCriteria(scheduleCriteria.getSchedule(), criteria);
-                    strategy.getScheduleCriteria().set(i, scheduleCriteria);
+                    strategy.replaceCriteria(i, scheduleCriteria);
                 }
             }
         }        
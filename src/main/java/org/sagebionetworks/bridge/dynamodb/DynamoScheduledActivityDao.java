@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -38,6 +39,7 @@ import com.amazonaws.services.dynamodbv2.document.QueryOutcome;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
 import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -266,6 +268,38 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
         return dbActivity;
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, ScheduledActivity> getActivitiesByGuid(DateTimeZone timeZone, String healthCode,
+            Set<String> guids) {
+        checkNotNull(timeZone);
+        checkNotNull(healthCode);
+        checkNotNull(guids);
+        
+        if (guids.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        List<Object> keysToLoad = Lists.newArrayListWithCapacity(guids.size());
+        for (String guid : guids) {
+            DynamoScheduledActivity hashKey = new DynamoScheduledActivity();
+            hashKey.setHealthCode(healthCode);
+            hashKey.setGuid(guid);
+            keysToLoad.add(hashKey);
+        }
+        // The mapper splits this into BatchGetItem requests of up to 100 keys, and retries any unprocessed keys.
+        Map<String,List<Object>> resultMap = mapper.batchLoad(keysToLoad);
+        
+        Map<String, ScheduledActivity> results = Maps.newHashMapWithExpectedSize(guids.size());
+        for (List<Object> list : resultMap.values()) {
+            for (Object oneResult : list) {
+                ScheduledActivity activity = (ScheduledActivity)oneResult;
+                activity.setTimeZone(timeZone);
+                results.put(activity.getGuid(), activity);
+            }
+        }
+        return results;
+    }
+    
     /** {@inheritDoc} */
     @Override
     public List<ScheduledActivity> getActivities(DateTimeZone timeZone, List<ScheduledActivity> activities) {
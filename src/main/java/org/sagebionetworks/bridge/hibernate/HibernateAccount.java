@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static java.lang.Boolean.TRUE;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 
 import java.util.ArrayList;
 import java.util.EnumSet;
@@ -30,6 +31,9 @@ import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import org.joda.time.DateTime;
@@ -44,10 +48,17 @@ import org.sagebionetworks.bridge.models.substudies.AccountSubstudy;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
-/** MySQL implementation of accounts via Hibernate. */
+/**
+ * MySQL implementation of accounts via Hibernate. The account's collections are each loaded with a separate select 
+ * rather than joined into the account query, which would return the cartesian product of all of them. When a query 
+ * returns a page of accounts, each collection is loaded for up to {@link #COLLECTION_BATCH_SIZE} accounts at a time.
+ */
 @Entity
 @Table(name = "Accounts")
 public class HibernateAccount implements Account {
+    /** Number of accounts to load each collection for in one select. This matches the maximum page size. */
+    static final int COLLECTION_BATCH_SIZE = API_MAXIMUM_PAGE_SIZE;
+    
     private String id;
     private String appId;
     private String email;
@@ -183,6 +194,8 @@ public class HibernateAccount implements Account {
     @Column(name = "attributeValue")
     @ElementCollection(fetch = FetchType.EAGER)
     @MapKeyColumn(name = "attributeKey")
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     public Map<String, String> getAttributes() {
         if (attributes == null) {
             attributes = new HashMap<>();
@@ -201,6 +214,8 @@ public class HibernateAccount implements Account {
             referencedColumnName = "id"))
     @ElementCollection(fetch = FetchType.EAGER)
     @MapKeyClass(HibernateAccountConsentKey.class)
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     public Map<HibernateAccountConsentKey, HibernateAccountConsent> getConsents() {
         if (consents == null) {
             consents = new HashMap<>();
@@ -312,6 +327,8 @@ public class HibernateAccount implements Account {
     @Column(name = "role")
     @ElementCollection(fetch = FetchType.EAGER)
     @Enumerated(EnumType.STRING)
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     public Set<Roles> getRoles() {
         if (roles == null) {
             roles = EnumSet.noneOf(Roles.class);
@@ -400,6 +417,8 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountDataGroups", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "dataGroup")
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     public Set<String> getDataGroups() {
         if (dataGroups == null) {
             dataGroups = new HashSet<>();
@@ -418,6 +437,8 @@ public class HibernateAccount implements Account {
     @Column(name = "language")
     @OrderColumn(name="order_index", insertable=true, updatable=true)
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     public List<String> getLanguages() {
         if (languages == null) {
             languages = new ArrayList<>();
@@ -452,6 +473,8 @@ public class HibernateAccount implements Account {
     @OneToMany(mappedBy = "accountId", cascade = CascadeType.ALL, orphanRemoval = true, 
         fetch = FetchType.EAGER, targetEntity=HibernateAccountSubstudy.class)
     @OnDelete(action=OnDeleteAction.CASCADE)
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @Override
     public Set<AccountSubstudy> getAccountSubstudies() {
         if (accountSubstudies == null) {
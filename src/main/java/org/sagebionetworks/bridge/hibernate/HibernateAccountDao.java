@@ -3,8 +3,13 @@ package org.sagebionetworks.bridge.hibernate;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -12,10 +17,13 @@ import javax.annotation.Resource;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
@@ -23,6 +31,8 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.BridgeUtils.SubstudyAssociations;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
@@ -46,6 +56,25 @@ public class HibernateAccountDao implements AccountDao {
     
     static final String COUNT_QUERY = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct";
     
+    static final String ACCOUNT_SUBSTUDY_PAGE_QUERY = "FROM HibernateAccountSubstudy WHERE accountId IN (:accountIds)";
+    
+    // Seek past the last account of the previous page. Accounts are ordered by (createdOn, id), which is covered by 
+    // the Accounts-StudyId-CreatedOn-Id-Index.
+    // Accounts without a createdOn timestamp can't be given an offset key, so they aren't paged by offset key.
+    static final String OFFSET_KEY_CREATED_ON_CLAUSE = "AND acct.createdOn IS NOT NULL";
+    
+    static final String OFFSET_KEY_CLAUSE = "AND (acct.createdOn > :offsetCreatedOn OR "
+            + "(acct.createdOn = :offsetCreatedOn AND acct.id > :offsetId))";
+    
+    static final String OFFSET_KEY_ORDER_BY = "ORDER BY acct.createdOn, acct.id";
+    
+    private static final char OFFSET_KEY_SEPARATOR = ':';
+    
+    // Paging through an app by offset key makes the same count query for every page. Counts are only refreshed 
+    // periodically, so walking a large app doesn't count every account in it once per page.
+    private final Cache<String, Integer> offsetKeyCountCache = CacheBuilder.newBuilder()
+            .maximumSize(1000).expireAfterWrite(5, TimeUnit.MINUTES).build();
+    
     private HibernateHelper hibernateHelper;
 
     /** This makes interfacing with Hibernate easier. */
@@ -161,6 +190,21 @@ public class HibernateAccountDao implements AccountDao {
             }
             builder.dataGroups(search.getAllOfGroups(), "IN");
             builder.dataGroups(search.getNoneOfGroups(), "NOT IN");
+            if (search.getOffsetKey() != null) {
+                builder.append(OFFSET_KEY_CREATED_ON_CLAUSE);
+            }
+            if (!isCount && StringUtils.isNotBlank(search.getOffsetKey())) {
+                String offsetKey = search.getOffsetKey();
+                int index = offsetKey.indexOf(OFFSET_KEY_SEPARATOR);
+                DateTime offsetCreatedOn;
+                try {
+                    offsetCreatedOn = new DateTime(Long.parseLong(offsetKey.substring(0, index)), DateTimeZone.UTC);
+                } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                    throw new BadRequestException("Invalid offsetKey: " + offsetKey);
+                }
+                builder.append(OFFSET_KEY_CLAUSE, "offsetCreatedOn", offsetCreatedOn, "offsetId",
+                        offsetKey.substring(index + 1));
+            }
         }
         Set<String> callerSubstudies = context.getCallerSubstudies();
         if (!callerSubstudies.isEmpty()) {
@@ -168,6 +212,9 @@ public class HibernateAccountDao implements AccountDao {
         }
         if (!isCount) {
             builder.append("GROUP BY acct.id");        
+            if (search != null && search.getOffsetKey() != null) {
+                builder.append(OFFSET_KEY_ORDER_BY);
+            }
         }
         return builder;
     }
@@ -181,21 +228,40 @@ public class HibernateAccountDao implements AccountDao {
     /** {@inheritDoc} */
     @Override
     public PagedResourceList<AccountSummary> getPagedAccountSummaries(App app, AccountSummarySearch search) {
+        boolean pageByOffsetKey = search.getOffsetKey() != null;
         QueryBuilder builder = makeQuery(SUMMARY_QUERY, app.getIdentifier(), null, search, false);
 
-        // Get page of accounts.
+        // Get page of accounts. When paging by offset key, the query seeks to the start of the page, so no offset 
+        // is needed.
+        Integer offsetBy = pageByOffsetKey ? null : search.getOffsetBy();
         List<HibernateAccount> hibernateAccountList = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(),
-                search.getOffsetBy(), search.getPageSize(), HibernateAccount.class);
+                offsetBy, search.getPageSize(), HibernateAccount.class);
+        
+        // The summary query doesn't load any of the account's collections. Load the substudies for the whole page 
+        // in one query, rather than one query per account.
+        Map<String, List<HibernateAccountSubstudy>> substudiesByAccountId = getAccountSubstudiesForPage(
+                hibernateAccountList);
         List<AccountSummary> accountSummaryList = hibernateAccountList.stream()
-                .map(this::unmarshallAccountSummary).collect(Collectors.toList());
+                .map(acct -> unmarshallAccountSummary(acct, substudiesByAccountId.get(acct.getId())))
+                .collect(Collectors.toList());
 
         // Get count of accounts.
         builder = makeQuery(COUNT_QUERY, app.getIdentifier(), null, search, true);
-        int count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        int count = pageByOffsetKey ? getCachedCount(builder) :
+            hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        
+        // A full page may be followed by another page, which starts after the last account of this one.
+        String nextPageOffsetKey = null;
+        if (pageByOffsetKey && hibernateAccountList.size() == search.getPageSize()) {
+            HibernateAccount last = hibernateAccountList.get(hibernateAccountList.size() - 1);
+            nextPageOffsetKey = last.getCreatedOn().getMillis() + String.valueOf(OFFSET_KEY_SEPARATOR) + last.getId();
+        }
         
         // Package results and return.
         return new PagedResourceList<>(accountSummaryList, count)
-                .withRequestParam(ResourceList.OFFSET_BY, search.getOffsetBy())
+                .withNextPageOffsetKey(nextPageOffsetKey)
+                .withRequestParam(ResourceList.OFFSET_BY, pageByOffsetKey ? null : search.getOffsetBy())
+                .withRequestParam(ResourceList.OFFSET_KEY, search.getOffsetKey())
                 .withRequestParam(ResourceList.PAGE_SIZE, search.getPageSize())
                 .withRequestParam(ResourceList.EMAIL_FILTER, search.getEmailFilter())
                 .withRequestParam(ResourceList.PHONE_FILTER, search.getPhoneFilter())
@@ -206,6 +272,17 @@ public class HibernateAccountDao implements AccountDao {
                 .withRequestParam(ResourceList.NONE_OF_GROUPS, search.getNoneOfGroups());
     }
     
+    private int getCachedCount(QueryBuilder builder) {
+        // The query and its parameters (which include the app ID) identify the count.
+        String cacheKey = builder.getQuery() + new TreeMap<>(builder.getParameters());
+        try {
+            return offsetKeyCountCache.get(cacheKey,
+                    () -> hibernateHelper.queryCount(builder.getQuery(), builder.getParameters()));
+        } catch (ExecutionException ex) {
+            throw new BridgeServiceException(ex.getCause());
+        }
+    }
+    
     // Callers of AccountDao assume that an Account will always a health code and health ID. All accounts created
     // through the DAO will automatically have health code and ID populated, but accounts created in the DB directly
     // are left in a bad state. This method validates the health code mapping on a HibernateAccount and updates it as
@@ -222,24 +299,27 @@ public class HibernateAccountDao implements AccountDao {
         return false;
     }
 
-    // Helper method to unmarshall a HibernateAccount into an AccountSummary.
-    // Package-scoped to facilitate unit tests.
-    AccountSummary unmarshallAccountSummary(HibernateAccount hibernateAccount) {
-        String appId = hibernateAccount.getAppId();
-        
-        // Hibernate will not load the collection of substudies once you use the constructor form of HQL 
-        // to limit the data you retrieve from a table. May need to manually construct the objects to 
-        // avoid this 1+N query.
-        SubstudyAssociations assoc = null;
-        if (hibernateAccount.getId() != null) {
-            List<HibernateAccountSubstudy> accountSubstudies = hibernateHelper.queryGet(
-                    "FROM HibernateAccountSubstudy WHERE accountId=:accountId",
-                    ImmutableMap.of("accountId", hibernateAccount.getId()), null, null, HibernateAccountSubstudy.class);
-            
-            assoc = BridgeUtils.substudyAssociationsVisibleToCaller(accountSubstudies);
-        } else {
-            assoc = BridgeUtils.substudyAssociationsVisibleToCaller(null);
+    // Loads the substudy associations for a page of accounts, keyed by account ID. Accounts without any 
+    // substudies are not in the map.
+    private Map<String, List<HibernateAccountSubstudy>> getAccountSubstudiesForPage(
+            List<HibernateAccount> hibernateAccountList) {
+        Set<String> accountIds = hibernateAccountList.stream().map(HibernateAccount::getId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        if (accountIds.isEmpty()) {
+            return ImmutableMap.of();
         }
+        List<HibernateAccountSubstudy> accountSubstudies = hibernateHelper.queryGet(ACCOUNT_SUBSTUDY_PAGE_QUERY,
+                ImmutableMap.of("accountIds", accountIds), null, null, HibernateAccountSubstudy.class);
+        return accountSubstudies.stream().collect(Collectors.groupingBy(HibernateAccountSubstudy::getAccountId));
+    }
+
+    // Helper method to unmarshall a HibernateAccount into an AccountSummary. Hibernate will not load the collection 
+    // of substudies once you use the constructor form of HQL to limit the data you retrieve from a table, so they 
+    // are loaded separately and passed in. Package-scoped to facilitate unit tests.
+    AccountSummary unmarshallAccountSummary(HibernateAccount hibernateAccount,
+            List<HibernateAccountSubstudy> accountSubstudies) {
+        String appId = hibernateAccount.getAppId();
+        SubstudyAssociations assoc = BridgeUtils.substudyAssociationsVisibleToCaller(accountSubstudies);
         
         return new AccountSummary(hibernateAccount.getFirstName(), hibernateAccount.getLastName(),
                 hibernateAccount.getEmail(), hibernateAccount.getSynapseUserId(), hibernateAccount.getPhone(),
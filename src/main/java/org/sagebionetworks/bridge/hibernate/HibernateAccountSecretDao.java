@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
@@ -14,6 +15,7 @@ import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.dao.AccountSecretDao;
@@ -21,6 +23,7 @@ import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.accounts.AccountSecret;
 import org.sagebionetworks.bridge.models.accounts.AccountSecretType;
 import org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm;
+import org.sagebionetworks.bridge.services.CredentialHashingService;
 import org.sagebionetworks.bridge.time.DateUtils;
 
 /** Hibernate implementation of Account Secret Dao. */
@@ -35,22 +38,30 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
             "accountId = :accountId AND type = :type";
     
     private HibernateHelper hibernateHelper;
+    private CredentialHashingService credentialHashingService;
     
     @Resource(name = "basicHibernateHelper")
     final void setHibernateHelper(HibernateHelper hibernateHelper) {
         this.hibernateHelper = hibernateHelper;
     }
     
-    protected String generateHash(PasswordAlgorithm algorithm, String plaintext) {
+    @Autowired
+    final void setCredentialHashingService(CredentialHashingService credentialHashingService) {
+        this.credentialHashingService = credentialHashingService;
+    }
+    
+    // Only the hash runs on the hashing thread pool; reads and writes stay on the calling thread.
+    protected String generateHash(String appId, PasswordAlgorithm algorithm, String plaintext) {
         try {
-            return algorithm.generateHash(plaintext);
-        } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException e) {
+            return credentialHashingService.hash(appId, () -> algorithm.generateHash(plaintext));
+        } catch (GeneralSecurityException e) {
             throw new BridgeServiceException("Could not generate secret", e);
         }
     }
     
     @Override
-    public void createSecret(AccountSecretType type, String accountId, String plaintext) {
+    public void createSecret(String appId, AccountSecretType type, String accountId, String plaintext) {
+        checkNotNull(appId);
         checkNotNull(type);
         checkNotNull(accountId);
         checkNotNull(plaintext);
@@ -58,7 +69,7 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
         AccountSecret secret = AccountSecret.create();
         secret.setAccountId(accountId);
         secret.setAlgorithm(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM);
-        secret.setHash(generateHash(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM, plaintext));
+        secret.setHash(generateHash(appId, PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM, plaintext));
         secret.setType(type);
         secret.setCreatedOn(DateUtils.getCurrentDateTime());
 
@@ -66,8 +77,9 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
     }
 
     @Override
-    public Optional<AccountSecret> verifySecret(AccountSecretType type, String accountId, String plaintext,
-            int rotations) {
+    public Optional<AccountSecret> verifySecret(String appId, AccountSecretType type, String accountId,
+            String plaintext, int rotations) {
+        checkNotNull(appId);
         checkNotNull(type);
         checkNotNull(accountId);
         checkNotNull(plaintext);
@@ -78,19 +90,29 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
         
         List<HibernateAccountSecret> secrets = hibernateHelper.queryGet(
                 GET_QUERY, params, 0, rotations, HibernateAccountSecret.class);
-        for (HibernateAccountSecret accountSecret : secrets) {
-            try {
-                // It's not possible to cache the hashed plaintext, as it is being compared to a hash
-                // that has been seeded with a random salt (in the default algorithm's case). So we
-                // must extract and use that salt + iterations to compare the hashes.
-                if (accountSecret.getAlgorithm().checkHash(accountSecret.getHash(), plaintext)) {
-                    return Optional.of(accountSecret);
+        if (secrets.isEmpty()) {
+            return Optional.empty();
+        }
+        // All rotations are checked in one call to the hashing thread pool, so they are admitted once.
+        try {
+            return credentialHashingService.hash(appId, () -> {
+                for (HibernateAccountSecret accountSecret : secrets) {
+                    try {
+                        // It's not possible to cache the hashed plaintext, as it is being compared to a hash
+                        // that has been seeded with a random salt (in the default algorithm's case). So we
+                        // must extract and use that salt + iterations to compare the hashes.
+                        if (accountSecret.getAlgorithm().checkHash(accountSecret.getHash(), plaintext)) {
+                            return Optional.of(accountSecret);
+                        }
+                    } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException e) {
+                        LOG.error("Error checking reauthentication token", e);
+                    }
                 }
-            } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException e) {
-                LOG.error("Error checking reauthentication token", e);
-            }
+                return Optional.empty();
+            });
+        } catch (GeneralSecurityException e) {
+            throw new BridgeServiceException("Error checking reauthentication token", e);
         }
-        return Optional.empty();
     }
     
     @Override
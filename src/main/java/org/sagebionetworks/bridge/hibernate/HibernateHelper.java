@@ -175,6 +175,19 @@ public class HibernateHelper {
         });
     }
 
+    /** Creates the objects in the first list and updates the objects in the second, in a single transaction. */
+    public <T> void createAndUpdateAll(List<T> createList, List<T> updateList) {
+        executeWithExceptionHandling(null, session -> {
+            for (T obj : createList) {
+                session.save(obj);
+            }
+            for (T obj : updateList) {
+                session.update(obj);
+            }
+            return null;
+        });
+    }
+
     /** Updates a single object. */
     public <T> T update(T obj, Consumer<T> afterPersistConsumer) {
         return executeWithExceptionHandling(obj, session -> {
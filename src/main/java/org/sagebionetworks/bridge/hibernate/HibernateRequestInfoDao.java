@@ -1,9 +1,17 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
+import com.google.common.collect.ImmutableMap;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.dao.RequestInfoDao;
@@ -11,6 +19,8 @@ import org.sagebionetworks.bridge.models.RequestInfo;
 
 @Component
 public class HibernateRequestInfoDao implements RequestInfoDao {
+    static final String GET_BY_USER_IDS_QUERY = "FROM RequestInfo WHERE userId IN (:userIds)";
+    
     private HibernateHelper hibernateHelper;
     
     @Resource(name = "basicHibernateHelper")
@@ -31,6 +41,33 @@ public class HibernateRequestInfoDao implements RequestInfoDao {
         }        
     }
 
+    @Override
+    public void updateRequestInfos(List<RequestInfo> requestInfos) {
+        checkNotNull(requestInfos);
+        if (requestInfos.isEmpty()) {
+            return;
+        }
+        Set<String> userIds = requestInfos.stream().map(RequestInfo::getUserId).collect(toSet());
+        Map<String, RequestInfo> existingMap = hibernateHelper.queryGet(GET_BY_USER_IDS_QUERY,
+                ImmutableMap.of("userIds", userIds), null, null, RequestInfo.class).stream()
+                .collect(toMap(RequestInfo::getUserId, info -> info));
+        
+        List<RequestInfo> createList = new ArrayList<>();
+        List<RequestInfo> updateList = new ArrayList<>();
+        for (RequestInfo requestInfo : requestInfos) {
+            RequestInfo existingRequestInfo = existingMap.get(requestInfo.getUserId());
+            if (existingRequestInfo != null) {
+                RequestInfo.Builder builder = new RequestInfo.Builder();
+                builder.copyOf(existingRequestInfo);
+                builder.copyOf(requestInfo);
+                updateList.add(builder.build());
+            } else {
+                createList.add(requestInfo);
+            }
+        }
+        hibernateHelper.createAndUpdateAll(createList, updateList);
+    }
+
     @Override
     public RequestInfo getRequestInfo(String userId) {
         checkNotNull(userId);
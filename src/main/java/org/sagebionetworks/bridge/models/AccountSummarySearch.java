@@ -26,9 +26,11 @@ public final class AccountSummarySearch implements BridgeEntity {
     private final String language;
     private final DateTime startTime;
     private final DateTime endTime;
+    private final String offsetKey;
 
     private AccountSummarySearch(int offsetBy, int pageSize, String emailFilter, String phoneFilter,
-            Set<String> allOfGroups, Set<String> noneOfGroups, String language, DateTime startTime, DateTime endTime) {
+            Set<String> allOfGroups, Set<String> noneOfGroups, String language, DateTime startTime, DateTime endTime,
+            String offsetKey) {
         this.offsetBy = offsetBy;
         this.pageSize = pageSize;
         this.emailFilter = emailFilter;
@@ -38,6 +40,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         this.language = language;
         this.startTime = startTime;
         this.endTime = endTime;
+        this.offsetKey = offsetKey;
     }
 
     public int getOffsetBy() {
@@ -69,6 +72,15 @@ public final class AccountSummarySearch implements BridgeEntity {
     public DateTime getEndTime() {
         return endTime;
     }
+    
+    /**
+     * If not null, accounts are paged in order of creation using this key, rather than by offset, and offsetBy is 
+     * ignored. Use an empty key to get the first page, and the nextPageOffsetKey of each page to get the page after 
+     * it. Each page is an index seek however deep into the list it is, and the total is only counted periodically.
+     */
+    public String getOffsetKey() {
+        return offsetKey;
+    }
 
     @Override
     public int hashCode() {
@@ -77,7 +89,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         // versus ISOChronology[-07:00] if that's the offset at the time of serialization). Using the ISO String
         // representation of the DateTime gives us equality across serialization.
         return Objects.hash(allOfGroups, emailFilter, nullsafeDateString(endTime), language, noneOfGroups, offsetBy,
-                pageSize, phoneFilter, nullsafeDateString(startTime));
+                pageSize, phoneFilter, nullsafeDateString(startTime), offsetKey);
     }
 
     @Override
@@ -96,7 +108,8 @@ public final class AccountSummarySearch implements BridgeEntity {
                 && Objects.equals(language, other.language) && Objects.equals(noneOfGroups, other.noneOfGroups)
                 && Objects.equals(offsetBy, other.offsetBy) && Objects.equals(pageSize, other.pageSize)
                 && Objects.equals(phoneFilter, other.phoneFilter)
-                && Objects.equals(nullsafeDateString(startTime), nullsafeDateString(other.startTime));
+                && Objects.equals(nullsafeDateString(startTime), nullsafeDateString(other.startTime))
+                && Objects.equals(offsetKey, other.offsetKey);
     }
     
     private String nullsafeDateString(DateTime dateTime) {
@@ -107,7 +120,8 @@ public final class AccountSummarySearch implements BridgeEntity {
     public String toString() {
         return "AccountSummarySearch [offsetBy=" + offsetBy + ", pageSize=" + pageSize + ", emailFilter=" + emailFilter
                 + ", phoneFilter=" + phoneFilter + ", allOfGroups=" + allOfGroups + ", noneOfGroups=" + noneOfGroups
-                + ", language=" + language + ", startTime=" + startTime + ", endTime=" + endTime + "]";
+                + ", language=" + language + ", startTime=" + startTime + ", endTime=" + endTime + ", offsetKey="
+                + offsetKey + "]";
     }
     
     public static class Builder {
@@ -120,6 +134,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         private String language;
         private DateTime startTime;
         private DateTime endTime;
+        private String offsetKey;
         
         public Builder withOffsetBy(Integer offsetBy) {
             this.offsetBy = offsetBy;
@@ -164,11 +179,15 @@ public final class AccountSummarySearch implements BridgeEntity {
             return this;
         }
         
+        public Builder withOffsetKey(String offsetKey) {
+            this.offsetKey = offsetKey;
+            return this;
+        }
         public AccountSummarySearch build() {
             int defaultedOffsetBy = (offsetBy == null) ? 0 : offsetBy;
             int defaultedPageSize = (pageSize == null) ? API_DEFAULT_PAGE_SIZE : pageSize;
             return new AccountSummarySearch(defaultedOffsetBy, defaultedPageSize, emailFilter, phoneFilter, allOfGroups,
-                    noneOfGroups, language, startTime, endTime);
+                    noneOfGroups, language, startTime, endTime, offsetKey);
         }
     }
 
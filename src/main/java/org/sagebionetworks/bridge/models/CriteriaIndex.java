@@ -0,0 +1,152 @@
+package org.sagebionetworks.bridge.models;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * <p>
+ * A list of objects with criteria (app configs, schedule criteria, etc.), compiled so it can be filtered for many
+ * requests. Every data group and substudy ID named by any of the criteria is given a bit, and the required and
+ * prohibited sets of each criteria become bit masks. The caller's data groups and substudies are encoded into the same
+ * bits once per filter, so each candidate is checked with a few AND operations per 64 groups, instead of set lookups.
+ * </p>
+ * <p>
+ * Returns the same objects, in the same order, as CriteriaUtils.filterByCriteria(). The index holds the data groups
+ * and substudies of each criteria as they were when it was compiled, so it must be compiled again if the objects or
+ * their criteria change.
+ * </p>
+ */
+public final class CriteriaIndex<T extends HasCriteria> {
+    private final List<T> candidates;
+    private final Map<String, Integer> dataGroupBits;
+    private final Map<String, Integer> substudyBits;
+    private final int dataGroupWords;
+    private final int substudyWords;
+    // One mask per candidate, in the same order as the candidates.
+    private final long[][] allOfGroups;
+    private final long[][] noneOfGroups;
+    private final long[][] allOfSubstudyIds;
+    private final long[][] noneOfSubstudyIds;
+
+    private CriteriaIndex(List<T> candidates) {
+        this.candidates = candidates;
+        this.dataGroupBits = new HashMap<>();
+        this.substudyBits = new HashMap<>();
+        for (T candidate : candidates) {
+            Criteria criteria = candidate.getCriteria();
+            checkNotNull(criteria);
+            assignBits(dataGroupBits, criteria.getAllOfGroups());
+            assignBits(dataGroupBits, criteria.getNoneOfGroups());
+            assignBits(substudyBits, criteria.getAllOfSubstudyIds());
+            assignBits(substudyBits, criteria.getNoneOfSubstudyIds());
+        }
+        this.dataGroupWords = getWordCount(dataGroupBits);
+        this.substudyWords = getWordCount(substudyBits);
+
+        int size = candidates.size();
+        this.allOfGroups = new long[size][];
+        this.noneOfGroups = new long[size][];
+        this.allOfSubstudyIds = new long[size][];
+        this.noneOfSubstudyIds = new long[size][];
+        for (int i = 0; i < size; i++) {
+            Criteria criteria = candidates.get(i).getCriteria();
+            allOfGroups[i] = encode(criteria.getAllOfGroups(), dataGroupBits, dataGroupWords);
+            noneOfGroups[i] = encode(criteria.getNoneOfGroups(), dataGroupBits, dataGroupWords);
+            allOfSubstudyIds[i] = encode(criteria.getAllOfSubstudyIds(), substudyBits, substudyWords);
+            noneOfSubstudyIds[i] = encode(criteria.getNoneOfSubstudyIds(), substudyBits, substudyWords);
+        }
+    }
+
+    /** Compile the criteria of these objects. The order of the objects is kept for objects that sort as equal. */
+    public static <T extends HasCriteria> CriteriaIndex<T> compile(Collection<T> candidates) {
+        checkNotNull(candidates);
+        return new CriteriaIndex<>(ImmutableList.copyOf(candidates));
+    }
+
+    /** All of the compiled objects, matching or not. */
+    public List<T> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Get the objects whose criteria match the context, sorted by the caller's language preference, and then by the
+     * second comparator if it is provided.
+     */
+    public List<T> filter(CriteriaContext context, Comparator<T> secondComparator) {
+        checkNotNull(context);
+        checkNotNull(context.getLanguages());
+        checkNotNull(context.getClientInfo());
+        checkNotNull(context.getUserDataGroups());
+
+        long[] dataGroups = encode(context.getUserDataGroups(), dataGroupBits, dataGroupWords);
+        long[] substudyIds = encode(context.getUserSubstudyIds(), substudyBits, substudyWords);
+
+        List<T> matches = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            T candidate = candidates.get(i);
+            Criteria criteria = candidate.getCriteria();
+            if (CriteriaUtils.appVersionDoesNotMatch(context.getClientInfo(), criteria)
+                    || !containsAll(dataGroups, allOfGroups[i]) || !isDisjoint(dataGroups, noneOfGroups[i])
+                    || !containsAll(substudyIds, allOfSubstudyIds[i]) || !isDisjoint(substudyIds, noneOfSubstudyIds[i])
+                    || CriteriaUtils.languageDoesNotMatch(context.getLanguages(), criteria.getLanguage())) {
+                continue;
+            }
+            matches.add(candidate);
+        }
+        // List.sort() is stable, as is the sort in CriteriaUtils.filterByCriteria().
+        matches.sort(CriteriaUtils.getMatchComparator(context, secondComparator));
+        return matches;
+    }
+
+    private static void assignBits(Map<String, Integer> bits, Set<String> values) {
+        checkNotNull(values);
+        for (String value : values) {
+            bits.putIfAbsent(value, bits.size());
+        }
+    }
+
+    private static int getWordCount(Map<String, Integer> bits) {
+        return (bits.size() + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    // Values that aren't named by any criteria don't affect matching, so they have no bit and are skipped.
+    private static long[] encode(Set<String> values, Map<String, Integer> bits, int words) {
+        long[] encoded = new long[words];
+        if (words > 0) {
+            for (String value : values) {
+                Integer bit = bits.get(value);
+                if (bit != null) {
+                    encoded[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+                }
+            }
+        }
+        return encoded;
+    }
+
+    private static boolean containsAll(long[] values, long[] required) {
+        for (int i = 0; i < required.length; i++) {
+            if ((values[i] & required[i]) != required[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDisjoint(long[] values, long[] prohibited) {
+        for (int i = 0; i < prohibited.length; i++) {
+            if ((values[i] & prohibited[i]) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -32,6 +32,15 @@ public class CriteriaUtils {
         checkNotNull(context);
         checkNotNull(coll);
         
+        return coll.stream()
+                .filter((el) -> matchCriteria(context, el.getCriteria()))
+                .sorted(getMatchComparator(context, secondComparator))
+                .collect(toList());
+    }
+    
+    /** The order of matched objects, which is also used by CriteriaIndex. */
+    static <T extends HasCriteria> Comparator<T> getMatchComparator(CriteriaContext context,
+            Comparator<T> secondComparator) {
         // Sort by language
         final List<String> langs = context.getLanguages();
         Comparator<T> comparator = (sel1, sel2) -> {
@@ -43,10 +52,7 @@ public class CriteriaUtils {
         if (secondComparator != null) {
             comparator = comparator.thenComparing(secondComparator);
         }
-        return coll.stream()
-                .filter((el) -> matchCriteria(context, el.getCriteria()))
-                .sorted(comparator)
-                .collect(toList());
+        return comparator;
     }
     
     /**
@@ -65,15 +71,8 @@ public class CriteriaUtils {
         checkNotNull(criteria.getAllOfSubstudyIds());
         checkNotNull(criteria.getNoneOfSubstudyIds());
         
-        Integer appVersion = context.getClientInfo().getAppVersion();
-        String appOs = context.getClientInfo().getOsName();
-        if (appVersion != null && appOs != null) {
-            Integer minAppVersion = criteria.getMinAppVersion(appOs);
-            Integer maxAppVersion = criteria.getMaxAppVersion(appOs);
-            if ((minAppVersion != null && appVersion < minAppVersion) ||
-                (maxAppVersion != null && appVersion > maxAppVersion)) {
-                return false;
-            }
+        if (appVersionDoesNotMatch(context.getClientInfo(), criteria)) {
+            return false;
         }
         Set<String> dataGroups = context.getUserDataGroups();
         if (!dataGroups.containsAll(criteria.getAllOfGroups())) {
@@ -139,9 +138,23 @@ public class CriteriaUtils {
         errors.popNestedPath();
     }
 
+    static boolean appVersionDoesNotMatch(ClientInfo clientInfo, Criteria criteria) {
+        Integer appVersion = clientInfo.getAppVersion();
+        String appOs = clientInfo.getOsName();
+        if (appVersion != null && appOs != null) {
+            Integer minAppVersion = criteria.getMinAppVersion(appOs);
+            Integer maxAppVersion = criteria.getMaxAppVersion(appOs);
+            if ((minAppVersion != null && appVersion < minAppVersion) ||
+                (maxAppVersion != null && appVersion > maxAppVersion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // This is a simple match: if a criteria declares a language, the user must declare the language
     // This does NOT necessarily return the user's most desired language.
-    private static boolean languageDoesNotMatch(List<String> preferredLanguages, String targetLanguage) {
+    static boolean languageDoesNotMatch(List<String> preferredLanguages, String targetLanguage) {
         // It doesn't match if 1) target language has been specified or 
         // 2) user has declared the required language. 
         if (targetLanguage == null) {
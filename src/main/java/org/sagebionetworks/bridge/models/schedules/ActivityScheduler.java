@@ -17,9 +17,17 @@ import org.sagebionetworks.bridge.models.RangeTuple;
 public abstract class ActivityScheduler {
     
     protected final Schedule schedule;
+    // The schedule's event IDs, split once when the scheduler is created. If no event is specified, it's 
+    // enrollment by default.
+    protected final List<String> eventIds;
 
     ActivityScheduler(Schedule schedule) {
         this.schedule = schedule;
+        String eventIdString = schedule.getEventId();
+        if (eventIdString == null) {
+            eventIdString = "enrollment";
+        }
+        this.eventIds = ImmutableList.copyOf(Schedule.EVENT_ID_SPLITTER.split(eventIdString.trim()));
     }
     
     public abstract List<ScheduledActivity> getScheduledActivities(SchedulePlan plan, ScheduleContext context);
@@ -35,16 +43,10 @@ public abstract class ActivityScheduler {
             return ImmutableList.of();
         }
 
-        // If no event is specified, it's enrollment by default.
-        String eventIdString = schedule.getEventId();
-        if (eventIdString == null) {
-            eventIdString = "enrollment";
-        }
-
         // For one-time and persistent schedules, schedule off the first event specified in the list. For recurring
         // schedules, schedule off _all_ events specified.
         boolean getAll = schedule.getScheduleType() == ScheduleType.RECURRING;
-        List<DateTime> eventTimeList = getEventDateTimes(context, eventIdString, getAll);
+        List<DateTime> eventTimeList = getEventDateTimes(context, eventIds, getAll);
 
         List<RangeTuple<DateTime>> scheduleWindowList = new ArrayList<>();
         for (DateTime oneEventTime : eventTimeList) {
@@ -157,17 +159,26 @@ public abstract class ActivityScheduler {
      * @return list of one or all specified event date-times
      */
     protected List<DateTime> getEventDateTimes(ScheduleContext context, String eventIdsString, boolean getAll) {
+        if (eventIdsString == null) {
+            return new ArrayList<>();
+        }
+        return getEventDateTimes(context, Schedule.EVENT_ID_SPLITTER.split(eventIdsString.trim()), getAll);
+    }
+
+    /**
+     * Helper method used to get specified event date times from the schedule context, for event IDs that have 
+     * already been split.
+     */
+    protected List<DateTime> getEventDateTimes(ScheduleContext context, Iterable<String> eventIds, boolean getAll) {
         List<DateTime> eventDateTimeList = new ArrayList<>();
-        if (eventIdsString != null) {
-            Iterable<String> eventIds = Schedule.EVENT_ID_SPLITTER.split(eventIdsString.trim());
-            for (String thisEventId : eventIds) {
-                if (context.getEvent(thisEventId) != null) {
-                    eventDateTimeList.add(context.getEvent(thisEventId));
-
-                    if (!getAll) {
-                        // We only wanted one event, and we found it, so break.
-                        break;
-                    }
+        for (String thisEventId : eventIds) {
+            DateTime eventTime = context.getEvent(thisEventId);
+            if (eventTime != null) {
+                eventDateTimeList.add(eventTime);
+
+                if (!getAll) {
+                    // We only wanted one event, and we found it, so break.
+                    break;
                 }
             }
         }
@@ -6,6 +6,7 @@ import java.util.Set;
 
 import org.springframework.validation.Errors;
 
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.CriteriaUtils;
 import org.sagebionetworks.bridge.util.BridgeCollectors;
 import org.sagebionetworks.bridge.validators.ScheduleValidator;
@@ -15,9 +16,23 @@ import com.google.common.collect.Lists;
 public final class CriteriaScheduleStrategy implements ScheduleStrategy {
     
     private final List<ScheduleCriteria> scheduleCriteria = Lists.newArrayList();
+    // Compiled on first use, and discarded when the list of criteria is changed through this class. Strategies of 
+    // cached plans are shared between requests, so the criteria are only compiled once per plan.
+    private transient volatile CriteriaIndex<ScheduleCriteria> criteriaIndex;
 
     public void addCriteria(ScheduleCriteria criteria) {
         this.scheduleCriteria.add(criteria);
+        this.criteriaIndex = null;
+    }
+    
+    /**
+     * Replaces the schedule criteria at the given position, for example with the criteria loaded from the 
+     * criteria table. Don't set them through the list returned by getScheduleCriteria(), or the compiled 
+     * criteria won't be discarded.
+     */
+    public void replaceCriteria(int index, ScheduleCriteria criteria) {
+        this.scheduleCriteria.set(index, criteria);
+        this.criteriaIndex = null;
     }
     
     public List<ScheduleCriteria> getScheduleCriteria() {
@@ -29,6 +44,7 @@ public final class CriteriaScheduleStrategy implements ScheduleStrategy {
         if (criteria != null) {
             this.scheduleCriteria.addAll(criteria);    
         }
+        this.criteriaIndex = null;
     }    
     
     /**
@@ -42,7 +58,13 @@ public final class CriteriaScheduleStrategy implements ScheduleStrategy {
      */
     @Override
     public Schedule getScheduleForUser(SchedulePlan plan, ScheduleContext context) {
-        List<ScheduleCriteria> found = CriteriaUtils.filterByCriteria(context.getCriteriaContext(), scheduleCriteria, null);
+        CriteriaIndex<ScheduleCriteria> index = criteriaIndex;
+        if (index == null) {
+            // Two threads may both compile the criteria, but the results are equivalent, so this doesn't need to lock.
+            index = CriteriaIndex.compile(scheduleCriteria);
+            criteriaIndex = index;
+        }
+        List<ScheduleCriteria> found = index.filter(context.getCriteriaContext(), null);
         return (found.isEmpty()) ? null : found.get(0).getSchedule();
     }
 
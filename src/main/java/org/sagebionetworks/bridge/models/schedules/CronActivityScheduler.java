@@ -1,10 +1,12 @@
 package org.sagebionetworks.bridge.models.schedules;
 
+import java.text.ParseException;
 import java.util.Date;
 import java.util.List;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
+import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.spi.MutableTrigger;
 
@@ -13,9 +15,19 @@ import com.google.common.collect.Lists;
 import org.sagebionetworks.bridge.models.RangeTuple;
 
 class CronActivityScheduler extends ActivityScheduler {
+    
+    // Parsed once when the scheduler is created. The expression is only read after it is parsed, so it can be 
+    // shared by all the triggers built from it.
+    private final CronExpression cronExpression;
 
     CronActivityScheduler(Schedule schedule) {
         super(schedule);
+        try {
+            this.cronExpression = new CronExpression(schedule.getCronTrigger());
+        } catch (ParseException e) {
+            throw new RuntimeException("CronExpression '" + schedule.getCronTrigger() + "' is invalid.", e);
+        }
+        this.cronExpression.setTimeZone(DateTimeZone.UTC.toTimeZone());
     }
     
     @Override
@@ -44,9 +56,7 @@ class CronActivityScheduler extends ActivityScheduler {
     }
     
     private MutableTrigger parseTrigger(DateTime scheduledTime) {
-        MutableTrigger mutable = CronScheduleBuilder
-            .cronSchedule(schedule.getCronTrigger())
-            .inTimeZone(DateTimeZone.UTC.toTimeZone()).build();
+        MutableTrigger mutable = CronScheduleBuilder.cronSchedule(cronExpression).build();
         mutable.setStartTime(scheduledTime.toDate());
         return mutable;
     }
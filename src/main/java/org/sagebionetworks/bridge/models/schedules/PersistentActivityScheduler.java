@@ -4,6 +4,8 @@ import java.util.List;
 
 import org.joda.time.DateTime;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 public class PersistentActivityScheduler extends ActivityScheduler {
@@ -14,10 +16,8 @@ public class PersistentActivityScheduler extends ActivityScheduler {
     
     @Override
     public List<ScheduledActivity> getScheduledActivities(SchedulePlan plan, ScheduleContext context) {
-        // similar to a safety check in ActivityScheduler.getScheduleWindowsBasedOnEvents
-        if (schedule.getEventId() == null) {
-            schedule.setEventId("enrollment");
-        }
+        // If no event is specified, the scheduler's event IDs default to enrollment. The schedule itself isn't 
+        // changed, since it can be shared between requests.
         List<ScheduledActivity> scheduledActivities = Lists.newArrayList();
         for (Activity activity : schedule.getActivities()) {
 
@@ -27,7 +27,7 @@ public class PersistentActivityScheduler extends ActivityScheduler {
             // won't break anything if a user does include it in the eventId.
             String finishedId = "activity:"+activity.getGuid()+":finished";
             List<DateTime> scheduledTimeList = getEventDateTimes(context,
-                    finishedId+"," + schedule.getEventId(), false);
+                    Iterables.concat(ImmutableList.of(finishedId), eventIds), false);
 
             if (!scheduledTimeList.isEmpty()) {
                 DateTime scheduledTime = scheduledTimeList.get(0);
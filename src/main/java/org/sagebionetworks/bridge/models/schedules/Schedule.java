@@ -57,6 +57,9 @@ public class Schedule implements BridgeEntity {
     private DateTime endsOn;
     private List<LocalTime> times = Lists.newArrayList();
     private List<Activity> activities = Lists.newArrayList();
+    // Created on first use, and discarded when a field that determines the scheduler (or anything it precompiles) 
+    // changes. Schedules of cached plans are shared between requests, so this is only parsed once per plan.
+    private transient volatile ActivityScheduler scheduler;
     
     public List<Activity> getActivities() {
         return activities;
@@ -98,12 +101,14 @@ public class Schedule implements BridgeEntity {
     }
     public void setScheduleType(ScheduleType scheduleType) {
         this.scheduleType = scheduleType;
+        this.scheduler = null;
     }
     public String getCronTrigger() {
         return cronTrigger;
     }
     public void setCronTrigger(String cronTrigger) {
         this.cronTrigger = cronTrigger;
+        this.scheduler = null;
     }
     public DateTime getStartsOn() {
         return startsOn;
@@ -169,6 +174,7 @@ public class Schedule implements BridgeEntity {
     }
     public void setEventId(String eventId) {
         this.eventId = eventId;
+        this.scheduler = null;
     }
     /**
      * Persistent schedules will reschedule an activity immediately after it is finished. 
@@ -192,12 +198,19 @@ public class Schedule implements BridgeEntity {
     @JsonIgnore
     @DynamoDBIgnore
     public ActivityScheduler getScheduler() {
-        if (getCronTrigger() != null) {
-            return new CronActivityScheduler(this);
-        } else if (scheduleType == ScheduleType.PERSISTENT) {
-            return new PersistentActivityScheduler(this);
+        ActivityScheduler activityScheduler = scheduler;
+        if (activityScheduler == null) {
+            // Two threads may both create a scheduler, but they are equivalent, so this doesn't need to lock.
+            if (getCronTrigger() != null) {
+                activityScheduler = new CronActivityScheduler(this);
+            } else if (scheduleType == ScheduleType.PERSISTENT) {
+                activityScheduler = new PersistentActivityScheduler(this);
+            } else {
+                activityScheduler = new IntervalActivityScheduler(this);
+            }
+            scheduler = activityScheduler;
         }
-        return new IntervalActivityScheduler(this);
+        return activityScheduler;
     }
     public boolean schedulesImmediatelyAfterEvent() {
         return getEventId() != null && 
@@ -43,6 +43,9 @@ public interface Upload {
      */
     String getRecordId();
 
+    /** Upload content length in bytes, as declared when the upload was requested. */
+    long getContentLength();
+
     /** Represents upload status, such as requested, validation in progress, validation failed, or succeeded. */
     UploadStatus getStatus();
 
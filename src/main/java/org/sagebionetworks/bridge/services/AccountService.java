@@ -12,9 +12,7 @@ import static org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm.DEFAU
 import static org.sagebionetworks.bridge.services.AuthenticationService.ChannelType.EMAIL;
 import static org.sagebionetworks.bridge.services.AuthenticationService.ChannelType.PHONE;
 
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
+import java.security.GeneralSecurityException;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -53,6 +51,7 @@ public class AccountService {
     
     private AccountDao accountDao;
     private AccountSecretDao accountSecretDao;
+    private CredentialHashingService credentialHashingService;
 
     @Autowired
     public final void setAccountDao(AccountDao accountDao) {
@@ -64,6 +63,11 @@ public class AccountService {
         this.accountSecretDao = accountSecretDao;
     }
     
+    @Autowired
+    public final void setCredentialHashingService(CredentialHashingService credentialHashingService) {
+        this.credentialHashingService = credentialHashingService;
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -123,7 +127,7 @@ public class AccountService {
         
         PasswordAlgorithm passwordAlgorithm = DEFAULT_PASSWORD_ALGORITHM;
         
-        String passwordHash = hashCredential(passwordAlgorithm, "password", newPassword);
+        String passwordHash = hashCredential(account.getAppId(), passwordAlgorithm, "password", newPassword);
 
         // Update
         DateTime modifiedOn = DateUtils.getCurrentDateTime();
@@ -175,8 +179,8 @@ public class AccountService {
         }
         Account account = accountDao.getAccount(signIn.getAccountId())
                 .orElseThrow(() -> new EntityNotFoundException(Account.class));
-        accountSecretDao.verifySecret(REAUTH, account.getId(), signIn.getReauthToken(), ROTATIONS)
-            .orElseThrow(() -> new EntityNotFoundException(Account.class));
+        accountSecretDao.verifySecret(app.getIdentifier(), REAUTH, account.getId(), signIn.getReauthToken(),
+                ROTATIONS).orElseThrow(() -> new EntityNotFoundException(Account.class));
         return authenticateInternal(app, account, signIn);        
     }
     
@@ -339,19 +343,21 @@ public class AccountService {
             throw new EntityNotFoundException(Account.class);
         }
         try {
-            if (!account.getPasswordAlgorithm().checkHash(account.getPasswordHash(), plaintext)) {
+            boolean matches = credentialHashingService.hash(account.getAppId(),
+                    () -> account.getPasswordAlgorithm().checkHash(account.getPasswordHash(), plaintext));
+            if (!matches) {
                 // To prevent enumeration attacks, if the credential doesn't match, throw 404 account not found.
                 throw new EntityNotFoundException(Account.class);
             }
-        } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException ex) {
+        } catch (GeneralSecurityException ex) {
             throw new BridgeServiceException("Error validating password: " + ex.getMessage(), ex);
         }        
     }
     
-    protected String hashCredential(PasswordAlgorithm algorithm, String type, String value) {
+    protected String hashCredential(String appId, PasswordAlgorithm algorithm, String type, String value) {
         try {
-            return algorithm.generateHash(value);
-        } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException ex) {
+            return credentialHashingService.hash(appId, () -> algorithm.generateHash(value));
+        } catch (GeneralSecurityException ex) {
             throw new BridgeServiceException("Error creating "+type+": " + ex.getMessage(), ex);
         }
     }    
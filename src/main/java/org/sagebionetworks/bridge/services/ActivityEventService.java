@@ -5,7 +5,10 @@ import static org.sagebionetworks.bridge.BridgeUtils.COMMA_JOINER;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.ImmutableMap.Builder;
@@ -16,6 +19,8 @@ import org.joda.time.Period;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -31,10 +36,17 @@ import org.sagebionetworks.bridge.models.surveys.SurveyAnswer;
 
 @Component
 public class ActivityEventService {
+    
+    static final String ACTIVITIES_RETRIEVED_WINDOW_PROPERTY = "activities.retrieved.coalesce.window.seconds";
+    static final String ACTIVITIES_RETRIEVED_INVALIDATION_CHANNEL = "ActivitiesRetrieved";
 
     private ActivityEventDao activityEventDao;
     private ParticipantService participantService;
     private AppService appService;
+    private CacheInvalidationBus cacheInvalidationBus;
+    // Health codes whose activities_retrieved event has been recorded recently on this server node. The event can 
+    // only be recorded once, so clients polling for activities don't need to attempt the write on every call.
+    private Cache<String, Boolean> activitiesRetrievedCache;
     
     @Autowired
     final void setActivityEventDao(ActivityEventDao activityEventDao) {
@@ -51,6 +63,21 @@ public class ActivityEventService {
         this.appService = appService;
     }
     
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.activitiesRetrievedCache = CacheBuilder.newBuilder().maximumSize(100000)
+                .expireAfterWrite(bridgeConfig.getInt(ACTIVITIES_RETRIEVED_WINDOW_PROPERTY), TimeUnit.SECONDS)
+                .build();
+    }
+    
+    @Autowired
+    final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        // The cache is built from config, so look it up when the invalidation arrives.
+        cacheInvalidationBus.addListener(ACTIVITIES_RETRIEVED_INVALIDATION_CHANNEL,
+                healthCode -> activitiesRetrievedCache.invalidate(healthCode));
+    }
+    
     /**
      * Publishes a custom event. Note that this automatically prepends "custom:" to the event key to form the event ID
      * (eg, event key "studyBurstStart" becomes event ID "custom:studyBurstStart"). Also note that the event key must
@@ -102,6 +129,9 @@ public class ActivityEventService {
         checkNotNull(healthCode);
         checkNotNull(timestamp);
         
+        if (activitiesRetrievedCache.getIfPresent(healthCode) != null) {
+            return;
+        }
         ActivityEvent event = new DynamoActivityEvent.Builder()
             .withHealthCode(healthCode)
             .withTimestamp(timestamp)
@@ -111,6 +141,8 @@ public class ActivityEventService {
             // Create automatic events, as defined in the app
             createAutomaticCustomEvents(app, healthCode, event);
         }
+        // Whether it was written now or before, the event is recorded.
+        activitiesRetrievedCache.put(healthCode, Boolean.TRUE);
     }
     
     public void publishQuestionAnsweredEvent(String healthCode, SurveyAnswer answer) {
@@ -218,6 +250,9 @@ public class ActivityEventService {
     public void deleteActivityEvents(String healthCode) {
         checkNotNull(healthCode);
         activityEventDao.deleteActivityEvents(healthCode);
+        // Every server node may have coalesced this user's activities_retrieved event.
+        activitiesRetrievedCache.invalidate(healthCode);
+        cacheInvalidationBus.publish(ACTIVITIES_RETRIEVED_INVALIDATION_CHANNEL, healthCode);
     }
 
     private void createAutomaticCustomEvents(App app, String healthCode, ActivityEvent event) {
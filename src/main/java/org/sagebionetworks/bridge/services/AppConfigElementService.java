@@ -22,11 +22,18 @@ public class AppConfigElementService {
     
     private AppConfigElementDao appConfigElementDao;
     
+    private AppConfigService appConfigService;
+    
     @Autowired
     final void setAppConfigElementDao(AppConfigElementDao appConfigElementDao) {
         this.appConfigElementDao = appConfigElementDao;
     }
     
+    @Autowired
+    final void setAppConfigService(AppConfigService appConfigService) {
+        this.appConfigService = appConfigService;
+    }
+    
     public List<AppConfigElement> getMostRecentElements(String appId, boolean includeDeleted) {
         checkNotNull(appId);
         
@@ -56,7 +63,9 @@ public class AppConfigElementService {
             throw new EntityAlreadyExistsException(AppConfigElement.class,
                     ImmutableMap.of("id", existing.getId(), "revision", existing.getRevision()));
         }
-        return appConfigElementDao.saveElementRevision(element);
+        VersionHolder version = appConfigElementDao.saveElementRevision(element);
+        appConfigService.invalidateResolvedAppConfigs(appId);
+        return version;
     }
 
     public List<AppConfigElement> getElementRevisions(String appId, String id, boolean includeDeleted) {
@@ -103,7 +112,9 @@ public class AppConfigElementService {
         element.setModifiedOn(DateTime.now().getMillis());
         // cannot change the creation timestamp
         element.setCreatedOn(existing.getCreatedOn());
-        return appConfigElementDao.saveElementRevision(element);
+        VersionHolder version = appConfigElementDao.saveElementRevision(element);
+        appConfigService.invalidateResolvedAppConfigs(appId);
+        return version;
     }
     
     public void deleteElementRevision(String appId, String id, long revision) {
@@ -114,6 +125,7 @@ public class AppConfigElementService {
         existing.setDeleted(true);
         existing.setModifiedOn(DateTime.now().getMillis());
         appConfigElementDao.saveElementRevision(existing);
+        appConfigService.invalidateResolvedAppConfigs(appId);
     }
     
     public void deleteElementAllRevisions(String appId, String id) {
@@ -127,6 +139,7 @@ public class AppConfigElementService {
             oneElement.setModifiedOn(modifiedOn);
             appConfigElementDao.saveElementRevision(oneElement);
         }
+        appConfigService.invalidateResolvedAppConfigs(appId);
     }
     
     public void deleteElementRevisionPermanently(String appId, String id, long revision) {
@@ -136,6 +149,7 @@ public class AppConfigElementService {
         // Throws exception if the element does not exist.
         getElementRevision(appId, id, revision);
         appConfigElementDao.deleteElementRevisionPermanently(appId, id, revision);
+        appConfigService.invalidateResolvedAppConfigs(appId);
     }
     
     public void deleteElementAllRevisionsPermanently(String appId, String id) {
@@ -146,5 +160,6 @@ public class AppConfigElementService {
         for (AppConfigElement oneElement : elements) {
             appConfigElementDao.deleteElementRevisionPermanently(appId, oneElement.getId(), oneElement.getRevision());
         }
+        appConfigService.invalidateResolvedAppConfigs(appId);
     }
 }
@@ -5,18 +5,21 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Comparator.comparingLong;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.AppConfigDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoAppConfig;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.CriteriaContext;
-import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
@@ -34,11 +37,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.validation.Validator;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 @Component
 public class AppConfigService {
     private static final Logger LOG = LoggerFactory.getLogger(AppConfigService.class);
+    // Package-scoped for unit tests.
+    static final String APP_CONFIG_INVALIDATION_CHANNEL = "AppConfig";
+    private static final int APP_CONFIG_CACHE_MAX_SIZE = 500;
+    private static final int APP_CONFIG_CACHE_EXPIRE_IN_SECONDS = 60;
     
     private AppConfigDao appConfigDao;
     
@@ -54,6 +64,16 @@ public class AppConfigService {
     
     private FileService fileService;
     
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    /**
+     * Per-node copy of each app's (undeleted) app configs, with their survey references and config elements already 
+     * resolved and their criteria compiled. Configs are shared between requests and must not be modified by callers.
+     */
+    private final Cache<String, CriteriaIndex<AppConfig>> resolvedAppConfigCache = CacheBuilder.newBuilder()
+            .maximumSize(APP_CONFIG_CACHE_MAX_SIZE)
+            .expireAfterWrite(APP_CONFIG_CACHE_EXPIRE_IN_SECONDS, TimeUnit.SECONDS).build();
+    
     @Autowired
     final void setAppConfigDao(AppConfigDao appConfigDao) {
         this.appConfigDao = appConfigDao;
@@ -89,6 +109,12 @@ public class AppConfigService {
         this.fileService = fileService;
     }
     
+    @Autowired
+    final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.addListener(APP_CONFIG_INVALIDATION_CHANNEL, resolvedAppConfigCache::invalidate);
+    }
+    
     // In order to mock this value;
     protected long getCurrentTimestamp() {
         return DateUtils.getCurrentMillisFromEpoch(); 
@@ -112,13 +138,18 @@ public class AppConfigService {
         return appConfigDao.getAppConfig(appId, guid);
     }
     
+    /**
+     * Get the app config that matches the caller's criteria context. The app's configs are resolved once and served 
+     * from a per-node cache that is invalidated on every server when an app config, a config element, or a survey 
+     * changes, so matching a user doesn't read from DynamoDB. The returned config is shared between requests and 
+     * must not be modified.
+     */
     public AppConfig getAppConfigForUser(CriteriaContext context, boolean throwException) {
         checkNotNull(context);
 
-        List<AppConfig> appConfigs = getAppConfigs(context.getAppId(), false);
+        CriteriaIndex<AppConfig> appConfigs = getResolvedAppConfigs(context.getAppId());
 
-        List<AppConfig> matches = CriteriaUtils.filterByCriteria(context, appConfigs,
-                comparingLong(AppConfig::getCreatedOn));
+        List<AppConfig> matches = appConfigs.filter(context, comparingLong(AppConfig::getCreatedOn));
 
         // Should have matched one and only one app config.
         if (matches.isEmpty()) {
@@ -131,22 +162,53 @@ public class AppConfigService {
             // If there is more than one match, return the one created first, but log a message
             LOG.info("CriteriaContext matches more than one app config: criteriaContext=" + context + ", appConfigs="+matches);
         }
-        AppConfig matched = matches.get(0);
-        // Resolve survey references to pick up survey identifiers
-        matched.setSurveyReferences(matched.getSurveyReferences().stream()
-            .map(surveyReference -> resolveSurvey(context.getAppId(), surveyReference))
-            .collect(Collectors.toList()));
-        
-        ImmutableMap.Builder<String, JsonNode> builder = new ImmutableMap.Builder<>();
-        for (ConfigReference configRef : matched.getConfigReferences()) {
-            AppConfigElement element = retrieveConfigElement(context.getAppId(), configRef, matched.getGuid());
-            if (element != null) {
-                builder.put(configRef.getId(), element.getData());    
+        return matches.get(0);
+    }
+    
+    /**
+     * Drop the resolved app configs of an app on every server node. Call this when anything an app config resolves 
+     * (a config element revision or a survey) has changed.
+     */
+    public void invalidateResolvedAppConfigs(String appId) {
+        checkNotNull(appId);
+        resolvedAppConfigCache.invalidate(appId);
+        cacheInvalidationBus.publish(APP_CONFIG_INVALIDATION_CHANNEL, appId);
+    }
+    
+    private CriteriaIndex<AppConfig> getResolvedAppConfigs(String appId) {
+        CriteriaIndex<AppConfig> appConfigs = resolvedAppConfigCache.getIfPresent(appId);
+        if (appConfigs == null) {
+            // Configs often share surveys and element revisions, so each is looked up once per app.
+            Map<SurveyReference, SurveyReference> resolvedSurveys = new HashMap<>();
+            Map<ConfigReference, AppConfigElement> resolvedElements = new HashMap<>();
+            
+            ImmutableList.Builder<AppConfig> appConfigsBuilder = new ImmutableList.Builder<>();
+            for (AppConfig appConfig : getAppConfigs(appId, false)) {
+                // Resolve survey references to pick up survey identifiers
+                ImmutableList.Builder<SurveyReference> surveyRefsBuilder = new ImmutableList.Builder<>();
+                for (SurveyReference surveyRef : appConfig.getSurveyReferences()) {
+                    surveyRefsBuilder.add(resolvedSurveys.computeIfAbsent(surveyRef,
+                            ref -> resolveSurvey(appId, ref)));
+                }
+                appConfig.setSurveyReferences(surveyRefsBuilder.build());
+                
+                ImmutableMap.Builder<String, JsonNode> elementsBuilder = new ImmutableMap.Builder<>();
+                for (ConfigReference configRef : appConfig.getConfigReferences()) {
+                    if (!resolvedElements.containsKey(configRef)) {
+                        resolvedElements.put(configRef, retrieveConfigElement(appId, configRef, appConfig.getGuid()));
+                    }
+                    AppConfigElement element = resolvedElements.get(configRef);
+                    if (element != null) {
+                        elementsBuilder.put(configRef.getId(), element.getData());
+                    }
+                }
+                appConfig.setConfigElements(elementsBuilder.build());
+                appConfigsBuilder.add(appConfig);
             }
+            appConfigs = CriteriaIndex.compile(appConfigsBuilder.build());
+            resolvedAppConfigCache.put(appId, appConfigs);
         }
-        matched.setConfigElements(builder.build());
-
-        return matched;
+        return appConfigs;
     }
 
     protected AppConfigElement retrieveConfigElement(String appId, ConfigReference configRef, String appConfigGuid) {
@@ -212,6 +274,7 @@ public class AppConfigService {
         
         appConfigDao.createAppConfig(newAppConfig);
         newAppConfig.setVersion(newAppConfig.getVersion());
+        invalidateResolvedAppConfigs(appId);
         return newAppConfig;
     }
     
@@ -234,7 +297,9 @@ public class AppConfigService {
         appConfig.setCreatedOn(persistedConfig.getCreatedOn());
         appConfig.setModifiedOn(getCurrentTimestamp());
         
-        return appConfigDao.updateAppConfig(appConfig);
+        AppConfig updated = appConfigDao.updateAppConfig(appConfig);
+        invalidateResolvedAppConfigs(appId);
+        return updated;
     }
     
     public void deleteAppConfig(String appId, String guid) {
@@ -242,6 +307,7 @@ public class AppConfigService {
         checkArgument(isNotBlank(guid));
         
         appConfigDao.deleteAppConfig(appId, guid);
+        invalidateResolvedAppConfigs(appId);
     }
     
     public void deleteAppConfigPermanently(String appId, String guid) {
@@ -249,5 +315,6 @@ public class AppConfigService {
         checkArgument(isNotBlank(guid));
         
         appConfigDao.deleteAppConfigPermanently(appId, guid);
+        invalidateResolvedAppConfigs(appId);
     }
 }
@@ -572,6 +572,8 @@ public class AppService {
         cacheProvider.removeApp(app.getIdentifier());
         App updatedApp = appDao.updateApp(app);
         cacheProvider.setApp(updatedApp);
+        // Other nodes may have re-cached the old app between the removal and the update.
+        cacheProvider.broadcastAppInvalidation(updatedApp.getIdentifier());
         return updatedApp;
     }
 
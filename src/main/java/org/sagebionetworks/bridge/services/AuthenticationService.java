@@ -488,7 +488,7 @@ public class AuthenticationService {
             account.setReauthToken(null);
         } else {
             String reauthToken = generateReauthToken();
-            accountSecretDao.createSecret(REAUTH, account.getId(), reauthToken);
+            accountSecretDao.createSecret(app.getIdentifier(), REAUTH, account.getId(), reauthToken);
             session.setReauthToken(reauthToken);
         }
         return session;
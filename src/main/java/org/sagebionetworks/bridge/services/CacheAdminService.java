@@ -3,28 +3,39 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 
 @Component
 public class CacheAdminService {
     
     private JedisPool jedisPool;
+    private CacheProvider cacheProvider;
 
     @Resource(name = "jedisPool")
     public void setJedisPool(JedisPool jedisPool) {
         this.jedisPool = jedisPool;
     }
+    
+    @Autowired
+    public void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
 
     /**
      * Returns all keys in the cache that are not user session keys.
@@ -61,4 +72,19 @@ public class CacheAdminService {
         }
     }
     
+    /**
+     * Returns the hit and miss counts of the in-process caches on this server node, keyed by cache name. These 
+     * reflect the Redis round trips (and deserialization) saved on this node since it was started.
+     */
+    public Map<String, Map<String, Long>> getLocalCacheStats() {
+        return ImmutableMap.of("App", statsToMap(cacheProvider.getLocalAppCacheStats()));
+    }
+    
+    static Map<String, Long> statsToMap(CacheStats stats) {
+        return new ImmutableMap.Builder<String, Long>()
+                .put("hitCount", stats.hitCount())
+                .put("missCount", stats.missCount())
+                .put("evictionCount", stats.evictionCount())
+                .put("requestCount", stats.requestCount()).build();
+    }
 }
@@ -4,6 +4,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Boolean.TRUE;
 import static java.nio.charset.Charset.defaultCharset;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
@@ -33,22 +34,45 @@ public final class ConsentPdf {
 
     public static final DateTimeFormatter FORMATTER = DateTimeFormat.forPattern("MMMM d, yyyy");
     
-    private final App app;
     private final StudyParticipant signer;
     private final ConsentSignature consentSignature;
     private final SharingScope sharingScope;
-    private final String studyConsentAgreement;
-    private final String xmlTemplateWithSignatureBlock;
+    private final String consentTemplate;
     private String formattedConsentDocument;
 
     public ConsentPdf(App app, StudyParticipant signer, ConsentSignature consentSignature,
             SharingScope sharingScope, String studyConsentAgreement, String xmlTemplateWithSignatureBlock) {
-        this.app = checkNotNull(app);
+        this(signer, consentSignature, sharingScope,
+                assembleTemplate(app, studyConsentAgreement, xmlTemplateWithSignatureBlock));
+    }
+
+    /**
+     * Creates the consent PDF from a template returned by {@link #assembleTemplate}, so the template can be assembled
+     * once and shared by everyone who signs the same version of the consent.
+     */
+    public ConsentPdf(StudyParticipant signer, ConsentSignature consentSignature, SharingScope sharingScope,
+            String consentTemplate) {
         this.signer = signer;
         this.consentSignature = checkNotNull(consentSignature);
         this.sharingScope = checkNotNull(sharingScope);
-        this.studyConsentAgreement = checkNotNull(studyConsentAgreement);
-        this.xmlTemplateWithSignatureBlock = checkNotNull(xmlTemplateWithSignatureBlock);
+        this.consentTemplate = checkNotNull(consentTemplate);
+    }
+
+    /**
+     * Places the study consent agreement in the page template and resolves the app's template variables. Only the
+     * signer's variables (participant.*) are left in the returned template. The consent agreement is inserted before
+     * the app's variables are resolved, so variables in the agreement are resolved as well.
+     */
+    public static String assembleTemplate(App app, String studyConsentAgreement,
+            String xmlTemplateWithSignatureBlock) {
+        checkNotNull(app);
+        checkNotNull(studyConsentAgreement);
+        checkNotNull(xmlTemplateWithSignatureBlock);
+
+        Map<String,String> bodyMap = new HashMap<>();
+        bodyMap.put("consent.body", studyConsentAgreement);
+        String template = BridgeUtils.resolveTemplate(xmlTemplateWithSignatureBlock, bodyMap);
+        return BridgeUtils.resolveTemplate(template, BridgeUtils.appTemplateVariables(app));
     }
     
     /**
@@ -122,17 +146,15 @@ public final class ConsentPdf {
             contactLabel = "ID";
         }
         
-        // This is now a fragment, assemble accordingly
-        Map<String,String> map = BridgeUtils.appTemplateVariables(app);
+        // The consent agreement is a fragment that has already been assembled into the template, along with the
+        // app's variables
+        Map<String,String> map = new HashMap<>();
         map.put("participant.name", username);
         map.put("participant.signing.date", signingDate);
         map.put("participant.contactInfo", contactInfo);
         map.put("participant.contactLabel", contactLabel);
         map.put("participant.sharing", sharingLabel);
-        String resolvedStudyConsentAgreement = BridgeUtils.resolveTemplate(studyConsentAgreement, map);
-        
-        map.put("consent.body", resolvedStudyConsentAgreement);
-        return BridgeUtils.resolveTemplate(xmlTemplateWithSignatureBlock, map);
+        return BridgeUtils.resolveTemplate(consentTemplate, map);
     }
 
     // Helper method to check if the given string is a valid Base64 string. Returns false for null or blank strings.
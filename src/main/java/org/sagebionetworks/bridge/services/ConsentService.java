@@ -16,13 +16,20 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.io.IOUtils;
 import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.SecureTokenGenerator;
+import org.sagebionetworks.bridge.async.AsyncHandler;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -55,9 +62,13 @@ import org.sagebionetworks.bridge.validators.Validate;
 
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -65,12 +76,22 @@ import org.springframework.stereotype.Component;
 /**
  * Methods to consent a user to one of the subpopulations of an app. After calling most of these methods, the user's
  * session should be updated.
+ *
+ * Signed consent agreements are rendered and sent to the participant on the consent delivery thread pool, after the
+ * participant's account has been updated. Deliveries that fail are retried a few times, and are otherwise logged.
  */
 @Component
 public class ConsentService {
+    private static final Logger LOG = LoggerFactory.getLogger(ConsentService.class);
     
     protected static final String USERSIGNED_CONSENTS_BUCKET = BridgeConfigFactory.getConfig()
             .get("usersigned.consents.bucket");
+    // Package-scoped for unit tests.
+    static final String DELIVERY_MAX_ATTEMPTS_PROPERTY = "consent.delivery.max.attempts";
+    static final String DELIVERY_RETRY_DELAY_PROPERTY = "consent.delivery.retry.delay.millis";
+    private static final int CONSENT_TEMPLATE_CACHE_MAX_SIZE = 1000;
+    private static final int CONSENT_TEMPLATE_CACHE_EXPIRE_IN_MINUTES = 10;
+
     private AccountService accountService;
     private SendMailService sendMailService;
     private SmsService smsService;
@@ -82,6 +103,18 @@ public class ConsentService {
     private S3Helper s3Helper;
     private UrlShortenerService urlShortenerService;
     private TemplateService templateService;
+    private ExecutorService consentDeliveryExecutorService;
+    private int deliveryMaxAttempts;
+    private long deliveryRetryDelayMillis;
+
+    /**
+     * Per-node copy of consent templates assembled by {@link ConsentPdf#assembleTemplate}, keyed by app ID, app
+     * version, subpopulation, and the createdOn of the consent. A consent version's document can't change, and a
+     * change to the app changes its version, so entries don't need to be invalidated.
+     */
+    private final Cache<String, String> consentTemplateCache = CacheBuilder.newBuilder()
+            .maximumSize(CONSENT_TEMPLATE_CACHE_MAX_SIZE)
+            .expireAfterWrite(CONSENT_TEMPLATE_CACHE_EXPIRE_IN_MINUTES, TimeUnit.MINUTES).build();
     
     @Value("classpath:conf/app-defaults/consent-page.xhtml")
     final void setConsentTemplate(org.springframework.core.io.Resource resource) throws IOException {
@@ -130,6 +163,15 @@ public class ConsentService {
     final void setTemplateService(TemplateService templateService) {
         this.templateService = templateService;
     }
+    @Resource(name = "consentDeliveryExecutorService")
+    final void setConsentDeliveryExecutorService(ExecutorService consentDeliveryExecutorService) {
+        this.consentDeliveryExecutorService = consentDeliveryExecutorService;
+    }
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.deliveryMaxAttempts = bridgeConfig.getInt(DELIVERY_MAX_ATTEMPTS_PROPERTY);
+        this.deliveryRetryDelayMillis = bridgeConfig.getInt(DELIVERY_RETRY_DELAY_PROPERTY);
+    }
     
     /**
      * Get the user's active consent signature (a signature that has not been withdrawn).
@@ -214,8 +256,8 @@ public class ConsentService {
 
         // Administrative actions, almost exclusively for testing, will send no consent documents
         if (sendSignedConsent) {
-            ConsentPdf consentPdf = new ConsentPdf(app, participant, withConsentCreatedOnSignature, sharingScope,
-                    studyConsent.getDocumentContent(), xmlTemplateWithSignatureBlock);
+            ConsentPdf consentPdf = new ConsentPdf(participant, withConsentCreatedOnSignature, sharingScope,
+                    getConsentTemplate(app, subpop, studyConsent));
             
             boolean verifiedEmail = (participant.getEmail() != null
                     && Boolean.TRUE.equals(participant.getEmailVerified()));
@@ -230,21 +272,13 @@ public class ConsentService {
             }
             addStudyConsentRecipients(app, recipientEmails);
             if (!recipientEmails.isEmpty()) {
-                TemplateRevision revision = templateService.getRevisionForUser(app, EMAIL_SIGNED_CONSENT);
-                
-                BasicEmailProvider.Builder consentEmailBuilder = new BasicEmailProvider.Builder()
-                        .withApp(app)
-                        .withTemplateRevision(revision)
-                        .withBinaryAttachment("consent.pdf", MimeType.PDF, consentPdf.getBytes())
-                        .withType(EmailType.SIGN_CONSENT);
-                for (String recipientEmail : recipientEmails) {
-                    consentEmailBuilder.withRecipientEmail(recipientEmail);
-                }
-                sendMailService.sendEmail(consentEmailBuilder.build());
+                deliverConsent(participant, consentPdf, consentPdfBytes -> sendConsentViaEmail(app, recipientEmails,
+                        EmailType.SIGN_CONSENT, consentPdfBytes));
             }
             // Otherwise if there's no verified email but there is a phone and we're not suppressing, send it there
             if (!subpop.isAutoSendConsentSuppressed() && !verifiedEmail && verifiedPhone) {
-                sendConsentViaSMS(app, subpop, participant, consentPdf);    
+                deliverConsent(participant, consentPdf,
+                        consentPdfBytes -> sendConsentViaSMS(app, participant, consentPdfBytes));
             }
         }
     }
@@ -391,35 +425,70 @@ public class ConsentService {
         ConsentSignature consentSignature = getConsentSignature(app, subpopGuid, participant.getId());
         SharingScope sharingScope = participant.getSharingScope();
         Subpopulation subpop = subpopService.getSubpopulation(app.getIdentifier(), subpopGuid);
-        String studyConsentDocument = studyConsentService.getActiveConsent(subpop).getDocumentContent();
+        StudyConsentView studyConsent = studyConsentService.getActiveConsent(subpop);
 
         boolean verifiedEmail = (participant.getEmail() != null
                 && Boolean.TRUE.equals(participant.getEmailVerified()));
         boolean verifiedPhone = (participant.getPhone() != null
                 && Boolean.TRUE.equals(participant.getPhoneVerified()));
         
-        ConsentPdf consentPdf = new ConsentPdf(app, participant, consentSignature, sharingScope, studyConsentDocument,
-                xmlTemplateWithSignatureBlock);
+        ConsentPdf consentPdf = new ConsentPdf(participant, consentSignature, sharingScope,
+                getConsentTemplate(app, subpop, studyConsent));
         
         if (verifiedEmail) {
-            TemplateRevision revision = templateService.getRevisionForUser(app, EMAIL_SIGNED_CONSENT);
-            
-            BasicEmailProvider provider = new BasicEmailProvider.Builder()
-                    .withApp(app)
-                    .withTemplateRevision(revision)
-                    .withBinaryAttachment("consent.pdf", MimeType.PDF, consentPdf.getBytes())
-                    .withRecipientEmail(participant.getEmail())
-                    .withType(EmailType.RESEND_CONSENT).build();
-            sendMailService.sendEmail(provider);
+            Set<String> recipientEmails = Sets.newHashSet(participant.getEmail());
+            deliverConsent(participant, consentPdf, consentPdfBytes -> sendConsentViaEmail(app, recipientEmails,
+                    EmailType.RESEND_CONSENT, consentPdfBytes));
         } else if (verifiedPhone) {
-            sendConsentViaSMS(app, subpop, participant, consentPdf);
+            deliverConsent(participant, consentPdf,
+                    consentPdfBytes -> sendConsentViaSMS(app, participant, consentPdfBytes));
         } else {
             throw new BadRequestException("Participant does not have a valid email address or phone number");
         }
     }
+
+    /**
+     * Get the consent template for the active version of the subpopulation's consent, assembling it if it isn't
+     * cached. Package-scoped for unit tests.
+     */
+    String getConsentTemplate(App app, Subpopulation subpop, StudyConsentView studyConsent) {
+        String cacheKey = app.getIdentifier() + ":" + app.getVersion() + ":" + subpop.getGuidString() + ":"
+                + studyConsent.getCreatedOn();
+        String consentTemplate = consentTemplateCache.getIfPresent(cacheKey);
+        if (consentTemplate == null) {
+            consentTemplate = ConsentPdf.assembleTemplate(app, studyConsent.getDocumentContent(),
+                    xmlTemplateWithSignatureBlock);
+            consentTemplateCache.put(cacheKey, consentTemplate);
+        }
+        return consentTemplate;
+    }
+
+    /**
+     * Render the consent PDF and deliver it on the consent delivery thread pool. The caller's request context is
+     * passed to the delivery, since the email and SMS templates are selected based on the caller's client info and
+     * languages.
+     */
+    private void deliverConsent(StudyParticipant participant, ConsentPdf consentPdf, Consumer<byte[]> delivery) {
+        consentDeliveryExecutorService.execute(new ConsentDeliveryHandler(BridgeUtils.getRequestContext(),
+                participant.getId(), consentPdf, delivery));
+    }
+
+    private void sendConsentViaEmail(App app, Set<String> recipientEmails, EmailType emailType,
+            byte[] consentPdfBytes) {
+        TemplateRevision revision = templateService.getRevisionForUser(app, EMAIL_SIGNED_CONSENT);
+        
+        BasicEmailProvider.Builder consentEmailBuilder = new BasicEmailProvider.Builder()
+                .withApp(app)
+                .withTemplateRevision(revision)
+                .withBinaryAttachment("consent.pdf", MimeType.PDF, consentPdfBytes)
+                .withType(emailType);
+        for (String recipientEmail : recipientEmails) {
+            consentEmailBuilder.withRecipientEmail(recipientEmail);
+        }
+        sendMailService.sendEmail(consentEmailBuilder.build());
+    }
     
-    private void sendConsentViaSMS(App app, Subpopulation subpop, StudyParticipant participant,
-            ConsentPdf consentPdf) {
+    private void sendConsentViaSMS(App app, StudyParticipant participant, byte[] consentPdfBytes) {
         String shortUrl;
         try {
             ObjectMetadata metadata = new ObjectMetadata();
@@ -427,7 +496,7 @@ public class ConsentService {
             
             String fileName = getSignedConsentUrl();
             DateTime expiresOn = getDownloadExpiration();
-            s3Helper.writeBytesToS3(USERSIGNED_CONSENTS_BUCKET, fileName, consentPdf.getBytes(), metadata);
+            s3Helper.writeBytesToS3(USERSIGNED_CONSENTS_BUCKET, fileName, consentPdfBytes, metadata);
             URL url = s3Helper.generatePresignedUrl(USERSIGNED_CONSENTS_BUCKET, fileName, expiresOn, HttpMethod.GET);
             shortUrl = urlShortenerService.shortenUrl(url.toString(), SIGNED_CONSENT_DOWNLOAD_EXPIRE_IN_SECONDS);
         } catch(IOException e) {
@@ -484,4 +553,51 @@ public class ConsentService {
 
         return withdrewConsent;
     }
+
+    /**
+     * Async handler that renders a signed consent and delivers it to the participant. The PDF is rendered once, and
+     * the delivery is retried up to the configured number of attempts. Package-scoped for unit tests.
+     */
+    class ConsentDeliveryHandler extends AsyncHandler {
+        private final RequestContext requestContext;
+        private final String userId;
+        private final ConsentPdf consentPdf;
+        private final Consumer<byte[]> delivery;
+
+        ConsentDeliveryHandler(RequestContext requestContext, String userId, ConsentPdf consentPdf,
+                Consumer<byte[]> delivery) {
+            this.requestContext = requestContext;
+            this.userId = userId;
+            this.consentPdf = consentPdf;
+            this.delivery = delivery;
+        }
+
+        @Override
+        protected void handle() throws InterruptedException {
+            // If the pool is saturated, this runs on the caller's thread, so restore the caller's context afterwards.
+            RequestContext previousContext = BridgeUtils.getRequestContext();
+            BridgeUtils.setRequestContext(requestContext);
+            try {
+                byte[] consentPdfBytes = consentPdf.getBytes();
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        delivery.accept(consentPdfBytes);
+                        return;
+                    } catch (RuntimeException ex) {
+                        if (attempt >= deliveryMaxAttempts) {
+                            throw ex;
+                        }
+                        LOG.warn("Error delivering signed consent to user " + userId + ", attempt " + attempt + ": "
+                                + ex.getMessage(), ex);
+                    }
+                    Thread.sleep(deliveryRetryDelayMillis * attempt);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw ex;
+            } finally {
+                BridgeUtils.setRequestContext(previousContext);
+            }
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Resource;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.LimitExceededException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.util.LatencyHistogram;
+
+/**
+ * Runs password and token hashing (PBKDF2, BCrypt) on a dedicated, bounded thread pool, so that a burst of sign-ins
+ * can only use that pool's share of the CPU, and the rest of the API stays responsive. Callers still wait for the
+ * hash, but they fail fast instead of queueing without limit: if the pool's queue is full, the call fails with a 503,
+ * and if a single app already has too many hashes queued or running on this server node, the call fails with a 429.
+ */
+@Component
+public class CredentialHashingService {
+    // Package-scoped for unit tests.
+    static final String PER_APP_MAX_PROPERTY = "credential.hashing.per.app.max.concurrent";
+    static final String QUEUE_FULL_MESSAGE = "The server is too busy to sign in right now. Please try again later.";
+    static final String APP_LIMIT_MESSAGE = "Too many sign ins are in progress for this app. Please try again later.";
+
+    /** A hash computation, which may throw the checked exceptions thrown by PasswordAlgorithm. */
+    @FunctionalInterface
+    public interface HashFunction<T> {
+        T apply() throws GeneralSecurityException;
+    }
+
+    private final ConcurrentMap<String, AtomicInteger> inFlightByApp = new ConcurrentHashMap<>();
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+    private final LatencyHistogram hashHistogram = new LatencyHistogram();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder appLimitedCount = new LongAdder();
+    private ExecutorService credentialHashingExecutorService;
+    private int perAppMaxConcurrent;
+
+    @Resource(name = "credentialHashingExecutorService")
+    final void setCredentialHashingExecutorService(ExecutorService credentialHashingExecutorService) {
+        this.credentialHashingExecutorService = credentialHashingExecutorService;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.perAppMaxConcurrent = bridgeConfig.getInt(PER_APP_MAX_PROPERTY);
+    }
+
+    /**
+     * Runs the hash function on the hashing thread pool and waits for its result. Anything the function needs to do
+     * to check a credential (for example, checking several rotated tokens) should be done in one call, so it is
+     * admitted once.
+     *
+     * @throws LimitExceededException
+     *         if the app has too many hashes queued or running on this server node
+     * @throws ServiceUnavailableException
+     *         if the hashing queue is full
+     * @throws GeneralSecurityException
+     *         if the hash function throws it
+     */
+    public <T> T hash(String appId, HashFunction<T> function) throws GeneralSecurityException {
+        checkNotNull(appId);
+        checkNotNull(function);
+
+        AtomicInteger inFlight = inFlightByApp.computeIfAbsent(appId, key -> new AtomicInteger());
+        if (inFlight.incrementAndGet() > perAppMaxConcurrent) {
+            inFlight.decrementAndGet();
+            appLimitedCount.increment();
+            throw new LimitExceededException(APP_LIMIT_MESSAGE);
+        }
+        try {
+            long queuedNanos = System.nanoTime();
+            Future<T> future;
+            try {
+                future = credentialHashingExecutorService.submit(() -> {
+                    long startNanos = System.nanoTime();
+                    queueWaitHistogram.record(TimeUnit.NANOSECONDS.toMillis(startNanos - queuedNanos));
+                    try {
+                        return function.apply();
+                    } finally {
+                        hashHistogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                rejectedCount.increment();
+                throw new ServiceUnavailableException(QUEUE_FULL_MESSAGE);
+            }
+            return getResult(future);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of hashes queued or running per app, rejected calls, and hash queue wait and duration
+     * latency, for this server node.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Integer> inFlight = new TreeMap<>();
+        inFlightByApp.forEach((appId, count) -> {
+            if (count.get() > 0) {
+                inFlight.put(appId, count.get());
+            }
+        });
+        return new ImmutableMap.Builder<String, Object>()
+                .put("inFlightByApp", inFlight)
+                .put("rejectedCount", rejectedCount.sum())
+                .put("appLimitedCount", appLimitedCount.sum())
+                .put("queueWait", queueWaitHistogram.toMap())
+                .put("hash", hashHistogram.toMap()).build();
+    }
+
+    private static <T> T getResult(Future<T> future) throws GeneralSecurityException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BridgeServiceException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new BridgeServiceException(ex);
+        }
+    }
+}
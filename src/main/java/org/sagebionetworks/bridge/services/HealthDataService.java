@@ -1,20 +1,32 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Resource;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import org.apache.commons.lang3.StringUtils;
 
 import org.sagebionetworks.bridge.BridgeUtils;
-import org.sagebionetworks.bridge.exceptions.NotFoundException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
@@ -61,6 +73,7 @@ public class HealthDataService {
     private SurveyService surveyService;
     private UploadSchemaService schemaService;
     private UploadFileHelper uploadFileHelper;
+    private ExecutorService recordUpdateExecutorService;
 
     // Upload Validation Handlers, used by the synchronous Health Data Submission API
     private StrictValidationHandler strictValidationHandler;
@@ -94,6 +107,12 @@ public class HealthDataService {
         this.uploadFileHelper = uploadFileHelper;
     }
 
+    /** Threads shared by all requests for writing record exporter statuses in parallel. */
+    @Resource(name = "recordUpdateExecutorService")
+    final void setRecordUpdateExecutorService(ExecutorService recordUpdateExecutorService) {
+        this.recordUpdateExecutorService = recordUpdateExecutorService;
+    }
+
     /** Strict Validation Handler, which canonicalizes health data and verifies required fields. */
     @Autowired
     public final void setStrictValidationHandler(StrictValidationHandler strictValidationHandler) {
@@ -373,6 +392,29 @@ public class HealthDataService {
         return healthDataDao.getRecordById(id);
     }
 
+    /**
+     * Gets the health data records for the given record IDs in as few calls as possible. Records that don't exist are
+     * absent from the result.
+     *
+     * @param ids
+     *         record IDs, must be non-null and must not contain blank IDs
+     * @return health data records, keyed by record ID
+     */
+    public Map<String, HealthDataRecord> getRecordsByIds(Collection<String> ids) {
+        // validate IDs
+        if (ids == null) {
+            throw new BadRequestException(String.format(Validate.CANNOT_BE_NULL, "ids"));
+        }
+        for (String id : ids) {
+            if (StringUtils.isBlank(id)) {
+                throw new BadRequestException(String.format(Validate.CANNOT_BE_BLANK, "id"));
+            }
+        }
+
+        // call through to DAO
+        return healthDataDao.getRecordsByIds(ids);
+    }
+
     /**
      * Returns a list of all health data records with the given upload date. THis method is generally called by
      * worker apps as part of data export.
@@ -382,6 +424,35 @@ public class HealthDataService {
      * @return list of health data records
      */
     public List<HealthDataRecord> getRecordsForUploadDate(String uploadDate) {
+        validateUploadDate(uploadDate);
+
+        // call through to DAO
+        return healthDataDao.getRecordsForUploadDate(uploadDate);
+    }
+
+    /**
+     * Returns one page of the health data records with the given upload date. This method is generally called by
+     * worker apps as part of data export, and lets them page through a day of records without loading the whole day
+     * at once.
+     *
+     * @param uploadDate
+     *         an upload date in YYYY-MM-DD format, must be non-null, non-empty, and represent a valid date
+     * @param offsetKey
+     *         next page offset key from the previous page, or null for the first page
+     * @param pageSize
+     *         maximum number of records in the page, or null for the default page size
+     * @return page of health data records
+     */
+    public ForwardCursorPagedResourceList<HealthDataRecord> getRecordsForUploadDate(String uploadDate,
+            String offsetKey, Integer pageSize) {
+        validateUploadDate(uploadDate);
+
+        // call through to DAO
+        return healthDataDao.getRecordsForUploadDate(uploadDate, offsetKey,
+                (pageSize == null ? API_DEFAULT_PAGE_SIZE : pageSize.intValue()));
+    }
+
+    private static void validateUploadDate(String uploadDate) {
         // validate upload date
         if (StringUtils.isBlank(uploadDate)) {
             throw new BadRequestException(String.format(Validate.CANNOT_BE_BLANK, "uploadDate"));
@@ -394,9 +465,6 @@ public class HealthDataService {
         } catch (IllegalArgumentException ex) {
             throw new BadRequestException(String.format("Expected date format YYYY-MM-DD, received %s", uploadDate));
         }
-
-        // call through to DAO
-        return healthDataDao.getRecordsForUploadDate(uploadDate);
     }
 
     /** Gets a list of records for the given healthCode between the specified createdOn times (inclusive). */
@@ -421,7 +489,8 @@ public class HealthDataService {
     }
 
     /**
-     * returns received list of record Ids after updating
+     * returns received list of record Ids after updating. Record IDs that can't be found are skipped, and are absent
+     * from the returned list.
      * @param recordExportStatusRequest
      *         POJO contains: a lit of health record ids, not upload ids and
      *         an Synapse Exporter Status with value either NOT_EXPORTED or SUCCEEDED
@@ -437,15 +506,41 @@ public class HealthDataService {
             throw new BadRequestException("Size of the record ids list exceeds the limit.");
         }
 
-        List<String> updatedRecordIds = healthRecordIds.stream().map(id->{
-            HealthDataRecord record = getRecordById(id);
-            if (record == null) {
-                throw new NotFoundException("The record: " + id + " cannot be found in our database.");
+        // Load the records in one batch, then write only the exporter status of each record, in parallel. Duplicate
+        // IDs are written once, since concurrent writes to the same record would conflict. Blank IDs are rejected
+        // before the batch load.
+        Set<String> uniqueRecordIds = new LinkedHashSet<>(healthRecordIds);
+        Map<String, HealthDataRecord> recordMap = getRecordsByIds(uniqueRecordIds);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (String id : uniqueRecordIds) {
+            HealthDataRecord record = recordMap.get(id);
+            if (record != null) {
+                futures.add(recordUpdateExecutorService.submit(() -> {
+                    healthDataDao.updateRecordExporterStatus(record, synapseExporterStatus);
+                    return id;
+                }));
             }
-            record.setSynapseExporterStatus(synapseExporterStatus);
-            return createOrUpdateRecord(record);
-        }).collect(Collectors.toList());
+        }
 
+        List<String> updatedRecordIds = new ArrayList<>();
+        for (Future<String> future : futures) {
+            updatedRecordIds.add(getUpdateResult(future));
+        }
         return updatedRecordIds;
     }
+
+    // Waits for an update submitted to the record update executor, rethrowing whatever the update threw, so callers
+    // see the same exceptions as if the update had run on the request thread.
+    private static <T> T getUpdateResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(ex);
+        } catch (ExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new BridgeServiceException(ex.getCause());
+        }
+    }
 }
@@ -17,9 +17,7 @@ import static org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm.DEFAU
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ACTIVITIES_RETRIEVED;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
 
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
+import java.security.GeneralSecurityException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -93,6 +91,8 @@ public class ParticipantService {
 
     private AccountService accountService;
 
+    private CredentialHashingService credentialHashingService;
+
     private SmsService smsService;
 
     private SubpopulationService subpopService;
@@ -129,6 +129,11 @@ public class ParticipantService {
         this.accountService = accountService;
     }
 
+    @Autowired
+    final void setCredentialHashingService(CredentialHashingService credentialHashingService) {
+        this.credentialHashingService = credentialHashingService;
+    }
+
     /** SMS Service, used to send text messages to participants. */
     @Autowired
     public void setSmsService(SmsService smsService) {
@@ -423,10 +428,11 @@ public class ParticipantService {
         if (participant.getPassword() != null) {
             try {
                 PasswordAlgorithm passwordAlgorithm = DEFAULT_PASSWORD_ALGORITHM;
-                String passwordHash = passwordAlgorithm.generateHash(participant.getPassword());
+                String passwordHash = credentialHashingService.hash(app.getIdentifier(),
+                        () -> passwordAlgorithm.generateHash(participant.getPassword()));
                 account.setPasswordAlgorithm(passwordAlgorithm);
                 account.setPasswordHash(passwordHash);
-            } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException ex) {
+            } catch (GeneralSecurityException ex) {
                 throw new BridgeServiceException("Error creating password: " + ex.getMessage(), ex);
             }
         }
@@ -19,6 +19,8 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ReportDataDao;
 import org.sagebionetworks.bridge.dao.ReportIndexDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -61,8 +63,13 @@ public class ReportService {
     
     private static final String INVALID_TIME_RANGE = "startTime later in time than endTime";
     
+    // Report indices rarely change, and every change goes through this service, so they are cached until they change.
+    // The expiration only keeps indices that are no longer used from staying in the cache.
+    static final int REPORT_INDEX_EXPIRE_IN_SECONDS = 60 * 60; // 1 hour
+
     private ReportDataDao reportDataDao;
     private ReportIndexDao reportIndexDao;
+    private CacheProvider cacheProvider;
     
     @Autowired
     final void setReportDataDao(ReportDataDao reportDataDao) {
@@ -74,13 +81,18 @@ public class ReportService {
         this.reportIndexDao = reportIndexDao;
     }
     
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
     /**
      * Get a report index. Substudy memberships are ignored.
      */
     public ReportIndex getReportIndex(ReportDataKey key) {
         checkNotNull(key);
         
-        return reportIndexDao.getIndex(key);
+        return getIndex(key);
     }
     
     /**
@@ -99,7 +111,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -124,7 +136,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -150,7 +162,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -175,7 +187,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -201,7 +213,7 @@ public class ReportService {
                 .withAppId(appId).build();
         reportData.setReportDataKey(key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -232,7 +244,7 @@ public class ReportService {
                 .withAppId(appId).build();
         reportData.setReportDataKey(key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -256,12 +268,12 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
         reportDataDao.deleteReportData(key);
-        reportIndexDao.removeIndex(key);
+        removeIndex(key);
     }
     
     /**
@@ -278,7 +290,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
@@ -289,7 +301,7 @@ public class ReportService {
         LocalDate endDate = LocalDate.now();
         DateRangeResourceList<? extends ReportData> results = getStudyReport(appId, identifier, startDate, endDate);
         if (results.getItems().isEmpty()) {
-            reportIndexDao.removeIndex(key);
+            removeIndex(key);
         }
     }
     
@@ -314,7 +326,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
@@ -336,7 +348,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
@@ -356,11 +368,11 @@ public class ReportService {
                 .withIdentifier(identifier)
                 .withAppId(appId).build();
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
-        reportIndexDao.removeIndex(key);
+        removeIndex(key);
     }
 
     /**
@@ -377,7 +389,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex existingIndex = reportIndexDao.getIndex(key);
+        ReportIndex existingIndex = getIndex(key);
         if (existingIndex == null) {
             throw new EntityNotFoundException(ReportIndex.class);
         }
@@ -393,6 +405,7 @@ public class ReportService {
             index.setSubstudyIds(existingIndex.getSubstudyIds());
         }
         reportIndexDao.updateIndex(index);
+        cacheProvider.removeObject(CacheKey.reportIndex(key));
     }
     
     protected boolean canAccess(ReportIndex index) {
@@ -406,8 +419,30 @@ public class ReportService {
         return !Sets.intersection(callerRoles, index.getSubstudyIds()).isEmpty();
     }
 
+    private ReportIndex getIndex(ReportDataKey key) {
+        CacheKey cacheKey = CacheKey.reportIndex(key);
+        ReportIndex index = cacheProvider.getObject(cacheKey, ReportIndex.class);
+        if (index != null) {
+            // The key isn't serialized, so it's restored from the report data key.
+            index.setKey(key.getIndexKeyString());
+            return index;
+        }
+        // Reports without an index aren't cached, since the index is created when the first record is saved.
+        index = reportIndexDao.getIndex(key);
+        if (index != null) {
+            cacheProvider.setObject(cacheKey, index, REPORT_INDEX_EXPIRE_IN_SECONDS);
+        }
+        return index;
+    }
+
     private void addToIndex(ReportDataKey key, Set<String> substudies) {
         reportIndexDao.addIndex(key, substudies);
+        cacheProvider.removeObject(CacheKey.reportIndex(key));
+    }
+
+    private void removeIndex(ReportDataKey key) {
+        reportIndexDao.removeIndex(key);
+        cacheProvider.removeObject(CacheKey.reportIndex(key));
     }
     
     private RangeTuple<DateTime> validateDateTimeRange(DateTime startTime, DateTime endTime) {
@@ -0,0 +1,194 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.dao.RequestInfoDao;
+import org.sagebionetworks.bridge.models.RequestInfo;
+import org.sagebionetworks.bridge.util.LatencyHistogram;
+
+/**
+ * Write-behind buffer for request info. Request info is mostly "last seen" timestamps, so rather than reading and
+ * writing the user's row on every request, fragments are merged in memory per user (with the same semantics as
+ * RequestInfo.Builder.copyOf) and written in batches. The buffer is flushed by a worker thread started from the
+ * WorkerLauncher, every few seconds or as soon as the buffer reaches its maximum size, and it is drained when the
+ * server shuts down. If a batch can't be written, its users are written one at a time, so one bad row (for example,
+ * the row of an account deleted since its request info was recorded) doesn't hold back the rest of the batch. A
+ * user's request info that still can't be written after a few flushes is dropped.
+ */
+@Component
+public class RequestInfoRecorder implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(RequestInfoRecorder.class);
+
+    // Package-scoped for unit tests.
+    static final String FLUSH_INTERVAL_PROPERTY = "request.info.flush.interval.millis";
+    static final String FLUSH_SIZE_PROPERTY = "request.info.flush.size";
+    // Number of users written per DAO call, which bounds the size of the IN clause.
+    static final int BATCH_SIZE = 100;
+    // Number of flushes that may fail to write a user's request info before it is dropped.
+    static final int MAX_FLUSH_ATTEMPTS = 3;
+    // Pending request info is discarded on every server node when an account is deleted.
+    static final String REQUEST_INFO_INVALIDATION_CHANNEL = "RequestInfo";
+
+    private final ConcurrentMap<String, RequestInfo> pendingMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> failedAttemptsMap = new ConcurrentHashMap<>();
+    private final BlockingQueue<Boolean> flushSignal = new LinkedBlockingQueue<>(1);
+    private final LatencyHistogram flushHistogram = new LatencyHistogram();
+    private final LongAdder failedFlushCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private RequestInfoDao requestInfoDao;
+    private CacheInvalidationBus cacheInvalidationBus;
+    private long flushIntervalMillis;
+    private int flushSize;
+    private volatile boolean running = true;
+
+    @Autowired
+    final void setRequestInfoDao(RequestInfoDao requestInfoDao) {
+        this.requestInfoDao = requestInfoDao;
+    }
+
+    @Autowired
+    final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.addListener(REQUEST_INFO_INVALIDATION_CHANNEL, this::discard);
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.flushIntervalMillis = bridgeConfig.getInt(FLUSH_INTERVAL_PROPERTY);
+        this.flushSize = bridgeConfig.getInt(FLUSH_SIZE_PROPERTY);
+    }
+
+    /** Merges the request info into the user's pending request info. It will be written on the next flush. */
+    public void record(RequestInfo requestInfo) {
+        checkNotNull(requestInfo);
+        checkNotNull(requestInfo.getUserId());
+
+        pendingMap.merge(requestInfo.getUserId(), requestInfo, RequestInfoRecorder::merge);
+        if (pendingMap.size() >= flushSize) {
+            // If a flush has already been requested, there's no need to request another.
+            flushSignal.offer(Boolean.TRUE);
+        }
+    }
+
+    /** The user's request info that hasn't been written yet, or null if there is none. */
+    public RequestInfo getPendingRequestInfo(String userId) {
+        return pendingMap.get(userId);
+    }
+
+    /** Discards the user's request info that hasn't been written yet, on this and every other server node. */
+    public void removePendingRequestInfo(String userId) {
+        discard(userId);
+        cacheInvalidationBus.publish(REQUEST_INFO_INVALIDATION_CHANNEL, userId);
+    }
+
+    /** Writes all pending request info. */
+    public synchronized void flush() {
+        if (pendingMap.isEmpty()) {
+            return;
+        }
+        // Each entry is removed atomically, so fragments recorded during the flush are kept for the next one.
+        List<RequestInfo> requestInfos = new ArrayList<>(pendingMap.size());
+        for (String userId : pendingMap.keySet()) {
+            RequestInfo requestInfo = pendingMap.remove(userId);
+            if (requestInfo != null) {
+                requestInfos.add(requestInfo);
+            }
+        }
+        for (List<RequestInfo> batch : Lists.partition(requestInfos, BATCH_SIZE)) {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            try {
+                requestInfoDao.updateRequestInfos(batch);
+                flushHistogram.record(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                for (RequestInfo requestInfo : batch) {
+                    failedAttemptsMap.remove(requestInfo.getUserId());
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Could not write request info for " + batch.size() + " users, writing them one at a time", e);
+                failedFlushCount.increment();
+                for (RequestInfo requestInfo : batch) {
+                    writeOne(requestInfo);
+                }
+            }
+        }
+    }
+
+    /** Number of users with pending request info, time taken to write each batch, and failed writes. */
+    public Map<String, Object> getStats() {
+        return ImmutableMap.of("bufferSize", pendingMap.size(), "flush", flushHistogram.toMap(),
+                "failedFlushCount", failedFlushCount.sum(), "droppedCount", droppedCount.sum());
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                flushSignal.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Error flushing request info", e);
+            }
+        }
+    }
+
+    /** Stops the worker and writes whatever is left in the buffer. */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flushSignal.offer(Boolean.TRUE);
+        flush();
+    }
+
+    private void writeOne(RequestInfo requestInfo) {
+        String userId = requestInfo.getUserId();
+        try {
+            requestInfoDao.updateRequestInfo(requestInfo);
+            failedAttemptsMap.remove(userId);
+        } catch (RuntimeException e) {
+            int attempts = failedAttemptsMap.merge(userId, 1, Integer::sum);
+            if (attempts >= MAX_FLUSH_ATTEMPTS) {
+                LOG.warn("Could not write request info for user " + userId + " after " + attempts
+                        + " attempts, dropping it", e);
+                failedAttemptsMap.remove(userId);
+                droppedCount.increment();
+                return;
+            }
+            LOG.warn("Could not write request info for user " + userId + ", will try again", e);
+            // Put the request info back under anything recorded since it was removed.
+            pendingMap.merge(userId, requestInfo, (newer, older) -> merge(older, newer));
+        }
+    }
+
+    private void discard(String userId) {
+        pendingMap.remove(userId);
+        failedAttemptsMap.remove(userId);
+    }
+
+    private static RequestInfo merge(RequestInfo older, RequestInfo newer) {
+        return new RequestInfo.Builder().copyOf(older).copyOf(newer).build();
+    }
+}
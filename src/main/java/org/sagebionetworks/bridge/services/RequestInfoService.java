@@ -15,6 +15,7 @@ public class RequestInfoService {
     
     private CacheProvider cacheProvider;
     private RequestInfoDao requestInfoDao;
+    private RequestInfoRecorder requestInfoRecorder;
     
     @Autowired
     final void setCacheProvider(CacheProvider cacheProvider) {
@@ -24,17 +25,29 @@ public class RequestInfoService {
     final void setRequestInfoDao(RequestInfoDao requestInfoDao) {
         this.requestInfoDao = requestInfoDao;
     }
+    @Autowired
+    final void setRequestInfoRecorder(RequestInfoRecorder requestInfoRecorder) {
+        this.requestInfoRecorder = requestInfoRecorder;
+    }
     
+    /**
+     * Request info is written behind, so this returns immediately. The update is visible through getRequestInfo 
+     * right away, and is persisted within a few seconds.
+     */
     public void updateRequestInfo(RequestInfo requestInfo) {
         checkNotNull(requestInfo);
         
-        requestInfoDao.updateRequestInfo(requestInfo);
+        requestInfoRecorder.record(requestInfo);
     }
     
     public RequestInfo getRequestInfo(String userId) {
         isNotBlank(userId);
         
         RequestInfo requestInfo = requestInfoDao.getRequestInfo(userId);
+        RequestInfo pendingRequestInfo = requestInfoRecorder.getPendingRequestInfo(userId);
+        if (pendingRequestInfo != null) {
+            return new RequestInfo.Builder().copyOf(requestInfo).copyOf(pendingRequestInfo).build();
+        }
         if (requestInfo == null) {
             requestInfo = cacheProvider.getRequestInfo(userId);
             if (requestInfo != null) {
@@ -47,6 +60,7 @@ public class RequestInfoService {
     public void removeRequestInfo(String userId) {
         isNotBlank(userId);
         
+        requestInfoRecorder.removePendingRequestInfo(userId);
         requestInfoDao.removeRequestInfo(userId);
         cacheProvider.removeRequestInfo(userId);
     }
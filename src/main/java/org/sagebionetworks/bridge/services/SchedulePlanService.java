@@ -5,8 +5,10 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.SchedulePlanDao;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
@@ -20,6 +22,9 @@ import org.sagebionetworks.bridge.models.surveys.Survey;
 import org.sagebionetworks.bridge.validators.SchedulePlanValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,10 +33,22 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class SchedulePlanService {
+    // Package-scoped for unit tests.
+    static final String SCHEDULE_PLAN_INVALIDATION_CHANNEL = "SchedulePlan";
+    private static final int PLAN_CACHE_MAX_SIZE = 500;
+    private static final int PLAN_CACHE_EXPIRE_IN_SECONDS = 60;
     
     private SchedulePlanDao schedulePlanDao;
     private SurveyService surveyService;
     private SubstudyService substudyService;
+    private CacheInvalidationBus cacheInvalidationBus;
+    /**
+     * Per-node copy of each app's (undeleted) schedule plans, with their schedulers already compiled. Plans are 
+     * shared between requests and must not be modified by callers.
+     */
+    private final Cache<String, List<SchedulePlan>> planCache = CacheBuilder.newBuilder()
+            .maximumSize(PLAN_CACHE_MAX_SIZE)
+            .expireAfterWrite(PLAN_CACHE_EXPIRE_IN_SECONDS, TimeUnit.SECONDS).build();
 
     @Autowired
     public final void setSchedulePlanDao(SchedulePlanDao schedulePlanDao) {
@@ -45,10 +62,37 @@ public class SchedulePlanService {
     public final void setSubstudyService(SubstudyService substudyService) {
         this.substudyService = substudyService;
     }
+    @Autowired
+    public final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.addListener(SCHEDULE_PLAN_INVALIDATION_CHANNEL, planCache::invalidate);
+    }
 
+    /**
+     * Get the schedule plans of an app. Plans that aren't deleted are served from a per-node cache that is 
+     * invalidated on every server when a plan is changed, and their schedulers are compiled when they are loaded, 
+     * so scheduling activities for a user doesn't read from DynamoDB or parse cron expressions. The plans are 
+     * shared between requests and must not be modified.
+     */
     public List<SchedulePlan> getSchedulePlans(ClientInfo clientInfo, String appId,
             boolean includeDeleted) {
-        return schedulePlanDao.getSchedulePlans(clientInfo, appId, includeDeleted);
+        if (includeDeleted) {
+            return schedulePlanDao.getSchedulePlans(clientInfo, appId, true);
+        }
+        // Plans are not filtered by client, so they are cached by app.
+        List<SchedulePlan> plans = planCache.getIfPresent(appId);
+        if (plans == null) {
+            plans = ImmutableList.copyOf(schedulePlanDao.getSchedulePlans(clientInfo, appId, false));
+            for (SchedulePlan plan : plans) {
+                if (plan.getStrategy() != null) {
+                    for (Schedule schedule : plan.getStrategy().getAllPossibleSchedules()) {
+                        schedule.getScheduler();
+                    }
+                }
+            }
+            planCache.put(appId, plans);
+        }
+        return plans;
     }
 
     public SchedulePlan getSchedulePlan(String appId, String guid) {
@@ -83,7 +127,9 @@ public class SchedulePlanService {
                 new SchedulePlanValidator(app.getDataGroups(), substudyIds, app.getTaskIdentifiers()), plan);
 
         lookupSurveyReferenceIdentifiers(app.getIdentifier(), plan);
-        return schedulePlanDao.createSchedulePlan(app.getIdentifier(), plan);
+        SchedulePlan created = schedulePlanDao.createSchedulePlan(app.getIdentifier(), plan);
+        invalidatePlans(app.getIdentifier());
+        return created;
     }
     
     public SchedulePlan updateSchedulePlan(App app, SchedulePlan plan) {
@@ -117,7 +163,9 @@ public class SchedulePlanService {
                 new SchedulePlanValidator(app.getDataGroups(), substudyIds, app.getTaskIdentifiers()), plan);
         
         lookupSurveyReferenceIdentifiers(plan.getAppId(), plan);
-        return schedulePlanDao.updateSchedulePlan(plan.getAppId(), plan);
+        SchedulePlan updated = schedulePlanDao.updateSchedulePlan(plan.getAppId(), plan);
+        invalidatePlans(plan.getAppId());
+        return updated;
     }
 
     public void deleteSchedulePlan(String appId, String guid) {
@@ -125,6 +173,7 @@ public class SchedulePlanService {
         checkNotNull(isNotBlank(guid));
         
         schedulePlanDao.deleteSchedulePlan(appId, guid);
+        invalidatePlans(appId);
     }
     
     public void deleteSchedulePlanPermanently(String appId, String guid) {
@@ -132,6 +181,13 @@ public class SchedulePlanService {
         checkNotNull(isNotBlank(guid));
         
         schedulePlanDao.deleteSchedulePlanPermanently(appId, guid);
+        invalidatePlans(appId);
+    }
+    
+    // Drop this node's copy right away, and tell the other nodes to drop theirs.
+    private void invalidatePlans(String appId) {
+        planCache.invalidate(appId);
+        cacheInvalidationBus.publish(SCHEDULE_PLAN_INVALIDATION_CHANNEL, appId);
     }
     
     /**
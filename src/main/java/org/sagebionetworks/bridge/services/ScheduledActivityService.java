@@ -19,10 +19,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import javax.annotation.Resource;
+
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -35,6 +41,8 @@ import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.RangeTuple;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
@@ -87,6 +95,8 @@ public class ScheduledActivityService {
     
     private AppConfigService appConfigService;
     
+    private ExecutorService activityQueryExecutorService;
+    
     @Autowired
     final void setScheduledActivityDao(ScheduledActivityDao activityDao) {
         this.activityDao = activityDao;
@@ -125,6 +135,12 @@ public class ScheduledActivityService {
     final void setAppConfigService(AppConfigService appConfigService) {
         this.appConfigService = appConfigService;
     }
+    
+    /** Thread pool used to run the per-activity history queries for a single request in parallel. */
+    @Resource(name = "activityQueryExecutorService")
+    final void setActivityQueryExecutorService(ExecutorService activityQueryExecutorService) {
+        this.activityQueryExecutorService = activityQueryExecutorService;
+    }
 
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistory(String healthCode,
             String activityGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey,
@@ -273,11 +289,15 @@ public class ScheduledActivityService {
         Map<String,ScheduledActivity> dbMap = Maps.newHashMap();
         // IA-545: If a schedule has an identical activity but a new GUID (say if we change the schedule on the user), the user can 
         // lose existing activities. So during the time window the user is looking at, we will return any activities that exist.
+        // There's one query per activity GUID, so run them in parallel rather than one round trip after another.
+        String healthCode = context.getCriteriaContext().getHealthCode();
+        List<Future<ForwardCursorPagedResourceList<ScheduledActivity>>> futures = new ArrayList<>();
         for (String activityGuid : activityGuids) {
-            ForwardCursorPagedResourceList<ScheduledActivity> list = activityDao.getActivityHistoryV2(
-                    context.getCriteriaContext().getHealthCode(), activityGuid,
-                    context.getStartsOn(), context.getEndsOn(), null,
-                    API_MAXIMUM_PAGE_SIZE);
+            futures.add(activityQueryExecutorService.submit(() -> activityDao.getActivityHistoryV2(healthCode,
+                    activityGuid, context.getStartsOn(), context.getEndsOn(), null, API_MAXIMUM_PAGE_SIZE)));
+        }
+        for (Future<ForwardCursorPagedResourceList<ScheduledActivity>> future : futures) {
+            ForwardCursorPagedResourceList<ScheduledActivity> list = getQueryResult(future);
             if (list != null) {
                 for(ScheduledActivity activity : list.getItems()) {
                     dbMap.put(activity.getGuid(), activity);
@@ -285,19 +305,29 @@ public class ScheduledActivityService {
             }
         }
         // IA-587: When a one-time task falls outside the schedule window, it's not returned by the 
-        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled activities.
-        String healthCode = context.getCriteriaContext().getHealthCode();
-        for (ScheduledActivity activity : scheduledActivities) {
-            if (!dbMap.containsKey(activity.getGuid())) {
-                ScheduledActivity dbActivity = activityDao.getActivity(context.getStartsOn().getZone(), healthCode,
-                        activity.getGuid(), false);
-                if (dbActivity != null) {
-                    dbMap.put(dbActivity.getGuid(), dbActivity);    
-                }
-            }
+        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled activities
+        // in a single batch.
+        Set<String> remainingGuids = scheduledActivities.stream().map(ScheduledActivity::getGuid)
+                .filter(guid -> !dbMap.containsKey(guid)).collect(Collectors.toSet());
+        if (!remainingGuids.isEmpty()) {
+            dbMap.putAll(activityDao.getActivitiesByGuid(context.getStartsOn().getZone(), healthCode, remainingGuids));
         }
         return dbMap;
     }
+    
+    // Waits for a query submitted to the activity query executor, rethrowing whatever the query threw, so callers 
+    // see the same exceptions as if the query had run on the request thread.
+    private static <T> T getQueryResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(ex);
+        } catch (ExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new BridgeServiceException(ex.getCause());
+        }
+    }
 
     public void updateScheduledActivities(String healthCode, List<ScheduledActivity> scheduledActivities) {
         checkArgument(isNotBlank(healthCode));
@@ -311,6 +341,7 @@ public class ScheduledActivityService {
         
         // According to the client team, the last activity is most likely to be correct, so iterate from 
         // the last one
+        Set<String> guids = new HashSet<>();
         for (int i=scheduledActivities.size()-1; i >= 0; i--) {
             ScheduledActivity schActivity = scheduledActivities.get(i);
             if (schActivity == null) {
@@ -323,9 +354,20 @@ public class ScheduledActivityService {
                 throw new BadRequestException("Client data too large ("+CLIENT_DATA_MAX_BYTES+" bytes limit) for task "
                         + schActivity.getGuid());
             }
-
-            // This isn't returned to the client, so the exact time zone used does not matter.
-            ScheduledActivity dbActivity = activityDao.getActivity(DateTimeZone.UTC, healthCode, schActivity.getGuid(), true);
+            guids.add(schActivity.getGuid());
+        }
+        
+        // Load all the persisted activities in one batch. This isn't returned to the client, so the exact time zone 
+        // used does not matter.
+        Map<String, ScheduledActivity> dbActivities = guids.isEmpty() ? ImmutableMap.of() :
+                activityDao.getActivitiesByGuid(DateTimeZone.UTC, healthCode, guids);
+        
+        for (int i=scheduledActivities.size()-1; i >= 0; i--) {
+            ScheduledActivity schActivity = scheduledActivities.get(i);
+            ScheduledActivity dbActivity = dbActivities.get(schActivity.getGuid());
+            if (dbActivity == null) {
+                throw new EntityNotFoundException(ScheduledActivity.class);
+            }
             String key = dbActivity.getHealthCode()+":"+dbActivity.getGuid();
             if (activitiesAlreadySeen.contains(key)) {
                 ScheduledActivity previouslyAdded = activitiesToSave.stream().filter((sch) -> {
@@ -9,10 +9,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
@@ -35,6 +37,8 @@ import org.sagebionetworks.bridge.validators.SurveyPublishValidator;
 import org.sagebionetworks.bridge.validators.SurveySaveValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -43,12 +47,26 @@ import org.springframework.validation.Validator;
 @Component
 public class SurveyService {
     static final String KEY_IDENTIFIER = "identifier";
+    // Package-scoped for unit tests.
+    static final String SURVEY_INVALIDATION_CHANNEL = "Survey";
+    private static final int SURVEY_CACHE_MAX_SIZE = 1000;
+    private static final int SURVEY_CACHE_EXPIRE_IN_MINUTES = 10;
 
     private Validator publishValidator;
     private SurveyDao surveyDao;
     private SchedulePlanService schedulePlanService;
     private SharedModuleMetadataService sharedModuleMetadataService;
     private AppService appService;
+    private AppConfigService appConfigService;
+    private CacheInvalidationBus cacheInvalidationBus;
+    /**
+     * Per-node copy of published survey versions (without their elements), keyed by app ID, guid, and createdOn. 
+     * The identifier and schema revision of a published survey version can't change, so these only need to be 
+     * invalidated when the survey version is physically deleted.
+     */
+    private final Cache<String, Survey> publishedSurveyCache = CacheBuilder.newBuilder()
+            .maximumSize(SURVEY_CACHE_MAX_SIZE)
+            .expireAfterWrite(SURVEY_CACHE_EXPIRE_IN_MINUTES, TimeUnit.MINUTES).build();
 
     @Autowired
     final void setSurveyDao(SurveyDao surveyDao) {
@@ -74,6 +92,17 @@ public class SurveyService {
     public final void setAppService(AppService appService) {
         this.appService = appService;
     }
+
+    @Autowired
+    public final void setAppConfigService(AppConfigService appConfigService) {
+        this.appConfigService = appConfigService;
+    }
+
+    @Autowired
+    public final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.addListener(SURVEY_INVALIDATION_CHANNEL, publishedSurveyCache::invalidate);
+    }
     
     public Survey getSurvey(String appId, GuidCreatedOnVersionHolder keys, boolean includeElements, boolean throwException) {
         Survey survey = surveyDao.getSurvey(appId, keys, includeElements);
@@ -85,6 +114,23 @@ public class SurveyService {
         }
         return survey;
     }
+
+    /**
+     * Get a survey version without its elements, throwing an EntityNotFoundException if it doesn't exist. This is
+     * used to look up the upload schema for a survey on the upload validation path. Published versions are served 
+     * from a per-node cache; they are shared between callers and must not be modified.
+     */
+    public Survey getCachedSurvey(String appId, GuidCreatedOnVersionHolder keys) {
+        String cacheKey = getSurveyCacheKey(appId, keys);
+        Survey survey = publishedSurveyCache.getIfPresent(cacheKey);
+        if (survey == null) {
+            survey = getSurvey(appId, keys, false, true);
+            if (survey.isPublished()) {
+                publishedSurveyCache.put(cacheKey, survey);
+            }
+        }
+        return survey;
+    }
     
     /**
      * Create a survey.
@@ -150,7 +196,10 @@ public class SurveyService {
         }
         Validate.entityThrowingException(new SurveySaveValidator(dataGroups), survey);
         
-        return surveyDao.updateSurvey(appId, survey);
+        Survey updated = surveyDao.updateSurvey(appId, survey);
+        // App configs pick up the identifiers of the survey versions they reference.
+        appConfigService.invalidateResolvedAppConfigs(appId);
+        return updated;
     }
 
     /**
@@ -168,7 +217,9 @@ public class SurveyService {
         }
         Validate.entityThrowingException(publishValidator, existing);
 
-        return surveyDao.publishSurvey(appId, existing, newSchemaRev);
+        Survey published = surveyDao.publishSurvey(appId, existing, newSchemaRev);
+        appConfigService.invalidateResolvedAppConfigs(appId);
+        return published;
     }
 
     /**
@@ -227,6 +278,16 @@ public class SurveyService {
         }
         checkConstraintsBeforePhysicalDelete(appId, keys);
         surveyDao.deleteSurveyPermanently(appId, keys);
+
+        // Drop this node's copy right away, and tell the other nodes to drop theirs.
+        String cacheKey = getSurveyCacheKey(appId, keys);
+        publishedSurveyCache.invalidate(cacheKey);
+        cacheInvalidationBus.publish(SURVEY_INVALIDATION_CHANNEL, cacheKey);
+        appConfigService.invalidateResolvedAppConfigs(appId);
+    }
+
+    private static String getSurveyCacheKey(String appId, GuidCreatedOnVersionHolder keys) {
+        return appId + ":" + keys.getGuid() + ":" + keys.getCreatedOn();
     }
 
     // Helper method to verify if there is any shared module related to specified survey
@@ -7,10 +7,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -19,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -39,8 +44,21 @@ import org.sagebionetworks.bridge.validators.Validate;
  */
 @Component
 public class UploadSchemaService {
+    // Package-scoped for unit tests.
+    static final String UPLOAD_SCHEMA_INVALIDATION_CHANNEL = "UploadSchema";
+    private static final int SCHEMA_CACHE_MAX_SIZE = 1000;
+    private static final int SCHEMA_CACHE_EXPIRE_IN_MINUTES = 10;
+
     private SharedModuleMetadataService sharedModuleMetadataService;
     private UploadSchemaDao uploadSchemaDao;
+    private CacheInvalidationBus cacheInvalidationBus;
+    /**
+     * Per-node copy of the schema revisions used to validate uploads, keyed by app ID, schema ID, and revision. A
+     * revision that doesn't exist is cached as empty, so uploads for unknown schemas don't go to DynamoDB either.
+     */
+    private final Cache<String, Optional<UploadSchema>> schemaRevisionCache = CacheBuilder.newBuilder()
+            .maximumSize(SCHEMA_CACHE_MAX_SIZE)
+            .expireAfterWrite(SCHEMA_CACHE_EXPIRE_IN_MINUTES, TimeUnit.MINUTES).build();
 
     /** DAO for upload schemas. This is configured by Spring. */
     @Autowired
@@ -53,6 +71,12 @@ public class UploadSchemaService {
         this.sharedModuleMetadataService = sharedModuleMetadataService;
     }
 
+    @Autowired
+    public final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.addListener(UPLOAD_SCHEMA_INVALIDATION_CHANNEL, this::invalidateLocalSchemaRevisions);
+    }
+
     /**
      * Creates a schema revision using the new V4 semantics. The schema ID and revision will be taken from the
      * UploadSchema object. If the revision isn't specified, we'll get the latest schema rev for the schema ID and use
@@ -78,7 +102,9 @@ public class UploadSchemaService {
         Validate.entityThrowingException(UploadSchemaValidator.INSTANCE, schema);
 
         // call through to DAO
-        return uploadSchemaDao.createSchemaRevision(schema);
+        UploadSchema created = uploadSchemaDao.createSchemaRevision(schema);
+        invalidateSchemaRevisions(appId, schema.getSchemaId());
+        return created;
     }
 
     /**
@@ -114,7 +140,9 @@ public class UploadSchemaService {
         Validate.entityThrowingException(UploadSchemaValidator.INSTANCE, schema);
 
         // call through to DAO
-        return uploadSchemaDao.createSchemaRevision(schema);
+        UploadSchema created = uploadSchemaDao.createSchemaRevision(schema);
+        invalidateSchemaRevisions(appId, schema.getSchemaId());
+        return created;
     }
 
     /**
@@ -219,6 +247,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemas(schemaList);
+        invalidateSchemaRevisions(appId, schemaId);
     }
 
     public void deleteUploadSchemaByIdPermanently(String appId, String schemaId) {
@@ -226,6 +255,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemasPermanently(schemaList);
+        invalidateSchemaRevisions(appId, schemaId);
     }
 
     protected List<UploadSchema> getSchemaRevisionsForDelete(String appId, String schemaId) {
@@ -260,6 +290,7 @@ public class UploadSchemaService {
             throw new EntityNotFoundException(UploadSchema.class);
         }
         uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));    
+        invalidateSchemaRevisions(appId, schemaId);
     }
     
     public void deleteUploadSchemaByIdAndRevisionPermanently(String appId, String schemaId, int rev) {
@@ -270,6 +301,7 @@ public class UploadSchemaService {
             throw new EntityNotFoundException(UploadSchema.class);
         }
         uploadSchemaDao.deleteUploadSchemasPermanently(ImmutableList.of(schema));    
+        invalidateSchemaRevisions(appId, schemaId);
     }
 
     /** Returns all revisions of all schemas. */
@@ -391,6 +423,22 @@ public class UploadSchemaService {
         return uploadSchemaDao.getUploadSchemaByIdAndRevision(appId, schemaId, revision);
     }
 
+    /**
+     * Fetches the upload schema for the specified app, schema ID, and revision from a per-node cache, for the upload
+     * validation path. Returns null if no schema is found. The cached schema is shared between uploads and must not
+     * be modified. Entries are invalidated on every server when any revision of the schema is created, updated, or
+     * deleted.
+     */
+    public UploadSchema getCachedUploadSchemaByIdAndRev(String appId, String schemaId, int revision) {
+        String cacheKey = getSchemaRevisionCacheKey(appId, schemaId, revision);
+        Optional<UploadSchema> schema = schemaRevisionCache.getIfPresent(cacheKey);
+        if (schema == null) {
+            schema = Optional.ofNullable(getUploadSchemaByIdAndRevNoThrow(appId, schemaId, revision));
+            schemaRevisionCache.put(cacheKey, schema);
+        }
+        return schema.orElse(null);
+    }
+
     /**
      * Gets the latest available revision of the specified schema for the specified client. This API fetches every
      * schema revision for the specified schema ID, then checks the schema's min/maxAppVersion against the clientInfo.
@@ -512,7 +560,26 @@ public class UploadSchemaService {
         }
 
         // Call through to the DAO
-        return uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        UploadSchema updated = uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        invalidateSchemaRevisions(appId, schemaId);
+        return updated;
+    }
+
+    // Drop this node's copies of the schema's revisions right away, and tell the other nodes to drop theirs.
+    private void invalidateSchemaRevisions(String appId, String schemaId) {
+        String key = appId + ":" + schemaId;
+        invalidateLocalSchemaRevisions(key);
+        cacheInvalidationBus.publish(UPLOAD_SCHEMA_INVALIDATION_CHANNEL, key);
+    }
+
+    // The invalidation key is "appId:schemaId", which prefixes the cache key of each of the schema's revisions.
+    private void invalidateLocalSchemaRevisions(String key) {
+        String prefix = key + ":";
+        schemaRevisionCache.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(prefix));
+    }
+
+    private static String getSchemaRevisionCacheKey(String appId, String schemaId, int revision) {
+        return appId + ":" + schemaId + ":" + revision;
     }
 
     // Helper method to get a map of fields by name for an Upload Schema. Returns a TreeMap so our error messaging has
@@ -12,6 +12,9 @@ import java.net.URL;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
@@ -52,6 +55,7 @@ import org.sagebionetworks.bridge.models.upload.UploadSession;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
 import org.sagebionetworks.bridge.models.upload.UploadView;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
 import org.sagebionetworks.bridge.validators.UploadValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
@@ -75,11 +79,8 @@ public class UploadService {
     private UploadValidationService uploadValidationService;
     private Validator validator;
 
-    // These parameters can be overriden to facilitate testing.
-    // By default, we sleep 5 seconds, including right at the start and end. This means on our 7th iteration,
-    // 30 seconds will have passed.
-    private int pollValidationStatusMaxIterations = 7;
-    private long pollValidationStatusSleepMillis = 5000;
+    private UploadCompletionRegistry uploadCompletionRegistry;
+    private ExecutorService asyncExecutorService;
 
     /** Sets parameters from the specified Bridge config. */
     @Autowired
@@ -131,20 +132,16 @@ public class UploadService {
         this.validator = validator;
     }
 
-    /**
-     * Number of iterations while polling for validation status before we time out. This is used primarily by tests to
-     * reduce the amount of wait time during tests.
-     */
-    public final void setPollValidationStatusMaxIterations(int pollValidationStatusMaxIterations) {
-        this.pollValidationStatusMaxIterations = pollValidationStatusMaxIterations;
+    /** Registry of callers waiting for upload validation to finish. This is configured by Spring. */
+    @Autowired
+    final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
     }
 
-    /**
-     * Milliseconds to sleep per iterations while polling for validation status. This is used primarily by tests to
-     * reduce the amount of wait time during tests.
-     */
-    public final void setPollValidationStatusSleepMillis(long pollValidationStatusSleepMillis) {
-        this.pollValidationStatusSleepMillis = pollValidationStatusSleepMillis;
+    /** Async thread pool, used to read the validation status once validation finishes. This is configured by Spring. */
+    @Resource(name = "asyncExecutorService")
+    final void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
     }
 
     public UploadSession createUpload(String appId, StudyParticipant participant, UploadRequest uploadRequest) {
@@ -248,7 +245,11 @@ public class UploadService {
             throw new BadRequestException(String.format(Validate.CANNOT_BE_BLANK, "uploadId"));
         }
         Upload upload = uploadDao.getUpload(uploadId);
-        return uploadToUploadView(upload, true);
+        HealthDataRecord record = null;
+        if (upload.getRecordId() != null) {
+            record = healthDataService.getRecordById(upload.getRecordId());
+        }
+        return uploadToUploadView(upload, record, true);
     }
 
     /**
@@ -301,9 +302,16 @@ public class UploadService {
         
         ForwardCursorPagedResourceList<Upload> list = supplier.get(startTime, endTime);
 
+        // Fetch the records for the whole page in one batch, rather than one call per upload.
+        Set<String> recordIds = list.getItems().stream()
+                .map(Upload::getRecordId)
+                .filter(recordId -> recordId != null)
+                .collect(Collectors.toSet());
+        Map<String, HealthDataRecord> recordMap = healthDataService.getRecordsByIds(recordIds);
+
         // This summary view is accessible to developers, so we do not include details of the health data record.
         List<UploadView> views = list.getItems().stream()
-                .map(upload -> uploadToUploadView(upload, false))
+                .map(upload -> uploadToUploadView(upload, recordMap.get(upload.getRecordId()), false))
                 .collect(Collectors.toList());
         
         ForwardCursorPagedResourceList<UploadView> page = new ForwardCursorPagedResourceList<>(views, list.getNextPageOffsetKey());
@@ -313,19 +321,17 @@ public class UploadService {
         return page;
     }
     
-    private UploadView uploadToUploadView(Upload upload, boolean includeHealthDataRecord) {
+    private static UploadView uploadToUploadView(Upload upload, HealthDataRecord record,
+            boolean includeHealthDataRecord) {
         UploadView.Builder builder = new UploadView.Builder();
         builder.withUpload(upload);
-        if (upload.getRecordId() != null) {
-            HealthDataRecord record = healthDataService.getRecordById(upload.getRecordId());
-            if (record != null) {
-                if (includeHealthDataRecord) {
-                    builder.withHealthDataRecord(record);
-                } else {
-                    builder.withSchemaId(record.getSchemaId());
-                    builder.withSchemaRevision(record.getSchemaRevision());
-                    builder.withHealthRecordExporterStatus(record.getSynapseExporterStatus());
-                }
+        if (record != null) {
+            if (includeHealthDataRecord) {
+                builder.withHealthDataRecord(record);
+            } else {
+                builder.withSchemaId(record.getSchemaId());
+                builder.withSchemaRevision(record.getSchemaRevision());
+                builder.withHealthRecordExporterStatus(record.getSynapseExporterStatus());
             }
         }
         return builder.build();
@@ -366,35 +372,34 @@ public class UploadService {
     }
 
     /**
-     * Polls for validation status for a given upload ID. Polls until validation is complete or otherwise is in a state
-     * where further polling won't get any results (like validation failed, or upload is requested but not yet
-     * uploaded), or until it times out. See getUploadValidationStatus() for more details.
+     * Gets the validation status for a given upload ID once validation is complete or otherwise is in a state where
+     * waiting won't get any results (like validation failed, or upload is requested but not yet uploaded). See
+     * getUploadValidationStatus() for more details. No thread is held while waiting. The caller is responsible for
+     * timing out, and can cancel the returned future to stop waiting.
      */
-    public UploadValidationStatus pollUploadValidationStatusUntilComplete(String uploadId) {
-        // Loop logic is a little wonky. (Loop-and-a-half problem.) Use an infinite loop here and rely on tests to make
-        // sure we don't go infinite.
-        int numIters = 0;
-        while (true) {
-            UploadValidationStatus validationStatus = getUploadValidationStatus(uploadId);
-            if (validationStatus.getStatus() != UploadStatus.VALIDATION_IN_PROGRESS) {
-                // Validation is either finished processing, or otherwise in a state where it's pointless to wait.
-                // Return the answer we have now.
-                return validationStatus;
-            }
-
-            // Short-circuit: If we've elapsed our timeout, just exit now. Don't wait for a sleep.
-            numIters++;
-            if (numIters >= pollValidationStatusMaxIterations) {
-                throw new BridgeServiceException("Timeout polling validation status for upload " + uploadId);
-            }
-
-            // Sleep and try again.
-            try {
-                Thread.sleep(pollValidationStatusSleepMillis);
-            } catch (InterruptedException ex) {
-                logger.error("Interrupted while polling for validation status: " + ex.getMessage());
-            }
+    public CompletableFuture<UploadValidationStatus> getUploadValidationStatusWhenComplete(String uploadId) {
+        // Register before reading the status, so that a validation that finishes in between isn't missed.
+        CompletableFuture<Void> completion = uploadCompletionRegistry.register(uploadId);
+        UploadValidationStatus validationStatus;
+        try {
+            validationStatus = getUploadValidationStatus(uploadId);
+        } catch (RuntimeException ex) {
+            completion.cancel(false);
+            throw ex;
         }
+        if (validationStatus.getStatus() != UploadStatus.VALIDATION_IN_PROGRESS) {
+            // Validation is either finished processing, or otherwise in a state where it's pointless to wait.
+            // Return the answer we have now.
+            completion.cancel(false);
+            return CompletableFuture.completedFuture(validationStatus);
+        }
+
+        // Completion is signalled from an upload validation or pub/sub thread, so read the final status on the
+        // async thread pool. If the caller gives up first, stop waiting.
+        CompletableFuture<UploadValidationStatus> result = completion.thenApplyAsync(
+                signal -> getUploadValidationStatus(uploadId), asyncExecutorService);
+        result.whenComplete((status, ex) -> completion.cancel(false));
+        return result;
     }
 
     public void uploadComplete(String appId, UploadCompletionClient completedBy, Upload upload,
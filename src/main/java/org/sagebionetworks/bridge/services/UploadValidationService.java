@@ -3,24 +3,54 @@ package org.sagebionetworks.bridge.services;
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
 
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.dao.UploadDao;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutor;
+import org.sagebionetworks.bridge.upload.UploadValidationMetrics;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
 import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 
 /** Service handler for upload validation. */
 @Component
 public class UploadValidationService {
-    private ExecutorService asyncExecutorService;
+    private static final Logger LOG = LoggerFactory.getLogger(UploadValidationService.class);
+
+    // Package-scoped for unit tests.
+    static final String QUEUE_FULL_MESSAGE = "Upload validation queue is full. Call uploadComplete again later.";
+
+    private UploadDao uploadDao;
+    private UploadValidationExecutor uploadValidationExecutor;
+    private UploadValidationMetrics uploadValidationMetrics;
     private UploadValidationTaskFactory taskFactory;
 
-    /** Async thread pool. This is configured by Spring. */
-    @Resource(name = "asyncExecutorService")
-    public void setAsyncExecutorService(ExecutorService asyncExecutorService) {
-        this.asyncExecutorService = asyncExecutorService;
+    /** Upload DAO, used to return rejected uploads to a state where they can be retried. */
+    @Autowired
+    public final void setUploadDao(UploadDao uploadDao) {
+        this.uploadDao = uploadDao;
+    }
+
+    /** Bounded thread pool dedicated to upload validation. This is configured by Spring. */
+    @Resource(name = "uploadValidationExecutor")
+    public void setUploadValidationExecutor(UploadValidationExecutor uploadValidationExecutor) {
+        this.uploadValidationExecutor = uploadValidationExecutor;
+    }
+
+    /** Upload validation metrics, reported alongside the executor gauges. This is configured by Spring. */
+    @Autowired
+    public final void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
     }
 
     /** Task factory. This is configured by Spring. */
@@ -38,6 +68,10 @@ public class UploadValidationService {
      * App and user comes from the controller and upload comes from UploadService.getUpload(), so none of the fields
      * are user input, so validation is not needed.
      * </p>
+     * <p>
+     * If the validation queue is full, the upload is returned to the REQUESTED status, so that uploadComplete can be
+     * called again, and this throws a ServiceUnavailableException.
+     * </p>
      *
      * @param appId
      *         app this upload lives in
@@ -46,6 +80,30 @@ public class UploadValidationService {
      */
     public void validateUpload(@Nonnull String appId, @Nonnull Upload upload) {
         UploadValidationTask task = taskFactory.newTask(appId, upload);
-        asyncExecutorService.execute(task);
+        try {
+            uploadValidationExecutor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            LOG.warn("Upload validation queue is full, rejecting upload " + upload.getUploadId() + " for app " +
+                    appId);
+            uploadDao.writeValidationStatus(upload, UploadStatus.REQUESTED, ImmutableList.of(QUEUE_FULL_MESSAGE),
+                    null);
+            throw new ServiceUnavailableException(QUEUE_FULL_MESSAGE);
+        }
+    }
+
+    /**
+     * Returns gauges and latency summaries for upload validation on this server node: queue depth, active and total
+     * workers, rejected uploads, queue wait and execution latency, and latency for each validation handler.
+     */
+    public Map<String, Object> getValidationStats() {
+        return new ImmutableMap.Builder<String, Object>()
+                .put("queueDepth", uploadValidationExecutor.getQueue().size())
+                .put("activeWorkers", uploadValidationExecutor.getActiveCount())
+                .put("poolSize", uploadValidationExecutor.getPoolSize())
+                .put("completedTaskCount", uploadValidationExecutor.getCompletedTaskCount())
+                .put("rejectedCount", uploadValidationMetrics.getRejectedCount())
+                .put("queueWait", uploadValidationMetrics.getQueueWaitStats())
+                .put("execution", uploadValidationMetrics.getExecutionStats())
+                .put("handlers", uploadValidationMetrics.getHandlerStats()).build();
     }
 }
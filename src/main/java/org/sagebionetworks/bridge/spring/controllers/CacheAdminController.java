@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.spring.controllers;
 
 import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
 
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +35,13 @@ public class CacheAdminController extends BaseController {
         return cacheAdminService.listItems();
     }
     
+    @GetMapping("stats")
+    public Map<String, Map<String, Long>> getLocalCacheStats() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        return cacheAdminService.getLocalCacheStats();
+    }
+    
     @DeleteMapping("{cacheKey}")
     public StatusMessage removeItem(@PathVariable String cacheKey) {
         getAuthenticatedSession(SUPERADMIN);
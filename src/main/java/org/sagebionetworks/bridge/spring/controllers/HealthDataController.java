@@ -6,6 +6,7 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.models.DateTimeRangeResourceList;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -76,6 +78,18 @@ public class HealthDataController extends BaseController {
         return HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(recordResourceList);
     }
 
+    /**
+     * Worker API to page through the health data records uploaded on the given date, generally for export. The whole
+     * record is returned, including health code.
+     */
+    @GetMapping("/v3/healthdata/uploadDates/{uploadDate}")
+    public ForwardCursorPagedResourceList<HealthDataRecord> getRecordsForUploadDate(@PathVariable String uploadDate,
+            @RequestParam(required = false) String offsetKey, @RequestParam(required = false) Integer pageSize) {
+        getAuthenticatedSession(WORKER);
+
+        return healthDataService.getRecordsForUploadDate(uploadDate, offsetKey, pageSize);
+    }
+
     /**
      * API to allow consented users to submit health data in a synchronous API, instead of using the asynchronous
      * upload API. This is most beneficial for small data sets, like simple surveys. This API returns the health data
@@ -138,6 +152,13 @@ public class HealthDataController extends BaseController {
 
         List<String> updatedRecordIds = healthDataService.updateRecordsWithExporterStatus(recordExportStatusRequest);
 
+        // Records that couldn't be found are reported, rather than failing the records that were updated.
+        List<String> missingRecordIds = recordExportStatusRequest.getRecordIds().stream()
+                .filter(id -> !updatedRecordIds.contains(id)).distinct().collect(Collectors.toList());
+        if (!missingRecordIds.isEmpty()) {
+            return new StatusMessage("Update exporter status to: " + updatedRecordIds + " complete. Records not found: "
+                    + missingRecordIds + ".");
+        }
         return new StatusMessage("Update exporter status to: " + updatedRecordIds + " complete.");
     }
 }
@@ -236,12 +236,12 @@ public class ParticipantController extends BaseController {
             @RequestParam(required = false) String pageSize, @RequestParam(required = false) String emailFilter,
             @RequestParam(required = false) String phoneFilter, @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate, @RequestParam(required = false) String startTime,
-            @RequestParam(required = false) String endTime) {
+            @RequestParam(required = false) String endTime, @RequestParam(required = false) String offsetKey) {
         UserSession session = getAuthenticatedSession(RESEARCHER);
         App app = appService.getApp(session.getAppId());
         
         return getParticipantsInternal(app, offsetBy, pageSize, emailFilter, phoneFilter, startDate,
-                endDate, startTime, endTime);
+                endDate, startTime, endTime, offsetKey);
     }
 
     @PostMapping("/v3/participants/search")
@@ -259,12 +259,13 @@ public class ParticipantController extends BaseController {
             @RequestParam(required = false) String offsetBy, @RequestParam(required = false) String pageSize,
             @RequestParam(required = false) String emailFilter, @RequestParam(required = false) String phoneFilter,
             @RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
-            @RequestParam(required = false) String startTime, @RequestParam(required = false) String endTime) {
+            @RequestParam(required = false) String startTime, @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String offsetKey) {
         getAuthenticatedSession(WORKER);
         
         App app = appService.getApp(appId);
         return getParticipantsInternal(app, offsetBy, pageSize, emailFilter, phoneFilter, startDate, endDate,
-                startTime, endTime);
+                startTime, endTime, offsetKey);
     }
 
     @PostMapping(path = {"/v1/apps/{appId}/participants/search", "/v3/studies/{appId}/participants/search"})
@@ -543,7 +544,7 @@ public class ParticipantController extends BaseController {
     
     private JsonNode getParticipantsInternal(App app, String offsetByString, String pageSizeString,
             String emailFilter, String phoneFilter, String startDateString, String endDateString,
-            String startTimeString, String endTimeString) {
+            String startTimeString, String endTimeString, String offsetKey) {
         
         int offsetBy = getIntOrDefault(offsetByString, 0);
         int pageSize = getIntOrDefault(pageSizeString, API_DEFAULT_PAGE_SIZE);
@@ -562,6 +563,7 @@ public class ParticipantController extends BaseController {
         
         AccountSummarySearch search = new AccountSummarySearch.Builder()
                 .withOffsetBy(offsetBy)
+                .withOffsetKey(offsetKey)
                 .withPageSize(pageSize)
                 .withEmailFilter(emailFilter)
                 .withPhoneFilter(phoneFilter)
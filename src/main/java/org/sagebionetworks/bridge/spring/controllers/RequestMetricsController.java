@@ -0,0 +1,64 @@
+package org.sagebionetworks.bridge.spring.controllers;
+
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import org.sagebionetworks.bridge.services.CredentialHashingService;
+import org.sagebionetworks.bridge.services.RequestInfoRecorder;
+import org.sagebionetworks.bridge.util.RequestMetricsRegistry;
+
+@CrossOrigin
+@RestController
+public class RequestMetricsController extends BaseController {
+    
+    private RequestMetricsRegistry requestMetricsRegistry;
+    
+    private RequestInfoRecorder requestInfoRecorder;
+    
+    private CredentialHashingService credentialHashingService;
+    
+    @Autowired
+    final void setRequestMetricsRegistry(RequestMetricsRegistry requestMetricsRegistry) {
+        this.requestMetricsRegistry = requestMetricsRegistry;
+    }
+    
+    @Autowired
+    final void setRequestInfoRecorder(RequestInfoRecorder requestInfoRecorder) {
+        this.requestInfoRecorder = requestInfoRecorder;
+    }
+    
+    @Autowired
+    final void setCredentialHashingService(CredentialHashingService credentialHashingService) {
+        this.credentialHashingService = credentialHashingService;
+    }
+    
+    /** Gets per-route latency summaries, status counts, and requests in flight for this server node. */
+    @GetMapping("/v3/metrics/requests")
+    public Map<String, Object> getRequestStats() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        return requestMetricsRegistry.getStats();
+    }
+    
+    /** Gets the size of the request info write buffer and the latency of its writes, for this server node. */
+    @GetMapping("/v3/metrics/requestInfos")
+    public Map<String, Object> getRequestInfoStats() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        return requestInfoRecorder.getStats();
+    }
+    
+    /** Gets password and token hashes in flight per app, rejections, and hashing latency, for this server node. */
+    @GetMapping("/v3/metrics/credentialHashing")
+    public Map<String, Object> getCredentialHashingStats() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        return credentialHashingService.getStats();
+    }
+}
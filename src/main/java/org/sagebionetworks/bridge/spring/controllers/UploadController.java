@@ -6,6 +6,9 @@ import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
 
 import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -17,9 +20,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.dao.HealthCodeDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.Metrics;
@@ -30,21 +35,28 @@ import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.models.upload.UploadCompletionClient;
 import org.sagebionetworks.bridge.models.upload.UploadRequest;
 import org.sagebionetworks.bridge.models.upload.UploadSession;
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
 import org.sagebionetworks.bridge.models.upload.UploadView;
 import org.sagebionetworks.bridge.services.HealthDataService;
 import org.sagebionetworks.bridge.services.UploadService;
+import org.sagebionetworks.bridge.services.UploadValidationService;
 import org.sagebionetworks.bridge.time.DateUtils;
 
 @CrossOrigin
 @RestController
 public class UploadController extends BaseController {
 
+    // How long a synchronous upload complete call waits for upload validation. Package-scoped for unit tests.
+    static final long SYNCHRONOUS_TIMEOUT_MILLIS = 30000;
+
     private UploadService uploadService;
     
     private HealthDataService healthDataService;
     
     private HealthCodeDao healthCodeDao;
+    
+    private UploadValidationService uploadValidationService;
 
     @Autowired
     final void setUploadService(UploadService uploadService) {
@@ -61,6 +73,11 @@ public class UploadController extends BaseController {
         this.healthCodeDao = healthCodeDao;
     }
     
+    @Autowired
+    final void setUploadValidationService(UploadValidationService uploadValidationService) {
+        this.uploadValidationService = uploadValidationService;
+    }
+    
     /** Gets validation status and messages for the given upload ID. 
      * @throws JsonProcessingException */
     @GetMapping(path={"/v3/uploadstatuses/{uploadId}", "/api/v1/upload/{uploadId}/status"}, produces={APPLICATION_JSON_UTF8_VALUE})
@@ -108,11 +125,13 @@ public class UploadController extends BaseController {
      * <p>
      * If synchronous is set to "true", we will wait until upload validation is complete, then return the upload
      * validation status. This is generally recommended only for App Development, as some large uploads might take
-     * several seconds to complete.
+     * several seconds to complete. The request is processed asynchronously, so that no request thread is held while
+     * waiting, and this returns a DeferredResult.
      * </p>
      * <p>
      * If synchronous is set to anything else, we will return a validation status immediately (which will often be in
-     * the "validation_in_progress" state) and let upload validation run in the background.
+     * the "validation_in_progress" state) and let upload validation run in the background. The status is returned as
+     * a JSON string, without an async dispatch.
      * </p>
      * <p>
      * If redrive is set to "true", then we allow upload validation of uploads that are already complete. This is to
@@ -120,7 +139,7 @@ public class UploadController extends BaseController {
      * </p>
      */
     @PostMapping(path={"/v3/uploads/{uploadId}/complete", "/api/v1/upload/{uploadId}/complete"}, produces={APPLICATION_JSON_UTF8_VALUE})
-    public String uploadComplete(@PathVariable String uploadId,
+    public Object uploadComplete(@PathVariable String uploadId,
             @RequestParam(defaultValue = "false") boolean synchronous,
             @RequestParam(defaultValue = "false") boolean redrive) throws Exception {
         final Metrics metrics = getMetrics();
@@ -153,16 +172,51 @@ public class UploadController extends BaseController {
         uploadService.uploadComplete(appId, uploadCompletionClient, upload, redrive);
 
         // In async mode, we get the validation status (probably in validation_in_progress) and return immediately.
-        // In sync mode, we poll until the validation status is complete (or failed or another non-transient status).
-        UploadValidationStatus validationStatus;
-        if (synchronous) {
-            validationStatus = uploadService.pollUploadValidationStatusUntilComplete(uploadId);
-        } else {
-            validationStatus = uploadService.getUploadValidationStatus(uploadId);
+        if (!synchronous) {
+            // Upload validation status may contain the health data record. Use the filter to filter out health code.
+            return HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(
+                    uploadService.getUploadValidationStatus(uploadId));
         }
 
-        // Upload validation status may contain the health data record. Use the filter to filter out health code.
-        return HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus);
+        // In sync mode, we wait until the validation status is complete (or failed or another non-transient status).
+        DeferredResult<String> result = new DeferredResult<>(SYNCHRONOUS_TIMEOUT_MILLIS);
+        CompletableFuture<UploadValidationStatus> future = uploadService
+                .getUploadValidationStatusWhenComplete(uploadId);
+        result.onTimeout(() -> onSynchronousTimeout(uploadId, future, result));
+        future.whenComplete((validationStatus, ex) -> {
+            if (ex != null) {
+                result.setErrorResult(ex instanceof CompletionException ? ex.getCause() : ex);
+                return;
+            }
+            try {
+                result.setResult(HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus));
+            } catch (JsonProcessingException jsonEx) {
+                result.setErrorResult(jsonEx);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The completion signal can be missed (for example, while the signal bus reconnects, or when it's turned off), so
+     * when the wait times out, the validation status is read once more before giving up. Package-scoped for unit
+     * tests.
+     */
+    void onSynchronousTimeout(String uploadId, CompletableFuture<UploadValidationStatus> future,
+            DeferredResult<String> result) {
+        future.cancel(false);
+        try {
+            UploadValidationStatus validationStatus = uploadService.getUploadValidationStatus(uploadId);
+            if (validationStatus.getStatus() != UploadStatus.VALIDATION_IN_PROGRESS) {
+                result.setResult(HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus));
+                return;
+            }
+        } catch (JsonProcessingException | RuntimeException ex) {
+            result.setErrorResult(ex);
+            return;
+        }
+        result.setErrorResult(new BridgeServiceException(
+                "Timeout waiting for validation status for upload " + uploadId));
     }
     
     @GetMapping("/v3/uploads/{uploadId}")
@@ -192,4 +246,12 @@ public class UploadController extends BaseController {
         }
         return uploadView;
     }
+    
+    /** Gets validation queue gauges and latency summaries for this server node. */
+    @GetMapping("/v3/uploads/validation/stats")
+    public Map<String, Object> getValidationStats() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        return uploadValidationService.getValidationStats();
+    }
 }
@@ -4,7 +4,11 @@ import static org.apache.http.HttpHeaders.USER_AGENT;
 import static org.sagebionetworks.bridge.BridgeConstants.X_FORWARDED_FOR_HEADER;
 
 import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -16,10 +20,14 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.models.Metrics;
+import org.sagebionetworks.bridge.util.RequestMetricsRegistry;
 
 @Component
 public class MetricsFilter implements Filter {
@@ -28,6 +36,24 @@ public class MetricsFilter implements Filter {
     
     public static final String X_PASSTHROUGH = "X-Passthrough";
     
+    static final String LOG_SAMPLE_RATE_PROPERTY = "metrics.log.sample.rate";
+    
+    private RequestMetricsRegistry requestMetricsRegistry;
+    
+    // Log the metrics of 1 in every N requests. 0 turns logging off. Server errors are always logged.
+    private int logSampleRate = 1;
+    
+    /** Per-route request histograms and counters. This is configured by Spring. */
+    @Autowired
+    public final void setRequestMetricsRegistry(RequestMetricsRegistry requestMetricsRegistry) {
+        this.requestMetricsRegistry = requestMetricsRegistry;
+    }
+    
+    @Autowired
+    public final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.logSampleRate = bridgeConfig.getInt(LOG_SAMPLE_RATE_PROPERTY);
+    }
+    
     @Override
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
             throws IOException, ServletException {
@@ -41,16 +67,64 @@ public class MetricsFilter implements Filter {
         metrics.setRemoteAddress(header(request, X_FORWARDED_FOR_HEADER, request.getRemoteAddr()));
         metrics.setUserAgent(header(request, USER_AGENT, null));
         
+        long startNanos = System.nanoTime();
+        requestMetricsRegistry.requestStarted();
+        // If the exception escapes the chain, the container will respond with a 500.
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        boolean asyncStarted = false;
         try {
             chain.doFilter(req, res);
-            metrics.setStatus(response.getStatus());
+            status = response.getStatus();
+            metrics.setStatus(status);
+            asyncStarted = request.isAsyncStarted();
         } finally {
-            if (response.getHeader(X_PASSTHROUGH) == null) {
-                metrics.end();
-                LOG.info(metrics.toJsonString());
+            if (asyncStarted) {
+                // The response is written later, on another thread. Record the request when it completes.
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        int asyncStatus = response.getStatus();
+                        metrics.setStatus(asyncStatus);
+                        requestFinished(request, response, metrics, startNanos, asyncStatus);
+                    }
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        // onComplete is called after the timeout is handled.
+                    }
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        // onComplete is called after the error is handled.
+                    }
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        // no-op
+                    }
+                });
+            } else {
+                requestFinished(request, response, metrics, startNanos, status);
             }
         }
     }
+    
+    private void requestFinished(HttpServletRequest request, HttpServletResponse response, Metrics metrics,
+            long startNanos, int status) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        // Spring sets the matched controller mapping on the request once it has been dispatched.
+        String pathPattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        requestMetricsRegistry.requestFinished(request.getMethod(), pathPattern, status, elapsedMillis);
+        
+        if (response.getHeader(X_PASSTHROUGH) == null && shouldLog(status)) {
+            metrics.end();
+            LOG.info(metrics.toJsonString());
+        }
+    }
+    
+    private boolean shouldLog(int status) {
+        if (status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR || logSampleRate == 1) {
+            return true;
+        }
+        return logSampleRate > 1 && ThreadLocalRandom.current().nextInt(logSampleRate) == 0;
+    }
 
     private String header(HttpServletRequest request, String name, String defaultVal) {
         final String value = request.getHeader(name);
@@ -0,0 +1,85 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The attachment uploads started while validating a single upload. UploadFileHelper starts attachment uploads in the
+ * background, so that they run while the rest of the upload's fields are extracted. The validation handler must call
+ * {@link #join} before the health data record is written, so that the record never refers to an attachment that
+ * doesn't exist, and {@link #cancel} if validation fails.
+ *
+ * This is used only by the thread that is validating the upload, so it isn't thread-safe.
+ */
+public class AttachmentUploadBatch {
+    private final String uploadId;
+    private final Deque<PendingUpload> pendingUploads = new ArrayDeque<>();
+
+    public AttachmentUploadBatch(String uploadId) {
+        this.uploadId = checkNotNull(uploadId);
+    }
+
+    /** Adds an attachment upload that has been started. */
+    void add(String attachmentFilename, Future<?> future) {
+        pendingUploads.add(new PendingUpload(attachmentFilename, future));
+    }
+
+    /** Number of attachment uploads that have been started and not yet waited for. */
+    int getPendingCount() {
+        return pendingUploads.size();
+    }
+
+    /** Waits for the oldest pending attachment upload to finish. */
+    void awaitOldest() throws UploadValidationException {
+        PendingUpload pendingUpload = pendingUploads.poll();
+        if (pendingUpload != null) {
+            await(pendingUpload);
+        }
+    }
+
+    /**
+     * Waits for all attachment uploads to finish. If any of them failed, the rest are cancelled and this throws an
+     * UploadValidationException.
+     */
+    public void join() throws UploadValidationException {
+        while (!pendingUploads.isEmpty()) {
+            awaitOldest();
+        }
+    }
+
+    /** Cancels all attachment uploads that haven't finished yet. */
+    public void cancel() {
+        for (PendingUpload pendingUpload : pendingUploads) {
+            pendingUpload.future.cancel(true);
+        }
+        pendingUploads.clear();
+    }
+
+    private void await(PendingUpload pendingUpload) throws UploadValidationException {
+        try {
+            pendingUpload.future.get();
+        } catch (ExecutionException ex) {
+            cancel();
+            throw new UploadValidationException("Error uploading file as attachment, uploadId=" + uploadId +
+                    ", attachment=" + pendingUpload.attachmentFilename, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new UploadValidationException("Interrupted while uploading attachments, uploadId=" + uploadId, ex);
+        }
+    }
+
+    private static class PendingUpload {
+        private final String attachmentFilename;
+        private final Future<?> future;
+
+        PendingUpload(String attachmentFilename, Future<?> future) {
+            this.attachmentFilename = attachmentFilename;
+            this.future = future;
+        }
+    }
+}
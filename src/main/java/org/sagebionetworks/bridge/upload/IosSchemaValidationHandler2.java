@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
 
@@ -199,7 +200,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
         // Get survey. We use the survey identifier as the schema ID and the schema revision. Both of these must be
         // specified.
         GuidCreatedOnVersionHolder surveyKeys = new GuidCreatedOnVersionHolderImpl(surveyGuid, surveyCreatedOnMillis);
-        Survey survey = surveyService.getSurvey(appId, surveyKeys, false, true);
+        Survey survey = surveyService.getCachedSurvey(appId, surveyKeys);
         String schemaId = survey.getIdentifier();
         Integer schemaRev = survey.getSchemaRevision();
         if (StringUtils.isBlank(schemaId) || schemaRev == null) {
@@ -209,7 +210,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
 
         // Get the schema with the schema ID and rev.
         // Note that if there's no schema, we treat this like schemaless.
-        return uploadSchemaService.getUploadSchemaByIdAndRevNoThrow(appId, schemaId, schemaRev);
+        return uploadSchemaService.getCachedUploadSchemaByIdAndRev(appId, schemaId, schemaRev);
     }
 
     private UploadSchema getUploadSchemaByItemAndRev(String appId, String item, Integer schemaRev) {
@@ -229,7 +230,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
 
         // get schema
         // Note that if there's no schema, we treat this like schemaless.
-        return uploadSchemaService.getUploadSchemaByIdAndRevNoThrow(appId, item, schemaRev);
+        return uploadSchemaService.getCachedUploadSchemaByIdAndRev(appId, item, schemaRev);
     }
 
     private static void validateInfoJsonFileList(UploadValidationContext context, String uploadId,
@@ -427,30 +428,42 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
             ObjectNode dataMap) throws UploadValidationException {
         Map<String, File> sanitizedUnzippedDataFileMap = UploadUtil.sanitizeFieldNames(unzippedDataFileMap);
         Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache = new HashMap<>();
-
-        // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
-        for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
-            String fieldName = oneFieldDef.getName();
-            JsonNode fieldNode;
-
-            if (surveyAnswerMap.containsKey(fieldName)) {
-                // The field has already been parsed as a survey.
-                JsonNode surveyAnswerNode = surveyAnswerMap.get(fieldName);
-
-                if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
-                    // Attachments in a survey. This is unusual, but there's nothing in our schema system that prevents
-                    // this. We should handle it just to be safe.
-                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(surveyAnswerNode, uploadId, fieldName);
+        Set<String> schemaFieldNames = schema.getFieldDefinitions().stream().map(UploadFieldDefinition::getName)
+                .collect(Collectors.toSet());
+        AttachmentUploadBatch attachmentUploads = new AttachmentUploadBatch(uploadId);
+
+        try {
+            // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
+            for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
+                String fieldName = oneFieldDef.getName();
+                JsonNode fieldNode;
+
+                if (surveyAnswerMap.containsKey(fieldName)) {
+                    // The field has already been parsed as a survey.
+                    JsonNode surveyAnswerNode = surveyAnswerMap.get(fieldName);
+
+                    if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
+                        // Attachments in a survey. This is unusual, but there's nothing in our schema system that
+                        // prevents this. We should handle it just to be safe.
+                        fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(surveyAnswerNode, uploadId,
+                                fieldName);
+                    } else {
+                        fieldNode = surveyAnswerNode;
+                    }
                 } else {
-                    fieldNode = surveyAnswerNode;
+                    fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap,
+                            oneFieldDef, schemaFieldNames, parsedSanitizedJsonFileCache, attachmentUploads);
                 }
-            } else {
-                fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap, oneFieldDef,
-                        parsedSanitizedJsonFileCache);
+
+                // Copy the field to the record.
+                copyJsonField(context, uploadId, fieldNode, oneFieldDef, dataMap);
             }
 
-            // Copy the field to the record.
-            copyJsonField(context, uploadId, fieldNode, oneFieldDef, dataMap);
+            // The record refers to the attachments, so they must all be in S3 before the record is written.
+            attachmentUploads.join();
+        } finally {
+            // If validation failed, don't leave attachment uploads running.
+            attachmentUploads.cancel();
         }
     }
 
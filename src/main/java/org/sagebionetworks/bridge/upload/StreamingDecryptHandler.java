@@ -0,0 +1,118 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Resource;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.ByteStreams;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.file.FileHelper;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+
+/**
+ * <p>
+ * Validation handler that replaces S3DownloadHandler and DecryptHandler when upload validation runs in streaming
+ * mode. The S3 object stream is decrypted as it is read, so the encrypted upload is never written to disk.
+ * </p>
+ * <p>
+ * The decrypted archive is held in memory and written to
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#setDecryptedData}. Only archives larger than the
+ * configured spill threshold are written to the temp dir, in which case they are written to
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#setDecryptedDataFile} instead. UnzipHandler and
+ * UploadRawZipHandler read from whichever one is set.
+ * </p>
+ */
+@Component
+public class StreamingDecryptHandler implements UploadValidationHandler {
+    private static final String UPLOAD_BUCKET = BridgeConfigFactory.getConfig().getProperty("upload.bucket");
+
+    // Package-scoped for unit tests.
+    static final String SPILL_THRESHOLD_PROPERTY = "upload.validation.spill.threshold.bytes";
+    static final int DEFAULT_SPILL_THRESHOLD_BYTES = 10 * 1024 * 1024;
+
+    private FileHelper fileHelper;
+    private AmazonS3Client s3Client;
+    private int spillThresholdBytes = DEFAULT_SPILL_THRESHOLD_BYTES;
+    private UploadArchiveService uploadArchiveService;
+
+    /** Bridge config, used to get the size above which decrypted archives are spilled to disk. */
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        String threshold = bridgeConfig.get(SPILL_THRESHOLD_PROPERTY);
+        if (threshold != null) {
+            this.spillThresholdBytes = Integer.parseInt(threshold.trim());
+        }
+    }
+
+    /** File helper, used to create the spill file and to get file streams. */
+    @Autowired
+    public final void setFileHelper(FileHelper fileHelper) {
+        this.fileHelper = fileHelper;
+    }
+
+    /** S3 client, used to stream the upload from S3. This is configured by Spring. */
+    @Resource(name = "s3Client")
+    public final void setS3Client(AmazonS3Client s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    /** Sets the spill threshold. This setter is to allow unit tests to override. */
+    final void setSpillThresholdBytes(int spillThresholdBytes) {
+        this.spillThresholdBytes = spillThresholdBytes;
+    }
+
+    /** Upload archive service, which handles decrypting and unzipping of files. This is configured by Spring. */
+    @Autowired
+    public final void setUploadArchiveService(UploadArchiveService uploadArchiveService) {
+        this.uploadArchiveService = uploadArchiveService;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
+        String objectId = context.getUpload().getObjectId();
+        try (S3Object s3Object = s3Client.getObject(UPLOAD_BUCKET, objectId);
+             InputStream encryptedInputStream = getBufferedInputStream(s3Object.getObjectContent());
+             InputStream decryptedInputStream = uploadArchiveService.decrypt(context.getAppId(),
+                     encryptedInputStream)) {
+            // Read up to one byte past the threshold. If the stream ends first, the whole archive fits in memory.
+            ByteArrayOutputStream memoryOutputStream = new ByteArrayOutputStream();
+            ByteStreams.copy(ByteStreams.limit(decryptedInputStream, spillThresholdBytes + 1L),
+                    memoryOutputStream);
+            if (memoryOutputStream.size() <= spillThresholdBytes) {
+                context.setDecryptedData(memoryOutputStream.toByteArray());
+                return;
+            }
+
+            // Too big. Spill what we've read so far, then stream the rest of the archive after it. Temp file name is
+            // in the form "[uploadId].zip", same as DecryptHandler.
+            File outputFile = fileHelper.newFile(context.getTempDir(), context.getUploadId() + ".zip");
+            try (OutputStream outputFileStream = new BufferedOutputStream(fileHelper.getOutputStream(outputFile))) {
+                memoryOutputStream.writeTo(outputFileStream);
+                ByteStreams.copy(decryptedInputStream, outputFileStream);
+            }
+            context.setDecryptedDataFile(outputFile);
+        } catch (IOException ex) {
+            throw new UploadValidationException("Error streaming and decrypting file: " + ex.getMessage(), ex);
+        }
+    }
+
+    // Wraps the S3 stream in a buffered stream, since the decryptor doesn't introduce any buffering. This is a
+    // separate method so unit tests can bypass it, same as DecryptHandler.
+    InputStream getBufferedInputStream(InputStream inputStream) {
+        return new BufferedInputStream(inputStream);
+    }
+}
@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.upload;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -16,8 +17,9 @@ import org.sagebionetworks.bridge.services.UploadArchiveService;
 
 /**
  * Validation handler for unzipping the upload. This handler reads decrypted from
- * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDecryptedDataFile}, unzips it, and writes the
- * unzipped data to {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getUnzippedDataFileMap}.
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDecryptedDataFile} (or from
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDecryptedData} in streaming mode), unzips it,
+ * and writes the unzipped data to {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getUnzippedDataFileMap}.
  */
 @Component
 public class UnzipHandler implements UploadValidationHandler {
@@ -40,7 +42,7 @@ public class UnzipHandler implements UploadValidationHandler {
     @Override
     public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
         Map<String, File> unzippedDataFileMap = new HashMap<>();
-        try (InputStream zippedFileInputStream = fileHelper.getInputStream(context.getDecryptedDataFile())) {
+        try (InputStream zippedFileInputStream = getDecryptedInputStream(context)) {
             uploadArchiveService.unzip(zippedFileInputStream,
                     entryName -> {
                         File unzippedFile = fileHelper.newFile(context.getTempDir(), entryName);
@@ -65,4 +67,12 @@ public class UnzipHandler implements UploadValidationHandler {
         }
         context.setUnzippedDataFileMap(unzippedDataFileMap);
     }
+
+    // In streaming mode, small archives are never written to disk, so read them from memory.
+    private InputStream getDecryptedInputStream(UploadValidationContext context) throws IOException {
+        if (context.getDecryptedData() != null) {
+            return new ByteArrayInputStream(context.getDecryptedData());
+        }
+        return fileHelper.getInputStream(context.getDecryptedDataFile());
+    }
 }
@@ -0,0 +1,99 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+/**
+ * Futures for callers waiting for upload validation to finish, keyed by upload ID. UploadValidationTask signals
+ * completion once it has written the validation status, which completes the futures of every caller waiting on this
+ * server node. If pub/sub is enabled, the signal is also published through the CacheInvalidationBus, so that callers
+ * waiting on other server nodes (for example, when the upload was validated on the node the S3 worker called) are
+ * woken up too.
+ *
+ * Signals are not stored, so a caller must register before checking the upload's validation status, and stop waiting
+ * if validation has already finished.
+ */
+@Component
+public class UploadCompletionRegistry {
+    // Package-scoped for unit tests.
+    static final String UPLOAD_COMPLETION_CHANNEL = "UploadCompletion";
+    static final String PUBSUB_ENABLED_PROPERTY = "upload.validation.completion.pubsub.enabled";
+
+    private final ConcurrentMap<String, List<CompletableFuture<Void>>> waiterMap = new ConcurrentHashMap<>();
+    private CacheInvalidationBus cacheInvalidationBus;
+    private boolean pubSubEnabled;
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.pubSubEnabled = Boolean.valueOf(bridgeConfig.get(PUBSUB_ENABLED_PROPERTY));
+    }
+
+    @Autowired
+    final void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.addListener(UPLOAD_COMPLETION_CHANNEL, this::completeLocal);
+    }
+
+    /**
+     * Returns a future that completes when validation of the given upload finishes. The future is completed on the
+     * thread that signals completion, so callers shouldn't do any blocking work in its dependent stages. Cancel the
+     * future to stop waiting.
+     */
+    public CompletableFuture<Void> register(String uploadId) {
+        checkNotNull(uploadId);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        waiterMap.compute(uploadId, (key, waiterList) -> {
+            if (waiterList == null) {
+                waiterList = new ArrayList<>();
+            }
+            waiterList.add(future);
+            return waiterList;
+        });
+        // Once the future is done, for whatever reason, nothing is waiting on it.
+        future.whenComplete((result, ex) -> unregister(uploadId, future));
+        return future;
+    }
+
+    /** Signals that validation of the given upload has finished, to callers on this and (if enabled) all nodes. */
+    public void signalCompletion(String uploadId) {
+        checkNotNull(uploadId);
+        completeLocal(uploadId);
+        if (pubSubEnabled) {
+            cacheInvalidationBus.publish(UPLOAD_COMPLETION_CHANNEL, uploadId);
+        }
+    }
+
+    /** Number of callers on this node waiting for validation to finish. */
+    public int getWaitingCount() {
+        return waiterMap.values().stream().mapToInt(List::size).sum();
+    }
+
+    // Package-scoped for unit tests.
+    void completeLocal(String uploadId) {
+        // The list is no longer reachable from the map, so no other thread can change it.
+        List<CompletableFuture<Void>> waiterList = waiterMap.remove(uploadId);
+        if (waiterList != null) {
+            for (CompletableFuture<Void> future : waiterList) {
+                future.complete(null);
+            }
+        }
+    }
+
+    private void unregister(String uploadId, CompletableFuture<Void> future) {
+        waiterMap.computeIfPresent(uploadId, (key, waiterList) -> {
+            waiterList.remove(future);
+            return waiterList.isEmpty() ? null : waiterList;
+        });
+    }
+}
@@ -4,14 +4,25 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
@@ -19,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -38,14 +50,46 @@ public class UploadFileHelper {
     // Package-scoped for unit tests.
     static final String ATTACHMENT_BUCKET = BridgeConfigFactory.getConfig().getProperty("attachment.bucket");
     static final String KEY_CUSTOM_CONTENT_MD5 = "Custom-Content-MD5";
+    static final String MAX_ATTACHMENT_UPLOADS_PER_UPLOAD_PROPERTY = "attachment.upload.max.per.upload";
+    static final String MULTIPART_THRESHOLD_PROPERTY = "attachment.multipart.threshold.bytes";
 
+    private ExecutorService attachmentUploadExecutorService;
+    private TransferManager attachmentTransferManager;
     private FileHelper fileHelper;
     private int inlineFileSizeLimit = UploadUtil.FILE_SIZE_LIMIT_INLINE_FIELD;
-    private DigestUtils md5DigestUtils;
+    private int maxAttachmentUploadsPerUpload = 4;
+    private long multipartThresholdBytes = Long.MAX_VALUE;
     private int parsedJsonFileSizeLimit = UploadUtil.FILE_SIZE_LIMIT_PARSED_JSON;
     private int parsedJsonWarningLimit = UploadUtil.WARNING_LIMIT_PARSED_JSON;
     private S3Helper s3Helper;
 
+    /** Executor shared by all uploads, used to write file attachments to S3 while the upload is validated. */
+    @Resource(name = "attachmentUploadExecutorService")
+    public final void setAttachmentUploadExecutorService(ExecutorService attachmentUploadExecutorService) {
+        this.attachmentUploadExecutorService = attachmentUploadExecutorService;
+    }
+
+    /** Transfer manager, used to write large file attachments to S3 as multipart uploads. */
+    @Resource(name = "attachmentTransferManager")
+    public final void setAttachmentTransferManager(TransferManager attachmentTransferManager) {
+        this.attachmentTransferManager = attachmentTransferManager;
+    }
+
+    /** Bridge config, used to get the attachment upload limits. */
+    @Autowired
+    public final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.maxAttachmentUploadsPerUpload = bridgeConfig.getInt(MAX_ATTACHMENT_UPLOADS_PER_UPLOAD_PROPERTY);
+        this.multipartThresholdBytes = bridgeConfig.getInt(MULTIPART_THRESHOLD_PROPERTY);
+    }
+
+    /**
+     * Sets the number of attachment uploads each upload can have in flight. This setter is to allow unit tests to
+     * override.
+     */
+    final void setMaxAttachmentUploadsPerUpload(int maxAttachmentUploadsPerUpload) {
+        this.maxAttachmentUploadsPerUpload = maxAttachmentUploadsPerUpload;
+    }
+
     /** File helper, used to check file sizes before parsing them into memory. */
     @Autowired
     public final void setFileHelper(FileHelper fileHelper) {
@@ -57,12 +101,6 @@ public class UploadFileHelper {
         this.inlineFileSizeLimit = inlineFileSizeLimit;
     }
 
-    /** Used to calculate the MD5 hash, used to submit S3 file metadata. */
-    @Resource(name = "md5DigestUtils")
-    public final void setMd5DigestUtils(DigestUtils md5DigestUtils) {
-        this.md5DigestUtils = md5DigestUtils;
-    }
-
     /** Sets the file size limit for parsed JSON files. This setter is to allow unit tests to override. */
     final void setParsedJsonFileSizeLimit(@SuppressWarnings("SameParameterValue") int parsedJsonFileSizeLimit) {
         this.parsedJsonFileSizeLimit = parsedJsonFileSizeLimit;
@@ -91,16 +129,23 @@ public class UploadFileHelper {
      *         map of upload files by name; the file names should be sanitized
      * @param fieldDef
      *         field definition to find the value for
+     * @param schemaFieldNames
+     *         names of all fields in the upload schema; only the top-level JSON keys that these fields refer to are
+     *         read from JSON files
      * @param parsedSanitizedJsonFileCache
      *         a cache of parsed sanitized JSON nodes, so that we don't have to parse and sanitize any JSON file more
      *         than once; the caller should initially pass in an empty writable map and reuse the same map for
      *         subsequent calls in a single upload
+     * @param attachmentUploads
+     *         the upload's attachment uploads; file attachments are uploaded in the background and added to this
+     *         batch, and the caller must join the batch before the health data record is written
      * @return the JSON node that matches field, or a TextNode with the attachment ID if it's an attachment
      * @throws UploadValidationException
      *         if parsing JSON files or uploading attachments fails
      */
     public JsonNode findValueForField(String uploadId, Map<String, File> sanitizedUnzippedDataFileMap,
-            UploadFieldDefinition fieldDef, Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache)
+            UploadFieldDefinition fieldDef, Set<String> schemaFieldNames,
+            Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache, AttachmentUploadBatch attachmentUploads)
             throws UploadValidationException {
         String fieldName = fieldDef.getName();
         boolean isAttachment = UploadFieldType.ATTACHMENT_TYPE_SET.contains(fieldDef.getType());
@@ -112,16 +157,11 @@ public class UploadFileHelper {
 
             if (isAttachment) {
                 if (fileHelper.fileSize(fieldFile) != 0) {
-                    // Case 1a: The whole file is an attachment. Upload the file. Field JSON is attachment filename.
+                    // Case 1a: The whole file is an attachment. Upload the file in the background. Field JSON is
+                    // attachment filename.
                     String attachmentFilename = uploadId + '-' + fieldName;
                     fieldNode = TextNode.valueOf(attachmentFilename);
-
-                    try {
-                        uploadFileAsAttachment(attachmentFilename, fieldFile);
-                    } catch (IOException ex) {
-                        throw new UploadValidationException("Error uploading file as attachment, uploadId=" +
-                                uploadId + ", fieldName=" + fieldName, ex);
-                    }
+                    startFileAttachmentUpload(attachmentUploads, attachmentFilename, fieldFile);
                 } else {
                     // Case 1b: The file is an empty attachment. Skip and return null.
                     fieldNode = null;
@@ -176,24 +216,17 @@ public class UploadFileHelper {
                                 parsedFilename + ", fileSize=" + parsedFileSize + " bytes");
                     }
 
-                    // Parse file and get the top level key that matches.
-                    JsonNode parsedJsonNode;
+                    // Parse only the top-level keys that the schema refers to in this file.
+                    Set<String> keyNames = getKeyNamesForFile(parsedFilename,
+                            Sets.union(schemaFieldNames, ImmutableSet.of(fieldName)));
                     try (InputStream parsedFileInputStream = fileHelper.getInputStream(parsedFile)) {
-                        parsedJsonNode = BridgeObjectMapper.get().readTree(parsedFileInputStream);
+                        sanitizedParsedJsonNodeMap = parseTopLevelKeys(parsedFileInputStream, keyNames);
                     } catch (IOException ex) {
                         // Assume we have the wrong file. Log a warning and proceed.
                         LOG.warn("Error parsing JSON file, uploadId=" + uploadId + ", fileName=" + parsedFilename);
                         continue;
                     }
 
-                    // Sanitize the top-level key names.
-                    sanitizedParsedJsonNodeMap = new HashMap<>();
-                    parsedJsonNode.fields().forEachRemaining(
-                            jsonEntry -> {
-                                String sanitizedKey = SchemaUtils.sanitizeFieldName(jsonEntry.getKey());
-                                sanitizedParsedJsonNodeMap.put(sanitizedKey, jsonEntry.getValue());
-                            });
-
                     // Add the parsed sanitized JSON to the cache, so we don't have to parse it again.
                     parsedSanitizedJsonFileCache.put(parsedFilename, sanitizedParsedJsonNodeMap);
                 }
@@ -222,6 +255,59 @@ public class UploadFileHelper {
         return fieldNode;
     }
 
+    // Top-level key names for the schema fields that refer to the given file. The field name is "[fileName].[keyName]".
+    private static Set<String> getKeyNamesForFile(String filename, Set<String> schemaFieldNames) {
+        Set<String> keyNames = new HashSet<>();
+        for (String fieldName : schemaFieldNames) {
+            if (fieldName.length() > filename.length() + 1 && fieldName.startsWith(filename)) {
+                keyNames.add(fieldName.substring(filename.length() + 1));
+            }
+        }
+        return keyNames;
+    }
+
+    /**
+     * Reads the values of the given top-level keys from a JSON object, keyed by sanitized key name. Rather than parsing
+     * the whole file into a tree, this streams through it and only builds the values that are needed, skipping over
+     * everything else (such as large arrays of sensor samples). The whole object is read, so if a key appears more
+     * than once, or several keys sanitize to the same name, the last value wins, as it does when parsing the file into
+     * a tree. If the JSON isn't an object, this returns an empty map. Package-scoped for unit tests.
+     */
+    static Map<String, JsonNode> parseTopLevelKeys(InputStream inputStream, Set<String> keyNames) throws IOException {
+        Map<String, JsonNode> sanitizedParsedJsonNodeMap = new HashMap<>();
+        try (JsonParser parser = BridgeObjectMapper.get().getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return sanitizedParsedJsonNodeMap;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String sanitizedKey = SchemaUtils.sanitizeFieldName(parser.getCurrentName());
+                // Move to the value.
+                parser.nextToken();
+                if (keyNames.contains(sanitizedKey)) {
+                    JsonNode value = parser.readValueAsTree();
+                    sanitizedParsedJsonNodeMap.put(sanitizedKey, value);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return sanitizedParsedJsonNodeMap;
+    }
+
+    // Starts uploading the file as an attachment on the shared executor. If the upload already has as many attachment
+    // uploads in flight as it's allowed, this first waits for the oldest one to finish.
+    private void startFileAttachmentUpload(AttachmentUploadBatch attachmentUploads, String attachmentFilename,
+            File file) throws UploadValidationException {
+        while (attachmentUploads.getPendingCount() >= maxAttachmentUploadsPerUpload) {
+            attachmentUploads.awaitOldest();
+        }
+        Future<?> future = attachmentUploadExecutorService.submit(() -> {
+            uploadFileAsAttachment(attachmentFilename, file);
+            return null;
+        });
+        attachmentUploads.add(attachmentFilename, future);
+    }
+
     /**
      * Uploads a JSON node as an upload attachment, then returns a JsonNode containing the attachment's filename in S3,
      * ready for use in a health data record.
@@ -242,8 +328,9 @@ public class UploadFileHelper {
 
     /** Upload bytes to the attachment bucket and apply the correct metadata. */
     public void uploadBytesAsAttachment(String filename, byte[] bytes) throws IOException {
-        // Calculate MD5 (hex-encoded).
-        byte[] md5 = md5DigestUtils.digest(bytes);
+        // Calculate MD5 (hex-encoded). Attachments are uploaded concurrently, and a MessageDigest isn't thread-safe,
+        // so each call computes its own.
+        byte[] md5 = DigestUtils.md5(bytes);
         String md5HexEncoded = Hex.encodeHexString(md5);
 
         // S3 Metadata must include encryption and MD5. Note that for some reason setContentMD5() doesn't work, so we
@@ -254,10 +341,17 @@ public class UploadFileHelper {
         s3Helper.writeBytesToS3(ATTACHMENT_BUCKET, filename, bytes, metadata);
     }
 
-    /** Upload a file to the attachment bucket and apply the correct metadata. */
+    /**
+     * Upload a file to the attachment bucket and apply the correct metadata. Files at or above the multipart
+     * threshold are written as multipart uploads.
+     */
     public void uploadFileAsAttachment(String filename, File file) throws IOException {
-        // Calculate MD5 (hex-encoded).
-        byte[] md5 = md5DigestUtils.digest(file);
+        // Calculate MD5 (hex-encoded). Attachments are uploaded concurrently, and a MessageDigest isn't thread-safe,
+        // so each call computes its own.
+        byte[] md5;
+        try (InputStream fileInputStream = fileHelper.getInputStream(file)) {
+            md5 = DigestUtils.md5(fileInputStream);
+        }
         String md5HexEncoded = Hex.encodeHexString(md5);
 
         // S3 Metadata must include encryption and MD5. Note that for some reason setContentMD5() doesn't work, so we
@@ -266,6 +360,19 @@ public class UploadFileHelper {
         LOG.info("Writing MD5 for attachment " + filename + ": " + md5HexEncoded);
         metadata.addUserMetadata(KEY_CUSTOM_CONTENT_MD5, md5HexEncoded);
         metadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
-        s3Helper.writeFileToS3(ATTACHMENT_BUCKET, filename, file, metadata);
+
+        if (fileHelper.fileSize(file) >= multipartThresholdBytes) {
+            PutObjectRequest request = new PutObjectRequest(ATTACHMENT_BUCKET, filename, file).withMetadata(metadata);
+            try {
+                attachmentTransferManager.upload(request).waitForCompletion();
+            } catch (AmazonClientException ex) {
+                throw new IOException("Error writing multipart attachment " + filename, ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing multipart attachment " + filename, ex);
+            }
+        } else {
+            s3Helper.writeFileToS3(ATTACHMENT_BUCKET, filename, file, metadata);
+        }
     }
 }
@@ -27,7 +27,11 @@ public class UploadRawZipHandler implements UploadValidationHandler {
         // Upload raw data as an attachment. Attachment ID is "[uploadId]-raw.zip".
         String rawDataAttachmentId = context.getUploadId() + RAW_ATTACHMENT_SUFFIX;
         try {
-            uploadFileHelper.uploadFileAsAttachment(rawDataAttachmentId, context.getDecryptedDataFile());
+            if (context.getDecryptedData() != null) {
+                uploadFileHelper.uploadBytesAsAttachment(rawDataAttachmentId, context.getDecryptedData());
+            } else {
+                uploadFileHelper.uploadFileAsAttachment(rawDataAttachmentId, context.getDecryptedDataFile());
+            }
         } catch (IOException ex) {
             throw new UploadValidationException("Error upload raw data zip for upload " + context.getUploadId());
         }
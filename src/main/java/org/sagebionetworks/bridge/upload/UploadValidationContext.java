@@ -21,6 +21,7 @@ public class UploadValidationContext {
     private File tempDir;
     private File dataFile;
     private File decryptedDataFile;
+    private byte[] decryptedData;
     private Map<String, File> unzippedDataFileMap;
     private JsonNode infoJsonNode;
     private HealthDataRecord healthDataRecord;
@@ -119,7 +120,10 @@ public class UploadValidationContext {
         this.dataFile = dataFile;
     }
 
-    /** Decrypted upload data file. This is created by DecryptHandler and read by UnzipHandler. */
+    /**
+     * Decrypted upload data file. This is created by DecryptHandler and read by UnzipHandler. In streaming mode, this
+     * is only set by StreamingDecryptHandler if the archive is too large to keep in memory.
+     */
     public File getDecryptedDataFile() {
         return decryptedDataFile;
     }
@@ -129,6 +133,19 @@ public class UploadValidationContext {
         this.decryptedDataFile = decryptedDataFile;
     }
 
+    /**
+     * Decrypted upload data, held in memory. This is created by StreamingDecryptHandler and read by UnzipHandler and
+     * UploadRawZipHandler. If this is set, it takes precedence over the decrypted data file.
+     */
+    public byte[] getDecryptedData() {
+        return decryptedData;
+    }
+
+    /** @see #getDecryptedData */
+    public void setDecryptedData(byte[] decryptedData) {
+        this.decryptedData = decryptedData;
+    }
+
     /**
      * Unzipped data files, keyed by filename. This is created by the UnzipHandler and read by InitRecordHandler, as
      * well as UploadFormatHandler, and its inner handlers.
@@ -204,6 +221,7 @@ public class UploadValidationContext {
         copy.tempDir = this.tempDir;
         copy.dataFile = this.dataFile;
         copy.decryptedDataFile = this.decryptedDataFile;
+        copy.decryptedData = this.decryptedData;
         copy.unzippedDataFileMap = this.unzippedDataFileMap;
         copy.infoJsonNode = this.infoJsonNode;
         copy.healthDataRecord = this.healthDataRecord;
@@ -0,0 +1,139 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.sagebionetworks.bridge.models.upload.Upload;
+
+/**
+ * <p>
+ * Thread pool dedicated to upload validation, so that a burst of uploads can't starve other async work or fill the
+ * heap with queued tasks. The queue is bounded. Once it's full, {@link #execute} throws a RejectedExecutionException
+ * and the caller is responsible for leaving the upload in a state where it can be retried.
+ * </p>
+ * <p>
+ * Queued uploads are prioritized by size. Uploads at or below the small upload threshold (most survey and task
+ * uploads) are validated before larger sensor uploads, and uploads of the same size class are validated in the order
+ * they were submitted.
+ * </p>
+ */
+public class UploadValidationExecutor extends ThreadPoolExecutor {
+    // Package-scoped for unit tests.
+    static final int PRIORITY_SMALL = 0;
+    static final int PRIORITY_LARGE = 1;
+
+    private final UploadValidationMetrics metrics;
+    private final AtomicLong sequence = new AtomicLong();
+    private final long smallUploadBytes;
+
+    /**
+     * Creates the executor.
+     *
+     * @param threadCount
+     *         number of validation worker threads
+     * @param queueCapacity
+     *         number of uploads that can wait for a worker before new uploads are rejected
+     * @param smallUploadBytes
+     *         uploads at or below this size (in bytes) are validated ahead of larger uploads
+     * @param metrics
+     *         metrics to record queue wait, execution time and rejections to
+     */
+    public UploadValidationExecutor(int threadCount, int queueCapacity, long smallUploadBytes,
+            UploadValidationMetrics metrics) {
+        super(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new BoundedPriorityBlockingQueue(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("upload-validation-%d").setDaemon(true).build());
+        this.metrics = metrics;
+        this.smallUploadBytes = smallUploadBytes;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void execute(Runnable command) {
+        QueuedTask queuedTask = new QueuedTask(command, getPriority(command), sequence.getAndIncrement(),
+                System.nanoTime(), metrics);
+        try {
+            super.execute(queuedTask);
+        } catch (RejectedExecutionException ex) {
+            metrics.recordRejection();
+            throw ex;
+        }
+    }
+
+    // Package-scoped for unit tests.
+    int getPriority(Runnable command) {
+        if (command instanceof UploadValidationTask) {
+            Upload upload = ((UploadValidationTask) command).getContext().getUpload();
+            if (upload != null && upload.getContentLength() > smallUploadBytes) {
+                return PRIORITY_LARGE;
+            }
+        }
+        return PRIORITY_SMALL;
+    }
+
+    /** Wraps a submitted task with its priority and submission time, so we can order it and time it. */
+    static final class QueuedTask implements Runnable, Comparable<QueuedTask> {
+        private final Runnable delegate;
+        private final int priority;
+        private final long sequence;
+        private final long queuedNanos;
+        private final UploadValidationMetrics metrics;
+
+        QueuedTask(Runnable delegate, int priority, long sequence, long queuedNanos,
+                UploadValidationMetrics metrics) {
+            this.delegate = delegate;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.queuedNanos = queuedNanos;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            metrics.recordQueueWait(TimeUnit.NANOSECONDS.toMillis(startNanos - queuedNanos));
+            try {
+                delegate.run();
+            } finally {
+                metrics.recordExecution(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        }
+
+        @Override
+        public int compareTo(QueuedTask other) {
+            int result = Integer.compare(priority, other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * PriorityBlockingQueue is unbounded. This rejects offers once the queue is at capacity, which causes the
+     * ThreadPoolExecutor to reject the task.
+     */
+    @SuppressWarnings("serial")
+    static final class BoundedPriorityBlockingQueue extends PriorityBlockingQueue<Runnable> {
+        private final int capacity;
+
+        BoundedPriorityBlockingQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        // Synchronized so two threads can't both see the last free slot. add() and put() both call through to this.
+        @Override
+        public synchronized boolean offer(Runnable runnable) {
+            if (size() >= capacity) {
+                return false;
+            }
+            return super.offer(runnable);
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, capacity - size());
+        }
+    }
+}
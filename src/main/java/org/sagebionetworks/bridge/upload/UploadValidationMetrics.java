@@ -0,0 +1,66 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.util.LatencyHistogram;
+
+/**
+ * In-process metrics for upload validation on this server node: how long tasks wait in the validation queue, how long
+ * they take to run, how long each validation handler takes, and how many uploads were turned away because the queue
+ * was full.
+ */
+@Component
+public class UploadValidationMetrics {
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+    private final LatencyHistogram executionHistogram = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> handlerHistograms = new ConcurrentHashMap<>();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /** Records how long a task waited in the queue before a worker picked it up. */
+    public void recordQueueWait(long millis) {
+        queueWaitHistogram.record(millis);
+    }
+
+    /** Records how long a task took to run, from the first handler to the final status write. */
+    public void recordExecution(long millis) {
+        executionHistogram.record(millis);
+    }
+
+    /** Records how long a single validation handler took for a single upload. */
+    public void recordHandlerLatency(String handlerName, long millis) {
+        handlerHistograms.computeIfAbsent(handlerName, name -> new LatencyHistogram()).record(millis);
+    }
+
+    /** Records an upload that couldn't be validated because the validation queue was full. */
+    public void recordRejection() {
+        rejectedCount.increment();
+    }
+
+    /** Number of uploads rejected because the validation queue was full. */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /** Queue wait latency summary. */
+    public Map<String, Long> getQueueWaitStats() {
+        return queueWaitHistogram.toMap();
+    }
+
+    /** Task execution latency summary. */
+    public Map<String, Long> getExecutionStats() {
+        return executionHistogram.toMap();
+    }
+
+    /** Latency summary for each validation handler, keyed by handler class name, in sorted order. */
+    public Map<String, Map<String, Long>> getHandlerStats() {
+        Map<String, Map<String, Long>> stats = new TreeMap<>();
+        handlerHistograms.forEach((name, histogram) -> stats.put(name, histogram.toMap()));
+        return stats;
+    }
+}
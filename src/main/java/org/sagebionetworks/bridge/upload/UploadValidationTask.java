@@ -29,6 +29,8 @@ public class UploadValidationTask implements Runnable {
     private List<UploadValidationHandler> handlerList;
     private UploadDao uploadDao;
     private HealthDataService healthDataService;
+    private UploadValidationMetrics uploadValidationMetrics;
+    private UploadCompletionRegistry uploadCompletionRegistry;
 
     public final void setHealthDataService(HealthDataService healthDataService) {
         this.healthDataService = healthDataService;
@@ -82,6 +84,29 @@ public class UploadValidationTask implements Runnable {
         return uploadDao;
     }
 
+    /** Metrics for recording per-handler latency. This is configured by Spring through the task factory. */
+    public final void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped*/ UploadValidationMetrics getUploadValidationMetrics() {
+        return uploadValidationMetrics;
+    }
+
+    /**
+     * Registry of callers waiting for this upload's validation to finish. This is configured by Spring through the
+     * task factory.
+     */
+    public final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped*/ UploadCompletionRegistry getUploadCompletionRegistry() {
+        return uploadCompletionRegistry;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void run() {
@@ -120,7 +145,7 @@ public class UploadValidationTask implements Runnable {
             } finally {
                 long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
                 stopwatch.reset();
-                // TODO: send this to somewhere other than the logs
+                uploadValidationMetrics.recordHandlerLatency(handlerName, elapsedMillis);
                 logger.info(String.format("Upload validation handler %s took %d ms", handlerName, elapsedMillis));
             }
         }
@@ -133,6 +158,10 @@ public class UploadValidationTask implements Runnable {
             logger.info(String.format("Upload validation for app %s, upload %s, record %s, with status %s",
                     context.getAppId(), context.getUpload().getUploadId(), context.getRecordId(),
                     status));
+
+            // Wake up callers waiting for the validation status. If the status couldn't be written, they'd only read
+            // the old status, so they're left to time out.
+            uploadCompletionRegistry.signalCompletion(context.getUpload().getUploadId());
         } catch (RuntimeException ex) {
             // ExceptionInterceptor doesn't handle asynchronous tasks, so we'll need to catch exceptions and log them
             // manually. Use the log helper function so we can verify it in unit tests.
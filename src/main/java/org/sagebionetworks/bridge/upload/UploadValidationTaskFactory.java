@@ -23,6 +23,8 @@ public class UploadValidationTaskFactory {
     private List<UploadValidationHandler> handlerList;
     private UploadDao uploadDao;
     private HealthDataService healthDataService;
+    private UploadValidationMetrics uploadValidationMetrics;
+    private UploadCompletionRegistry uploadCompletionRegistry;
 
     /** File helper, used to create and delete the temp directory in which we process uploads. */
     @Autowired
@@ -47,6 +49,18 @@ public class UploadValidationTaskFactory {
         this.healthDataService = healthDataService;
     }
 
+    /** Upload validation metrics, passed to tasks to record per-handler latency. This is configured by Spring. */
+    @Autowired
+    public final void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
+    }
+
+    /** Registry of callers waiting for validation to finish, passed to tasks. This is configured by Spring. */
+    @Autowired
+    public final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
     /**
      * Factory method for creating a validation task instance, for validating a single upload.
      *
@@ -69,6 +83,8 @@ public class UploadValidationTaskFactory {
         task.setHandlerList(handlerList);
         task.setUploadDao(uploadDao);
         task.setHealthDataService(healthDataService);
+        task.setUploadValidationMetrics(uploadValidationMetrics);
+        task.setUploadCompletionRegistry(uploadCompletionRegistry);
         return task;
     }
 }
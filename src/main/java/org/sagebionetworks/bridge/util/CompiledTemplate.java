@@ -0,0 +1,117 @@
+package org.sagebionetworks.bridge.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * <p>
+ * A template with <code>${variableName}</code> variables, split once into its literal text and variables so it can be
+ * rendered in a single pass. Rendering appends each literal and the value of each variable to one builder, instead of
+ * copying the whole template once for every variable in the map.
+ * </p>
+ * <p>
+ * Variables that aren't in the map, or whose value is null, are left in the output as is. Values are inserted as is,
+ * so a value that itself contains <code>${...}</code> is not resolved. Callers that need to resolve variables in
+ * inserted text (such as a consent body placed in a page template) should resolve it in a separate call. Escaping is
+ * up to the caller, for example with the escaper passed to BridgeUtils.appTemplateVariables().
+ * </p>
+ */
+public final class CompiledTemplate {
+    private static final String VARIABLE_START = "${";
+    private static final char VARIABLE_END = '}';
+
+    // Package-scoped for unit tests. Templates are keyed by their content, so a template revision compiles once per
+    // server, and a changed template is simply a new entry. Weighed by length, since consent documents are much
+    // larger than email subjects and SMS messages.
+    static final long CACHE_MAX_WEIGHT_CHARS = 10_000_000L;
+    static final Cache<String, CompiledTemplate> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(CACHE_MAX_WEIGHT_CHARS)
+            .weigher((String template, CompiledTemplate compiled) -> template.length()).build();
+
+    // Literals and variable names alternate, starting and ending with a literal (which may be empty), so there is
+    // always one more literal than there are variables.
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /** Returns the compiled form of the template, compiling it if it hasn't been compiled on this server yet. */
+    public static CompiledTemplate forTemplate(String template) {
+        checkNotNull(template);
+        CompiledTemplate compiled = CACHE.getIfPresent(template);
+        if (compiled == null) {
+            compiled = compile(template);
+            CACHE.put(template, compiled);
+        }
+        return compiled;
+    }
+
+    /** Compiles the template without caching it. */
+    public static CompiledTemplate compile(String template) {
+        checkNotNull(template);
+
+        List<String> literalList = new ArrayList<>();
+        List<String> variableList = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int start = template.indexOf(VARIABLE_START, position);
+            if (start < 0) {
+                break;
+            }
+            int end = template.indexOf(VARIABLE_END, start + VARIABLE_START.length());
+            if (end < 0) {
+                break;
+            }
+            // For text like "${a${b}", the variable is the innermost one, "b", and "${a" is literal text.
+            start = template.lastIndexOf(VARIABLE_START, end);
+            literalList.add(template.substring(position, start));
+            variableList.add(template.substring(start + VARIABLE_START.length(), end));
+            position = end + 1;
+        }
+        literalList.add(template.substring(position));
+
+        return new CompiledTemplate(literalList.toArray(new String[0]), variableList.toArray(new String[0]));
+    }
+
+    /** Resolves the template's variables with the given values. */
+    public String render(Map<String, String> values) {
+        checkNotNull(values);
+        if (variables.length == 0) {
+            return literals[0];
+        }
+        StringBuilder builder = new StringBuilder(literalLength + variables.length * 16);
+        render(values, builder);
+        return builder.toString();
+    }
+
+    /** Resolves the template's variables with the given values, appending the result to the given builder. */
+    public void render(Map<String, String> values, StringBuilder builder) {
+        checkNotNull(values);
+        checkNotNull(builder);
+        for (int i = 0; i < variables.length; i++) {
+            builder.append(literals[i]);
+            String value = values.get(variables[i]);
+            if (value != null) {
+                builder.append(value);
+            } else {
+                builder.append(VARIABLE_START).append(variables[i]).append(VARIABLE_END);
+            }
+        }
+        builder.append(literals[variables.length]);
+    }
+}
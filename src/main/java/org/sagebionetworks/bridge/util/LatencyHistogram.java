@@ -0,0 +1,101 @@
+package org.sagebionetworks.bridge.util;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A lock-free latency histogram with fixed buckets, in milliseconds. Recording is a bucket search plus a few
+ * LongAdder increments, so it's cheap enough to call on every request or task. Percentiles are approximated by the
+ * upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+    // Package-scoped for unit tests. Roughly 1-2-5 steps from 1 ms to 5 minutes. Anything above the last bound goes
+    // in an overflow bucket.
+    static final long[] BUCKET_UPPER_BOUNDS_MILLIS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000,
+            20000, 50000, 100000, 300000 };
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_BOUNDS_MILLIS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMillis = new LongAdder();
+    private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /** Records a single latency, in milliseconds. Negative values are treated as 0. */
+    public void record(long millis) {
+        long value = Math.max(0L, millis);
+        buckets[bucketIndex(value)].increment();
+        count.increment();
+        sumMillis.add(value);
+        maxMillis.accumulate(value);
+    }
+
+    /** Number of latencies recorded. */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** Largest latency recorded, in milliseconds. */
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    /**
+     * Approximate latency at the given percentile (0.0 to 1.0), in milliseconds. This is the upper bound of the bucket
+     * containing the percentile, or the max if the percentile falls in the overflow bucket. Returns 0 if nothing has
+     * been recorded.
+     */
+    public long getPercentileMillis(double percentile) {
+        long[] snapshot = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            snapshot[i] = buckets[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_UPPER_BOUNDS_MILLIS[i], getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Summary of this histogram, suitable for serializing to JSON: count, mean, p50, p95, p99 and max. Values are
+     * read without locking, so a summary taken while latencies are being recorded may be off by a few samples.
+     */
+    public Map<String, Long> toMap() {
+        long countValue = getCount();
+        return new ImmutableMap.Builder<String, Long>()
+                .put("count", countValue)
+                .put("meanMillis", countValue == 0 ? 0L : sumMillis.sum() / countValue)
+                .put("p50Millis", getPercentileMillis(0.50))
+                .put("p95Millis", getPercentileMillis(0.95))
+                .put("p99Millis", getPercentileMillis(0.99))
+                .put("maxMillis", getMaxMillis()).build();
+    }
+
+    private static int bucketIndex(long millis) {
+        // The bucket list is short, so a linear scan is as fast as a binary search here.
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+            if (millis <= BUCKET_UPPER_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_MILLIS.length;
+    }
+}
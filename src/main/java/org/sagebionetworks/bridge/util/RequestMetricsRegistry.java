@@ -0,0 +1,102 @@
+package org.sagebionetworks.bridge.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process request metrics for this server node, fed by the MetricsFilter: a latency histogram and status counters
+ * for each route, plus a gauge of requests in flight. A route is the HTTP method and the controller's path pattern
+ * (e.g. "GET /v3/participants/{userId}"), so path variables don't create new routes. Requests that don't match a
+ * controller are all counted under a single route, so that scanners can't grow the registry without bound.
+ */
+@Component
+public class RequestMetricsRegistry {
+    // Package-scoped for unit tests.
+    static final String UNMATCHED_METHOD = "*";
+    static final String UNMATCHED_ROUTE = "UNMATCHED";
+    private static final String[] STATUS_CLASSES = { "1xx", "2xx", "3xx", "4xx", "5xx" };
+
+    // Keyed by method, then by path pattern, so recording a request doesn't build a key string.
+    private final ConcurrentMap<String, ConcurrentMap<String, RouteMetrics>> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Call when a request starts, and call {@link #requestFinished} when it finishes. */
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Records a finished request. Path pattern is the controller mapping that handled the request, or null if no
+     * controller matched.
+     */
+    public void requestFinished(String method, String pathPattern, int status, long elapsedMillis) {
+        inFlight.decrementAndGet();
+
+        if (pathPattern == null) {
+            method = UNMATCHED_METHOD;
+            pathPattern = UNMATCHED_ROUTE;
+        }
+        ConcurrentMap<String, RouteMetrics> methodRoutes = routes.get(method);
+        if (methodRoutes == null) {
+            methodRoutes = routes.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        RouteMetrics routeMetrics = methodRoutes.get(pathPattern);
+        if (routeMetrics == null) {
+            routeMetrics = methodRoutes.computeIfAbsent(pathPattern, key -> new RouteMetrics());
+        }
+        routeMetrics.record(status, elapsedMillis);
+    }
+
+    /** Number of requests currently being processed by this server node. */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Summary of all request metrics, suitable for serializing to JSON: requests in flight, and the latency summary
+     * and status counts of each route, keyed by "METHOD pattern" in sorted order.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Map<String, Object>> routeStats = new TreeMap<>();
+        routes.forEach((method, methodRoutes) -> methodRoutes.forEach((pathPattern, routeMetrics) ->
+                routeStats.put(method + " " + pathPattern, routeMetrics.toMap())));
+        return ImmutableMap.of("inFlight", getInFlightCount(), "routes", routeStats);
+    }
+
+    private static class RouteMetrics {
+        private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        private final LongAdder[] statusCounts = new LongAdder[STATUS_CLASSES.length];
+
+        RouteMetrics() {
+            for (int i = 0; i < statusCounts.length; i++) {
+                statusCounts[i] = new LongAdder();
+            }
+        }
+
+        void record(int status, long elapsedMillis) {
+            latencyHistogram.record(elapsedMillis);
+            int index = (status / 100) - 1;
+            if (index >= 0 && index < statusCounts.length) {
+                statusCounts[index].increment();
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Long> statusMap = new TreeMap<>();
+            for (int i = 0; i < statusCounts.length; i++) {
+                long count = statusCounts[i].sum();
+                if (count > 0) {
+                    statusMap.put(STATUS_CLASSES[i], count);
+                }
+            }
+            return ImmutableMap.of("latency", latencyHistogram.toMap(), "status", statusMap);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package org.sagebionetworks.bridge.validators;
 
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
 
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.CriteriaUtils;
@@ -14,6 +16,10 @@ import org.springframework.validation.Validator;
 public class AccountSummarySearchValidator implements Validator {
     public static final String DATE_RANGE_ERROR = "startDate should be before endDate";
     public static final String PAGE_RANGE_ERROR = "must be from "+API_MINIMUM_PAGE_SIZE+"-"+API_MAXIMUM_PAGE_SIZE+" records";
+    public static final String OFFSET_KEY_ERROR = "is not a valid offset key";
+    // An offset key is the createdOn timestamp (in epoch milliseconds) and ID of the last account of a page. Up to 
+    // 18 digits always fits in a long.
+    private static final Pattern OFFSET_KEY_PATTERN = Pattern.compile("\\d{1,18}:.+");
 
     private Set<String> appDataGroups;
     
@@ -33,6 +39,9 @@ public class AccountSummarySearchValidator implements Validator {
         if (search.getOffsetBy() < 0) {
             errors.rejectValue("offsetBy", "cannot be less than 0");
         }
+        if (isNotEmpty(search.getOffsetKey()) && !OFFSET_KEY_PATTERN.matcher(search.getOffsetKey()).matches()) {
+            errors.rejectValue("offsetKey", OFFSET_KEY_ERROR);
+        }
         // Just set a sane upper limit on this.
         if (search.getPageSize() < API_MINIMUM_PAGE_SIZE || search.getPageSize() > API_MAXIMUM_PAGE_SIZE) {
             errors.rejectValue("pageSize", PAGE_RANGE_ERROR);
@@ -353,3 +353,7 @@ CREATE TABLE `AssessmentConfigs` (
   `version` int(10) unsigned NOT NULL DEFAULT '0',
   PRIMARY KEY (`guid`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+
+-- changeset bridge:16
+
+CREATE INDEX `Accounts-StudyId-CreatedOn-Id-Index` ON `Accounts`(`studyId`, `createdOn`, `id`);
@@ -0,0 +1,102 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+public class CacheInvalidationBusTest {
+
+    @Mock
+    private JedisPool mockJedisPool;
+
+    @Mock
+    private Jedis mockJedis;
+
+    private CacheInvalidationBus bus;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+
+        bus = new CacheInvalidationBus();
+        bus.setJedisPool(mockJedisPool);
+    }
+
+    @Test
+    public void publish() {
+        bus.publish("App", "api");
+
+        verify(mockJedis).publish(CacheInvalidationBus.CHANNEL_PREFIX + "App", "api");
+        verify(mockJedis).close();
+    }
+
+    @Test
+    public void publishFailureIsNotPropagated() {
+        doThrow(new JedisConnectionException("boom")).when(mockJedis).publish(
+                CacheInvalidationBus.CHANNEL_PREFIX + "App", "api");
+
+        bus.publish("App", "api");
+    }
+
+    @Test
+    public void dispatchesToListenersOfChannel() {
+        List<String> appKeys = new ArrayList<>();
+        List<String> otherKeys = new ArrayList<>();
+        bus.addListener("App", appKeys::add);
+        bus.addListener("Other", otherKeys::add);
+
+        bus.dispatch(CacheInvalidationBus.CHANNEL_PREFIX + "App", "api");
+
+        assertEquals(appKeys.size(), 1);
+        assertEquals(appKeys.get(0), "api");
+        assertTrue(otherKeys.isEmpty());
+    }
+
+    @Test
+    public void dispatchIgnoresUnknownChannels() {
+        List<String> appKeys = new ArrayList<>();
+        bus.addListener("App", appKeys::add);
+
+        bus.dispatch("App", "api");
+        bus.dispatch(CacheInvalidationBus.CHANNEL_PREFIX + "Unknown", "api");
+        bus.dispatch(null, "api");
+
+        assertTrue(appKeys.isEmpty());
+    }
+
+    @Test
+    public void listenerErrorDoesNotStopOtherListeners() {
+        List<String> appKeys = new ArrayList<>();
+        bus.addListener("App", key -> { throw new IllegalStateException(); });
+        bus.addListener("App", appKeys::add);
+
+        bus.dispatch(CacheInvalidationBus.CHANNEL_PREFIX + "App", "api");
+
+        assertEquals(appKeys.size(), 1);
+    }
+
+    @Test
+    public void stopEndsWorkerLoop() {
+        bus.stop();
+        // Returns immediately without connecting to Redis.
+        bus.run();
+
+        verify(mockJedisPool, never()).getResource();
+    }
+}
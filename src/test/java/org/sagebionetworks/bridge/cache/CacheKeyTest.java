@@ -10,6 +10,8 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
+import org.sagebionetworks.bridge.models.reports.ReportDataKey;
+import org.sagebionetworks.bridge.models.reports.ReportType;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
@@ -110,6 +112,13 @@ public class CacheKeyTest {
                 TestConstants.PHONE.getNumber() + ":" + TEST_APP_ID + ":phoneSignInRequest");
     }
     
+    @Test
+    public void reportIndex() {
+        ReportDataKey key = new ReportDataKey.Builder().withAppId(TEST_APP_ID).withHealthCode("healthCode")
+                .withReportType(ReportType.PARTICIPANT).withIdentifier("report").build();
+        assertEquals(CacheKey.reportIndex(key).toString(), "report:" + TEST_APP_ID + ":PARTICIPANT:ReportIndex");
+    }
+    
     @Test
     public void requestInfo() {
         assertEquals(CacheKey.requestInfo("userId").toString(), "userId:request-info");
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.cache;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
@@ -9,11 +10,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -21,6 +24,7 @@ import static org.testng.Assert.fail;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
@@ -33,10 +37,12 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.crypto.AesGcmEncryptor;
 import org.sagebionetworks.bridge.crypto.Encryptor;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
@@ -49,7 +55,9 @@ import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisDataException;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableList;
@@ -75,6 +83,21 @@ public class CacheProviderMockTest {
 
     @Mock
     private JedisOps jedisOps;
+    
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    @Mock
+    private JedisPool jedisPool;
+    
+    @Mock
+    private Jedis jedis;
+    
+    @Captor
+    private ArgumentCaptor<List<String>> argsCaptor;
+    
+    @Captor
+    private ArgumentCaptor<Consumer<String>> listenerCaptor;
 
     @Captor
     private ArgumentCaptor<String> stringCaptor;
@@ -115,12 +138,7 @@ public class CacheProviderMockTest {
     }
 
     private void assertSession(String json) {
-        JedisOps jedisOps = mock(JedisOps.class);
-        
-        when(jedisOps.get(TOKEN_TO_USER_ID.toString())).thenReturn(USER_ID);
-        when(jedisOps.get(USER_ID_TO_SESSION.toString())).thenReturn(json);
-        
-        cacheProvider.setJedisOps(jedisOps);
+        mockSessionLookup(json);
         
         UserSession session = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
 
@@ -163,6 +181,28 @@ public class CacheProviderMockTest {
 
         cacheProvider = new CacheProvider();
         cacheProvider.setJedisOps(jedisOps);
+        cacheProvider.setCacheInvalidationBus(cacheInvalidationBus);
+        
+        when(jedisPool.getResource()).thenReturn(jedis);
+        when(jedis.evalsha(eq(CacheProvider.SET_SESSION_SHA), anyList(), anyList())).thenReturn(100L);
+        cacheProvider.setJedisPool(jedisPool);
+    }
+    
+    private void mockSessionLookup(String ser) {
+        when(jedis.evalsha(CacheProvider.GET_SESSION_SHA, ImmutableList.of(TOKEN_TO_USER_ID.toString()),
+                ImmutableList.of(CacheProvider.USER_ID_TO_SESSION_SUFFIX))).thenReturn(ser);
+    }
+    
+    private String captureSetSession() {
+        verify(jedis).evalsha(eq(CacheProvider.SET_SESSION_SHA),
+                eq(ImmutableList.of(TOKEN_TO_USER_ID.toString(), USER_ID_TO_SESSION.toString())), argsCaptor.capture());
+        return argsCaptor.getValue().get(1);
+    }
+
+    private void setSessionWriteVersion(String version) {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.get(CacheProvider.SESSION_WRITE_VERSION_PROPERTY)).thenReturn(version);
+        cacheProvider.setBridgeConfig(mockConfig);
     }
 
     private UserSession createUserSession() {
@@ -347,11 +387,13 @@ public class CacheProviderMockTest {
         UserSession session = new UserSession(new StudyParticipant.Builder().build());
         session.setSessionToken("notTheSessionTokenWereLookingFor");
         
-        when(jedisOps.get(USER_ID_TO_SESSION.toString()))
-                .thenReturn(BridgeObjectMapper.get().writeValueAsString(session));
+        mockSessionLookup(BridgeObjectMapper.get().writeValueAsString(session));
 
         UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
         assertNull(retrieved);
+        
+        // The invalid token is removed
+        verify(jedisOps).del(TOKEN_TO_USER_ID.toString());
     }
 
     @Test
@@ -359,11 +401,41 @@ public class CacheProviderMockTest {
         UserSession session = new UserSession(new StudyParticipant.Builder().build());
         session.setSessionToken(DECRYPTED_SESSION_TOKEN);
         
-        when(jedisOps.get(USER_ID_TO_SESSION.toString()))
-                .thenReturn(BridgeObjectMapper.get().writeValueAsString(session));
+        mockSessionLookup(BridgeObjectMapper.get().writeValueAsString(session));
 
         UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
         assertEquals(retrieved.getSessionToken(), session.getSessionToken());
+        
+        // One round trip, nothing read through the individual keys
+        verify(jedis).evalsha(CacheProvider.GET_SESSION_SHA, ImmutableList.of(TOKEN_TO_USER_ID.toString()),
+                ImmutableList.of(CacheProvider.USER_ID_TO_SESSION_SUFFIX));
+        verify(jedisOps, never()).get(anyString());
+        verify(jedis).close();
+    }
+    
+    @Test
+    public void getUserSessionLoadsScriptIfMissing() throws Exception {
+        UserSession session = new UserSession(new StudyParticipant.Builder().build());
+        session.setSessionToken(DECRYPTED_SESSION_TOKEN);
+        String ser = BridgeObjectMapper.get().writeValueAsString(session);
+        
+        when(jedis.evalsha(CacheProvider.GET_SESSION_SHA, ImmutableList.of(TOKEN_TO_USER_ID.toString()),
+                ImmutableList.of(CacheProvider.USER_ID_TO_SESSION_SUFFIX)))
+                .thenThrow(new JedisDataException("NOSCRIPT No matching script. Please use EVAL."));
+        when(jedis.eval(CacheProvider.GET_SESSION_SCRIPT, ImmutableList.of(TOKEN_TO_USER_ID.toString()),
+                ImmutableList.of(CacheProvider.USER_ID_TO_SESSION_SUFFIX))).thenReturn(ser);
+
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void getUserSessionScriptErrorThrows() {
+        when(jedis.evalsha(CacheProvider.GET_SESSION_SHA, ImmutableList.of(TOKEN_TO_USER_ID.toString()),
+                ImmutableList.of(CacheProvider.USER_ID_TO_SESSION_SUFFIX)))
+                .thenThrow(new JedisDataException("ERR something else"));
+
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
     }
     
     @Test
@@ -520,12 +592,70 @@ public class CacheProviderMockTest {
     
     @Test
     public void testSetUserSession() throws Exception {
+        cacheProvider.setSessionExpireInSeconds(500);
         UserSession session = createUserSession();
         cacheProvider.setUserSession(session);
         
-        verify(transaction).setex(eq(TOKEN_TO_USER_ID.toString()), anyInt(), eq(USER_ID));
-        verify(transaction).setex(eq(USER_ID_TO_SESSION.toString()), anyInt(), anyString());
-        verify(transaction).exec();
+        captureSetSession();
+        List<String> args = argsCaptor.getValue();
+        assertEquals(args.get(0), USER_ID);
+        assertEquals(args.get(2), "500");
+        verify(jedisOps, never()).ttl(anyString());
+        verify(jedisOps, never()).getTransaction();
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void setUserSessionNoResultThrows() throws Exception {
+        when(jedis.evalsha(eq(CacheProvider.SET_SESSION_SHA), anyList(), anyList())).thenReturn(null);
+        
+        cacheProvider.setUserSession(createUserSession());
+    }
+    
+    @Test
+    public void setUserSessionWritesVersion2FormatWhenConfigured() throws Exception {
+        setSessionWriteVersion("2");
+        
+        UserSession session = createUserSession();
+        cacheProvider.setUserSession(session);
+        
+        assertTrue(captureSetSession().startsWith(CacheProvider.SESSION_V2_PREFIX));
+    }
+    
+    @Test
+    public void setUserSessionWritesVersion1FormatByDefault() throws Exception {
+        UserSession session = createUserSession();
+        cacheProvider.setUserSession(session);
+        
+        String ser = captureSetSession();
+        assertTrue(ser.startsWith("{"));
+        
+        // Still readable by either version
+        UserSession deser = cacheProvider.deserializeSession(ser);
+        assertEquals(deser.getId(), USER_ID);
+    }
+    
+    @Test
+    public void version2SessionRoundTrip() throws Exception {
+        setSessionWriteVersion("2");
+        
+        UserSession session = createUserSession();
+        session.setAppId(TEST_APP_ID);
+        session.setAuthenticated(true);
+        cacheProvider.setUserSession(session);
+        
+        String ser = captureSetSession();
+        mockSessionLookup(ser);
+        when(jedisOps.get(USER_ID_TO_SESSION.toString())).thenReturn(ser);
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getAppId(), TEST_APP_ID);
+        assertEquals(retrieved.getId(), USER_ID);
+        assertEquals(retrieved.getHealthCode(), "healthCode");
+        assertTrue(retrieved.isAuthenticated());
+        
+        retrieved = cacheProvider.getUserSessionByUserId(USER_ID);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
     }
     
     @Test
@@ -543,9 +673,7 @@ public class CacheProviderMockTest {
         } catch(Throwable e) {
             fail(e.getMessage());
         }
-        verify(transaction, never()).setex(eq(TOKEN_TO_USER_ID.toString()), anyInt(), anyString());
-        verify(transaction, never()).setex(eq(USER_ID_TO_SESSION.toString()), anyInt(), eq(DECRYPTED_SESSION_TOKEN));
-        verify(transaction, never()).exec();
+        verify(jedis, never()).evalsha(anyString(), anyList(), anyList());
     }
     
     @Test
@@ -559,9 +687,7 @@ public class CacheProviderMockTest {
         } catch(Throwable e) {
             fail(e.getMessage());
         }
-        verify(transaction, never()).setex(eq(TOKEN_TO_USER_ID.toString()), anyInt(), anyString());
-        verify(transaction, never()).setex(eq(USER_ID_TO_SESSION.toString()), anyInt(), eq(DECRYPTED_SESSION_TOKEN));
-        verify(transaction, never()).exec();
+        verify(jedis, never()).evalsha(anyString(), anyList(), anyList());
     }
     
     @Test
@@ -579,9 +705,7 @@ public class CacheProviderMockTest {
         } catch(Throwable e) {
             fail(e.getMessage());
         }
-        verify(transaction, never()).setex(eq(TOKEN_TO_USER_ID.toString()), anyInt(), anyString());
-        verify(transaction, never()).setex(eq(USER_ID_TO_SESSION.toString()), anyInt(), eq(DECRYPTED_SESSION_TOKEN));
-        verify(transaction, never()).exec();
+        verify(jedis, never()).evalsha(anyString(), anyList(), anyList());
     }
 
     @Test
@@ -612,9 +736,97 @@ public class CacheProviderMockTest {
         verify(jedisOps).expire(TEST_ID_KEY, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
     }
 
+    @Test
+    public void getAppFromLocalCache() throws Exception {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        String ser = BridgeObjectMapper.get().writeValueAsString(app);
+
+        when(jedisOps.get(TEST_ID_KEY)).thenReturn(ser);
+
+        App first = cacheProvider.getApp(TEST_APP_ID);
+        App second = cacheProvider.getApp(TEST_APP_ID);
+        assertEquals(first, second);
+
+        // Only the first call goes to Redis.
+        verify(jedisOps, times(1)).get(TEST_ID_KEY);
+        verify(jedisOps, times(1)).expire(TEST_ID_KEY, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        assertEquals(cacheProvider.getLocalAppCacheStats().hitCount(), 1L);
+        assertEquals(cacheProvider.getLocalAppCacheStats().missCount(), 1L);
+    }
+    
+    @Test
+    public void getAppNotInRedisIsNotCachedLocally() {
+        assertNull(cacheProvider.getApp(TEST_APP_ID));
+        assertNull(cacheProvider.getApp(TEST_APP_ID));
+        
+        verify(jedisOps, times(2)).get(TEST_ID_KEY);
+    }
+    
+    @Test
+    public void setAppCachesLocally() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(jedisOps.setex(any(), anyInt(), any())).thenReturn("OK");
+        
+        cacheProvider.setApp(app);
+        
+        assertEquals(cacheProvider.getApp(TEST_APP_ID), app);
+        verify(jedisOps, never()).get(TEST_ID_KEY);
+    }
+    
+    @Test
+    public void getAppReturnsCopyOfLocallyCachedApp() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        app.setName("Original Name");
+        when(jedisOps.setex(any(), anyInt(), any())).thenReturn("OK");
+        cacheProvider.setApp(app);
+        
+        // Modifying the app passed to setApp, or an app returned from the cache, doesn't change the cached app.
+        app.setName("Changed Name");
+        App first = cacheProvider.getApp(TEST_APP_ID);
+        assertNotSame(first, app);
+        first.setName("Changed Name");
+        
+        App second = cacheProvider.getApp(TEST_APP_ID);
+        assertNotSame(second, first);
+        assertEquals(second.getName(), "Original Name");
+    }
+
     @Test
     public void removeApp() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(jedisOps.setex(any(), anyInt(), any())).thenReturn("OK");
+        cacheProvider.setApp(app);
+        
         cacheProvider.removeApp(TEST_APP_ID);
         verify(jedisOps).del(TEST_ID_KEY);
+        verify(cacheInvalidationBus).publish(CacheProvider.APP_INVALIDATION_CHANNEL, TEST_APP_ID);
+        
+        // No longer in local cache
+        assertNull(cacheProvider.getApp(TEST_APP_ID));
+        verify(jedisOps).get(TEST_ID_KEY);
+    }
+    
+    @Test
+    public void broadcastAppInvalidation() {
+        cacheProvider.broadcastAppInvalidation(TEST_APP_ID);
+        verify(cacheInvalidationBus).publish(CacheProvider.APP_INVALIDATION_CHANNEL, TEST_APP_ID);
+    }
+    
+    @Test
+    public void invalidationFromOtherNodeRemovesLocalApp() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(jedisOps.setex(any(), anyInt(), any())).thenReturn("OK");
+        cacheProvider.setApp(app);
+        
+        verify(cacheInvalidationBus).addListener(eq(CacheProvider.APP_INVALIDATION_CHANNEL), listenerCaptor.capture());
+        listenerCaptor.getValue().accept(TEST_APP_ID);
+        
+        assertNull(cacheProvider.getApp(TEST_APP_ID));
+        verify(jedisOps).get(TEST_ID_KEY);
     }
 }
@@ -5,6 +5,7 @@ import static org.testng.Assert.assertEquals;
 import java.util.List;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableList;
 
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 
@@ -23,12 +24,21 @@ import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.redis.JedisOps;
 
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
 public class CacheProviderStudyMigrationTest extends Mockito {
     private static final TypeReference<List<Subpopulation>> SURVEY_LIST_REF = new TypeReference<List<Subpopulation>>() {};
     
     @Mock
     JedisOps mockJedisOps;
     
+    @Mock
+    JedisPool mockJedisPool;
+    
+    @Mock
+    Jedis mockJedis;
+    
     @InjectMocks
     CacheProvider provider;
     
@@ -36,6 +46,8 @@ public class CacheProviderStudyMigrationTest extends Mockito {
     public void beforeMethod() {
         MockitoAnnotations.initMocks(this);
         provider.setSessionExpireInSeconds(10);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+        provider.setJedisPool(mockJedisPool);
     }
 
     @Test
@@ -67,8 +79,8 @@ public class CacheProviderStudyMigrationTest extends Mockito {
         String json = TestUtils.createJson(
                 "{'studyIdentifier':'"+TEST_APP_ID+"','sessionToken':'aToken'}");
 
-        doReturn("aUser").when(mockJedisOps).get("aToken:session2");
-        doReturn(json).when(mockJedisOps).get("aUser:session2:user");
+        doReturn(json).when(mockJedis).evalsha(CacheProvider.GET_SESSION_SHA, ImmutableList.of("aToken:session2"),
+                ImmutableList.of(CacheProvider.USER_ID_TO_SESSION_SUFFIX));
         
         UserSession session = provider.getUserSession("aToken");
         assertEquals(session.getAppId(), TEST_APP_ID);
@@ -79,8 +91,8 @@ public class CacheProviderStudyMigrationTest extends Mockito {
         String json = TestUtils.createJson(
                 "{'appId':'"+TEST_APP_ID+"','sessionToken':'aToken'}");
 
-        doReturn("aUser").when(mockJedisOps).get("aToken:session2");
-        doReturn(json).when(mockJedisOps).get("aUser:session2:user");
+        doReturn(json).when(mockJedis).evalsha(CacheProvider.GET_SESSION_SHA, ImmutableList.of("aToken:session2"),
+                ImmutableList.of(CacheProvider.USER_ID_TO_SESSION_SUFFIX));
         
         UserSession session = provider.getUserSession("aToken");
         assertEquals(session.getAppId(), TEST_APP_ID);
@@ -17,7 +17,12 @@ import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.ImmutableList;
 
 import org.joda.time.DateTime;
@@ -67,6 +72,9 @@ public class DynamoActivityEventDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<DynamoDBQueryExpression<DynamoActivityEvent>> queryCaptor;
     
+    @Captor
+    ArgumentCaptor<DynamoDBSaveExpression> saveExpressionCaptor;
+    
     @Captor
     ArgumentCaptor<List<DynamoActivityEvent>> listCaptor;
     
@@ -76,57 +84,40 @@ public class DynamoActivityEventDaoTest extends Mockito {
     }
     
     @Test
-    public void publishEventIsNew() {
+    public void publishEventIsNewOrLater() {
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertTrue(result);
         
-        verify(mockMapper).load(eventCaptor.capture());
-        DynamoActivityEvent loadKey = eventCaptor.getValue();
-        assertEquals(loadKey.getHealthCode(), HEALTH_CODE);
-        assertEquals(loadKey.getEventId(), "survey:AAA-BBB-CCC:finished");
-        
-        verify(mockMapper).save(eventCaptor.capture());
+        // Written without reading it first
+        verify(mockMapper, never()).load(any());
+        verify(mockMapper).save(eventCaptor.capture(), saveExpressionCaptor.capture());
         assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
-    }
-    
-    @Test
-    public void publishEventIsMutableAndLater() {
-        DynamoActivityEvent earlierEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.minusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(earlierEvent);
         
-        boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
-        assertTrue(result);
-        
-        verify(mockMapper).save(eventCaptor.capture());
-        assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
+        // Written if it doesn't exist, or if the existing event is earlier.
+        DynamoDBSaveExpression expression = saveExpressionCaptor.getValue();
+        assertEquals(expression.getConditionalOperator(), ConditionalOperator.OR.toString());
+        Map<String, ExpectedAttributeValue> expected = expression.getExpected();
+        assertFalse(expected.get(DynamoActivityEventDao.EVENT_ID).getExists());
+        ExpectedAttributeValue timestampValue = expected.get(DynamoActivityEventDao.TIMESTAMP);
+        assertEquals(timestampValue.getComparisonOperator(), ComparisonOperator.LT.toString());
+        assertEquals(timestampValue.getAttributeValueList().get(0).getN(), String.valueOf(TIMESTAMP.getMillis()));
     }
     
     @Test
-    public void publishEventIsImmutableFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
-        
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.plusHours(1)).build();
-        
-        boolean result = dao.publishEvent(laterEvent);
-        assertFalse(result);
+    public void publishEventIsImmutable() {
+        boolean result = dao.publishEvent(ENROLLMENT_EVENT);
+        assertTrue(result);
         
-        verify(mockMapper, never()).save(any());
+        // Only written if it doesn't exist
+        verify(mockMapper).save(ENROLLMENT_EVENT, DynamoActivityEventDao.DOES_NOT_EXIST_EXPRESSION);
     }
     
     @Test
-    public void publishEventIsEarlierFails() {
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.plusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(laterEvent);
+    public void publishEventConditionFails() {
+        doThrow(new ConditionalCheckFailedException("message")).when(mockMapper).save(any(), any());
         
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertFalse(result);
-        
-        verify(mockMapper, never()).save(any());
     }
 
     @Test
@@ -1,34 +1,45 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.document.Index;
 import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.document.ItemCollection;
 import com.amazonaws.services.dynamodbv2.document.internal.IteratorSupport;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.mockito.ArgumentCaptor;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -138,6 +149,83 @@ public class DynamoHealthDataDaoTest {
         assertEquals(recordKeyList.get(0).getId(), "error record");
     }
 
+    @Test
+    public void getRecordsByIds() {
+        // mock mapper
+        DynamoHealthDataRecord fooRecord = new DynamoHealthDataRecord();
+        fooRecord.setId("foo-id");
+        DynamoHealthDataRecord barRecord = new DynamoHealthDataRecord();
+        barRecord.setId("bar-id");
+
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        ArgumentCaptor<List> arg = ArgumentCaptor.forClass(List.class);
+        when(mockMapper.batchLoad(arg.capture())).thenReturn(ImmutableMap.of("HealthDataRecord3",
+                ImmutableList.of(fooRecord, barRecord)));
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setMapper(mockMapper);
+
+        // execute and validate
+        Map<String, HealthDataRecord> retVal = dao.getRecordsByIds(ImmutableList.of("foo-id", "bar-id",
+                "missing-id"));
+        assertEquals(retVal.size(), 2);
+        assertSame(retVal.get("foo-id"), fooRecord);
+        assertSame(retVal.get("bar-id"), barRecord);
+        assertNull(retVal.get("missing-id"));
+
+        // validate keys
+        List<HealthDataRecord> keyList = arg.getValue();
+        assertEquals(keyList.size(), 3);
+        assertEquals(keyList.get(0).getId(), "foo-id");
+        assertEquals(keyList.get(1).getId(), "bar-id");
+        assertEquals(keyList.get(2).getId(), "missing-id");
+    }
+
+    @Test
+    public void getRecordsByIdsEmpty() {
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setMapper(mockMapper);
+
+        Map<String, HealthDataRecord> retVal = dao.getRecordsByIds(ImmutableList.of());
+        assertEquals(retVal.size(), 0);
+        verify(mockMapper, never()).batchLoad(any(List.class));
+    }
+
+    @Test
+    public void updateRecordExporterStatus() {
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        ArgumentCaptor<DynamoHealthDataRecord> recordCaptor = ArgumentCaptor.forClass(DynamoHealthDataRecord.class);
+        ArgumentCaptor<DynamoDBMapperConfig> configCaptor = ArgumentCaptor.forClass(DynamoDBMapperConfig.class);
+        doAnswer(invocation -> {
+            // The mapper increments the version when it saves.
+            ((DynamoHealthDataRecord) invocation.getArgument(0)).setVersion(3L);
+            return null;
+        }).when(mockMapper).save(recordCaptor.capture(), configCaptor.capture());
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setMapper(mockMapper);
+
+        DynamoHealthDataRecord record = new DynamoHealthDataRecord();
+        record.setId("test-id");
+        record.setHealthCode(TEST_HEALTH_CODE);
+        record.setSchemaId(TEST_SCHEMA_ID);
+        record.setVersion(2L);
+
+        // execute and validate
+        dao.updateRecordExporterStatus(record, HealthDataRecord.ExporterStatus.SUCCEEDED);
+        assertEquals(record.getSynapseExporterStatus(), HealthDataRecord.ExporterStatus.SUCCEEDED);
+        assertEquals(record.getVersion().longValue(), 3L);
+
+        // Only the key, version, and exporter status are written.
+        DynamoHealthDataRecord statusRecord = recordCaptor.getValue();
+        assertEquals(statusRecord.getId(), "test-id");
+        assertEquals(statusRecord.getSynapseExporterStatus(), HealthDataRecord.ExporterStatus.SUCCEEDED);
+        assertNull(statusRecord.getHealthCode());
+        assertNull(statusRecord.getSchemaId());
+        assertEquals(configCaptor.getValue().getSaveBehavior(), SaveBehavior.UPDATE_SKIP_NULL_ATTRIBUTES);
+    }
+
     @Test
     public void getRecordsForUploadDate() {
         // mock index helper
@@ -153,6 +241,71 @@ public class DynamoHealthDataDaoTest {
         assertSame(retVal, mockResult);
     }
 
+    @Test
+    public void getRecordsForUploadDatePage() {
+        // The index returns keys, in index order.
+        DynamoHealthDataRecord fooKey = new DynamoHealthDataRecord();
+        fooKey.setId("foo-id");
+        DynamoHealthDataRecord barKey = new DynamoHealthDataRecord();
+        barKey.setId("bar-id");
+        QueryResultPage<DynamoHealthDataRecord> resultPage = new QueryResultPage<>();
+        resultPage.setResults(ImmutableList.of(fooKey, barKey));
+        resultPage.setLastEvaluatedKey(ImmutableMap.of("id", new AttributeValue().withS("bar-id"),
+                "uploadDate", new AttributeValue().withS("2015-02-11")));
+
+        DynamoHealthDataRecord fooRecord = new DynamoHealthDataRecord();
+        fooRecord.setId("foo-id");
+        DynamoHealthDataRecord barRecord = new DynamoHealthDataRecord();
+        barRecord.setId("bar-id");
+
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        ArgumentCaptor<DynamoDBQueryExpression> queryCaptor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        when(mockMapper.queryPage(eq(DynamoHealthDataRecord.class), queryCaptor.capture())).thenReturn(resultPage);
+        when(mockMapper.batchLoad(any(List.class))).thenReturn(ImmutableMap.of("HealthDataRecord3",
+                ImmutableList.of(barRecord, fooRecord)));
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setMapper(mockMapper);
+
+        // execute and validate
+        ForwardCursorPagedResourceList<HealthDataRecord> page = dao.getRecordsForUploadDate("2015-02-11",
+                "offset-id", 2);
+        assertEquals(page.getItems(), ImmutableList.of(fooRecord, barRecord));
+        assertEquals(page.getNextPageOffsetKey(), "bar-id");
+
+        DynamoDBQueryExpression<DynamoHealthDataRecord> query = queryCaptor.getValue();
+        assertEquals(query.getIndexName(), "uploadDate-index");
+        assertFalse(query.isConsistentRead());
+        assertEquals(query.getHashKeyValues().getUploadDate().toString(), "2015-02-11");
+        assertEquals(query.getLimit().intValue(), 2);
+        assertEquals(query.getExclusiveStartKey().get("id").getS(), "offset-id");
+        assertEquals(query.getExclusiveStartKey().get("uploadDate").getS(), "2015-02-11");
+    }
+
+    @Test
+    public void getRecordsForUploadDateLastPage() {
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        ArgumentCaptor<DynamoDBQueryExpression> queryCaptor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        QueryResultPage<DynamoHealthDataRecord> resultPage = new QueryResultPage<>();
+        resultPage.setResults(ImmutableList.of());
+        when(mockMapper.queryPage(eq(DynamoHealthDataRecord.class), queryCaptor.capture())).thenReturn(resultPage);
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setMapper(mockMapper);
+
+        ForwardCursorPagedResourceList<HealthDataRecord> page = dao.getRecordsForUploadDate("2015-02-11", null,
+                50);
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextPageOffsetKey());
+        assertNull(queryCaptor.getValue().getExclusiveStartKey());
+        verify(mockMapper, never()).batchLoad(any(List.class));
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void getRecordsForUploadDatePageSizeTooLarge() {
+        new DynamoHealthDataDao().getRecordsForUploadDate("2015-02-11", null, 101);
+    }
+
     @Test
     public void getRecordsByHealthCodeCreatedOnSchemaId() {
         // Mock mapper with record.
@@ -33,6 +33,7 @@ import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.schedules.CriteriaScheduleStrategy;
 import org.sagebionetworks.bridge.models.schedules.Schedule;
+import org.sagebionetworks.bridge.models.schedules.ScheduleContext;
 import org.sagebionetworks.bridge.models.schedules.ScheduleCriteria;
 import org.sagebionetworks.bridge.models.schedules.SchedulePlan;
 
@@ -162,6 +163,22 @@ public class DynamoSchedulePlanDaoMockTest extends Mockito {
         assertTrue(criteria.getNoneOfGroups().isEmpty());
     }
     
+    @Test
+    public void getSchedulePlansLoadedCriteriaAreUsedForMatching() {
+        ScheduleContext context = new ScheduleContext.Builder().withAppId(TEST_APP_ID)
+                .withUserDataGroups(ImmutableSet.of()).build();
+        mockSchedulePlanQuery();
+        SchedulePlan plan = dao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false).get(0);
+        
+        // The plan's criteria require data groups, so this compiles criteria that don't match.
+        assertNull(plan.getStrategy().getScheduleForUser(plan, context));
+        
+        // Loading the plan again replaces its criteria with the persisted criteria, which match everyone.
+        when(mockCriteriaDao.getCriteria(SCHEDULE_CRITERIA_KEY)).thenReturn(Criteria.create());
+        plan = dao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false).get(0);
+        assertEquals(plan.getStrategy().getScheduleForUser(plan, context).getLabel(), "My Schedule");
+    }
+    
     @Test
     public void getSchedulePlanRetrievesCriteria() {
         mockSchedulePlanQuery();
@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import static java.util.stream.Collectors.toSet;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
@@ -52,6 +53,7 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -155,6 +157,42 @@ public class DynamoScheduledActivityDaoMockTest {
         
         activityDao.getActivity(PACIFIC_TIME_ZONE, "AAA", "BBB", true);
     }
+    
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void getActivitiesByGuid() {
+        DynamoScheduledActivity found = new DynamoScheduledActivity();
+        found.setHealthCode(HEALTH_CODE);
+        found.setGuid("BBB");
+        Map<String, List<Object>> resultMap = ImmutableMap.of("some-table-name", ImmutableList.of(found));
+        when(mapper.batchLoad(any(List.class))).thenReturn(resultMap);
+        
+        Map<String, ScheduledActivity> results = activityDao.getActivitiesByGuid(PACIFIC_TIME_ZONE, HEALTH_CODE,
+                ImmutableSet.of("BBB", "CCC"));
+        assertEquals(results.size(), 1);
+        assertEquals(results.get("BBB"), found);
+        assertEquals(found.getTimeZone(), PACIFIC_TIME_ZONE);
+        
+        // Both keys were requested in one batch.
+        ArgumentCaptor<List> keysCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchLoad(keysCaptor.capture());
+        List<DynamoScheduledActivity> keys = (List<DynamoScheduledActivity>)keysCaptor.getValue();
+        assertEquals(keys.size(), 2);
+        for (DynamoScheduledActivity key : keys) {
+            assertEquals(key.getHealthCode(), HEALTH_CODE);
+        }
+        assertEquals(keys.stream().map(DynamoScheduledActivity::getGuid).collect(toSet()),
+                ImmutableSet.of("BBB", "CCC"));
+    }
+    
+    @Test
+    public void getActivitiesByGuidWithEmptySetReturnsEmptyMap() {
+        Map<String, ScheduledActivity> results = activityDao.getActivitiesByGuid(PACIFIC_TIME_ZONE, HEALTH_CODE,
+                ImmutableSet.of());
+        assertTrue(results.isEmpty());
+        
+        verifyNoMoreInteractions(mapper);
+    }
 
     /**
      * Testing retrieval of activities has gotten much simpler as we just load the activities we 
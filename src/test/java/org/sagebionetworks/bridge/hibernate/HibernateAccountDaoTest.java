@@ -10,6 +10,7 @@ import static org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm.DEFAU
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.HashMap;
@@ -39,6 +40,7 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -458,13 +460,14 @@ public class HibernateAccountDaoTest extends Mockito {
                 .thenReturn(ImmutableList.of(hibernateAccount1, hibernateAccount2));
         when(mockHibernateHelper.queryCount(eq(expCountQuery), any())).thenReturn(12);
 
-        // Finally, mock the retrieval of substudies to verify this is called to populate the substudies
+        // Finally, mock the retrieval of substudies to verify this is called once to populate the substudies of 
+        // the whole page
         List<HibernateAccountSubstudy> list = ImmutableList.of(
-                (HibernateAccountSubstudy) AccountSubstudy.create(TEST_APP_ID, SUBSTUDY_A,
-                        ACCOUNT_ID),
-                (HibernateAccountSubstudy) AccountSubstudy.create(TEST_APP_ID, SUBSTUDY_B,
-                        ACCOUNT_ID));
-        when(mockHibernateHelper.queryGet(eq("FROM HibernateAccountSubstudy WHERE accountId=:accountId"), any(), any(),
+                (HibernateAccountSubstudy) AccountSubstudy.create(TEST_APP_ID, SUBSTUDY_A, "account-1"),
+                (HibernateAccountSubstudy) AccountSubstudy.create(TEST_APP_ID, SUBSTUDY_B, "account-1"),
+                (HibernateAccountSubstudy) AccountSubstudy.create(TEST_APP_ID, SUBSTUDY_A, "account-2"),
+                (HibernateAccountSubstudy) AccountSubstudy.create(TEST_APP_ID, SUBSTUDY_B, "account-2"));
+        when(mockHibernateHelper.queryGet(eq(HibernateAccountDao.ACCOUNT_SUBSTUDY_PAGE_QUERY), any(), any(),
                 any(), eq(HibernateAccountSubstudy.class))).thenReturn(list);
 
         // execute and validate
@@ -496,6 +499,122 @@ public class HibernateAccountDaoTest extends Mockito {
         // verify hibernate calls
         verify(mockHibernateHelper).queryGet(expQuery, APP_QUERY_PARAMS, 10, 5, HibernateAccount.class);
         verify(mockHibernateHelper).queryCount(expCountQuery, APP_QUERY_PARAMS);
+        verify(mockHibernateHelper).queryGet(HibernateAccountDao.ACCOUNT_SUBSTUDY_PAGE_QUERY,
+                ImmutableMap.of("accountIds", ImmutableSet.of("account-1", "account-2")), null, null,
+                HibernateAccountSubstudy.class);
+    }
+
+    @Test
+    public void getPagedWithNoAccountsDoesNotQuerySubstudies() throws Exception {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of());
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().build();
+        PagedResourceList<AccountSummary> accountSummaryResourceList = dao.getPagedAccountSummaries(app, search);
+        assertTrue(accountSummaryResourceList.getItems().isEmpty());
+
+        verify(mockHibernateHelper, never()).queryGet(eq(HibernateAccountDao.ACCOUNT_SUBSTUDY_PAGE_QUERY), any(),
+                any(), any(), eq(HibernateAccountSubstudy.class));
+    }
+
+    @Test
+    public void getPagedByOffsetKeyFirstPage() throws Exception {
+        String expQuery = HibernateAccountDao.SUMMARY_QUERY + " LEFT JOIN "
+                + "acct.accountSubstudies AS acctSubstudy WITH acct.id = acctSubstudy.accountId "
+                + "WHERE acct.appId = :appId " + HibernateAccountDao.OFFSET_KEY_CREATED_ON_CLAUSE + " GROUP BY acct.id "
+                + HibernateAccountDao.OFFSET_KEY_ORDER_BY;
+
+        HibernateAccount hibernateAccount1 = makeValidHibernateAccount(false);
+        hibernateAccount1.setId("account-1");
+        hibernateAccount1.setCreatedOn(CREATED_ON);
+        HibernateAccount hibernateAccount2 = makeValidHibernateAccount(false);
+        hibernateAccount2.setId("account-2");
+        hibernateAccount2.setCreatedOn(CREATED_ON);
+        when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of(hibernateAccount1, hibernateAccount2));
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(12);
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("").withPageSize(2).build();
+        PagedResourceList<AccountSummary> accountSummaryResourceList = dao.getPagedAccountSummaries(app, search);
+
+        assertEquals(accountSummaryResourceList.getItems().size(), 2);
+        assertEquals(accountSummaryResourceList.getTotal(), (Integer) 12);
+        assertEquals(accountSummaryResourceList.getNextPageOffsetKey(), CREATED_ON.getMillis() + ":account-2");
+        assertEquals(accountSummaryResourceList.getRequestParams().get(ResourceList.OFFSET_KEY), "");
+        assertNull(accountSummaryResourceList.getRequestParams().get(ResourceList.OFFSET_BY));
+
+        // No offset is used, the query is ordered instead
+        verify(mockHibernateHelper).queryGet(expQuery, APP_QUERY_PARAMS, null, 2, HibernateAccount.class);
+    }
+
+    @Test
+    public void getPagedByOffsetKeySeeksPastKey() throws Exception {
+        String offsetKey = CREATED_ON.getMillis() + ":account-2";
+        String expQuery = HibernateAccountDao.SUMMARY_QUERY + " LEFT JOIN "
+                + "acct.accountSubstudies AS acctSubstudy WITH acct.id = acctSubstudy.accountId "
+                + "WHERE acct.appId = :appId " + HibernateAccountDao.OFFSET_KEY_CREATED_ON_CLAUSE + " "
+                + HibernateAccountDao.OFFSET_KEY_CLAUSE + " GROUP BY acct.id " + HibernateAccountDao.OFFSET_KEY_ORDER_BY;
+
+        HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
+        hibernateAccount.setCreatedOn(CREATED_ON);
+        when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of(hibernateAccount));
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey(offsetKey).withPageSize(2)
+                .build();
+        PagedResourceList<AccountSummary> accountSummaryResourceList = dao.getPagedAccountSummaries(app, search);
+
+        // This is the last page
+        assertEquals(accountSummaryResourceList.getItems().size(), 1);
+        assertNull(accountSummaryResourceList.getNextPageOffsetKey());
+
+        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), isNull(), eq(2),
+                eq(HibernateAccount.class));
+        Map<String, Object> params = paramCaptor.getValue();
+        assertEquals(params.get("appId"), TEST_APP_ID);
+        assertEquals(((DateTime) params.get("offsetCreatedOn")).getMillis(), CREATED_ON.getMillis());
+        assertEquals(params.get("offsetId"), "account-2");
+    }
+
+    @Test
+    public void getPagedByOffsetKeyExcludesAccountsWithoutCreatedOn() throws Exception {
+        String expCountQuery = HibernateAccountDao.COUNT_QUERY + " LEFT JOIN "
+                + "acct.accountSubstudies AS acctSubstudy WITH acct.id = acctSubstudy.accountId "
+                + "WHERE acct.appId = :appId " + HibernateAccountDao.OFFSET_KEY_CREATED_ON_CLAUSE;
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of());
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("").build();
+        dao.getPagedAccountSummaries(app, search);
+
+        // The total counts the same accounts that can be paged through.
+        verify(mockHibernateHelper).queryCount(expCountQuery, APP_QUERY_PARAMS);
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void getPagedByOffsetKeyOutOfRange() throws Exception {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetKey("99999999999999999999:account-2").build();
+        dao.getPagedAccountSummaries(app, search);
+    }
+
+    @Test
+    public void getPagedByOffsetKeyCachesCount() throws Exception {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of());
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(12);
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("").build();
+        dao.getPagedAccountSummaries(app, search);
+        search = new AccountSummarySearch.Builder().withOffsetKey(CREATED_ON.getMillis() + ":account-2").build();
+        PagedResourceList<AccountSummary> accountSummaryResourceList = dao.getPagedAccountSummaries(app, search);
+        assertEquals(accountSummaryResourceList.getTotal(), (Integer) 12);
+
+        // Paging by offset doesn't use the cached count.
+        search = new AccountSummarySearch.Builder().build();
+        dao.getPagedAccountSummaries(app, search);
+
+        verify(mockHibernateHelper, times(2)).queryCount(any(), any());
     }
 
     @Test
@@ -514,7 +633,7 @@ public class HibernateAccountDaoTest extends Mockito {
                         ACCOUNT_ID),
                 (HibernateAccountSubstudy) AccountSubstudy.create(TEST_APP_ID, SUBSTUDY_B,
                         ACCOUNT_ID));
-        when(mockHibernateHelper.queryGet(eq("FROM HibernateAccountSubstudy WHERE accountId=:accountId"), any(), any(),
+        when(mockHibernateHelper.queryGet(eq(HibernateAccountDao.ACCOUNT_SUBSTUDY_PAGE_QUERY), any(), any(),
                 any(), eq(HibernateAccountSubstudy.class))).thenReturn(list);
 
         AccountSummarySearch search = new AccountSummarySearch.Builder().build();
@@ -736,12 +855,8 @@ public class HibernateAccountDaoTest extends Mockito {
                 .create(TEST_APP_ID, "substudyB", ACCOUNT_ID);
         as2.setExternalId("externalIdB");
 
-        when(mockHibernateHelper.queryGet("FROM HibernateAccountSubstudy WHERE accountId=:accountId",
-                ImmutableMap.of("accountId", hibernateAccount.getId()), null, null, HibernateAccountSubstudy.class))
-                        .thenReturn(ImmutableList.of(as1, as2));
-
         // Unmarshall
-        AccountSummary accountSummary = dao.unmarshallAccountSummary(hibernateAccount);
+        AccountSummary accountSummary = dao.unmarshallAccountSummary(hibernateAccount, ImmutableList.of(as1, as2));
         assertEquals(accountSummary.getId(), ACCOUNT_ID);
         assertEquals(accountSummary.getAppId(), TEST_APP_ID);
         assertEquals(accountSummary.getEmail(), EMAIL);
@@ -758,7 +873,7 @@ public class HibernateAccountDaoTest extends Mockito {
     // branch coverage, to make sure nothing crashes.
     @Test
     public void unmarshallAccountSummaryBlankAccount() throws Exception {
-        AccountSummary accountSummary = dao.unmarshallAccountSummary(new HibernateAccount());
+        AccountSummary accountSummary = dao.unmarshallAccountSummary(new HibernateAccount(), null);
         assertNotNull(accountSummary);
     }
 
@@ -780,12 +895,8 @@ public class HibernateAccountDaoTest extends Mockito {
                 .create(TEST_APP_ID, "substudyB", ACCOUNT_ID);
         as2.setExternalId("externalIdB");
 
-        when(mockHibernateHelper.queryGet("FROM HibernateAccountSubstudy WHERE accountId=:accountId",
-                ImmutableMap.of("accountId", hibernateAccount.getId()), null, null, HibernateAccountSubstudy.class))
-                        .thenReturn(ImmutableList.of(as1, as2));
-
         // Unmarshall
-        AccountSummary accountSummary = dao.unmarshallAccountSummary(hibernateAccount);
+        AccountSummary accountSummary = dao.unmarshallAccountSummary(hibernateAccount, ImmutableList.of(as1, as2));
         assertEquals(accountSummary.getExternalIds(), ImmutableMap.of("substudyB", "externalIdB"));
         assertEquals(accountSummary.getSubstudyIds(), ImmutableSet.of("substudyB"));
     }
@@ -802,7 +913,7 @@ public class HibernateAccountDaoTest extends Mockito {
         hibernateAccount.setStatus(ENABLED);
 
         // Unmarshall
-        AccountSummary accountSummary = dao.unmarshallAccountSummary(hibernateAccount);
+        AccountSummary accountSummary = dao.unmarshallAccountSummary(hibernateAccount, null);
         assertEquals(accountSummary.getId(), ACCOUNT_ID);
     }
 
@@ -2,8 +2,10 @@ package org.sagebionetworks.bridge.hibernate;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
@@ -35,6 +37,7 @@ import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.accounts.AccountSecret;
 import org.sagebionetworks.bridge.models.accounts.AccountSecretType;
 import org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm;
+import org.sagebionetworks.bridge.services.CredentialHashingService;
 
 public class HibernateAccountSecretDaoTest {
 
@@ -49,6 +52,9 @@ public class HibernateAccountSecretDaoTest {
     @Mock
     private HibernateHelper helper;
     
+    @Mock
+    private CredentialHashingService mockCredentialHashingService;
+    
     @Captor
     ArgumentCaptor<AccountSecret> secretCaptor;
     
@@ -56,9 +62,13 @@ public class HibernateAccountSecretDaoTest {
     ArgumentCaptor<Map<String,Object>> paramsCaptor;
     
     @BeforeMethod
-    public void before() {
+    public void before() throws Exception {
         MockitoAnnotations.initMocks(this);
         dao.setHibernateHelper(helper);
+        dao.setCredentialHashingService(mockCredentialHashingService);
+        // Hashes run on the calling thread.
+        when(mockCredentialHashingService.hash(any(), any())).thenAnswer(invocation ->
+                invocation.<CredentialHashingService.HashFunction<?>>getArgument(1).apply());
         //when(dao.generateHash(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM, TOKEN)).thenReturn(TOKEN);
         DateTimeUtils.setCurrentMillisFixed(CREATED_ON.getMillis());
     }
@@ -70,7 +80,7 @@ public class HibernateAccountSecretDaoTest {
     
     @Test
     public void createSecret() {
-        dao.createSecret(AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN);
+        dao.createSecret(TEST_APP_ID, AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN);
         
         verify(helper).create(secretCaptor.capture(), eq(null));
         
@@ -80,13 +90,17 @@ public class HibernateAccountSecretDaoTest {
         assertNotEquals(secret.getHash(), TOKEN);
         assertEquals(secret.getType(), AccountSecretType.REAUTH);
         assertEquals(secret.getCreatedOn(), CREATED_ON);
+        
+        // Only the hash is computed on the hashing thread pool.
+        verify(mockCredentialHashingService).hash(eq(TEST_APP_ID), any());
     }
     
     @Test
     public void verifySecret() throws Exception {
         makeResults(TOKEN);
         
-        AccountSecret secret = dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).get();
+        AccountSecret secret = dao.verifySecret(TEST_APP_ID, AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS)
+                .get();
         assertNotEquals(secret.getHash(), TOKEN); // it is encrypted but matches
         assertNotNull(secret);
         
@@ -95,27 +109,34 @@ public class HibernateAccountSecretDaoTest {
         Map<String, Object> params = paramsCaptor.getValue();
         assertEquals(params.get("accountId"), ACCOUNT_ID);
         assertEquals(params.get("type"), AccountSecretType.REAUTH);
+        
+        verify(mockCredentialHashingService).hash(eq(TEST_APP_ID), any());
     }
     
     @Test
     public void verifySecretSucceedsAfterRotation() throws Exception {
         makeResults("ABC", TOKEN, "DEF");
         
-        assertTrue(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
+        assertTrue(dao.verifySecret(TEST_APP_ID, AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
+        
+        // All rotations are checked in one call.
+        verify(mockCredentialHashingService).hash(eq(TEST_APP_ID), any());
     }
     
     @Test
     public void verifySecretFailsOnEmpty() throws Exception {
         makeResults();
         
-        assertFalse(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
+        assertFalse(dao.verifySecret(TEST_APP_ID, AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
+        
+        verify(mockCredentialHashingService, never()).hash(any(), any());
     }
     
     @Test
     public void verifySecretFailsWhenNoMatch() throws Exception {
         makeResults("ABC", "DEF");
         
-        assertFalse(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
+        assertFalse(dao.verifySecret(TEST_APP_ID, AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
     }
     
     @Test
@@ -131,7 +152,7 @@ public class HibernateAccountSecretDaoTest {
                 eq(0), eq(ROTATIONS), eq(HibernateAccountSecret.class)))
             .thenReturn(ImmutableList.of(secret));
         
-        assertFalse(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
+        assertFalse(dao.verifySecret(TEST_APP_ID, AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
     }
     
     @Test
@@ -149,7 +170,7 @@ public class HibernateAccountSecretDaoTest {
         PasswordAlgorithm algorithm = Mockito.mock(PasswordAlgorithm.class);
         when(algorithm.generateHash(any())).thenThrow(new InvalidKeyException());
         
-        dao.generateHash(algorithm, "whatever");
+        dao.generateHash(TEST_APP_ID, algorithm, "whatever");
     }
     
     private List<HibernateAccountSecret> makeResults(String... hashes) throws InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException {
@@ -296,6 +296,18 @@ public class HibernateHelperTest {
         verify(mockSession).update(testObj);
     }
 
+    @Test
+    public void createAndUpdateAll() {
+        Object createObj = new Object();
+        Object updateObj = new Object();
+        helper.createAndUpdateAll(ImmutableList.of(createObj), ImmutableList.of(updateObj));
+        
+        // Both in the same session
+        verify(helper).execute(any());
+        verify(mockSession).save(createObj);
+        verify(mockSession).update(updateObj);
+    }
+
     @Test
     public void updateCallsConsumer() { 
         reset(helper); // clear @Before setup
@@ -1,8 +1,14 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static org.sagebionetworks.bridge.TestConstants.USER_ID;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -26,6 +32,9 @@ public class HibernateRequestInfoDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<RequestInfo> requestInfoCaptor;
     
+    @Captor
+    ArgumentCaptor<List<RequestInfo>> requestInfoListCaptor;
+    
     @BeforeMethod
     public void beforeMethod() { 
         MockitoAnnotations.initMocks(this);
@@ -58,6 +67,36 @@ public class HibernateRequestInfoDaoTest extends Mockito {
         assertNotNull(captured.getSignedInOn());
     }
 
+    @Test
+    public void updateRequestInfos() {
+        RequestInfo newInfo = new RequestInfo.Builder().withUserId("newUser")
+                .withSignedInOn(DateTime.now()).build();
+        RequestInfo updateInfo = new RequestInfo.Builder().withUserId(USER_ID)
+                .withActivitiesAccessedOn(DateTime.now()).build();
+        RequestInfo existingInfo = new RequestInfo.Builder().withUserId(USER_ID)
+                .withSignedInOn(DateTime.now()).build();
+        when(mockHelper.queryGet(HibernateRequestInfoDao.GET_BY_USER_IDS_QUERY,
+                ImmutableMap.of("userIds", ImmutableSet.of("newUser", USER_ID)), null, null, RequestInfo.class))
+                .thenReturn(ImmutableList.of(existingInfo));
+        
+        dao.updateRequestInfos(ImmutableList.of(newInfo, updateInfo));
+        
+        verify(mockHelper).createAndUpdateAll(requestInfoListCaptor.capture(), requestInfoListCaptor.capture());
+        assertEquals(requestInfoListCaptor.getAllValues().get(0), ImmutableList.of(newInfo));
+        
+        List<RequestInfo> updateList = requestInfoListCaptor.getAllValues().get(1);
+        assertEquals(updateList.size(), 1);
+        assertEquals(updateList.get(0).getUserId(), USER_ID);
+        assertNotNull(updateList.get(0).getActivitiesAccessedOn());
+        assertNotNull(updateList.get(0).getSignedInOn());
+    }
+    
+    @Test
+    public void updateRequestInfosEmpty() {
+        dao.updateRequestInfos(ImmutableList.of());
+        verifyZeroInteractions(mockHelper);
+    }
+
     @Test
     public void getRequestInfo() {
         dao.getRequestInfo(USER_ID);
@@ -70,7 +70,8 @@ public class AccountSummarySearchTest {
             .withNoneOfGroups(Sets.newHashSet("group2"))
             .withLanguage("en")
             .withStartTime(startTime)
-            .withEndTime(endTime).build();
+            .withEndTime(endTime)
+            .withOffsetKey("1500000000000:accountId").build();
         
         String json = BridgeObjectMapper.get().writeValueAsString(search);
         JsonNode node = BridgeObjectMapper.get().readTree(json);
@@ -89,6 +90,7 @@ public class AccountSummarySearchTest {
         assertEquals(deser.getLanguage(), "en");
         assertEquals(deser.getStartTime(), startTime);
         assertEquals(deser.getEndTime(), endTime);
+        assertEquals(deser.getOffsetKey(), "1500000000000:accountId");
     }
     
     @Test
@@ -0,0 +1,173 @@
+package org.sagebionetworks.bridge.models;
+
+import static java.util.Comparator.comparingLong;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.ANDROID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.IOS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class CriteriaIndexTest {
+
+    private static final ClientInfo IOS_CLIENT_INFO = ClientInfo.fromUserAgentCache(
+            "app/4 (deviceName; iPhone OS/3.9) BridgeJavaSDK/12");
+    private static final List<String> LANGUAGES = ImmutableList.of("en", "fr", "de", "es");
+    private static final List<ClientInfo> CLIENT_INFOS = ImmutableList.of(ClientInfo.UNKNOWN_CLIENT,
+            ClientInfo.fromUserAgentCache("app/2 (deviceName; iPhone OS/3.9) BridgeJavaSDK/12"),
+            IOS_CLIENT_INFO,
+            ClientInfo.fromUserAgentCache("app/9 (deviceName; iPhone OS/3.9) BridgeJavaSDK/12"),
+            ClientInfo.fromUserAgentCache("app/4 (deviceName; Android/3.9) BridgeJavaSDK/12"));
+
+    @Test
+    public void filtersOnDataGroupsAndSubstudies() {
+        AppConfig requiresGroup = makeAppConfig(1L);
+        requiresGroup.getCriteria().setAllOfGroups(ImmutableSet.of("group1", "group2"));
+        AppConfig prohibitsGroup = makeAppConfig(2L);
+        prohibitsGroup.getCriteria().setNoneOfGroups(ImmutableSet.of("group2"));
+        AppConfig requiresSubstudy = makeAppConfig(3L);
+        requiresSubstudy.getCriteria().setAllOfSubstudyIds(ImmutableSet.of("substudyA"));
+        AppConfig prohibitsSubstudy = makeAppConfig(4L);
+        prohibitsSubstudy.getCriteria().setNoneOfSubstudyIds(ImmutableSet.of("substudyA"));
+
+        CriteriaIndex<AppConfig> index = CriteriaIndex.compile(
+                ImmutableList.of(requiresGroup, prohibitsGroup, requiresSubstudy, prohibitsSubstudy));
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withUserDataGroups(ImmutableSet.of("group1", "group2", "unknownGroup"))
+                .withUserSubstudyIds(ImmutableSet.of("substudyA")).build();
+        assertEquals(index.filter(context, null), ImmutableList.of(requiresGroup, requiresSubstudy));
+
+        context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withUserDataGroups(ImmutableSet.of("group1")).build();
+        assertEquals(index.filter(context, null), ImmutableList.of(prohibitsGroup, prohibitsSubstudy));
+    }
+
+    @Test
+    public void filtersOnAppVersionAndLanguage() {
+        AppConfig inRange = makeAppConfig(1L);
+        inRange.getCriteria().setMinAppVersion(IOS, 2);
+        inRange.getCriteria().setMaxAppVersion(IOS, 4);
+        AppConfig outOfRange = makeAppConfig(2L);
+        outOfRange.getCriteria().setMinAppVersion(IOS, 5);
+        AppConfig french = makeAppConfig(3L);
+        french.getCriteria().setLanguage("fr");
+        AppConfig german = makeAppConfig(4L);
+        german.getCriteria().setLanguage("de");
+
+        CriteriaIndex<AppConfig> index = CriteriaIndex.compile(ImmutableList.of(inRange, outOfRange, french, german));
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withClientInfo(IOS_CLIENT_INFO).withLanguages(ImmutableList.of("fr", "en")).build();
+        // Configs without a language sort ahead of configs in one of the caller's languages, as they do in
+        // CriteriaUtils.filterByCriteria().
+        assertEquals(index.filter(context, null), ImmutableList.of(inRange, french));
+    }
+
+    @Test
+    public void sortsWithSecondComparator() {
+        AppConfig later = makeAppConfig(20L);
+        AppConfig earlier = makeAppConfig(10L);
+
+        CriteriaIndex<AppConfig> index = CriteriaIndex.compile(ImmutableList.of(later, earlier));
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID).build();
+        List<AppConfig> matches = index.filter(context, comparingLong(AppConfig::getCreatedOn));
+        assertSame(matches.get(0), earlier);
+        assertSame(matches.get(1), later);
+        assertEquals(index.getCandidates(), ImmutableList.of(later, earlier));
+    }
+
+    @Test
+    public void emptyIndex() {
+        CriteriaIndex<AppConfig> index = CriteriaIndex.compile(ImmutableList.of());
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withUserDataGroups(ImmutableSet.of("group1")).build();
+        assertTrue(index.filter(context, null).isEmpty());
+    }
+
+    @Test
+    public void matchesFilterByCriteria() {
+        // Criteria and callers are generated from a fixed seed, with enough data groups to need more than one word
+        // of bits. Each index is checked against CriteriaUtils.filterByCriteria() for many callers.
+        Random random = new Random(7L);
+        List<String> dataGroups = makeValues("group", 100);
+        List<String> substudyIds = makeValues("substudy", 10);
+
+        for (int i = 0; i < 50; i++) {
+            List<AppConfig> appConfigs = new ArrayList<>();
+            int count = random.nextInt(30);
+            for (int j = 0; j < count; j++) {
+                AppConfig appConfig = makeAppConfig(random.nextInt(5));
+                Criteria criteria = appConfig.getCriteria();
+                criteria.setAllOfGroups(pick(random, dataGroups, 2));
+                criteria.setNoneOfGroups(pick(random, dataGroups, 2));
+                criteria.setAllOfSubstudyIds(pick(random, substudyIds, 1));
+                criteria.setNoneOfSubstudyIds(pick(random, substudyIds, 1));
+                if (random.nextBoolean()) {
+                    criteria.setMinAppVersion(IOS, random.nextInt(6));
+                }
+                if (random.nextBoolean()) {
+                    criteria.setMaxAppVersion(random.nextBoolean() ? IOS : ANDROID, random.nextInt(10));
+                }
+                if (random.nextInt(3) == 0) {
+                    criteria.setLanguage(LANGUAGES.get(random.nextInt(LANGUAGES.size())));
+                }
+                appConfigs.add(appConfig);
+            }
+            CriteriaIndex<AppConfig> index = CriteriaIndex.compile(appConfigs);
+
+            for (int j = 0; j < 100; j++) {
+                CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                        .withClientInfo(CLIENT_INFOS.get(random.nextInt(CLIENT_INFOS.size())))
+                        .withUserDataGroups(pick(random, dataGroups, 30))
+                        .withUserSubstudyIds(pick(random, substudyIds, 5))
+                        .withLanguages(ImmutableList.copyOf(pick(random, LANGUAGES, 2))).build();
+
+                assertEquals(index.filter(context, null), CriteriaUtils.filterByCriteria(context, appConfigs, null));
+                assertEquals(index.filter(context, comparingLong(AppConfig::getCreatedOn)),
+                        CriteriaUtils.filterByCriteria(context, appConfigs, comparingLong(AppConfig::getCreatedOn)));
+            }
+        }
+    }
+
+    private static AppConfig makeAppConfig(long createdOn) {
+        AppConfig appConfig = AppConfig.create();
+        appConfig.setLabel("AppConfig" + createdOn);
+        appConfig.setCriteria(Criteria.create());
+        appConfig.setCreatedOn(createdOn);
+        return appConfig;
+    }
+
+    private static List<String> makeValues(String prefix, int count) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(prefix + i);
+        }
+        return values;
+    }
+
+    // Picks up to maxCount values at random.
+    private static Set<String> pick(Random random, List<String> values, int maxCount) {
+        Set<String> picked = new HashSet<>();
+        int count = random.nextInt(maxCount + 1);
+        for (int i = 0; i < count; i++) {
+            picked.add(values.get(random.nextInt(values.size())));
+        }
+        return picked;
+    }
+}
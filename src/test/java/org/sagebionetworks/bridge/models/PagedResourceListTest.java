@@ -6,6 +6,7 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.DISABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,7 @@ import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -90,6 +92,23 @@ public class PagedResourceListTest {
         assertEquals(serPage.getItems(), page.getItems());
     }
     
+    @Test
+    public void canSerializeNextPageOffsetKey() throws Exception {
+        PagedResourceList<String> page = new PagedResourceList<>(ImmutableList.of("a", "b"), 10)
+                .withNextPageOffsetKey("nextKey");
+        
+        JsonNode node = BridgeObjectMapper.get().valueToTree(page);
+        assertEquals(node.get("nextPageOffsetKey").textValue(), "nextKey");
+        
+        PagedResourceList<String> serPage = BridgeObjectMapper.get().readValue(node.toString(),
+                new TypeReference<PagedResourceList<String>>() {});
+        assertEquals(serPage.getNextPageOffsetKey(), "nextKey");
+        
+        // Not included when the list is paged by offset.
+        node = BridgeObjectMapper.get().valueToTree(new PagedResourceList<>(ImmutableList.of("a"), 1));
+        assertFalse(node.has("nextPageOffsetKey"));
+    }
+    
     @Test(expectedExceptions = NullPointerException.class)
     public void totalCannotBeNull() throws Exception {
         List<AccountSummary> accounts = Lists.newArrayListWithCapacity(2);
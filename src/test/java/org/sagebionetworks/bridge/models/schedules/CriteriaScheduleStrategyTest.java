@@ -211,6 +211,30 @@ public class CriteriaScheduleStrategyTest {
         assertEquals(schedule, SCHEDULE_FOR_STRATEGY_WITH_PROHIBITED_DATA_GROUPS);
     }
     
+    @Test
+    public void criteriaChangedAfterMatchingAreUsed() {
+        setUpStrategyWithOneRequiredDataGroup();
+        assertNull(getScheduleFromStrategy(Sets.newHashSet("someRandomToken")));
+        
+        setUpStrategyEmptyCriteria();
+        Schedule schedule = getScheduleFromStrategy(Sets.newHashSet("someRandomToken"));
+        assertEquals(schedule, SCHEDULE_FOR_STRATEGY_NO_CRITERIA);
+        
+        strategy.setScheduleCriteria(null);
+        assertNull(getScheduleFromStrategy(Sets.newHashSet("someRandomToken")));
+    }
+    
+    @Test
+    public void criteriaReplacedAfterMatchingAreUsed() {
+        setUpStrategyWithOneRequiredDataGroup();
+        assertNull(getScheduleFromStrategy(Sets.newHashSet("someRandomToken")));
+        
+        strategy.replaceCriteria(0, new ScheduleCriteria(SCHEDULE_FOR_STRATEGY_NO_CRITERIA, Criteria.create()));
+        Schedule schedule = getScheduleFromStrategy(Sets.newHashSet("someRandomToken"));
+        assertEquals(schedule, SCHEDULE_FOR_STRATEGY_NO_CRITERIA);
+        assertEquals(strategy.getScheduleCriteria().size(), 1);
+    }
+    
     @Test
     public void noMatchingFilterReturnsNull() {
         setUpStrategyWithAppVersions();
@@ -5,6 +5,7 @@ import static org.sagebionetworks.bridge.models.schedules.ScheduleTestUtils.asDT
 import static org.sagebionetworks.bridge.models.schedules.ScheduleTestUtils.assertDates;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.List;
@@ -131,6 +132,14 @@ public class PersistentActivitySchedulerTest {
         assertFalse(schedule.schedulesImmediatelyAfterEvent());
     }
     
+    @Test
+    public void noEventIdSchedulesFromEnrollmentWithoutChangingSchedule() {
+        schedule.setEventId(null);
+        scheduledActivities = schedule.getScheduler().getScheduledActivities(plan, getContext(ENROLLMENT.plusDays(1)));
+        assertDates(scheduledActivities, MSK, "2015-03-23 10:00");
+        assertNull(schedule.getEventId());
+    }
+    
     private ScheduleContext getContext(DateTime endsOn) {
         return new ScheduleContext.Builder()
             .withAppId(TEST_APP_ID)
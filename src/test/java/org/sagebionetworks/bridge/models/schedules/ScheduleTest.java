@@ -14,6 +14,8 @@ import org.sagebionetworks.bridge.models.surveys.TestSurvey;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -166,4 +168,32 @@ public class ScheduleTest {
         schedule.setDelay((Period)null);
         assertTrue(schedule.getPersistent());
     }
+    
+    @Test
+    public void schedulerIsCreatedOnce() {
+        Schedule schedule = new Schedule();
+        schedule.setCronTrigger("0 0 8 ? * TUE *");
+        
+        ActivityScheduler scheduler = schedule.getScheduler();
+        assertTrue(scheduler instanceof CronActivityScheduler);
+        assertSame(schedule.getScheduler(), scheduler);
+    }
+    
+    @Test
+    public void schedulerIsRecreatedWhenScheduleChanges() {
+        Schedule schedule = new Schedule();
+        schedule.setCronTrigger("0 0 8 ? * TUE *");
+        ActivityScheduler scheduler = schedule.getScheduler();
+        
+        schedule.setCronTrigger(null);
+        ActivityScheduler intervalScheduler = schedule.getScheduler();
+        assertTrue(intervalScheduler instanceof IntervalActivityScheduler);
+        
+        schedule.setScheduleType(ScheduleType.PERSISTENT);
+        assertTrue(schedule.getScheduler() instanceof PersistentActivityScheduler);
+        
+        schedule.setEventId("survey:AAA:finished");
+        assertNotSame(schedule.getScheduler(), scheduler);
+        assertEquals(schedule.getScheduler().eventIds, Lists.newArrayList("survey:AAA:finished"));
+    }
 }
@@ -107,6 +107,9 @@ public class AccountServiceTest extends Mockito {
     @Mock
     Consumer<Account> mockConsumer;
 
+    @Mock
+    CredentialHashingService mockCredentialHashingService;
+
     @InjectMocks
     @Spy
     AccountService service;
@@ -125,8 +128,11 @@ public class AccountServiceTest extends Mockito {
     }
 
     @BeforeMethod
-    public void beforeMethod() {
+    public void beforeMethod() throws Exception {
         MockitoAnnotations.initMocks(this);
+        // Hashes run on the calling thread.
+        when(mockCredentialHashingService.hash(any(), any())).thenAnswer(invocation ->
+                invocation.<CredentialHashingService.HashFunction<?>>getArgument(1).apply());
     }
 
     @Test
@@ -189,10 +195,11 @@ public class AccountServiceTest extends Mockito {
     @Test
     public void reauthenticate() throws Exception {
         App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
         app.setReauthenticationEnabled(true);
         
         Account account = mockGetAccountById(ACCOUNT_ID_WITH_EMAIL, false);
-        when(mockAccountSecretDao.verifySecret(REAUTH, USER_ID, "reauthToken", ROTATIONS))
+        when(mockAccountSecretDao.verifySecret(TEST_APP_ID, REAUTH, USER_ID, "reauthToken", ROTATIONS))
                 .thenReturn(Optional.of(mockSecret));
 
         Account returnVal = service.reauthenticate(app, SIGN_IN);
@@ -577,10 +584,11 @@ public class AccountServiceTest extends Mockito {
         mockGetAccountById(ACCOUNT_ID_WITH_EMAIL, false);
 
         AccountSecret secret = AccountSecret.create();
-        when(mockAccountSecretDao.verifySecret(REAUTH, USER_ID, REAUTH_TOKEN, ROTATIONS))
+        when(mockAccountSecretDao.verifySecret(TEST_APP_ID, REAUTH, USER_ID, REAUTH_TOKEN, ROTATIONS))
                 .thenReturn(Optional.of(secret));
 
         App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
         app.setReauthenticationEnabled(true);
 
         Account account = service.reauthenticate(app, REAUTH_SIGNIN);
@@ -595,7 +603,7 @@ public class AccountServiceTest extends Mockito {
         verify(mockAccountDao, never()).updateAccount(any(), any());
 
         // verify token verification
-        verify(mockAccountSecretDao).verifySecret(REAUTH, USER_ID, REAUTH_TOKEN, 3);
+        verify(mockAccountSecretDao).verifySecret(TEST_APP_ID, REAUTH, USER_ID, REAUTH_TOKEN, 3);
     }
 
     @Test
@@ -645,10 +653,11 @@ public class AccountServiceTest extends Mockito {
         persistedAccount.setStatus(UNVERIFIED);
 
         AccountSecret secret = AccountSecret.create();
-        when(mockAccountSecretDao.verifySecret(REAUTH, USER_ID, REAUTH_TOKEN, ROTATIONS))
+        when(mockAccountSecretDao.verifySecret(TEST_APP_ID, REAUTH, USER_ID, REAUTH_TOKEN, ROTATIONS))
                 .thenReturn(Optional.of(secret));
 
         App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
         app.setReauthenticationEnabled(true);
 
         service.reauthenticate(app, REAUTH_SIGNIN);
@@ -660,10 +669,11 @@ public class AccountServiceTest extends Mockito {
         persistedAccount.setStatus(DISABLED);
 
         AccountSecret secret = AccountSecret.create();
-        when(mockAccountSecretDao.verifySecret(REAUTH, USER_ID, REAUTH_TOKEN, ROTATIONS))
+        when(mockAccountSecretDao.verifySecret(TEST_APP_ID, REAUTH, USER_ID, REAUTH_TOKEN, ROTATIONS))
                 .thenReturn(Optional.of(secret));
 
         App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
         app.setReauthenticationEnabled(true);
 
         service.reauthenticate(app, REAUTH_SIGNIN);
@@ -17,12 +17,14 @@ import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDateTime;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
@@ -30,6 +32,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent.Builder;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -62,14 +66,73 @@ public class ActivityEventServiceTest {
     @Mock
     private ParticipantService mockParticipantService;
     
+    @Mock
+    private BridgeConfig mockBridgeConfig;
+    
+    @Mock
+    private CacheInvalidationBus mockCacheInvalidationBus;
+    
+    @Captor
+    private ArgumentCaptor<Consumer<String>> listenerCaptor;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
+        when(mockBridgeConfig.getInt(ActivityEventService.ACTIVITIES_RETRIEVED_WINDOW_PROPERTY)).thenReturn(60);
         activityEventService = new ActivityEventService();
         
         activityEventService.setActivityEventDao(activityEventDao);
         activityEventService.setAppService(mockAppService);
         activityEventService.setParticipantService(mockParticipantService);
+        activityEventService.setBridgeConfig(mockBridgeConfig);
+        activityEventService.setCacheInvalidationBus(mockCacheInvalidationBus);
+    }
+    
+    @Test
+    public void activitiesRetrievedIsCoalesced() {
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        activityEventService.publishActivitiesRetrieved(App.create(), "otherHealthCode", DateTime.now());
+        
+        // Written once per health code
+        verify(activityEventDao, times(2)).publishEvent(any());
+    }
+    
+    @Test
+    public void activitiesRetrievedIsCoalescedWhenAlreadyRecorded() {
+        when(activityEventDao.publishEvent(any())).thenReturn(false);
+        
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        
+        verify(activityEventDao, times(1)).publishEvent(any());
+    }
+    
+    @Test
+    public void deletingEventsResetsActivitiesRetrievedCoalescing() {
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        activityEventService.deleteActivityEvents(HEALTH_CODE);
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        
+        verify(activityEventDao, times(2)).publishEvent(any());
+    }
+    
+    @Test
+    public void deletingEventsResetsActivitiesRetrievedCoalescingOnOtherNodes() {
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        verify(mockCacheInvalidationBus).addListener(eq(ActivityEventService.ACTIVITIES_RETRIEVED_INVALIDATION_CHANNEL),
+                listenerCaptor.capture());
+        
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        // Another node deleted this user's events.
+        listenerCaptor.getValue().accept(HEALTH_CODE);
+        activityEventService.publishActivitiesRetrieved(App.create(), HEALTH_CODE, DateTime.now());
+        
+        verify(activityEventDao, times(2)).publishEvent(any());
     }
 
     @Test
@@ -233,6 +296,8 @@ public class ActivityEventServiceTest {
         
         verify(activityEventDao).deleteActivityEvents(HEALTH_CODE);
         verifyNoMoreInteractions(activityEventDao);
+        verify(mockCacheInvalidationBus).publish(ActivityEventService.ACTIVITIES_RETRIEVED_INVALIDATION_CHANNEL,
+                HEALTH_CODE);
     }
     
     @Test
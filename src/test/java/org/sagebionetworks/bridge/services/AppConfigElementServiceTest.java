@@ -44,6 +44,9 @@ public class AppConfigElementServiceTest {
     @Mock
     private AppConfigElementDao dao;
     
+    @Mock
+    private AppConfigService mockAppConfigService;
+    
     @Captor
     private ArgumentCaptor<AppConfigElement> elementCaptor;
     
@@ -55,6 +58,7 @@ public class AppConfigElementServiceTest {
         MockitoAnnotations.initMocks(this);
         DateTimeUtils.setCurrentMillisFixed(TIMESTAMP.getMillis());
         service.setAppConfigElementDao(dao);
+        service.setAppConfigService(mockAppConfigService);
         elements = ImmutableList.of(AppConfigElement.create(), AppConfigElement.create());
     }
     
@@ -105,6 +109,7 @@ public class AppConfigElementServiceTest {
         assertEquals(captured.getKey(), TEST_APP_ID + ":id");
         assertEquals(captured.getCreatedOn(), TIMESTAMP.getMillis());
         assertEquals(captured.getModifiedOn(), TIMESTAMP.getMillis());
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
     }
     
     @Test(expectedExceptions = InvalidEntityException.class)
@@ -208,6 +213,7 @@ public class AppConfigElementServiceTest {
         assertEquals(captured.getKey(), TEST_APP_ID + ":id");
         assertNotEquals(captured.getCreatedOn(), TIMESTAMP.getMillis());
         assertEquals(captured.getModifiedOn(), TIMESTAMP.getMillis());
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
     }
     
     @Test(expectedExceptions = InvalidEntityException.class)
@@ -276,6 +282,7 @@ public class AppConfigElementServiceTest {
         verify(dao, times(2)).saveElementRevision(elementCaptor.capture());
         assertTrue(elementCaptor.getAllValues().get(0).isDeleted());
         assertTrue(elementCaptor.getAllValues().get(1).isDeleted());
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
     }
     
     @Test
@@ -291,6 +298,7 @@ public class AppConfigElementServiceTest {
         verify(dao).getElementRevisions(TEST_APP_ID, "id", true);
         verify(dao).deleteElementRevisionPermanently(TEST_APP_ID, "id", 1);
         verify(dao).deleteElementRevisionPermanently(TEST_APP_ID, "id", 2);
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
     }
     
     @Test
@@ -306,6 +314,7 @@ public class AppConfigElementServiceTest {
         assertNotEquals(captured.getCreatedOn(), TIMESTAMP.getMillis());
         assertEquals(captured.getModifiedOn(), TIMESTAMP.getMillis());
         assertTrue(elementCaptor.getValue().isDeleted());
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -322,6 +331,7 @@ public class AppConfigElementServiceTest {
         service.deleteElementRevisionPermanently(TEST_APP_ID, "id", 3L);
         
         verify(dao).deleteElementRevisionPermanently(TEST_APP_ID, "id", 3L);
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
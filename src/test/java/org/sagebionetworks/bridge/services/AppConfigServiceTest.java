@@ -9,12 +9,14 @@ import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
@@ -30,6 +32,7 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.AppConfigDao;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
@@ -101,6 +104,12 @@ public class AppConfigServiceTest {
     @Mock
     private ReferenceResolver mockReferenceResolver;
     
+    @Mock
+    private CacheInvalidationBus mockCacheInvalidationBus;
+    
+    @Captor
+    private ArgumentCaptor<Consumer<String>> listenerCaptor;
+    
     @Captor
     private ArgumentCaptor<AppConfig> appConfigCaptor;
     
@@ -390,6 +399,76 @@ public class AppConfigServiceTest {
         assertEquals(appConfig.getSurveyReferences().get(0).getIdentifier(), "theIdentifier");
     }
     
+    @Test
+    public void getAppConfigForUserResolvesAppConfigsOnce() {
+        Survey survey = Survey.create();
+        survey.setIdentifier("theIdentifier");
+        survey.setGuid(SURVEY_REF_LIST.get(0).getGuid());
+        survey.setCreatedOn(SURVEY_REF_LIST.get(0).getCreatedOn().getMillis());
+        when(mockSurveyService.getSurvey(TEST_APP_ID, SURVEY_KEY, false, false)).thenReturn(survey);
+        
+        AppConfigElement element = AppConfigElement.create();
+        element.setId("id");
+        element.setRevision(1L);
+        element.setData(TestUtils.getClientData());
+        when(mockAppConfigElementService.getElementRevision(TEST_APP_ID, "id", 1L)).thenReturn(element);
+        
+        // Both configs reference the same survey and element revision.
+        AppConfig appConfig2 = setupConfigsForUser();
+        appConfig2.setConfigReferences(CONFIG_REF_LIST);
+        AppConfig appConfig1 = RESULTS.get(0);
+        appConfig1.setSurveyReferences(SURVEY_REF_LIST);
+        appConfig1.setConfigReferences(CONFIG_REF_LIST);
+        
+        CriteriaContext androidContext = new CriteriaContext.Builder()
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/7 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                .withAppId(TEST_APP_ID).build();
+        CriteriaContext oldAndroidContext = new CriteriaContext.Builder()
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/2 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                .withAppId(TEST_APP_ID).build();
+        
+        assertEquals(service.getAppConfigForUser(androidContext, true), appConfig2);
+        assertEquals(service.getAppConfigForUser(oldAndroidContext, true), appConfig1);
+        AppConfig match = service.getAppConfigForUser(androidContext, true);
+        assertEquals(match.getSurveyReferences().get(0).getIdentifier(), "theIdentifier");
+        assertEquals(match.getConfigElements().get("id"), TestUtils.getClientData());
+        
+        verify(mockDao).getAppConfigs(TEST_APP_ID, false);
+        verify(mockSurveyService).getSurvey(TEST_APP_ID, SURVEY_KEY, false, false);
+        verify(mockAppConfigElementService).getElementRevision(TEST_APP_ID, "id", 1L);
+    }
+    
+    @Test
+    public void invalidateResolvedAppConfigs() {
+        setupConfigsForUser();
+        CriteriaContext context = new CriteriaContext.Builder()
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/7 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                .withAppId(TEST_APP_ID).build();
+        
+        service.getAppConfigForUser(context, true);
+        service.invalidateResolvedAppConfigs(TEST_APP_ID);
+        service.getAppConfigForUser(context, true);
+        
+        verify(mockCacheInvalidationBus).publish(AppConfigService.APP_CONFIG_INVALIDATION_CHANNEL, TEST_APP_ID);
+        verify(mockDao, times(2)).getAppConfigs(TEST_APP_ID, false);
+    }
+    
+    @Test
+    public void invalidationFromOtherNodeDropsResolvedAppConfigs() {
+        setupConfigsForUser();
+        CriteriaContext context = new CriteriaContext.Builder()
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/7 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                .withAppId(TEST_APP_ID).build();
+        verify(mockCacheInvalidationBus).addListener(eq(AppConfigService.APP_CONFIG_INVALIDATION_CHANNEL),
+                listenerCaptor.capture());
+        
+        service.getAppConfigForUser(context, true);
+        listenerCaptor.getValue().accept(TEST_APP_ID);
+        service.getAppConfigForUser(context, true);
+        
+        verify(mockDao, times(2)).getAppConfigs(TEST_APP_ID, false);
+    }
+    
     @Test
     public void createAppConfig() {
         when(mockAppService.getApp(TEST_APP_ID)).thenReturn(app);
@@ -434,6 +513,7 @@ public class AppConfigServiceTest {
         assertEquals(captured.getFileReferences(), FILE_REF_LIST);
         
         verify(mockSubstudyService).getSubstudyIds(TEST_APP_ID);
+        verify(mockCacheInvalidationBus).publish(AppConfigService.APP_CONFIG_INVALIDATION_CHANNEL, TEST_APP_ID);
     }
     
     @Test
@@ -453,6 +533,7 @@ public class AppConfigServiceTest {
         assertEquals(appConfigCaptor.getValue(), oldConfig);
         
         verify(mockSubstudyService).getSubstudyIds(TEST_APP_ID);
+        verify(mockCacheInvalidationBus).publish(AppConfigService.APP_CONFIG_INVALIDATION_CHANNEL, TEST_APP_ID);
 
         assertEquals(oldConfig, returnValue);
     }
@@ -477,6 +558,7 @@ public class AppConfigServiceTest {
         service.deleteAppConfig(TEST_APP_ID,  GUID);
         
         verify(mockDao).deleteAppConfig(TEST_APP_ID, GUID);
+        verify(mockCacheInvalidationBus).publish(AppConfigService.APP_CONFIG_INVALIDATION_CHANNEL, TEST_APP_ID);
     }
     
     @Test
@@ -484,5 +566,6 @@ public class AppConfigServiceTest {
         service.deleteAppConfigPermanently(TEST_APP_ID, GUID);
         
         verify(mockDao).deleteAppConfigPermanently(TEST_APP_ID, GUID);
+        verify(mockCacheInvalidationBus).publish(AppConfigService.APP_CONFIG_INVALIDATION_CHANNEL, TEST_APP_ID);
     }
 }
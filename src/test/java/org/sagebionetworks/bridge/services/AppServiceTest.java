@@ -526,8 +526,9 @@ public class AppServiceTest extends Mockito {
         App savedApp = savedAppCaptor.getValue();
         assertTrue(savedApp.isConsentNotificationEmailVerified());
 
-        // Verify that we cached the app.
+        // Verify that we cached the app, and told other nodes to drop their copy.
         verify(mockCacheProvider).setApp(savedApp);
+        verify(mockCacheProvider).broadcastAppInvalidation(TEST_APP_ID);
 
         // Verify that we removed the used token.
         verify(mockCacheProvider).removeObject(VER_CACHE_KEY);
@@ -258,7 +258,7 @@ public class AuthenticationServiceMockTest {
         assertEquals(updatedContext.getUserSubstudyIds(), TestConstants.USER_SUBSTUDY_IDS);
         assertEquals(updatedContext.getUserId(), USER_ID);
         
-        verify(accountSecretDao).createSecret(AccountSecretType.REAUTH, USER_ID, REAUTH_TOKEN);
+        verify(accountSecretDao).createSecret(TEST_APP_ID, AccountSecretType.REAUTH, USER_ID, REAUTH_TOKEN);
     }
     
     @Test
@@ -338,7 +338,7 @@ public class AuthenticationServiceMockTest {
         assertEquals(updatedContext.getUserSubstudyIds(), TestConstants.USER_SUBSTUDY_IDS);
         assertEquals(updatedContext.getUserId(), USER_ID);
         
-        verify(accountSecretDao).createSecret(AccountSecretType.REAUTH, USER_ID, REAUTH_TOKEN);
+        verify(accountSecretDao).createSecret(TEST_APP_ID, AccountSecretType.REAUTH, USER_ID, REAUTH_TOKEN);
     }
     
     @Test
@@ -629,7 +629,7 @@ public class AuthenticationServiceMockTest {
         assertEquals(captured.getParticipant().getEmail(), RECIPIENT_EMAIL);
         assertEquals(captured.getReauthToken(), REAUTH_TOKEN);
         
-        verify(accountSecretDao).createSecret(REAUTH, USER_ID, REAUTH_TOKEN);
+        verify(accountSecretDao).createSecret(TEST_APP_ID, REAUTH, USER_ID, REAUTH_TOKEN);
     }
     
     @Test(expectedExceptions = ConsentRequiredException.class)
@@ -1283,7 +1283,7 @@ public class AuthenticationServiceMockTest {
         assertEquals(session.getReauthToken(), REAUTH_TOKEN);
         assertEquals(session.getConsentStatuses(), CONSENTED_STATUS_MAP);
         
-        verify(accountSecretDao).createSecret(AccountSecretType.REAUTH, USER_ID, REAUTH_TOKEN);
+        verify(accountSecretDao).createSecret(TEST_APP_ID, AccountSecretType.REAUTH, USER_ID, REAUTH_TOKEN);
     }
     
     @Test
@@ -1308,7 +1308,7 @@ public class AuthenticationServiceMockTest {
         assertNull(session.getReauthToken());
         
         verify(service, never()).generateReauthToken();
-        verify(accountSecretDao, never()).createSecret(any(), any(), any());
+        verify(accountSecretDao, never()).createSecret(any(), any(), any(), any());
     }
 
     // branch coverage
@@ -1334,7 +1334,7 @@ public class AuthenticationServiceMockTest {
         assertNull(session.getReauthToken());
 
         verify(service, never()).generateReauthToken();
-        verify(accountSecretDao, never()).createSecret(any(), any(), any());
+        verify(accountSecretDao, never()).createSecret(any(), any(), any(), any());
     }
 
     @Test
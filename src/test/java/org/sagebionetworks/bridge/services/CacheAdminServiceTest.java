@@ -5,15 +5,18 @@ import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Map;
 import java.util.Set;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.surveys.Survey;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
@@ -45,6 +48,20 @@ public class CacheAdminServiceTest {
     }
     
     
+    @Test
+    public void getLocalCacheStats() {
+        CacheProvider cacheProvider = mock(CacheProvider.class);
+        when(cacheProvider.getLocalAppCacheStats()).thenReturn(new CacheStats(5, 2, 2, 0, 100, 1));
+        adminService.setCacheProvider(cacheProvider);
+        
+        Map<String, Map<String, Long>> stats = adminService.getLocalCacheStats();
+        Map<String, Long> appStats = stats.get("App");
+        assertEquals(appStats.get("hitCount"), Long.valueOf(5));
+        assertEquals(appStats.get("missCount"), Long.valueOf(2));
+        assertEquals(appStats.get("evictionCount"), Long.valueOf(1));
+        assertEquals(appStats.get("requestCount"), Long.valueOf(7));
+    }
+    
     @Test
     public void canRemoveItem() {
         adminService.removeItem("foo:App");
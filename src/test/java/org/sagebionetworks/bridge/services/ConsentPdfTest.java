@@ -4,6 +4,7 @@ import static org.sagebionetworks.bridge.TestConstants.EMAIL;
 import static org.sagebionetworks.bridge.TestConstants.PHONE;
 import static org.sagebionetworks.bridge.models.accounts.SharingScope.NO_SHARING;
 import static org.sagebionetworks.bridge.services.StudyConsentService.SIGNATURE_BLOCK;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.io.FileInputStream;
@@ -169,6 +170,21 @@ public class ConsentPdfTest {
         assertTrue(output.contains("October 4, 2017 (GMT)"), "Contains formatted date");
     }
     
+    @Test
+    public void assembledTemplateSharedBySigners() throws Exception {
+        String consentTemplate = ConsentPdf.assembleTemplate(app, DOCUMENT_FRAGMENT, consentBodyTemplate);
+        assertTrue(consentTemplate.contains("<title>App Name Consent To Research</title>"), "App name resolved");
+        assertTrue(consentTemplate.contains("${participant.name}"), "Signer variables left in template");
+
+        ConsentSignature sig = makeSignatureWithoutImage();
+        ConsentPdf consentPdf = new ConsentPdf(EMAIL_PARTICIPANT, sig, NO_SHARING, consentTemplate);
+        validateDocBody(consentPdf.getFormattedConsentDocument());
+
+        ConsentPdf otherPdf = new ConsentPdf(app, EMAIL_PARTICIPANT, sig, NO_SHARING, DOCUMENT_FRAGMENT,
+                consentBodyTemplate);
+        assertEquals(consentPdf.getFormattedConsentDocument(), otherPdf.getFormattedConsentDocument());
+    }
+
     private static ConsentSignature makeSignatureWithoutImage() {
         return new ConsentSignature.Builder().withName("Test Person").withBirthdate("1980-06-06").build();
     }
@@ -1,9 +1,12 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -13,6 +16,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -23,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import com.amazonaws.HttpMethod;
@@ -30,6 +35,7 @@ import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.apache.commons.io.IOUtils;
 import org.joda.time.DateTime;
@@ -39,8 +45,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
@@ -72,6 +81,7 @@ import org.sagebionetworks.bridge.sms.SmsMessageProvider;
 
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -132,6 +142,8 @@ public class ConsentServiceMockTest {
     private StudyConsentView studyConsentView;
     @Mock
     private TemplateService templateService;
+    @Mock
+    private BridgeConfig bridgeConfig;
     @Captor
     private ArgumentCaptor<BasicEmailProvider> emailCaptor;
     @Captor
@@ -159,6 +171,11 @@ public class ConsentServiceMockTest {
         consentService.setNotificationsService(notificationsService);
         consentService.setConsentTemplate(new ByteArrayResource((documentString).getBytes()));
         consentService.setTemplateService(templateService);
+        consentService.setConsentDeliveryExecutorService(MoreExecutors.newDirectExecutorService());
+
+        when(bridgeConfig.getInt(ConsentService.DELIVERY_MAX_ATTEMPTS_PROPERTY)).thenReturn(3);
+        when(bridgeConfig.getInt(ConsentService.DELIVERY_RETRY_DELAY_PROPERTY)).thenReturn(0);
+        consentService.setBridgeConfig(bridgeConfig);
 
         app = TestUtils.getValidApp(ConsentServiceMockTest.class);
         
@@ -185,6 +202,11 @@ public class ConsentServiceMockTest {
         when(subpopService.getSubpopulation(app.getIdentifier(), SUBPOP_GUID)).thenReturn(subpopulation);
     }
 
+    @AfterMethod
+    public void after() {
+        BridgeUtils.setRequestContext(null);
+    }
+
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void userCannotGetConsentSignatureForSubpopulationToWhichTheyAreNotMapped() {
         when(subpopService.getSubpopulation(app.getIdentifier(), SUBPOP_GUID))
@@ -270,6 +292,62 @@ public class ConsentServiceMockTest {
         assertEquals(email.getType(), EmailType.RESEND_CONSENT);
     }
 
+    @Test
+    public void consentDeliveryRetriedAfterFailure() {
+        doThrow(new BridgeServiceException("SES is unavailable")).doNothing().when(sendMailService).sendEmail(any());
+
+        consentService.consentToResearch(app, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE,
+                SharingScope.NO_SHARING, true);
+
+        verify(accountService).updateAccount(any(), eq(null));
+        verify(sendMailService, times(2)).sendEmail(emailCaptor.capture());
+        assertEquals(emailCaptor.getAllValues().get(1).getType(), EmailType.SIGN_CONSENT);
+    }
+
+    @Test
+    public void consentDeliveryFailureDoesNotFailConsent() {
+        doThrow(new BridgeServiceException("SES is unavailable")).when(sendMailService).sendEmail(any());
+
+        consentService.consentToResearch(app, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE,
+                SharingScope.NO_SHARING, true);
+
+        verify(accountService).updateAccount(any(), eq(null));
+        verify(activityEventService).publishEnrollmentEvent(eq(app), eq(HEALTH_CODE), any());
+        verify(sendMailService, times(3)).sendEmail(any());
+    }
+
+    @Test
+    public void consentDeliveryUsesCallerRequestContext() {
+        RequestContext callerContext = new RequestContext.Builder().withCallerUserId(ID).build();
+        BridgeUtils.setRequestContext(callerContext);
+        // Errors thrown in the delivery are only logged, so capture the context and check it afterwards.
+        AtomicReference<RequestContext> deliveryContext = new AtomicReference<>();
+        doAnswer(invocation -> {
+            deliveryContext.set(BridgeUtils.getRequestContext());
+            return null;
+        }).when(sendMailService).sendEmail(any());
+
+        consentService.consentToResearch(app, SUBPOP_GUID, PARTICIPANT, CONSENT_SIGNATURE,
+                SharingScope.NO_SHARING, true);
+
+        verify(sendMailService).sendEmail(any());
+        assertSame(deliveryContext.get(), callerContext);
+        assertSame(BridgeUtils.getRequestContext(), callerContext);
+    }
+
+    @Test
+    public void consentTemplateAssembledOncePerConsentVersion() {
+        String template = consentService.getConsentTemplate(app, subpopulation, studyConsentView);
+        assertTrue(template.contains("<p>This is content of the final HTML document we assemble.</p>"));
+        assertSame(consentService.getConsentTemplate(app, subpopulation, studyConsentView), template);
+        verify(studyConsentView, times(1)).getDocumentContent();
+
+        // A new version of the consent is assembled again.
+        when(studyConsentView.getCreatedOn()).thenReturn(CONSENT_CREATED_ON + 1);
+        consentService.getConsentTemplate(app, subpopulation, studyConsentView);
+        verify(studyConsentView, times(2)).getDocumentContent();
+    }
+
     @Test
     public void noConsentIfTooYoung() {
         ConsentSignature consentSignature = new ConsentSignature.Builder().withConsentSignature(CONSENT_SIGNATURE)
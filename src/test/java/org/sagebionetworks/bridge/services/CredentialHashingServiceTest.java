@@ -0,0 +1,194 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.security.InvalidKeyException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.LimitExceededException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+
+public class CredentialHashingServiceTest extends Mockito {
+    private static final String APP_ID = "test-app";
+    private static final String OTHER_APP_ID = "other-app";
+
+    @Mock
+    BridgeConfig mockBridgeConfig;
+
+    @Mock
+    ExecutorService mockExecutorService;
+
+    CredentialHashingService service;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockBridgeConfig.getInt(CredentialHashingService.PER_APP_MAX_PROPERTY)).thenReturn(2);
+
+        service = new CredentialHashingService();
+        service.setBridgeConfig(mockBridgeConfig);
+        service.setCredentialHashingExecutorService(MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void hash() throws Exception {
+        assertEquals(service.hash(APP_ID, () -> "hash-value"), "hash-value");
+
+        Map<String, Object> stats = service.getStats();
+        assertEquals(stats.get("inFlightByApp"), ImmutableMap.of());
+        assertEquals(stats.get("rejectedCount"), 0L);
+        assertEquals(stats.get("appLimitedCount"), 0L);
+        assertEquals(getCount(stats, "queueWait"), 1L);
+        assertEquals(getCount(stats, "hash"), 1L);
+    }
+
+    @Test(expectedExceptions = InvalidKeyException.class)
+    public void securityExceptionIsThrown() throws Exception {
+        service.hash(APP_ID, () -> {
+            throw new InvalidKeyException();
+        });
+    }
+
+    @Test
+    public void runtimeExceptionIsThrown() throws Exception {
+        try {
+            service.hash(APP_ID, () -> {
+                throw new IllegalStateException("test");
+            });
+            fail("expected exception");
+        } catch (IllegalStateException ex) {
+            assertEquals(ex.getMessage(), "test");
+        }
+        assertEquals(service.getStats().get("inFlightByApp"), ImmutableMap.of());
+    }
+
+    @Test
+    public void queueFull() throws Exception {
+        when(mockExecutorService.submit(any(Callable.class)))
+                .thenThrow(new RejectedExecutionException());
+        service.setCredentialHashingExecutorService(mockExecutorService);
+
+        try {
+            service.hash(APP_ID, () -> "hash-value");
+            fail("expected exception");
+        } catch (ServiceUnavailableException ex) {
+            assertEquals(ex.getMessage(), CredentialHashingService.QUEUE_FULL_MESSAGE);
+        }
+        assertEquals(service.getStats().get("rejectedCount"), 1L);
+        assertEquals(service.getStats().get("inFlightByApp"), ImmutableMap.of());
+    }
+
+    @Test
+    public void perAppLimit() throws Exception {
+        ExecutorService hashingExecutorService = Executors.newFixedThreadPool(4);
+        ExecutorService callerExecutorService = Executors.newFixedThreadPool(4);
+        service.setCredentialHashingExecutorService(hashingExecutorService);
+        try {
+            // Two hashes for the app are in flight, so the app's third hash is turned away.
+            CountDownLatch startedLatch = new CountDownLatch(2);
+            CountDownLatch releaseLatch = new CountDownLatch(1);
+            List<Future<String>> blockedCalls = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                blockedCalls.add(callerExecutorService.submit(() -> service.hash(APP_ID, () -> {
+                    startedLatch.countDown();
+                    releaseLatch.await();
+                    return "hash-value";
+                })));
+            }
+            assertTrue(startedLatch.await(10, TimeUnit.SECONDS));
+
+            try {
+                service.hash(APP_ID, () -> "hash-value");
+                fail("expected exception");
+            } catch (LimitExceededException ex) {
+                assertEquals(ex.getMessage(), CredentialHashingService.APP_LIMIT_MESSAGE);
+            }
+            assertEquals(service.getStats().get("inFlightByApp"), ImmutableMap.of(APP_ID, 2));
+            assertEquals(service.getStats().get("appLimitedCount"), 1L);
+
+            // Other apps can still sign in.
+            assertEquals(service.hash(OTHER_APP_ID, () -> "other-hash-value"), "other-hash-value");
+
+            releaseLatch.countDown();
+            for (Future<String> blockedCall : blockedCalls) {
+                assertEquals(blockedCall.get(10, TimeUnit.SECONDS), "hash-value");
+            }
+            assertEquals(service.getStats().get("inFlightByApp"), ImmutableMap.of());
+        } finally {
+            hashingExecutorService.shutdownNow();
+            callerExecutorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void signInStormFailsFast() throws Exception {
+        when(mockBridgeConfig.getInt(CredentialHashingService.PER_APP_MAX_PROPERTY)).thenReturn(1000);
+        service.setBridgeConfig(mockBridgeConfig);
+
+        // Same shape as the configured pool: fixed threads and a bounded queue. 2 hashes run and 2 wait.
+        ThreadPoolExecutor hashingExecutorService = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2));
+        ExecutorService callerExecutorService = Executors.newFixedThreadPool(4);
+        service.setCredentialHashingExecutorService(hashingExecutorService);
+        try {
+            CountDownLatch releaseLatch = new CountDownLatch(1);
+            List<Future<String>> stormCalls = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                stormCalls.add(callerExecutorService.submit(() -> service.hash(APP_ID, () -> {
+                    releaseLatch.await();
+                    return "hash-value";
+                })));
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (hashingExecutorService.getQueue().size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // The next sign in fails right away instead of waiting for a hashing thread.
+            try {
+                service.hash(APP_ID, () -> "hash-value");
+                fail("expected exception");
+            } catch (ServiceUnavailableException ex) {
+                // expected exception
+            }
+            assertEquals(service.getStats().get("rejectedCount"), 1L);
+
+            releaseLatch.countDown();
+            for (Future<String> stormCall : stormCalls) {
+                assertEquals(stormCall.get(10, TimeUnit.SECONDS), "hash-value");
+            }
+            assertEquals(getCount(service.getStats(), "hash"), 4L);
+        } finally {
+            hashingExecutorService.shutdownNow();
+            callerExecutorService.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long getCount(Map<String, Object> stats, String key) {
+        return ((Map<String, Long>) stats.get(key)).get("count");
+    }
+}
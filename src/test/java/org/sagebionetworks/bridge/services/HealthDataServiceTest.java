@@ -1,17 +1,28 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
-import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.testng.annotations.Test;
@@ -21,6 +32,7 @@ import org.sagebionetworks.bridge.dao.HealthDataDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.healthdata.RecordExportStatusRequest;
@@ -109,6 +121,32 @@ public class HealthDataServiceTest {
         new HealthDataService().getRecordsForUploadDate("2014-02-31");
     }
 
+    @Test(expectedExceptions = BadRequestException.class)
+    public void getRecordsByIdsNullIds() {
+        new HealthDataService().getRecordsByIds(null);
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void getRecordsByIdsBlankId() {
+        new HealthDataService().getRecordsByIds(ImmutableSet.of(TEST_RECORD_ID, ""));
+    }
+
+    @Test
+    public void getRecordsByIdsSuccess() {
+        // mock dao
+        Set<String> recordIds = ImmutableSet.of(TEST_RECORD_ID, TEST_RECORD_ID_2);
+        Map<String, HealthDataRecord> mockRecordMap = ImmutableMap.of(TEST_RECORD_ID, makeValidRecord());
+        HealthDataDao mockDao = mock(HealthDataDao.class);
+        when(mockDao.getRecordsByIds(recordIds)).thenReturn(mockRecordMap);
+
+        HealthDataService svc = new HealthDataService();
+        svc.setHealthDataDao(mockDao);
+
+        // execute and validate
+        Map<String, HealthDataRecord> recordMap = svc.getRecordsByIds(recordIds);
+        assertSame(recordMap, mockRecordMap);
+    }
+
     @Test
     public void getRecordsForUploadDateSuccess() {
         // mock results
@@ -139,6 +177,27 @@ public class HealthDataServiceTest {
         assertEquals(recordList.get(2).getHealthCode(), "baz healthcode");
     }
 
+    @Test(expectedExceptions = BadRequestException.class)
+    public void getRecordsForUploadDatePageInvalidUploadDate() {
+        new HealthDataService().getRecordsForUploadDate("2014-02-31", null, null);
+    }
+
+    @Test
+    public void getRecordsForUploadDatePage() {
+        ForwardCursorPagedResourceList<HealthDataRecord> page = new ForwardCursorPagedResourceList<>(
+                ImmutableList.of(makeValidRecord()), "next-offset-key");
+        HealthDataDao mockDao = mock(HealthDataDao.class);
+        when(mockDao.getRecordsForUploadDate(TEST_UPLOAD_DATE_STR, "offset-key", 20)).thenReturn(page);
+        when(mockDao.getRecordsForUploadDate(TEST_UPLOAD_DATE_STR, null, API_DEFAULT_PAGE_SIZE)).thenReturn(page);
+
+        HealthDataService svc = new HealthDataService();
+        svc.setHealthDataDao(mockDao);
+
+        // execute and validate
+        assertSame(svc.getRecordsForUploadDate(TEST_UPLOAD_DATE_STR, "offset-key", 20), page);
+        assertSame(svc.getRecordsForUploadDate(TEST_UPLOAD_DATE_STR, null, null), page);
+    }
+
     @Test(expectedExceptions = InvalidEntityException.class)
     public void updateRecordsWithExporterStatusNullRecordIds() {
         RecordExportStatusRequest request = new RecordExportStatusRequest();
@@ -173,44 +232,73 @@ public class HealthDataServiceTest {
         new HealthDataService().updateRecordsWithExporterStatus(request);
     }
 
+    @Test
+    public void updateRecordsWithExporterStatusBlankRecordId() {
+        HealthDataDao mockDao = mock(HealthDataDao.class);
+        HealthDataService svc = new HealthDataService();
+        svc.setHealthDataDao(mockDao);
+        svc.setRecordUpdateExecutorService(MoreExecutors.newDirectExecutorService());
+
+        RecordExportStatusRequest request = new RecordExportStatusRequest();
+        request.setRecordIds(ImmutableList.of(TEST_RECORD_ID, " "));
+        request.setSynapseExporterStatus(HealthDataRecord.ExporterStatus.SUCCEEDED);
+
+        try {
+            svc.updateRecordsWithExporterStatus(request);
+            fail("expected exception");
+        } catch (BadRequestException ex) {
+            // expected exception
+        }
+        verifyZeroInteractions(mockDao);
+    }
+
     @Test
     public void updateRecordSuccess() {
-        // first create a mock record
-        // record
+        // first create mock records
         HealthDataRecord record = makeValidRecord();
         record.setId(TEST_RECORD_ID);
 
         HealthDataRecord record2 = makeValidRecord();
-        record.setId(TEST_RECORD_ID_2);
+        record2.setId(TEST_RECORD_ID_2);
 
         // mock dao
         HealthDataDao mockDao = mock(HealthDataDao.class);
-        when(mockDao.createOrUpdateRecord(record)).thenReturn(TEST_RECORD_ID);
-        when(mockDao.createOrUpdateRecord(record2)).thenReturn(TEST_RECORD_ID_2);
+        when(mockDao.getRecordsByIds(ImmutableSet.of(TEST_RECORD_ID, TEST_RECORD_ID_2))).thenReturn(ImmutableMap.of(
+                TEST_RECORD_ID, record, TEST_RECORD_ID_2, record2));
 
         HealthDataService svc = new HealthDataService();
         svc.setHealthDataDao(mockDao);
+        svc.setRecordUpdateExecutorService(MoreExecutors.newDirectExecutorService());
 
         // execute and validate
-        String retVal = svc.createOrUpdateRecord(record);
-        assertEquals(retVal, TEST_RECORD_ID);
+        List<String> updatedRecordIds = svc.updateRecordsWithExporterStatus(createMockRecordExportStatusRequest());
+        assertEquals(updatedRecordIds, ImmutableList.of(TEST_RECORD_ID, TEST_RECORD_ID_2));
+        verify(mockDao).updateRecordExporterStatus(record, HealthDataRecord.ExporterStatus.SUCCEEDED);
+        verify(mockDao).updateRecordExporterStatus(record2, HealthDataRecord.ExporterStatus.SUCCEEDED);
+        verify(mockDao, never()).createOrUpdateRecord(any());
+    }
+
+    @Test
+    public void updateRecordsWithExporterStatusSkipsMissingRecords() {
+        HealthDataRecord record2 = makeValidRecord();
+        record2.setId(TEST_RECORD_ID_2);
 
-        // then create a mock json request
-        RecordExportStatusRequest recordExportStatusRequest = createMockRecordExportStatusRequest();
-        when(mockDao.getRecordById(TEST_RECORD_ID)).thenReturn(record);
-        when(mockDao.getRecordById(TEST_RECORD_ID_2)).thenReturn(record2);
-
-        // finally call service method and assert
-        svc.updateRecordsWithExporterStatus(recordExportStatusRequest);
-        verify(mockDao).getRecordById(TEST_RECORD_ID);
-        HealthDataRecord recordAfter = svc.getRecordById(TEST_RECORD_ID);
-        assertNotNull(recordAfter.getSynapseExporterStatus());
-        assertEquals(recordAfter.getSynapseExporterStatus(), HealthDataRecord.ExporterStatus.SUCCEEDED);
-        verify(mockDao).getRecordById(TEST_RECORD_ID_2);
-        HealthDataRecord record2After = svc.getRecordById(TEST_RECORD_ID_2);
-        assertNotNull(record2After.getSynapseExporterStatus());
-        assertEquals(record2After.getSynapseExporterStatus(), HealthDataRecord.ExporterStatus.SUCCEEDED);
+        // The first record doesn't exist. The duplicate ID is only written once.
+        HealthDataDao mockDao = mock(HealthDataDao.class);
+        when(mockDao.getRecordsByIds(ImmutableSet.of(TEST_RECORD_ID, TEST_RECORD_ID_2))).thenReturn(ImmutableMap.of(
+                TEST_RECORD_ID_2, record2));
+
+        HealthDataService svc = new HealthDataService();
+        svc.setHealthDataDao(mockDao);
+        svc.setRecordUpdateExecutorService(MoreExecutors.newDirectExecutorService());
+
+        RecordExportStatusRequest request = new RecordExportStatusRequest();
+        request.setRecordIds(ImmutableList.of(TEST_RECORD_ID, TEST_RECORD_ID_2, TEST_RECORD_ID_2));
+        request.setSynapseExporterStatus(HealthDataRecord.ExporterStatus.NOT_EXPORTED);
 
+        List<String> updatedRecordIds = svc.updateRecordsWithExporterStatus(request);
+        assertEquals(updatedRecordIds, ImmutableList.of(TEST_RECORD_ID_2));
+        verify(mockDao, times(1)).updateRecordExporterStatus(record2, HealthDataRecord.ExporterStatus.NOT_EXPORTED);
     }
 
     private RecordExportStatusRequest createMockRecordExportStatusRequest() {
@@ -224,6 +224,8 @@ public class ParticipantServiceTest extends Mockito {
     
     @Mock
     private ActivityEventService activityEventService;
+    @Mock
+    private CredentialHashingService credentialHashingService;
     
     @Captor
     ArgumentCaptor<StudyParticipant> participantCaptor;
@@ -248,8 +250,10 @@ public class ParticipantServiceTest extends Mockito {
     private ExternalIdentifier extId;
 
     @BeforeMethod
-    public void before() {
+    public void before() throws Exception {
         MockitoAnnotations.initMocks(this);
+        when(credentialHashingService.hash(any(), any())).thenAnswer(invocation ->
+                invocation.<CredentialHashingService.HashFunction<?>>getArgument(1).apply());
         
         extId = ExternalIdentifier.create(TEST_APP_ID, EXTERNAL_ID);
         extId.setSubstudyId(SUBSTUDY_ID);
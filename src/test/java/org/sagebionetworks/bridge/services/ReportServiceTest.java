@@ -2,8 +2,11 @@ package org.sagebionetworks.bridge.services;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
@@ -31,6 +34,8 @@ import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ReportDataDao;
 import org.sagebionetworks.bridge.dao.ReportIndexDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -85,6 +90,9 @@ public class ReportServiceTest {
     @Mock
     ReportIndexDao mockReportIndexDao;
     
+    @Mock
+    CacheProvider mockCacheProvider;
+    
     @Captor
     ArgumentCaptor<ReportData> reportDataCaptor;
     
@@ -116,6 +124,7 @@ public class ReportServiceTest {
         
         service.setReportDataDao(mockReportDataDao);
         service.setReportIndexDao(mockReportIndexDao);
+        service.setCacheProvider(mockCacheProvider);
 
         List<ReportData> list = Lists.newArrayList();
         list.add(createReport(LocalDate.parse("2015-02-10"), "First", "Name"));
@@ -215,6 +224,59 @@ public class ReportServiceTest {
         verify(mockReportIndexDao).getIndex(key);
     }
     
+    @Test
+    public void getReportIndexCachesIndex() {
+        ReportIndex index = ReportIndex.create();
+        index.setIdentifier(IDENTIFIER);
+        when(mockReportIndexDao.getIndex(STUDY_REPORT_DATA_KEY)).thenReturn(index);
+        
+        assertEquals(service.getReportIndex(STUDY_REPORT_DATA_KEY), index);
+        verify(mockCacheProvider).setObject(CacheKey.reportIndex(STUDY_REPORT_DATA_KEY), index,
+                ReportService.REPORT_INDEX_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void getReportIndexFromCache() {
+        ReportIndex index = ReportIndex.create();
+        index.setIdentifier(IDENTIFIER);
+        index.setSubstudyIds(TestConstants.USER_SUBSTUDY_IDS);
+        when(mockCacheProvider.getObject(CacheKey.reportIndex(PARTICIPANT_REPORT_DATA_KEY), ReportIndex.class))
+                .thenReturn(index);
+        
+        ReportIndex retrieved = service.getReportIndex(PARTICIPANT_REPORT_DATA_KEY);
+        assertEquals(retrieved.getSubstudyIds(), TestConstants.USER_SUBSTUDY_IDS);
+        assertEquals(retrieved.getKey(), PARTICIPANT_REPORT_DATA_KEY.getIndexKeyString());
+        verify(mockReportIndexDao, never()).getIndex(any());
+    }
+    
+    @Test
+    public void getReportIndexDoesNotCacheMissingIndex() {
+        assertNull(service.getReportIndex(STUDY_REPORT_DATA_KEY));
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+    
+    @Test
+    public void saveParticipantReportUsesCachedIndex() {
+        // Substudies of the cached index are enforced without reading the index from DynamoDB.
+        ReportIndex index = ReportIndex.create();
+        index.setIdentifier(IDENTIFIER);
+        index.setSubstudyIds(ImmutableSet.of("substudyA"));
+        when(mockCacheProvider.getObject(CacheKey.reportIndex(PARTICIPANT_REPORT_DATA_KEY), ReportIndex.class))
+                .thenReturn(index);
+        BridgeUtils.setRequestContext(
+                new RequestContext.Builder().withCallerSubstudies(ImmutableSet.of("substudyC")).build());
+        
+        ReportData someData = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        try {
+            service.saveParticipantReport(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, someData);
+            fail("Should have thrown exception");
+        } catch(UnauthorizedException e) {
+            // expected exception
+        }
+        verify(mockReportIndexDao, never()).getIndex(any());
+        verify(mockReportDataDao, never()).saveReportData(any());
+    }
+    
     @Test
     public void getStudyReport() {
         doReturn(results).when(mockReportDataDao).getReportData(STUDY_REPORT_DATA_KEY, START_DATE, END_DATE);
@@ -298,6 +360,7 @@ public class ReportServiceTest {
                 .withAppId(TEST_APP_ID)
                 .withReportType(ReportType.STUDY)
                 .withIdentifier(IDENTIFIER).build(), null);
+        verify(mockCacheProvider).removeObject(CacheKey.reportIndex(STUDY_REPORT_DATA_KEY));
     }
     
     @Test
@@ -346,6 +409,7 @@ public class ReportServiceTest {
         
         verify(mockReportDataDao).deleteReportData(STUDY_REPORT_DATA_KEY);
         verify(mockReportIndexDao).removeIndex(STUDY_REPORT_DATA_KEY);
+        verify(mockCacheProvider).removeObject(CacheKey.reportIndex(STUDY_REPORT_DATA_KEY));
     }
     
     @Test
@@ -366,6 +430,7 @@ public class ReportServiceTest {
         ReportDataKey key = reportDataKeyCaptor.getValue();
         assertEquals(key.getAppId(), TEST_APP_ID);
         assertEquals(key.getIdentifier(), IDENTIFIER);
+        verify(mockCacheProvider).removeObject(CacheKey.reportIndex(PARTICIPANT_REPORT_DATA_KEY));
     }
     
     @Test
@@ -632,6 +697,7 @@ public class ReportServiceTest {
         ReportIndex captured = reportIndexCaptor.getValue();
         assertEquals(captured.getIdentifier(), IDENTIFIER);
         assertTrue(captured.isPublic());
+        verify(mockCacheProvider).removeObject(CacheKey.reportIndex(STUDY_REPORT_DATA_KEY));
     }
     
     @Test
@@ -0,0 +1,203 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.sagebionetworks.bridge.TestConstants.USER_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.joda.time.DateTime;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.dao.RequestInfoDao;
+import org.sagebionetworks.bridge.models.RequestInfo;
+
+public class RequestInfoRecorderTest extends Mockito {
+    private static final DateTime SIGNED_IN_ON = DateTime.parse("2020-05-01T10:00:00.000Z");
+    private static final DateTime UPLOADED_ON = DateTime.parse("2020-05-01T10:05:00.000Z");
+
+    @Mock
+    RequestInfoDao mockRequestInfoDao;
+
+    @Mock
+    BridgeConfig mockBridgeConfig;
+
+    @Mock
+    CacheInvalidationBus mockCacheInvalidationBus;
+
+    @Captor
+    ArgumentCaptor<Consumer<String>> listenerCaptor;
+
+    @Captor
+    ArgumentCaptor<List<RequestInfo>> requestInfoListCaptor;
+
+    RequestInfoRecorder recorder;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+        when(mockBridgeConfig.getInt(RequestInfoRecorder.FLUSH_INTERVAL_PROPERTY)).thenReturn(5000);
+        when(mockBridgeConfig.getInt(RequestInfoRecorder.FLUSH_SIZE_PROPERTY)).thenReturn(1000);
+
+        recorder = new RequestInfoRecorder();
+        recorder.setRequestInfoDao(mockRequestInfoDao);
+        recorder.setBridgeConfig(mockBridgeConfig);
+        recorder.setCacheInvalidationBus(mockCacheInvalidationBus);
+        verify(mockCacheInvalidationBus).addListener(eq(RequestInfoRecorder.REQUEST_INFO_INVALIDATION_CHANNEL),
+                listenerCaptor.capture());
+    }
+
+    @Test
+    public void recordMergesFragmentsPerUser() {
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withUploadedOn(UPLOADED_ON).build());
+
+        RequestInfo pending = recorder.getPendingRequestInfo(USER_ID);
+        assertEquals(pending.getSignedInOn(), SIGNED_IN_ON);
+        assertEquals(pending.getUploadedOn(), UPLOADED_ON);
+        verifyZeroInteractions(mockRequestInfoDao);
+    }
+
+    @Test
+    public void flushWritesOneBatch() {
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withUploadedOn(UPLOADED_ON).build());
+        recorder.record(new RequestInfo.Builder().withUserId("otherUser").withUploadedOn(UPLOADED_ON).build());
+
+        recorder.flush();
+
+        verify(mockRequestInfoDao).updateRequestInfos(requestInfoListCaptor.capture());
+        assertEquals(requestInfoListCaptor.getValue().size(), 2);
+        assertNull(recorder.getPendingRequestInfo(USER_ID));
+        assertEquals(recorder.getStats().get("bufferSize"), 0);
+
+        // Nothing left to write
+        recorder.flush();
+        verify(mockRequestInfoDao, times(1)).updateRequestInfos(any());
+    }
+
+    @Test
+    public void flushWritesInBatches() {
+        for (int i = 0; i < RequestInfoRecorder.BATCH_SIZE + 1; i++) {
+            recorder.record(new RequestInfo.Builder().withUserId("user" + i).withUploadedOn(UPLOADED_ON).build());
+        }
+        recorder.flush();
+
+        verify(mockRequestInfoDao, times(2)).updateRequestInfos(any());
+    }
+
+    @Test
+    public void failedFlushKeepsRequestInfoUnderNewerFragments() {
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfos(any());
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfo(any());
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON)
+                .withUploadedOn(SIGNED_IN_ON).build());
+
+        recorder.flush();
+
+        // A newer fragment arrives before the next flush.
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withUploadedOn(UPLOADED_ON).build());
+        RequestInfo pending = recorder.getPendingRequestInfo(USER_ID);
+        assertEquals(pending.getSignedInOn(), SIGNED_IN_ON);
+        assertEquals(pending.getUploadedOn(), UPLOADED_ON);
+        assertEquals(recorder.getStats().get("failedFlushCount"), 1L);
+    }
+
+    @Test
+    public void failedBatchWritesUsersOneAtATime() {
+        // The batch fails because one of the users can't be written, for example because the account was deleted.
+        RequestInfo deletedUserInfo = new RequestInfo.Builder().withUserId("deletedUser")
+                .withSignedInOn(SIGNED_IN_ON).build();
+        RequestInfo userInfo = new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build();
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfos(any());
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfo(deletedUserInfo);
+        recorder.record(deletedUserInfo);
+        recorder.record(userInfo);
+
+        recorder.flush();
+
+        verify(mockRequestInfoDao).updateRequestInfo(userInfo);
+        assertNull(recorder.getPendingRequestInfo(USER_ID));
+        assertEquals(recorder.getPendingRequestInfo("deletedUser"), deletedUserInfo);
+    }
+
+    @Test
+    public void requestInfoIsDroppedAfterMaxFlushAttempts() {
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfos(any());
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfo(any());
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+
+        for (int i = 0; i < RequestInfoRecorder.MAX_FLUSH_ATTEMPTS; i++) {
+            assertNotNull(recorder.getPendingRequestInfo(USER_ID));
+            recorder.flush();
+        }
+        assertNull(recorder.getPendingRequestInfo(USER_ID));
+        assertEquals(recorder.getStats().get("droppedCount"), 1L);
+
+        // Nothing left to write
+        recorder.flush();
+        verify(mockRequestInfoDao, times(RequestInfoRecorder.MAX_FLUSH_ATTEMPTS)).updateRequestInfo(any());
+    }
+
+    @Test
+    public void removePendingRequestInfo() {
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+        recorder.removePendingRequestInfo(USER_ID);
+
+        recorder.flush();
+        verifyZeroInteractions(mockRequestInfoDao);
+        verify(mockCacheInvalidationBus).publish(RequestInfoRecorder.REQUEST_INFO_INVALIDATION_CHANNEL, USER_ID);
+    }
+
+    @Test
+    public void removalOnOtherNodeDiscardsPendingRequestInfo() {
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+        listenerCaptor.getValue().accept(USER_ID);
+
+        assertNull(recorder.getPendingRequestInfo(USER_ID));
+        recorder.flush();
+        verifyZeroInteractions(mockRequestInfoDao);
+    }
+
+    @Test
+    public void reachingFlushSizeWakesWorker() throws Exception {
+        when(mockBridgeConfig.getInt(RequestInfoRecorder.FLUSH_INTERVAL_PROPERTY)).thenReturn(60000);
+        when(mockBridgeConfig.getInt(RequestInfoRecorder.FLUSH_SIZE_PROPERTY)).thenReturn(2);
+        recorder.setBridgeConfig(mockBridgeConfig);
+
+        Thread worker = new Thread(recorder);
+        worker.start();
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+        recorder.record(new RequestInfo.Builder().withUserId("otherUser").withSignedInOn(SIGNED_IN_ON).build());
+
+        // Much sooner than the flush interval.
+        verify(mockRequestInfoDao, timeout(5000)).updateRequestInfos(any());
+        recorder.shutdown();
+        worker.join(5000);
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    public void shutdownDrainsBuffer() {
+        recorder.record(new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+        recorder.shutdown();
+
+        verify(mockRequestInfoDao).updateRequestInfos(requestInfoListCaptor.capture());
+        assertEquals(requestInfoListCaptor.getValue().get(0).getUserId(), USER_ID);
+
+        Map<String, Object> stats = recorder.getStats();
+        assertEquals(stats.get("bufferSize"), 0);
+    }
+}
@@ -1,9 +1,11 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.sagebionetworks.bridge.TestConstants.USER_ID;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 
+import org.joda.time.DateTime;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -26,6 +28,9 @@ public class RequestInfoServiceTest extends Mockito {
     @Mock
     RequestInfoDao mockRequestInfoDao;
     
+    @Mock
+    RequestInfoRecorder mockRequestInfoRecorder;
+    
     @BeforeMethod
     public void beforeMethod() {
         MockitoAnnotations.initMocks(this);
@@ -36,7 +41,24 @@ public class RequestInfoServiceTest extends Mockito {
         RequestInfo info = new RequestInfo.Builder().build();
         service.updateRequestInfo(info);
         
-        verify(mockRequestInfoDao).updateRequestInfo(info);
+        verify(mockRequestInfoRecorder).record(info);
+        verify(mockRequestInfoDao, never()).updateRequestInfo(any());
+    }
+    
+    @Test
+    public void getRequestInfoMergesPendingRequestInfo() {
+        DateTime signedInOn = DateTime.now();
+        DateTime uploadedOn = signedInOn.plusMinutes(1);
+        RequestInfo info = new RequestInfo.Builder().withUserId(USER_ID).withSignedInOn(signedInOn).build();
+        RequestInfo pendingInfo = new RequestInfo.Builder().withUserId(USER_ID).withUploadedOn(uploadedOn).build();
+        when(mockRequestInfoDao.getRequestInfo(USER_ID)).thenReturn(info);
+        when(mockRequestInfoRecorder.getPendingRequestInfo(USER_ID)).thenReturn(pendingInfo);
+        
+        RequestInfo retrieved = service.getRequestInfo(USER_ID);
+        assertEquals(retrieved.getUserId(), USER_ID);
+        assertEquals(retrieved.getSignedInOn(), signedInOn);
+        assertEquals(retrieved.getUploadedOn(), uploadedOn);
+        verify(mockCacheProvider, never()).getRequestInfo(any());
     }
     
     @Test
@@ -74,6 +96,7 @@ public class RequestInfoServiceTest extends Mockito {
     @Test
     public void removeRequestInfo() {
         service.removeRequestInfo(USER_ID);
+        verify(mockRequestInfoRecorder).removePendingRequestInfo(USER_ID);
         verify(mockRequestInfoDao).removeRequestInfo(USER_ID);
         verify(mockCacheProvider).removeRequestInfo(USER_ID);
     }
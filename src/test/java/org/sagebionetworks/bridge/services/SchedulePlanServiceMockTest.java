@@ -4,6 +4,7 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -16,6 +17,7 @@ import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
@@ -23,6 +25,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.SchedulePlanDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoApp;
@@ -54,6 +57,7 @@ public class SchedulePlanServiceMockTest {
     private SchedulePlanDao mockSchedulePlanDao;
     private SurveyService mockSurveyService;
     private SubstudyService mockSubstudyService;
+    private CacheInvalidationBus mockCacheInvalidationBus;
     
     @BeforeMethod
     public void before() {
@@ -65,11 +69,13 @@ public class SchedulePlanServiceMockTest {
         mockSchedulePlanDao = mock(SchedulePlanDao.class);
         mockSurveyService = mock(SurveyService.class);
         mockSubstudyService = mock(SubstudyService.class);
+        mockCacheInvalidationBus = mock(CacheInvalidationBus.class);
         
         service = new SchedulePlanService();
         service.setSchedulePlanDao(mockSchedulePlanDao);
         service.setSurveyService(mockSurveyService);
         service.setSubstudyService(mockSubstudyService);
+        service.setCacheInvalidationBus(mockCacheInvalidationBus);
         
         Survey survey1 = new TestSurvey(SchedulePlanServiceMockTest.class, false);
         survey1.setIdentifier("identifier1");
@@ -291,11 +297,78 @@ public class SchedulePlanServiceMockTest {
         verify(mockSchedulePlanDao).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, true);
     }
     
+    @Test
+    public void getSchedulePlansExcludeDeletedIsCached() throws Exception {
+        SchedulePlan plan = constructSchedulePlan();
+        when(mockSchedulePlanDao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false))
+                .thenReturn(Lists.newArrayList(plan));
+        
+        List<SchedulePlan> first = service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        List<SchedulePlan> second = service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        assertSame(second, first);
+        
+        // Read once, and the scheduler is compiled when the plans are loaded.
+        verify(mockSchedulePlanDao, times(1)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        Schedule schedule = plan.getStrategy().getAllPossibleSchedules().get(0);
+        assertSame(schedule.getScheduler(), schedule.getScheduler());
+    }
+    
+    @Test
+    public void getSchedulePlansIncludeDeletedIsNotCached() throws Exception {
+        when(mockSchedulePlanDao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, true))
+                .thenReturn(Lists.newArrayList(SchedulePlan.create()));
+        
+        service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, true);
+        service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, true);
+        
+        verify(mockSchedulePlanDao, times(2)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, true);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void invalidationFromOtherNodeReloadsPlans() throws Exception {
+        when(mockSchedulePlanDao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false))
+                .thenReturn(Lists.newArrayList(SchedulePlan.create()));
+        service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        
+        ArgumentCaptor<Consumer<String>> listenerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockCacheInvalidationBus).addListener(eq(SchedulePlanService.SCHEDULE_PLAN_INVALIDATION_CHANNEL),
+                listenerCaptor.capture());
+        listenerCaptor.getValue().accept(TEST_APP_ID);
+        
+        service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        verify(mockSchedulePlanDao, times(2)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+    }
+    
+    @Test
+    public void createSchedulePlanInvalidatesPlans() {
+        when(mockSchedulePlanDao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false))
+                .thenReturn(Lists.newArrayList(SchedulePlan.create()));
+        service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        
+        service.createSchedulePlan(app, constructSchedulePlan());
+        
+        verify(mockCacheInvalidationBus).publish(SchedulePlanService.SCHEDULE_PLAN_INVALIDATION_CHANNEL, TEST_APP_ID);
+        service.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        verify(mockSchedulePlanDao, times(2)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+    }
+    
+    @Test
+    public void updateSchedulePlanInvalidatesPlans() {
+        SchedulePlan plan = constructSchedulePlan();
+        when(mockSchedulePlanDao.getSchedulePlan(eq(TEST_APP_ID), any())).thenReturn(plan);
+        
+        service.updateSchedulePlan(app, plan);
+        
+        verify(mockCacheInvalidationBus).publish(SchedulePlanService.SCHEDULE_PLAN_INVALIDATION_CHANNEL, TEST_APP_ID);
+    }
+    
     @Test
     public void deleteSchedulePlan() {
         service.deleteSchedulePlan(TEST_APP_ID, "planGuid");
         
         verify(mockSchedulePlanDao).deleteSchedulePlan(TEST_APP_ID, "planGuid");
+        verify(mockCacheInvalidationBus).publish(SchedulePlanService.SCHEDULE_PLAN_INVALIDATION_CHANNEL, TEST_APP_ID);
     }
     
     @Test
@@ -303,6 +376,7 @@ public class SchedulePlanServiceMockTest {
         service.deleteSchedulePlanPermanently(TEST_APP_ID, "planGuid");
         
         verify(mockSchedulePlanDao).deleteSchedulePlanPermanently(TEST_APP_ID, "planGuid");
+        verify(mockCacheInvalidationBus).publish(SchedulePlanService.SCHEDULE_PLAN_INVALIDATION_CHANNEL, TEST_APP_ID);
     }
     
     private SchedulePlan constructorInvalidSchedulePlan() {
@@ -40,6 +40,7 @@ import org.sagebionetworks.bridge.models.schedules.ScheduledActivity;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * This test extensively reproduces Erin's test account in Lily (1232) where there are currently duplicates, and uses that 
@@ -170,6 +171,7 @@ public class ScheduledActivityServiceDuplicateTest {
         service.setActivityEventService(activityEventService);
         service.setSchedulePlanService(schedulePlanService);
         service.setAppConfigService(appConfigService);
+        service.setActivityQueryExecutorService(MoreExecutors.newDirectExecutorService());
         
         contextBuilder = new ScheduleContext.Builder()
                 .withClientInfo(ClientInfo.fromUserAgentCache("Lilly/25 (iPhone Simulator; iPhone OS/9.3) BridgeSDK/12"))
@@ -22,6 +22,7 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,6 +49,7 @@ import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.ClientInfo;
@@ -71,9 +73,11 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class ScheduledActivityServiceMockTest {
 
@@ -124,6 +128,10 @@ public class ScheduledActivityServiceMockTest {
     @Captor
     private ArgumentCaptor<List<ScheduledActivity>> scheduledActivityListCaptor;
     
+    @Captor
+    private ArgumentCaptor<Set<String>> setCaptor;
+    
+    @SuppressWarnings("unchecked")
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -138,13 +146,17 @@ public class ScheduledActivityServiceMockTest {
         Map<String,DateTime> map = ImmutableMap.of();
         when(activityEventService.getActivityEventMap(eq(TEST_APP_ID), anyString())).thenReturn(map);
         
-        when(activityDao.getActivity(any(), anyString(), anyString(), eq(true))).thenAnswer(invocation -> {
+        when(activityDao.getActivitiesByGuid(any(), anyString(), any())).thenAnswer(invocation -> {
             Object[] args = invocation.getArguments();
-            DynamoScheduledActivity schActivity = new DynamoScheduledActivity();
-            schActivity.setTimeZone((DateTimeZone)args[0]);
-            schActivity.setHealthCode((String)args[1]);
-            schActivity.setGuid((String)args[2]);
-            return schActivity;
+            Map<String, ScheduledActivity> results = new HashMap<>();
+            for (String guid : (Set<String>)args[2]) {
+                DynamoScheduledActivity schActivity = new DynamoScheduledActivity();
+                schActivity.setTimeZone((DateTimeZone)args[0]);
+                schActivity.setHealthCode((String)args[1]);
+                schActivity.setGuid(guid);
+                results.put(guid, schActivity);
+            }
+            return results;
         });
         
         doReturn(SURVEY_CREATED_ON.getMillis()).when(survey).getCreatedOn();
@@ -157,6 +169,7 @@ public class ScheduledActivityServiceMockTest {
         service.setActivityEventService(activityEventService);
         service.setSurveyService(surveyService);
         service.setAppConfigService(appConfigService);
+        service.setActivityQueryExecutorService(MoreExecutors.newDirectExecutorService());
     }
     
     @AfterMethod
@@ -343,8 +356,9 @@ public class ScheduledActivityServiceMockTest {
         service.updateScheduledActivities("BBB", scheduledActivities);
         
         verify(activityDao).updateActivities(anyString(), updateCapture.capture());
-        // Three activities have timestamp updates and need to be persisted
-        verify(activityDao, times(count)).getActivity(any(), anyString(), anyString(), eq(true));
+        // All of the activities are loaded in one batch
+        verify(activityDao).getActivitiesByGuid(any(), anyString(), setCaptor.capture());
+        assertEquals(setCaptor.getValue().size(), count);
         // Two activities have been finished and generate activity finished events
         verify(activityEventService, times(2)).publishActivityFinishedEvent(publishCapture.capture());
         
@@ -363,7 +377,17 @@ public class ScheduledActivityServiceMockTest {
         ScheduledActivity publishedActivity1 = publishCapture.getAllValues().get(1);
         assertEquals(publishedActivity1.getGuid(), scheduledActivities.get(1).getGuid());
     }
-    
+
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void updateActivitiesMissingActivityThrows() throws Exception {
+        ScheduleContext context = createScheduleContext(ENDS_ON).build();
+        List<ScheduledActivity> scheduledActivities = TestUtils.runSchedulerForActivities(context);
+
+        when(activityDao.getActivitiesByGuid(any(), anyString(), any())).thenReturn(ImmutableMap.of());
+
+        service.updateScheduledActivities("BBB", scheduledActivities);
+    }
+
     @Test(expectedExceptions = BadRequestException.class)
     public void activityListsWithTooLargeClientDataRejected() throws Exception {
         JsonNode node = TestUtils.getClientData();
@@ -803,8 +827,8 @@ public class ScheduledActivityServiceMockTest {
         oneTimeActivity.setFinishedOn(NOW.plusMinutes(5).getMillis());
         
         mockAllCallsForDbActivities(ImmutableList.of());
-        when(activityDao.getActivity(context.getStartsOn().getZone(), HEALTH_CODE, guid, false))
-                .thenReturn(oneTimeActivity);
+        when(activityDao.getActivitiesByGuid(context.getStartsOn().getZone(), HEALTH_CODE, ImmutableSet.of(guid)))
+                .thenReturn(ImmutableMap.of(guid, oneTimeActivity));
         
         List<ScheduledActivity> scheduledActivities = service.getScheduledActivitiesV4(app, context);
         assertEquals(scheduledActivities.size(), 1);
@@ -815,7 +839,8 @@ public class ScheduledActivityServiceMockTest {
         verify(activityDao, times(1)).getActivityHistoryV2(HEALTH_CODE, "guidForCCC", context.getStartsOn(), context.getEndsOn(),
                 null, BridgeConstants.API_MAXIMUM_PAGE_SIZE);
         // Retrieve any remaining scheduled activity from the DB to ensure state is maintained. 
-        verify(activityDao, times(1)).getActivity(context.getStartsOn().getZone(), HEALTH_CODE, guid, false);
+        verify(activityDao, times(1)).getActivitiesByGuid(context.getStartsOn().getZone(), HEALTH_CODE,
+                ImmutableSet.of(guid));
         
         verify(activityDao).saveActivities(scheduledActivityListCaptor.capture());
         
@@ -1282,10 +1307,13 @@ public class ScheduledActivityServiceMockTest {
         dbActivity.setLocalScheduledOn(LocalDateTime.parse("2017-02-23T13:00:00.000"));
         // This is the critical line. Without this, the service fails. Also tested in DAO code.
         dbActivity.setTimeZone(context.getStartsOn().getZone());
-        when(mockedActivityDao.getActivity(context.getStartsOn().getZone(), HEALTH_CODE, "AAA:2017-02-23T13:00:00.000", false)).thenReturn(dbActivity);
+        when(mockedActivityDao.getActivitiesByGuid(eq(context.getStartsOn().getZone()), eq(HEALTH_CODE), any()))
+                .thenReturn(ImmutableMap.of("AAA:2017-02-23T13:00:00.000", dbActivity));
         
         service.getScheduledActivitiesV4(app, context);
-        verify(mockedActivityDao).getActivity(context.getStartsOn().getZone(), HEALTH_CODE, "AAA:2017-02-23T13:00:00.000", false);
+        verify(mockedActivityDao).getActivitiesByGuid(eq(context.getStartsOn().getZone()), eq(HEALTH_CODE),
+                setCaptor.capture());
+        assertTrue(setCaptor.getValue().contains("AAA:2017-02-23T13:00:00.000"));
     }
     
     private void mockAllCallsForDbActivities(List<ScheduledActivity> dbActivities) {
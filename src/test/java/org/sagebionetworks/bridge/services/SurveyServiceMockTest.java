@@ -6,6 +6,7 @@ import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -35,6 +36,7 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
@@ -89,6 +91,12 @@ public class SurveyServiceMockTest {
 
     @Mock
     AppService mockAppService;
+
+    @Mock
+    AppConfigService mockAppConfigService;
+
+    @Mock
+    CacheInvalidationBus mockCacheInvalidationBus;
     
     @Captor
     ArgumentCaptor<GuidCreatedOnVersionHolder> keysCaptor;
@@ -122,6 +130,8 @@ public class SurveyServiceMockTest {
         service.setSchedulePlanService(mockSchedulePlanService);
         service.setSharedModuleMetadataService(mockSharedModuleMetadataService);
         service.setPublishValidator(mockSurveyPublishValidator);
+        service.setAppConfigService(mockAppConfigService);
+        service.setCacheInvalidationBus(mockCacheInvalidationBus);
     }
 
     @Test
@@ -187,6 +197,52 @@ public class SurveyServiceMockTest {
         verify(mockSurveyDao).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
     }
     
+    @Test
+    public void getCachedSurveyCachesPublishedSurvey() {
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        survey.setPublished(true);
+        when(mockSurveyDao.getSurvey(TEST_APP_ID, SURVEY_KEYS, false)).thenReturn(survey);
+
+        assertSame(service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS), survey);
+        assertSame(service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS), survey);
+        verify(mockSurveyDao, times(1)).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
+    }
+
+    @Test
+    public void getCachedSurveyDoesNotCacheUnpublishedSurvey() {
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        when(mockSurveyDao.getSurvey(TEST_APP_ID, SURVEY_KEYS, false)).thenReturn(survey);
+
+        service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS);
+        service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS);
+        verify(mockSurveyDao, times(2)).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
+    }
+
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void getCachedSurveyNotFound() {
+        service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS);
+    }
+
+    @Test
+    public void deleteSurveyPermanentlyInvalidatesCachedSurvey() {
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        survey.setPublished(true);
+        when(mockSurveyDao.getSurvey(TEST_APP_ID, SURVEY_KEYS, false)).thenReturn(survey);
+        service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS);
+
+        service.deleteSurveyPermanently(TEST_APP_ID, SURVEY_KEYS);
+        verify(mockCacheInvalidationBus).publish(SurveyService.SURVEY_INVALIDATION_CHANNEL,
+                TEST_APP_ID + ":" + SURVEY_GUID + ":1337");
+
+        service.getCachedSurvey(TEST_APP_ID, SURVEY_KEYS);
+        // Once to cache, once to delete, and once more after the delete.
+        verify(mockSurveyDao, times(3)).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
+    }
+
     @Test
     public void getSurveyMostRecentlyPublishedWithoutElements() {
         Survey survey = Survey.create();
@@ -261,6 +317,7 @@ public class SurveyServiceMockTest {
         // execute and validate
         Survey retval = service.publishSurvey(TEST_APP_ID, SURVEY_KEYS, true);
         assertSame(retval, survey);
+        verify(mockAppConfigService).invalidateResolvedAppConfigs(TEST_APP_ID);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
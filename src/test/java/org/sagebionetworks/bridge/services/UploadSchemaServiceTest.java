@@ -6,6 +6,7 @@ import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -19,6 +20,7 @@ import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -29,6 +31,7 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -53,9 +56,13 @@ public class UploadSchemaServiceTest {
     private UploadSchemaDao dao;
     private UploadSchemaService svc;
     private SharedModuleMetadataService mockSharedModuleMetadataService;
+    private CacheInvalidationBus mockCacheInvalidationBus;
 
     @Captor
     ArgumentCaptor<String> queryCaptor;
+
+    @Captor
+    ArgumentCaptor<Consumer<String>> listenerCaptor;
     
     @Captor
     ArgumentCaptor<Map<String,Object>> paramCaptor;
@@ -70,6 +77,8 @@ public class UploadSchemaServiceTest {
         svc = new UploadSchemaService();
         svc.setUploadSchemaDao(dao);
         svc.setSharedModuleMetadataService(mockSharedModuleMetadataService);
+        mockCacheInvalidationBus = mock(CacheInvalidationBus.class);
+        svc.setCacheInvalidationBus(mockCacheInvalidationBus);
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -662,6 +671,79 @@ public class UploadSchemaServiceTest {
         assertSame(svcOutputSchema, daoOutputSchema);
     }
 
+    @Test
+    public void getCachedByIdAndRev() {
+        UploadSchema daoOutputSchema = makeSimpleSchema();
+        when(dao.getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(
+                daoOutputSchema);
+
+        assertSame(svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV), daoOutputSchema);
+        assertSame(svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV), daoOutputSchema);
+        verify(dao, times(1)).getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+    }
+
+    @Test
+    public void getCachedByIdAndRevCachesMissingSchema() {
+        when(dao.getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(null);
+
+        assertNull(svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV));
+        assertNull(svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV));
+        verify(dao, times(1)).getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+    }
+
+    @Test
+    public void createV4InvalidatesCachedRevisions() {
+        when(dao.getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, 2)).thenReturn(null);
+        assertNull(svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, 2));
+
+        UploadSchema oldSchema = makeSimpleSchema();
+        oldSchema.setRevision(1);
+        UploadSchema daoOutputSchema = makeSimpleSchema();
+        daoOutputSchema.setRevision(2);
+        when(dao.getUploadSchemaLatestRevisionById(TEST_APP_ID, SCHEMA_ID)).thenReturn(oldSchema);
+        when(dao.createSchemaRevision(any())).thenReturn(daoOutputSchema);
+        svc.createSchemaRevisionV4(TEST_APP_ID, svcInputSchema);
+        verify(mockCacheInvalidationBus).publish(UploadSchemaService.UPLOAD_SCHEMA_INVALIDATION_CHANNEL,
+                TEST_APP_ID + ":" + SCHEMA_ID);
+
+        // The new revision is read again.
+        when(dao.getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, 2)).thenReturn(daoOutputSchema);
+        assertSame(svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, 2), daoOutputSchema);
+    }
+
+    @Test
+    public void deleteInvalidatesCachedRevisions() {
+        UploadSchema schemaToDelete = makeSimpleSchema();
+        when(dao.getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(
+                schemaToDelete);
+        svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+
+        svc.deleteUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+        verify(mockCacheInvalidationBus).publish(UploadSchemaService.UPLOAD_SCHEMA_INVALIDATION_CHANNEL,
+                TEST_APP_ID + ":" + SCHEMA_ID);
+
+        svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+        // Once to cache, once to delete, and once more after the delete.
+        verify(dao, times(3)).getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+    }
+
+    @Test
+    public void invalidationFromOtherNodeDropsOnlyThatSchema() {
+        verify(mockCacheInvalidationBus).addListener(eq(UploadSchemaService.UPLOAD_SCHEMA_INVALIDATION_CHANNEL),
+                listenerCaptor.capture());
+        when(dao.getUploadSchemaByIdAndRevision(eq(TEST_APP_ID), anyString(), eq(SCHEMA_REV))).thenReturn(
+                makeSimpleSchema());
+        svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+        svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "other-schema", SCHEMA_REV);
+
+        listenerCaptor.getValue().accept(TEST_APP_ID + ":" + SCHEMA_ID);
+
+        svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+        svc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "other-schema", SCHEMA_REV);
+        verify(dao, times(2)).getUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
+        verify(dao, times(1)).getUploadSchemaByIdAndRevision(TEST_APP_ID, "other-schema", SCHEMA_REV);
+    }
+
     @Test(expectedExceptions = BadRequestException.class)
     public void getLatestNullId() {
         svc.getLatestUploadSchemaRevisionForAppVersion(TEST_APP_ID, null, ClientInfo.UNKNOWN_CLIENT);
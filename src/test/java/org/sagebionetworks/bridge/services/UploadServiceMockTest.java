@@ -20,13 +20,16 @@ import static org.sagebionetworks.bridge.models.upload.UploadCompletionClient.S3
 import static org.sagebionetworks.bridge.models.upload.UploadStatus.SUCCEEDED;
 import static org.sagebionetworks.bridge.models.upload.UploadStatus.VALIDATION_IN_PROGRESS;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.net.URL;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.amazonaws.HttpMethod;
 import com.amazonaws.auth.BasicSessionCredentials;
@@ -36,6 +39,9 @@ import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.mockito.ArgumentCaptor;
@@ -67,6 +73,7 @@ import org.sagebionetworks.bridge.models.upload.UploadSession;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
 import org.sagebionetworks.bridge.models.upload.UploadView;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
 import org.sagebionetworks.bridge.validators.UploadValidator;
 
 @SuppressWarnings("ConstantConditions")
@@ -118,6 +125,9 @@ public class UploadServiceMockTest {
     @Mock
     BridgeConfig mockConfig;
     
+    @Mock
+    UploadCompletionRegistry mockUploadCompletionRegistry;
+    
     @Captor
     ArgumentCaptor<GeneratePresignedUrlRequest> requestCaptor;
     
@@ -131,6 +141,8 @@ public class UploadServiceMockTest {
         svc.setValidator(new UploadValidator());
         svc.setS3Client(mockS3Client);
         svc.setS3UploadClient(mockS3UploadClient);
+        svc.setUploadCompletionRegistry(mockUploadCompletionRegistry);
+        svc.setAsyncExecutorService(MoreExecutors.newDirectExecutorService());
         
         when(mockConfig.getProperty(UploadService.CONFIG_KEY_UPLOAD_BUCKET)).thenReturn(UPLOAD_BUCKET_NAME);
         svc.setConfig(mockConfig);
@@ -296,8 +308,9 @@ public class UploadServiceMockTest {
         doReturn("schema-id").when(mockRecord).getSchemaId();
         doReturn(10).when(mockRecord).getSchemaRevision();
         doReturn(HealthDataRecord.ExporterStatus.SUCCEEDED).when(mockRecord).getSynapseExporterStatus();
-        // Mock UploadValidationStatus from health data record;
-        doReturn(mockRecord).when(mockHealthDataService).getRecordById("record-id");
+        // Mock the batch lookup of health data records. The missing record is absent from the result.
+        doReturn(ImmutableMap.of("record-id", mockRecord)).when(mockHealthDataService)
+                .getRecordsByIds(ImmutableSet.of("record-id", "missing-record-id"));
     }
     
     // Mock a successful and unsuccessful upload. The successful upload should call to get information 
@@ -334,8 +347,8 @@ public class UploadServiceMockTest {
     }
 
     private void validateUploadMocks(ForwardCursorPagedResourceList<UploadView> returned, String expectedOffsetKey) {
-        verify(mockHealthDataService).getRecordById("record-id");
-        verify(mockHealthDataService).getRecordById("missing-record-id");
+        // Records for the whole page are fetched in one call.
+        verify(mockHealthDataService).getRecordsByIds(ImmutableSet.of("record-id", "missing-record-id"));
         verifyNoMoreInteractions(mockHealthDataService);
 
         List<? extends UploadView> uploadList = returned.getItems();
@@ -528,7 +541,7 @@ public class UploadServiceMockTest {
     }
     
     @Test
-    public void pollUploadValidationStatusWhenComplete() throws Exception {
+    public void getUploadValidationStatusWhenCompleteAlreadyComplete() throws Exception {
         UploadRequest uploadRequest = constructUploadRequest();
         DynamoUpload2 upload = new DynamoUpload2(uploadRequest, HEALTH_CODE);
         upload.setUploadId(ORIGINAL_UPLOAD_ID);
@@ -539,7 +552,11 @@ public class UploadServiceMockTest {
         when(mockUploadDao.getUpload(ORIGINAL_UPLOAD_ID)).thenReturn(upload);
         when(mockHealthDataService.getRecordById(RECORD_ID)).thenReturn(mockRecord);
         
-        UploadValidationStatus result = svc.pollUploadValidationStatusUntilComplete(ORIGINAL_UPLOAD_ID);
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        when(mockUploadCompletionRegistry.register(ORIGINAL_UPLOAD_ID)).thenReturn(completion);
+        
+        UploadValidationStatus result = svc.getUploadValidationStatusWhenComplete(ORIGINAL_UPLOAD_ID).get();
+        assertTrue(completion.isCancelled());
         assertEquals(result.getId(), upload.getUploadId());
         assertEquals(result.getRecord(), mockRecord);
         assertEquals(result.getStatus(), SUCCEEDED);
@@ -547,9 +564,8 @@ public class UploadServiceMockTest {
         assertEquals(result.getMessageList().get(0), "One validation error");
     }
     
-    @Test(expectedExceptions = BridgeServiceException.class, 
-            expectedExceptionsMessageRegExp = "Timeout polling validation status for upload anOriginalUploadId")
-    public void pollUploadValidationStatusInProgress() throws Exception {
+    @Test
+    public void getUploadValidationStatusWhenCompleteInProgress() throws Exception {
         UploadRequest uploadRequest = constructUploadRequest();
         DynamoUpload2 upload = new DynamoUpload2(uploadRequest, HEALTH_CODE);
         upload.setUploadId(ORIGINAL_UPLOAD_ID);
@@ -560,8 +576,17 @@ public class UploadServiceMockTest {
         when(mockUploadDao.getUpload(ORIGINAL_UPLOAD_ID)).thenReturn(upload);
         when(mockHealthDataService.getRecordById(RECORD_ID)).thenReturn(mockRecord);
         
-        svc.setPollValidationStatusSleepMillis(10); // speed this up
-        svc.pollUploadValidationStatusUntilComplete(ORIGINAL_UPLOAD_ID);
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        when(mockUploadCompletionRegistry.register(ORIGINAL_UPLOAD_ID)).thenReturn(completion);
+        
+        CompletableFuture<UploadValidationStatus> future = svc.getUploadValidationStatusWhenComplete(
+                ORIGINAL_UPLOAD_ID);
+        assertFalse(future.isDone());
+        
+        // Validation finishes, and the registry is signalled.
+        upload.setStatus(SUCCEEDED);
+        completion.complete(null);
+        assertEquals(future.get().getStatus(), SUCCEEDED);
     }
     
     @Test
@@ -0,0 +1,159 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.exceptions.NotFoundException;
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
+
+public class UploadServiceWaitForStatusTest {
+    private static final String UPLOAD_ID = "test-upload";
+
+    private UploadCompletionRegistry registry;
+    private UploadService svc;
+
+    @BeforeMethod
+    public void setup() {
+        // Spy service, so we can mock a call to getValidationStatus() instead of tightly coupling to that logic.
+        svc = spy(new UploadService());
+
+        registry = new UploadCompletionRegistry();
+        svc.setUploadCompletionRegistry(registry);
+        svc.setAsyncExecutorService(MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void alreadyComplete() throws Exception {
+        doReturn(makeValidationStatus(UploadStatus.SUCCEEDED)).when(svc).getUploadValidationStatus(UPLOAD_ID);
+
+        CompletableFuture<UploadValidationStatus> future = svc.getUploadValidationStatusWhenComplete(UPLOAD_ID);
+        assertTrue(future.isDone());
+        assertEquals(future.get().getStatus(), UploadStatus.SUCCEEDED);
+        verify(svc, times(1)).getUploadValidationStatus(UPLOAD_ID);
+        assertEquals(registry.getWaitingCount(), 0);
+    }
+
+    @Test
+    public void completesWhenSignalled() throws Exception {
+        UploadValidationStatus inProgressStatus = makeValidationStatus(UploadStatus.VALIDATION_IN_PROGRESS);
+        UploadValidationStatus succeededStatus = makeValidationStatus(UploadStatus.SUCCEEDED);
+        doReturn(inProgressStatus).doReturn(succeededStatus).when(svc).getUploadValidationStatus(UPLOAD_ID);
+
+        CompletableFuture<UploadValidationStatus> future = svc.getUploadValidationStatusWhenComplete(UPLOAD_ID);
+        assertFalse(future.isDone());
+        assertEquals(registry.getWaitingCount(), 1);
+
+        registry.signalCompletion(UPLOAD_ID);
+        assertEquals(future.get().getStatus(), UploadStatus.SUCCEEDED);
+        verify(svc, times(2)).getUploadValidationStatus(UPLOAD_ID);
+        assertEquals(registry.getWaitingCount(), 0);
+    }
+
+    @Test
+    public void cancelStopsWaiting() {
+        doReturn(makeValidationStatus(UploadStatus.VALIDATION_IN_PROGRESS)).when(svc).getUploadValidationStatus(
+                UPLOAD_ID);
+
+        CompletableFuture<UploadValidationStatus> future = svc.getUploadValidationStatusWhenComplete(UPLOAD_ID);
+        future.cancel(false);
+        assertEquals(registry.getWaitingCount(), 0);
+
+        // A late signal doesn't read the status again.
+        registry.signalCompletion(UPLOAD_ID);
+        verify(svc, times(1)).getUploadValidationStatus(UPLOAD_ID);
+    }
+
+    @Test
+    public void errorStopsWaiting() {
+        doThrow(new NotFoundException("Upload not found")).when(svc).getUploadValidationStatus(UPLOAD_ID);
+
+        try {
+            svc.getUploadValidationStatusWhenComplete(UPLOAD_ID);
+            fail("expected exception");
+        } catch (NotFoundException ex) {
+            // expected exception
+        }
+        assertEquals(registry.getWaitingCount(), 0);
+    }
+
+    @Test
+    public void concurrentSynchronousCompletions() throws Exception {
+        int numUploads = 300;
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            // Validation status is read from this set, which is written before completion is signalled, just as
+            // UploadValidationTask writes the status to DynamoDB before signalling.
+            Set<String> completedUploadIds = ConcurrentHashMap.newKeySet();
+            doAnswer(invocation -> {
+                String uploadId = invocation.getArgument(0);
+                return makeValidationStatus(completedUploadIds.contains(uploadId) ? UploadStatus.SUCCEEDED :
+                        UploadStatus.VALIDATION_IN_PROGRESS);
+            }).when(svc).getUploadValidationStatus(any());
+            svc.setAsyncExecutorService(executorService);
+
+            // Callers start waiting while their uploads are being validated, so some uploads finish before the caller
+            // registers and some after.
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<CompletableFuture<UploadValidationStatus>>> callers = new ArrayList<>();
+            List<Future<?>> validations = new ArrayList<>();
+            for (int i = 0; i < numUploads; i++) {
+                String uploadId = "upload-" + i;
+                callers.add(executorService.submit(() -> {
+                    startLatch.await();
+                    return svc.getUploadValidationStatusWhenComplete(uploadId);
+                }));
+                validations.add(executorService.submit(() -> {
+                    startLatch.await();
+                    completedUploadIds.add(uploadId);
+                    registry.signalCompletion(uploadId);
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<?> validation : validations) {
+                validation.get(10, TimeUnit.SECONDS);
+            }
+
+            for (Future<CompletableFuture<UploadValidationStatus>> caller : callers) {
+                UploadValidationStatus validationStatus = caller.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+                assertEquals(validationStatus.getStatus(), UploadStatus.SUCCEEDED);
+            }
+            assertEquals(registry.getWaitingCount(), 0);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static UploadValidationStatus makeValidationStatus(UploadStatus uploadStatus) {
+        return new UploadValidationStatus.Builder().withId(UPLOAD_ID).withMessageList(ImmutableList.of())
+                .withStatus(uploadStatus).build();
+    }
+}
@@ -1,49 +1,105 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
 
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutor;
+import org.sagebionetworks.bridge.upload.UploadValidationMetrics;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
 import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 
 public class UploadValidationServiceTest {
-    @Test
-    public void test() {
-        // UploadValidationService is a simple call-through to the task factory and the async thread pool. As such, our
-        // test strategy is to verify that execution flows through to these dependencies.
+    private App app;
+    private UploadValidationExecutor mockExecutor;
+    private UploadValidationTask mockTask;
+    private UploadDao mockUploadDao;
+    private UploadValidationService svc;
+    private Upload upload;
 
+    @BeforeMethod
+    public void before() {
         // inputs
-        App app = TestUtils.getValidApp(UploadValidationServiceTest.class);
-        Upload upload = new DynamoUpload2();
+        app = TestUtils.getValidApp(UploadValidationServiceTest.class);
+        upload = new DynamoUpload2();
 
         // mock task
-        UploadValidationTask mockTask = mock(UploadValidationTask.class);
+        mockTask = mock(UploadValidationTask.class);
 
         // mock task factory
         UploadValidationTaskFactory mockTaskFactory = mock(UploadValidationTaskFactory.class);
         when(mockTaskFactory.newTask(app.getIdentifier(), upload)).thenReturn(mockTask);
 
-        // mock async thread pool
-        ExecutorService mockExecutor = mock(ExecutorService.class);
+        // mock validation thread pool and dao
+        mockExecutor = mock(UploadValidationExecutor.class);
+        mockUploadDao = mock(UploadDao.class);
 
         // set up service
-        UploadValidationService svc = new UploadValidationService();
-        svc.setAsyncExecutorService(mockExecutor);
+        svc = new UploadValidationService();
+        svc.setUploadDao(mockUploadDao);
+        svc.setUploadValidationExecutor(mockExecutor);
+        svc.setUploadValidationMetrics(new UploadValidationMetrics());
         svc.setTaskFactory(mockTaskFactory);
+    }
 
-        // execute
+    @Test
+    public void test() {
+        // UploadValidationService is a simple call-through to the task factory and the validation thread pool. As
+        // such, our test strategy is to verify that execution flows through to these dependencies.
         svc.validateUpload(app.getIdentifier(), upload);
 
         // validate
         verify(mockExecutor).execute(mockTask);
+        verifyZeroInteractions(mockUploadDao);
+    }
+
+    @Test
+    public void queueFullReturnsUploadToRequested() {
+        doThrow(RejectedExecutionException.class).when(mockExecutor).execute(mockTask);
+
+        try {
+            svc.validateUpload(app.getIdentifier(), upload);
+            fail("expected exception");
+        } catch (ServiceUnavailableException ex) {
+            assertEquals(ex.getMessage(), UploadValidationService.QUEUE_FULL_MESSAGE);
+        }
+
+        // The upload can be completed again later.
+        verify(mockUploadDao).writeValidationStatus(upload, UploadStatus.REQUESTED,
+                ImmutableList.of(UploadValidationService.QUEUE_FULL_MESSAGE), null);
+    }
+
+    @Test
+    public void getValidationStats() {
+        when(mockExecutor.getQueue()).thenReturn(new LinkedBlockingQueue<>(ImmutableList.of(mockTask, mockTask)));
+        when(mockExecutor.getActiveCount()).thenReturn(3);
+        when(mockExecutor.getPoolSize()).thenReturn(10);
+        when(mockExecutor.getCompletedTaskCount()).thenReturn(42L);
+
+        Map<String, Object> stats = svc.getValidationStats();
+        assertEquals(stats.get("queueDepth"), 2);
+        assertEquals(stats.get("activeWorkers"), 3);
+        assertEquals(stats.get("poolSize"), 10);
+        assertEquals(stats.get("completedTaskCount"), 42L);
+        assertEquals(stats.get("rejectedCount"), 0L);
     }
 }
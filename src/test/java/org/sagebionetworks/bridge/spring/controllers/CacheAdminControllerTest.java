@@ -10,11 +10,13 @@ import static org.sagebionetworks.bridge.TestUtils.assertDelete;
 import static org.sagebionetworks.bridge.TestUtils.assertGet;
 import static org.testng.Assert.assertEquals;
 
+import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import org.mockito.InjectMocks;
@@ -75,6 +77,7 @@ public class CacheAdminControllerTest extends Mockito {
     public void verifyAnnotations() throws Exception {
         assertCrossOrigin(CacheAdminController.class);
         assertGet(CacheAdminController.class, "listItems");
+        assertGet(CacheAdminController.class, "getLocalCacheStats");
         assertDelete(CacheAdminController.class, "removeItem");
     }    
     
@@ -105,6 +108,25 @@ public class CacheAdminControllerTest extends Mockito {
         controller.listItems();
     }
     
+    @Test
+    public void getLocalCacheStats() throws Exception {
+        Map<String, Map<String, Long>> stats = ImmutableMap.of("App", ImmutableMap.of("hitCount", 3L));
+        when(mockCacheAdminService.getLocalCacheStats()).thenReturn(stats);
+        
+        Map<String, Map<String, Long>> returned = controller.getLocalCacheStats();
+        assertEquals(returned, stats);
+        
+        verify(mockCacheAdminService).getLocalCacheStats();
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void getLocalCacheStatsRejectsAppAdmin() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(ADMIN)).withId(USER_ID).build());
+        
+        controller.getLocalCacheStats();
+    }
+    
     @Test
     public void removeItem() throws Exception {
         session.setAppId(TEST_APP_ID);
@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.spring.controllers;
 
+import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestUtils.assertCreate;
 import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
@@ -8,6 +9,7 @@ import static org.sagebionetworks.bridge.TestUtils.assertPost;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 import java.util.List;
 
@@ -34,6 +36,7 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.DateTimeRangeResourceList;
+import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -148,6 +151,7 @@ public class HealthDataControllerTest extends Mockito {
     public void verifyAnnotations() throws Exception {
         assertCrossOrigin(HealthDataController.class);
         assertGet(HealthDataController.class, "getRecordsByCreatedOn");
+        assertGet(HealthDataController.class, "getRecordsForUploadDate");
         assertCreate(HealthDataController.class, "submitHealthData");
         assertCreate(HealthDataController.class, "submitHealthDataForParticipant");
         assertPost(HealthDataController.class, "updateRecordsStatus");
@@ -290,6 +294,16 @@ public class HealthDataControllerTest extends Mockito {
         verify(mockMetrics).setRecordId(TEST_RECORD_ID);
     }
     
+    @Test
+    public void getRecordsForUploadDate() throws Exception {
+        ForwardCursorPagedResourceList<HealthDataRecord> page = new ForwardCursorPagedResourceList<>(
+                ImmutableList.of(HealthDataRecord.create()), "next-offset-key");
+        when(mockHealthDataService.getRecordsForUploadDate("2017-08-24", "offset-key", 20)).thenReturn(page);
+
+        assertSame(controller.getRecordsForUploadDate("2017-08-24", "offset-key", 20), page);
+        verify(controller).getAuthenticatedSession(WORKER);
+    }
+
     @Test
     public void updateRecordsStatus() throws Exception {
         // mock request JSON
@@ -315,4 +329,18 @@ public class HealthDataControllerTest extends Mockito {
         assertEquals(TEST_RECORD_ID, capturedRequest.getRecordIds().get(0));
         assertEquals(TEST_STATUS, capturedRequest.getSynapseExporterStatus());
     }
+
+    @Test
+    public void updateRecordsStatusReportsMissingRecords() throws Exception {
+        RecordExportStatusRequest request = new RecordExportStatusRequest();
+        request.setRecordIds(ImmutableList.of(TEST_RECORD_ID, "missing-record-id"));
+        request.setSynapseExporterStatus(TEST_STATUS);
+        mockRequestBody(mockRequest, request);
+
+        when(mockHealthDataService.updateRecordsWithExporterStatus(any())).thenReturn(ImmutableList.of(TEST_RECORD_ID));
+
+        StatusMessage result = controller.updateRecordsStatus();
+        assertEquals(result.getMessage(), "Update exporter status to: [" + TEST_RECORD_ID
+                + "] complete. Records not found: [missing-record-id].");
+    }
 }
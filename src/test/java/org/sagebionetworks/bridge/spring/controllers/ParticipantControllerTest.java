@@ -334,7 +334,7 @@ public class ParticipantControllerTest extends Mockito {
     @Test
     public void getParticipants() throws Exception {
         JsonNode result = controller.getParticipants("10", "20", "emailSubstring", "phoneSubstring",
-                START_TIME.toString(), END_TIME.toString(), null, null);
+                START_TIME.toString(), END_TIME.toString(), null, null, null);
 
         verifyPagedResourceListParameters(result);
 
@@ -357,7 +357,7 @@ public class ParticipantControllerTest extends Mockito {
     @Test
     public void getParticipantsWithStartTimeEndTime() throws Exception {
         JsonNode result = controller.getParticipants("10", "20", "emailSubstring", "phoneSubstring", null, null,
-                START_TIME.toString(), END_TIME.toString());
+                START_TIME.toString(), END_TIME.toString(), null);
 
         verifyPagedResourceListParameters(result);
 
@@ -375,10 +375,21 @@ public class ParticipantControllerTest extends Mockito {
         assertEquals(search.getEndTime().toString(), END_TIME.toString());
     }
 
+    @SuppressWarnings("deprecation")
+    @Test
+    public void getParticipantsWithOffsetKey() throws Exception {
+        controller.getParticipants(null, "20", null, null, null, null, null, null, "1500000000000:accountId");
+
+        verify(mockParticipantService).getPagedAccountSummaries(eq(app), searchCaptor.capture());
+        AccountSummarySearch search = searchCaptor.getValue();
+        assertEquals(search.getOffsetKey(), "1500000000000:accountId");
+        assertEquals(search.getPageSize(), 20);
+    }
+
     @SuppressWarnings("deprecation")
     @Test(expectedExceptions = BadRequestException.class)
     public void oddParametersUseDefaults() throws Exception {
-        controller.getParticipants("asdf", "qwer", null, null, null, null, null, null);
+        controller.getParticipants("asdf", "qwer", null, null, null, null, null, null, null);
     }
 
     @Test
@@ -495,7 +506,7 @@ public class ParticipantControllerTest extends Mockito {
     @SuppressWarnings("deprecation")
     @Test
     public void nullParametersUseDefaults() throws Exception {
-        controller.getParticipants(null, null, null, null, null, null, null, null);
+        controller.getParticipants(null, null, null, null, null, null, null, null, null);
 
         // paging with defaults
         verify(mockParticipantService).getPagedAccountSummaries(eq(app), searchCaptor.capture());
@@ -1100,7 +1111,7 @@ public class ParticipantControllerTest extends Mockito {
         DateTime end = DateTime.now();
 
         controller.getParticipantsForWorker(app.getIdentifier(), "10", "20", "emailSubstring", "phoneSubstring",
-                start.toString(), end.toString(), null, null);
+                start.toString(), end.toString(), null, null, null);
     }
 
     @Test(expectedExceptions = UnauthorizedException.class)
@@ -1117,7 +1128,7 @@ public class ParticipantControllerTest extends Mockito {
         when(mockAppService.getApp(app.getIdentifier())).thenReturn(app);
 
         JsonNode result = controller.getParticipantsForWorker(app.getIdentifier(), "10", "20", "emailSubstring",
-                "phoneSubstring", START_TIME.toString(), END_TIME.toString(), null, null);
+                "phoneSubstring", START_TIME.toString(), END_TIME.toString(), null, null, null);
 
         verifyPagedResourceListParameters(result);
 
@@ -1145,7 +1156,7 @@ public class ParticipantControllerTest extends Mockito {
         when(mockAppService.getApp(app.getIdentifier())).thenReturn(app);
 
         JsonNode result = controller.getParticipantsForWorker(app.getIdentifier(), "10", "20", "emailSubstring",
-                "phoneSubstring", null, null, START_TIME.toString(), END_TIME.toString());
+                "phoneSubstring", null, null, START_TIME.toString(), END_TIME.toString(), null);
 
         verifyPagedResourceListParameters(result);
 
@@ -0,0 +1,104 @@
+package org.sagebionetworks.bridge.spring.controllers;
+
+import static org.sagebionetworks.bridge.Roles.ADMIN;
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+import static org.sagebionetworks.bridge.TestConstants.USER_ID;
+import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
+import static org.sagebionetworks.bridge.TestUtils.assertGet;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.services.CredentialHashingService;
+import org.sagebionetworks.bridge.services.RequestInfoRecorder;
+import org.sagebionetworks.bridge.util.RequestMetricsRegistry;
+
+public class RequestMetricsControllerTest extends Mockito {
+    
+    @Mock
+    private RequestMetricsRegistry mockRequestMetricsRegistry;
+    
+    @Mock
+    private RequestInfoRecorder mockRequestInfoRecorder;
+    
+    @Mock
+    private CredentialHashingService mockCredentialHashingService;
+    
+    @InjectMocks
+    @Spy
+    private RequestMetricsController controller = new RequestMetricsController();
+    
+    private UserSession session;
+    
+    @BeforeMethod
+    private void before() {
+        MockitoAnnotations.initMocks(this);
+        
+        session = new UserSession();
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(SUPERADMIN)).withId(USER_ID).build());
+        doAnswer(answer -> {
+            if (session.isInRole(SUPERADMIN)) {
+                return session;
+            }
+            throw new UnauthorizedException("Nope");
+        }).when(controller).getAuthenticatedSession(any());
+    }
+    
+    @Test
+    public void verifyAnnotations() throws Exception {
+        assertCrossOrigin(RequestMetricsController.class);
+        assertGet(RequestMetricsController.class, "getRequestStats");
+        assertGet(RequestMetricsController.class, "getRequestInfoStats");
+        assertGet(RequestMetricsController.class, "getCredentialHashingStats");
+    }
+    
+    @Test
+    public void getRequestStats() {
+        Map<String, Object> stats = ImmutableMap.of("inFlight", 2);
+        when(mockRequestMetricsRegistry.getStats()).thenReturn(stats);
+        
+        Map<String, Object> returned = controller.getRequestStats();
+        assertEquals(returned, stats);
+    }
+    
+    @Test
+    public void getRequestInfoStats() {
+        Map<String, Object> stats = ImmutableMap.of("bufferSize", 10);
+        when(mockRequestInfoRecorder.getStats()).thenReturn(stats);
+        
+        Map<String, Object> returned = controller.getRequestInfoStats();
+        assertEquals(returned, stats);
+    }
+    
+    @Test
+    public void getCredentialHashingStats() {
+        Map<String, Object> stats = ImmutableMap.of("rejectedCount", 3L);
+        when(mockCredentialHashingService.getStats()).thenReturn(stats);
+        
+        Map<String, Object> returned = controller.getCredentialHashingStats();
+        assertEquals(returned, stats);
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void getRequestStatsRejectsAppAdmin() {
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(ADMIN)).withId(USER_ID).build());
+        
+        controller.getRequestStats();
+    }
+}
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.spring.controllers;
 
 import static org.sagebionetworks.bridge.Roles.ADMIN;
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
 import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.TestConstants.ACCOUNT_ID;
 import static org.sagebionetworks.bridge.TestConstants.HEALTH_CODE;
@@ -9,17 +10,24 @@ import static org.sagebionetworks.bridge.TestConstants.USER_ID;
 import static org.sagebionetworks.bridge.TestUtils.createJson;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.net.URL;
 import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 import org.mockito.ArgumentCaptor;
@@ -30,12 +38,14 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.testng.annotations.BeforeMethod;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.HealthCodeDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -55,6 +65,7 @@ import org.sagebionetworks.bridge.services.AccountService;
 import org.sagebionetworks.bridge.services.HealthDataService;
 import org.sagebionetworks.bridge.services.RequestInfoService;
 import org.sagebionetworks.bridge.services.UploadService;
+import org.sagebionetworks.bridge.services.UploadValidationService;
 
 public class UploadControllerTest extends Mockito {
     private static final String RECORD_ID = "record-id";
@@ -95,6 +106,9 @@ public class UploadControllerTest extends Mockito {
     @Mock
     CacheProvider mockCacheProvider;
     
+    @Mock
+    UploadValidationService mockUploadValidationService;
+    
     @Mock 
     Metrics mockMetrics;
     
@@ -112,6 +126,8 @@ public class UploadControllerTest extends Mockito {
     
     DynamoUpload2 upload;
     
+    UploadValidationStatus status;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -128,14 +144,15 @@ public class UploadControllerTest extends Mockito {
         record.setId(RECORD_ID);
         record.setHealthCode(HEALTH_CODE);
 
-        UploadValidationStatus status = new UploadValidationStatus.Builder()
+        status = new UploadValidationStatus.Builder()
                 .withId(UPLOAD_ID)
                 .withRecord(record)
                 .withMessageList(Lists.newArrayList(VALIDATION_ERROR_MESSAGE))
                 .withStatus(UploadStatus.VALIDATION_FAILED).build();
 
         doReturn(status).when(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
-        doReturn(status).when(mockUploadService).pollUploadValidationStatusUntilComplete(UPLOAD_ID);
+        doReturn(CompletableFuture.completedFuture(status)).when(mockUploadService)
+                .getUploadValidationStatusWhenComplete(UPLOAD_ID);
 
         // mock metrics
         doReturn(mockMetrics).when(controller).getMetrics();
@@ -180,7 +197,7 @@ public class UploadControllerTest extends Mockito {
         doReturn(mockWorkerSession).when(controller).getAuthenticatedSession();
 
         // execute and validate
-        String result = controller.uploadComplete(UPLOAD_ID, false, false);
+        String result = (String) controller.uploadComplete(UPLOAD_ID, false, false);
         validateValidationStatus(result);
 
         // verify back-end calls
@@ -190,7 +207,7 @@ public class UploadControllerTest extends Mockito {
         assertEquals(upload.getHealthCode(), "consented-user-health-code");
 
         verify(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
-        verify(mockUploadService, never()).pollUploadValidationStatusUntilComplete(any());
+        verify(mockUploadService, never()).getUploadValidationStatusWhenComplete(any());
     }
     
     @Test
@@ -202,7 +219,7 @@ public class UploadControllerTest extends Mockito {
         doReturn(TEST_APP_ID).when(mockHealthCodeDao).getAppId(HEALTH_CODE);
 
         // execute and validate
-        String result = controller.uploadComplete(UPLOAD_ID, false, false);
+        String result = (String) controller.uploadComplete(UPLOAD_ID, false, false);
         validateValidationStatus(result);
 
         // verify back-end calls
@@ -213,7 +230,7 @@ public class UploadControllerTest extends Mockito {
         assertEquals(upload.getHealthCode(), HEALTH_CODE);
 
         verify(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
-        verify(mockUploadService, never()).pollUploadValidationStatusUntilComplete(any());
+        verify(mockUploadService, never()).getUploadValidationStatusWhenComplete(any());
     }
 
     @Test
@@ -223,7 +240,7 @@ public class UploadControllerTest extends Mockito {
         doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
 
         // execute and validate
-        String result = controller.uploadComplete(UPLOAD_ID, false, false);
+        String result = (String) controller.uploadComplete(UPLOAD_ID, false, false);
         validateValidationStatus(result);
 
         // verify back-end calls
@@ -233,7 +250,7 @@ public class UploadControllerTest extends Mockito {
         assertEquals("consented-user-health-code", upload.getHealthCode());
 
         verify(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
-        verify(mockUploadService, never()).pollUploadValidationStatusUntilComplete(any());
+        verify(mockUploadService, never()).getUploadValidationStatusWhenComplete(any());
     }
     
     @Test
@@ -256,7 +273,7 @@ public class UploadControllerTest extends Mockito {
         // verify back-end calls
         verify(mockUploadService, never()).uploadComplete(any(), any(), any(), anyBoolean());
         verify(mockUploadService, never()).getUploadValidationStatus(any());
-        verify(mockUploadService, never()).pollUploadValidationStatusUntilComplete(any());
+        verify(mockUploadService, never()).getUploadValidationStatusWhenComplete(any());
     }
 
     @Test
@@ -266,16 +283,86 @@ public class UploadControllerTest extends Mockito {
         doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
 
         // execute and validate
-        String result = controller.uploadComplete(UPLOAD_ID, true, false);
+        String result = (String) uploadCompleteSynchronously().getResult();
         validateValidationStatus(result);
 
         // verify back-end calls
         verify(mockUploadService).uploadComplete(eq("consented-user-app-id"),
                 eq(UploadCompletionClient.APP), any(), eq(false));
-        verify(mockUploadService).pollUploadValidationStatusUntilComplete(UPLOAD_ID);
+        verify(mockUploadService).getUploadValidationStatusWhenComplete(UPLOAD_ID);
         verify(mockUploadService, never()).getUploadValidationStatus(any());
     }
 
+    @Test
+    public void uploadCompleteSynchronousModeWaitsForValidation() throws Exception {
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedSession();
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
+        
+        CompletableFuture<UploadValidationStatus> future = new CompletableFuture<>();
+        doReturn(future).when(mockUploadService).getUploadValidationStatusWhenComplete(UPLOAD_ID);
+
+        DeferredResult<String> result = uploadCompleteSynchronously();
+        assertFalse(result.hasResult());
+        
+        // Validation finishes after the controller has returned.
+        future.complete(status);
+        validateValidationStatus((String) result.getResult());
+    }
+
+    @Test
+    public void uploadCompleteSynchronousModeError() throws Exception {
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedSession();
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
+        
+        CompletableFuture<UploadValidationStatus> future = new CompletableFuture<>();
+        doReturn(future.thenApply(validationStatus -> validationStatus)).when(mockUploadService)
+                .getUploadValidationStatusWhenComplete(UPLOAD_ID);
+
+        DeferredResult<String> result = uploadCompleteSynchronously();
+        
+        // Errors from the async thread are unwrapped, so they're handled like any other error.
+        BridgeServiceException ex = new BridgeServiceException("Error reading validation status");
+        future.completeExceptionally(ex);
+        assertSame(result.getResult(), ex);
+    }
+
+    @Test
+    public void uploadCompleteSynchronousModeTimeoutWithoutSignal() throws Exception {
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedSession();
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
+
+        // The signal never arrives, but validation has finished.
+        CompletableFuture<UploadValidationStatus> future = new CompletableFuture<>();
+        doReturn(future).when(mockUploadService).getUploadValidationStatusWhenComplete(UPLOAD_ID);
+
+        DeferredResult<String> result = uploadCompleteSynchronously();
+        assertFalse(result.hasResult());
+
+        controller.onSynchronousTimeout(UPLOAD_ID, future, result);
+        validateValidationStatus((String) result.getResult());
+        assertTrue(future.isCancelled());
+        verify(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
+    }
+
+    @Test
+    public void uploadCompleteSynchronousModeTimeoutStillInProgress() throws Exception {
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedSession();
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
+
+        CompletableFuture<UploadValidationStatus> future = new CompletableFuture<>();
+        doReturn(future).when(mockUploadService).getUploadValidationStatusWhenComplete(UPLOAD_ID);
+        UploadValidationStatus inProgressStatus = new UploadValidationStatus.Builder().withId(UPLOAD_ID)
+                .withMessageList(ImmutableList.of()).withStatus(UploadStatus.VALIDATION_IN_PROGRESS).build();
+        doReturn(inProgressStatus).when(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
+
+        DeferredResult<String> result = uploadCompleteSynchronously();
+        controller.onSynchronousTimeout(UPLOAD_ID, future, result);
+
+        BridgeServiceException ex = (BridgeServiceException) result.getResult();
+        assertEquals(ex.getMessage(), "Timeout waiting for validation status for upload " + UPLOAD_ID);
+        assertTrue(future.isCancelled());
+    }
+
     @Test
     public void uploadCompleteRedriveFlag() throws Exception {
         // setup controller
@@ -283,14 +370,14 @@ public class UploadControllerTest extends Mockito {
         doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
 
         // execute and validate
-        String result = controller.uploadComplete(UPLOAD_ID, false, true);
+        String result = (String) controller.uploadComplete(UPLOAD_ID, false, true);
         validateValidationStatus(result);
 
         // verify back-end calls
         verify(mockUploadService).uploadComplete(eq("consented-user-app-id"),
                 eq(UploadCompletionClient.APP), any(), eq(true));
         verify(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
-        verify(mockUploadService, never()).pollUploadValidationStatusUntilComplete(any());
+        verify(mockUploadService, never()).getUploadValidationStatusWhenComplete(any());
     }
 
     @Test
@@ -452,6 +539,22 @@ public class UploadControllerTest extends Mockito {
         controller.getUpload("recordId:record-id");
     }
     
+    @Test
+    public void getValidationStats() {
+        doReturn(mockResearcherSession).when(controller).getAuthenticatedSession(SUPERADMIN);
+        
+        Map<String, Object> stats = ImmutableMap.of("queueDepth", 5);
+        when(mockUploadValidationService.getValidationStats()).thenReturn(stats);
+        
+        assertEquals(controller.getValidationStats(), stats);
+        verify(controller).getAuthenticatedSession(SUPERADMIN);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private DeferredResult<String> uploadCompleteSynchronously() throws Exception {
+        return (DeferredResult<String>) controller.uploadComplete(UPLOAD_ID, true, false);
+    }
+
     private static void validateValidationStatus(String result) throws Exception {
         JsonNode node = BridgeObjectMapper.get().readTree(result);
         assertEquals(node.get("id").textValue(), UPLOAD_ID);
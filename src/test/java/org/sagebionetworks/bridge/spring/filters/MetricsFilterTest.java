@@ -5,19 +5,29 @@ import static org.sagebionetworks.bridge.BridgeConstants.X_FORWARDED_FOR_HEADER;
 import static org.sagebionetworks.bridge.BridgeConstants.X_REQUEST_ID_HEADER;
 import static org.sagebionetworks.bridge.TestConstants.TIMESTAMP;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
 import org.joda.time.DateTimeUtils;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.web.servlet.HandlerMapping;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -25,7 +35,9 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.models.Metrics;
+import org.sagebionetworks.bridge.util.RequestMetricsRegistry;
 
 public class MetricsFilterTest extends Mockito {
 
@@ -38,6 +50,9 @@ public class MetricsFilterTest extends Mockito {
     @Mock
     private FilterChain mockFilterChain;
     
+    @Spy
+    private RequestMetricsRegistry registry = new RequestMetricsRegistry();
+    
     @InjectMocks
     private MetricsFilter filter = new MetricsFilter();
 
@@ -96,4 +111,92 @@ public class MetricsFilterTest extends Mockito {
         
         assertEquals("5.6.7.8", node.get("remote_address").textValue());
     }
+    
+    @Test
+    public void recordsRequestInRegistry() throws Exception {
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))
+                .thenReturn("/v3/participants/{userId}");
+        when(mockResponse.getStatus()).thenReturn(200);
+        
+        filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+        
+        verify(registry).requestStarted();
+        verify(registry).requestFinished(eq("GET"), eq("/v3/participants/{userId}"), eq(200), anyLong());
+        assertEquals(registry.getInFlightCount(), 0);
+    }
+    
+    @Test
+    public void recordsAsyncRequestWhenItCompletes() throws Exception {
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))
+                .thenReturn("/v3/uploads/{uploadId}/complete");
+        when(mockRequest.isAsyncStarted()).thenReturn(true);
+        AsyncContext mockAsyncContext = mock(AsyncContext.class);
+        when(mockRequest.getAsyncContext()).thenReturn(mockAsyncContext);
+        when(mockResponse.getStatus()).thenReturn(200);
+        
+        filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+        
+        // Nothing is recorded until the response is written.
+        verify(registry, never()).requestFinished(any(), any(), anyInt(), anyLong());
+        assertEquals(registry.getInFlightCount(), 1);
+        
+        ArgumentCaptor<AsyncListener> listenerCaptor = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(mockAsyncContext).addListener(listenerCaptor.capture());
+        when(mockResponse.getStatus()).thenReturn(500);
+        listenerCaptor.getValue().onComplete(new AsyncEvent(mockAsyncContext));
+        
+        verify(registry).requestFinished(eq("POST"), eq("/v3/uploads/{uploadId}/complete"), eq(500), anyLong());
+        assertEquals(registry.getInFlightCount(), 0);
+        JsonNode node = BridgeUtils.getRequestContext().getMetrics().getJson();
+        assertEquals(node.get("status").intValue(), 500);
+    }
+    
+    @Test
+    public void recordsExceptionAsServerError() throws Exception {
+        when(mockRequest.getMethod()).thenReturn("GET");
+        doThrow(new ServletException()).when(mockFilterChain).doFilter(mockRequest, mockResponse);
+        
+        try {
+            filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+            fail("Should have thrown exception");
+        } catch (ServletException e) {
+            // expected
+        }
+        verify(registry).requestFinished(eq("GET"), isNull(), eq(500), anyLong());
+        assertEquals(registry.getInFlightCount(), 0);
+        
+        // Server errors are logged
+        JsonNode node = BridgeUtils.getRequestContext().getMetrics().getJson();
+        assertNotNull(node.get("end"));
+    }
+    
+    @Test
+    public void logCanBeTurnedOff() throws Exception {
+        BridgeConfig mockBridgeConfig = mock(BridgeConfig.class);
+        when(mockBridgeConfig.getInt(MetricsFilter.LOG_SAMPLE_RATE_PROPERTY)).thenReturn(0);
+        filter.setBridgeConfig(mockBridgeConfig);
+        when(mockResponse.getStatus()).thenReturn(200);
+        
+        filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+        
+        // Metrics are still recorded in the registry, but never completed for the log.
+        JsonNode node = BridgeUtils.getRequestContext().getMetrics().getJson();
+        assertNull(node.get("end"));
+        verify(registry).requestFinished(any(), any(), eq(200), anyLong());
+    }
+    
+    @Test
+    public void serverErrorsAreLoggedWhenLogIsOff() throws Exception {
+        BridgeConfig mockBridgeConfig = mock(BridgeConfig.class);
+        when(mockBridgeConfig.getInt(MetricsFilter.LOG_SAMPLE_RATE_PROPERTY)).thenReturn(0);
+        filter.setBridgeConfig(mockBridgeConfig);
+        when(mockResponse.getStatus()).thenReturn(503);
+        
+        filter.doFilter(mockRequest, mockResponse, mockFilterChain);
+        
+        JsonNode node = BridgeUtils.getRequestContext().getMetrics().getJson();
+        assertNotNull(node.get("end"));
+    }
 }
@@ -0,0 +1,106 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AttachmentUploadBatchTest extends Mockito {
+    private static final String UPLOAD_ID = "upload-id";
+
+    @Mock
+    Future<Object> mockFooFuture;
+
+    @Mock
+    Future<Object> mockBarFuture;
+
+    AttachmentUploadBatch batch;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        batch = new AttachmentUploadBatch(UPLOAD_ID);
+    }
+
+    @Test
+    public void joinWaitsForAllUploads() throws Exception {
+        batch.add("foo", mockFooFuture);
+        batch.add("bar", mockBarFuture);
+        assertEquals(batch.getPendingCount(), 2);
+
+        batch.join();
+        verify(mockFooFuture).get();
+        verify(mockBarFuture).get();
+        assertEquals(batch.getPendingCount(), 0);
+    }
+
+    @Test
+    public void awaitOldest() throws Exception {
+        batch.add("foo", mockFooFuture);
+        batch.add("bar", mockBarFuture);
+
+        batch.awaitOldest();
+        verify(mockFooFuture).get();
+        verify(mockBarFuture, never()).get();
+        assertEquals(batch.getPendingCount(), 1);
+    }
+
+    @Test
+    public void failedUploadCancelsTheRest() throws Exception {
+        IOException cause = new IOException();
+        when(mockFooFuture.get()).thenThrow(new ExecutionException(cause));
+        batch.add("foo", mockFooFuture);
+        batch.add("bar", mockBarFuture);
+
+        try {
+            batch.join();
+            fail("expected exception");
+        } catch (UploadValidationException ex) {
+            assertSame(ex.getCause(), cause);
+        }
+        verify(mockBarFuture).cancel(true);
+        verify(mockBarFuture, never()).get();
+        assertEquals(batch.getPendingCount(), 0);
+    }
+
+    @Test
+    public void interruptedJoinCancelsTheRest() throws Exception {
+        when(mockFooFuture.get()).thenThrow(new InterruptedException());
+        batch.add("foo", mockFooFuture);
+        batch.add("bar", mockBarFuture);
+
+        try {
+            batch.join();
+            fail("expected exception");
+        } catch (UploadValidationException ex) {
+            // Clears the interrupted flag, so it doesn't leak into other tests.
+            assertTrue(Thread.interrupted());
+        }
+        verify(mockBarFuture).cancel(true);
+    }
+
+    @Test
+    public void cancel() {
+        batch.add("foo", mockFooFuture);
+        batch.add("bar", mockBarFuture);
+
+        batch.cancel();
+        verify(mockFooFuture).cancel(true);
+        verify(mockBarFuture).cancel(true);
+        assertEquals(batch.getPendingCount(), 0);
+
+        // Cancelling again does nothing.
+        batch.cancel();
+        verifyNoMoreInteractions(mockFooFuture, mockBarFuture);
+    }
+}
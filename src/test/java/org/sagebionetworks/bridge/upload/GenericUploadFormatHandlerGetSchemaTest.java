@@ -35,7 +35,7 @@ public class GenericUploadFormatHandlerGetSchemaTest {
     @BeforeMethod
     public void setup() {
         UploadSchemaService mockSchemaService = mock(UploadSchemaService.class);
-        when(mockSchemaService.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(
                 DUMMY_SCHEMA);
 
         mockSurveyService = mock(SurveyService.class);
@@ -51,8 +51,8 @@ public class GenericUploadFormatHandlerGetSchemaTest {
         Survey survey = Survey.create();
         survey.setIdentifier(SCHEMA_ID);
         survey.setSchemaRevision(SCHEMA_REV);
-        when(mockSurveyService.getSurvey(TEST_APP_ID,
-                new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, SURVEY_CREATED_ON_MILLIS), false, true))
+        when(mockSurveyService.getCachedSurvey(TEST_APP_ID,
+                new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, SURVEY_CREATED_ON_MILLIS)))
                         .thenReturn(survey);
 
         // make info.json
@@ -72,8 +72,8 @@ public class GenericUploadFormatHandlerGetSchemaTest {
         Survey survey = Survey.create();
         survey.setIdentifier(SCHEMA_ID);
         survey.setSchemaRevision(null);
-        when(mockSurveyService.getSurvey(TEST_APP_ID,
-                new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, SURVEY_CREATED_ON_MILLIS), false, true))
+        when(mockSurveyService.getCachedSurvey(TEST_APP_ID,
+                new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, SURVEY_CREATED_ON_MILLIS)))
                         .thenReturn(survey);
 
         // make info.json
@@ -92,8 +92,8 @@ public class GenericUploadFormatHandlerGetSchemaTest {
         Survey survey = Survey.create();
         survey.setIdentifier("missing-schema");
         survey.setSchemaRevision(SCHEMA_REV);
-        when(mockSurveyService.getSurvey(TEST_APP_ID,
-                new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, SURVEY_CREATED_ON_MILLIS), false, true))
+        when(mockSurveyService.getCachedSurvey(TEST_APP_ID,
+                new GuidCreatedOnVersionHolderImpl(SURVEY_GUID, SURVEY_CREATED_ON_MILLIS)))
                 .thenReturn(survey);
 
         // Make info.json.
@@ -65,8 +65,8 @@ public class GenericUploadFormatHandlerTest {
 
         // Mock dependencies
         mockUploadFileHelper = mock(UploadFileHelper.class);
-        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any())).thenReturn(TextNode.valueOf(
-                ATTACHMENT_ID));
+        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any(), any(), any())).thenReturn(
+                TextNode.valueOf(ATTACHMENT_ID));
 
         mockSchemaService = mock(UploadSchemaService.class);
 
@@ -107,7 +107,7 @@ public class GenericUploadFormatHandlerTest {
 
         ArgumentCaptor<Map> sanitizedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
         verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), sanitizedFileMapCaptor.capture(),
-                eq(sanitizeAttachmentTxtField), any());
+                eq(sanitizeAttachmentTxtField), any(), any(), any());
 
         Map<String, File> sanitizedFileMap = sanitizedFileMapCaptor.getValue();
         assertEquals(sanitizedFileMap.size(), 1);
@@ -166,7 +166,7 @@ public class GenericUploadFormatHandlerTest {
 
         ArgumentCaptor<Map> sanitizedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
         verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), sanitizedFileMapCaptor.capture(),
-                eq(sanitizeAttachmentTxtField), any());
+                eq(sanitizeAttachmentTxtField), any(), any(), any());
 
         Map<String, File> sanitizedFileMap = sanitizedFileMapCaptor.getValue();
         assertEquals(sanitizedFileMap.size(), 2);
@@ -190,7 +190,7 @@ public class GenericUploadFormatHandlerTest {
         mockSchemaServiceWithFields(fooFieldDef, barFieldDef);
 
         // Upload file helper should just return null for this test.
-        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any())).thenReturn(null);
+        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any(), any(), any())).thenReturn(null);
 
         // Setup inputs.
         String recordJsonText = "{\n" +
@@ -215,8 +215,8 @@ public class GenericUploadFormatHandlerTest {
         assertEquals(dataMap.size(), 0);
 
         // Since we skipped the data file (too large), we asked the file helper (which didn't find any results).
-        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), any(), eq(fooFieldDef), any());
-        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), any(), eq(barFieldDef), any());
+        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), any(), eq(fooFieldDef), any(), any(), any());
+        verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), any(), eq(barFieldDef), any(), any(), any());
 
         // We don't call mockUploadFileHelper for any other field.
         verifyNoMoreInteractions(mockUploadFileHelper);
@@ -228,7 +228,7 @@ public class GenericUploadFormatHandlerTest {
         mockSchemaServiceWithFields(UploadUtil.ANSWERS_FIELD_DEF);
 
         // Mock dependencies.
-        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any())).thenReturn(null);
+        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any(), any(), any())).thenReturn(null);
         when(mockUploadFileHelper.uploadJsonNodeAsAttachment(any(), any(), any())).thenReturn(TextNode.valueOf(
                 "answers-attachment-id"));
 
@@ -272,7 +272,7 @@ public class GenericUploadFormatHandlerTest {
         mockSchemaServiceWithFields(answersStringFieldDef);
 
         // Mock dependencies.
-        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any())).thenReturn(null);
+        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any(), any(), any())).thenReturn(null);
 
         // Setup inputs.
         String recordJsonText = "{\n" +
@@ -309,7 +309,7 @@ public class GenericUploadFormatHandlerTest {
         mockSchemaServiceWithFields(UploadUtil.ANSWERS_FIELD_DEF);
 
         // Mock dependencies.
-        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any())).thenReturn(null);
+        when(mockUploadFileHelper.findValueForField(any(), any(), any(), any(), any(), any())).thenReturn(null);
 
         // Setup inputs.
         UploadValidationContext context = makeContextWithContent(ImmutableMap.of());
@@ -408,7 +408,7 @@ public class GenericUploadFormatHandlerTest {
         // Verify call to findValueForField. This passes in both "answers" and "record.json".
         ArgumentCaptor<Map> sanitizedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
         verify(mockUploadFileHelper).findValueForField(eq(UPLOAD_ID), sanitizedFileMapCaptor.capture(),
-                eq(UploadUtil.ANSWERS_FIELD_DEF), any());
+                eq(UploadUtil.ANSWERS_FIELD_DEF), any(), any(), any());
 
         Map<String, File> sanitizedFileMap = sanitizedFileMapCaptor.getValue();
         assertEquals(sanitizedFileMap.size(), 2);
@@ -455,7 +455,7 @@ public class GenericUploadFormatHandlerTest {
         schema.setRevision(SCHEMA_REV);
         schema.setFieldDefinitions(ImmutableList.copyOf(fieldDefVarargs));
 
-        when(mockSchemaService.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(schema);
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV)).thenReturn(schema);
     }
 
     // Makes a realistic info.json for the test.
@@ -37,14 +37,13 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         survey.setSchemaRevision(4);
 
         SurveyService mockSurveyService = mock(SurveyService.class);
-        when(mockSurveyService.getSurvey(eq(TEST_APP_ID),
-                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)), eq(false),
-                eq(true))).thenReturn(survey);
+        when(mockSurveyService.getCachedSurvey(eq(TEST_APP_ID),
+                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)))).thenReturn(survey);
 
         // mock upload schema service
         UploadSchema dummySchema = UploadSchema.create();
         UploadSchemaService mockSchemaSvc = mock(UploadSchemaService.class);
-        when(mockSchemaSvc.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, "test-survey", 4)).thenReturn(
+        when(mockSchemaSvc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "test-survey", 4)).thenReturn(
                 dummySchema);
 
         // set up test handler
@@ -70,9 +69,8 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         survey.setSchemaRevision(4);
 
         SurveyService mockSurveyService = mock(SurveyService.class);
-        when(mockSurveyService.getSurvey(eq(TEST_APP_ID),
-                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)), eq(false),
-                eq(true))).thenReturn(survey);
+        when(mockSurveyService.getCachedSurvey(eq(TEST_APP_ID),
+                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)))).thenReturn(survey);
 
         // set up test handler
         IosSchemaValidationHandler2 handler = new IosSchemaValidationHandler2();
@@ -96,9 +94,8 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         survey.setIdentifier("test-survey");
 
         SurveyService mockSurveyService = mock(SurveyService.class);
-        when(mockSurveyService.getSurvey(eq(TEST_APP_ID),
-                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)), eq(false),
-                eq(true))).thenReturn(survey);
+        when(mockSurveyService.getCachedSurvey(eq(TEST_APP_ID),
+                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)))).thenReturn(survey);
 
         // set up test handler
         IosSchemaValidationHandler2 handler = new IosSchemaValidationHandler2();
@@ -123,9 +120,8 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         survey.setSchemaRevision(4);
 
         SurveyService mockSurveyService = mock(SurveyService.class);
-        when(mockSurveyService.getSurvey(eq(TEST_APP_ID),
-                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)), eq(false),
-                eq(true))).thenReturn(survey);
+        when(mockSurveyService.getCachedSurvey(eq(TEST_APP_ID),
+                eq(new GuidCreatedOnVersionHolderImpl("test-guid", TEST_SURVEY_CREATED_ON_MILLIS)))).thenReturn(survey);
 
         // Set up test handler
         IosSchemaValidationHandler2 handler = new IosSchemaValidationHandler2();
@@ -148,7 +144,7 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         // mock upload schema service
         UploadSchema dummySchema = UploadSchema.create();
         UploadSchemaService mockSchemaSvc = mock(UploadSchemaService.class);
-        when(mockSchemaSvc.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, "test-schema", 1)).thenReturn(
+        when(mockSchemaSvc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "test-schema", 1)).thenReturn(
                 dummySchema);
 
         // set up test handler
@@ -170,7 +166,7 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         // mock upload schema service
         UploadSchema dummySchema = UploadSchema.create();
         UploadSchemaService mockSchemaSvc = mock(UploadSchemaService.class);
-        when(mockSchemaSvc.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, "schema-rev-test", 2)).thenReturn(
+        when(mockSchemaSvc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "schema-rev-test", 2)).thenReturn(
                 dummySchema);
 
         // set up test handler
@@ -192,7 +188,7 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         // mock upload schema service
         UploadSchema dummySchema = UploadSchema.create();
         UploadSchemaService mockSchemaSvc = mock(UploadSchemaService.class);
-        when(mockSchemaSvc.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, "schema-rev-test", 3))
+        when(mockSchemaSvc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "schema-rev-test", 3))
                 .thenReturn(dummySchema);
 
         // set up test handler
@@ -215,7 +211,7 @@ public class IosSchemaValidationHandler2GetSchemaTest {
         // mock upload schema service
         UploadSchema dummySchema = UploadSchema.create();
         UploadSchemaService mockSchemaSvc = mock(UploadSchemaService.class);
-        when(mockSchemaSvc.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, "test-schema", 1)).thenReturn(
+        when(mockSchemaSvc.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "test-schema", 1)).thenReturn(
                 dummySchema);
 
         // set up test handler
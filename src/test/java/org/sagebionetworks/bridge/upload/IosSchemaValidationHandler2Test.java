@@ -132,9 +132,9 @@ public class IosSchemaValidationHandler2Test {
 
         // mock upload schema service
         UploadSchemaService mockSchemaService = mock(UploadSchemaService.class);
-        when(mockSchemaService.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, "test-survey", 1))
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "test-survey", 1))
                 .thenReturn(surveySchema);
-        when(mockSchemaService.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, "non-survey", 1))
+        when(mockSchemaService.getCachedUploadSchemaByIdAndRev(TEST_APP_ID, "non-survey", 1))
                 .thenReturn(nonSurveySchema);
 
         // mock upload file helper
@@ -367,7 +367,7 @@ public class IosSchemaValidationHandler2Test {
         // filename sanitization.
 
         // Mock Upload File Helper
-        when(mockUploadFileHelper.findValueForField(eq(TEST_UPLOAD_ID), any(), any(), any())).thenReturn(
+        when(mockUploadFileHelper.findValueForField(eq(TEST_UPLOAD_ID), any(), any(), any(), any(), any())).thenReturn(
                 TextNode.valueOf("dummy-attachment-id"));
 
         // fill in context with JSON data
@@ -403,7 +403,7 @@ public class IosSchemaValidationHandler2Test {
         ArgumentCaptor<Map> sanizitedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
         ArgumentCaptor<UploadFieldDefinition> fieldDefCaptor = ArgumentCaptor.forClass(UploadFieldDefinition.class);
         verify(mockUploadFileHelper).findValueForField(eq(TEST_UPLOAD_ID), sanizitedFileMapCaptor.capture(),
-                fieldDefCaptor.capture(), any());
+                fieldDefCaptor.capture(), any(), any(), any());
 
         Map<String, File> sanitizedFileMap = sanizitedFileMapCaptor.getValue();
         assertEquals(sanitizedFileMap.size(), 1);
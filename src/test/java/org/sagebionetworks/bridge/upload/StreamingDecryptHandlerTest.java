@@ -0,0 +1,134 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.file.InMemoryFileHelper;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+
+public class StreamingDecryptHandlerTest {
+    private static final String APP_ID = "test-app";
+    private static final byte[] ENCRYPTED_CONTENT = "encrypted test data".getBytes(Charsets.UTF_8);
+    private static final byte[] DECRYPTED_CONTENT = "decrypted test data".getBytes(Charsets.UTF_8);
+    private static final String UPLOAD_ID = "test-upload-id";
+
+    private UploadValidationContext ctx;
+    private InMemoryFileHelper fileHelper;
+    private StreamingDecryptHandler handler;
+    private UploadArchiveService mockSvc;
+
+    @BeforeMethod
+    public void before() throws Exception {
+        // Set up file helper.
+        fileHelper = new InMemoryFileHelper();
+        File tmpDir = fileHelper.createTempDir();
+
+        // inputs
+        DynamoUpload2 upload = new DynamoUpload2();
+        upload.setUploadId(UPLOAD_ID);
+
+        ctx = new UploadValidationContext();
+        ctx.setAppId(APP_ID);
+        ctx.setTempDir(tmpDir);
+        ctx.setUpload(upload);
+
+        // mock S3 client. In DynamoUpload2, object ID and upload ID are the same.
+        S3Object s3Object = new S3Object();
+        s3Object.setObjectContent(new ByteArrayInputStream(ENCRYPTED_CONTENT));
+
+        AmazonS3Client mockS3Client = mock(AmazonS3Client.class);
+        when(mockS3Client.getObject(TestConstants.UPLOAD_BUCKET, UPLOAD_ID)).thenReturn(s3Object);
+
+        // mock UploadArchiveService
+        mockSvc = mock(UploadArchiveService.class);
+        when(mockSvc.decrypt(eq(APP_ID), any(InputStream.class))).thenReturn(new ByteArrayInputStream(
+                DECRYPTED_CONTENT));
+
+        // set up test handler
+        handler = spy(new StreamingDecryptHandler());
+        handler.setFileHelper(fileHelper);
+        handler.setS3Client(mockS3Client);
+        handler.setUploadArchiveService(mockSvc);
+
+        // Don't actually buffer the input stream, as this breaks the test.
+        doAnswer(invocation -> invocation.getArgument(0)).when(handler).getBufferedInputStream(any());
+    }
+
+    @Test
+    public void smallArchiveStaysInMemory() throws Exception {
+        handler.handle(ctx);
+        assertEquals(ctx.getDecryptedData(), DECRYPTED_CONTENT);
+        assertNull(ctx.getDataFile());
+        assertNull(ctx.getDecryptedDataFile());
+
+        // Verify the S3 stream was passed into the decryptor.
+        ArgumentCaptor<InputStream> encryptedInputStreamCaptor = ArgumentCaptor.forClass(InputStream.class);
+        verify(mockSvc).decrypt(eq(APP_ID), encryptedInputStreamCaptor.capture());
+        InputStream encryptedInputStream = encryptedInputStreamCaptor.getValue();
+        assertEquals(ByteStreams.toByteArray(encryptedInputStream), ENCRYPTED_CONTENT);
+    }
+
+    @Test
+    public void archiveAtThresholdStaysInMemory() throws Exception {
+        handler.setSpillThresholdBytes(DECRYPTED_CONTENT.length);
+        handler.handle(ctx);
+        assertEquals(ctx.getDecryptedData(), DECRYPTED_CONTENT);
+        assertNull(ctx.getDecryptedDataFile());
+    }
+
+    @Test
+    public void largeArchiveSpillsToDisk() throws Exception {
+        handler.setSpillThresholdBytes(4);
+        handler.handle(ctx);
+        assertNull(ctx.getDecryptedData());
+
+        File decryptedDataFile = ctx.getDecryptedDataFile();
+        assertEquals(decryptedDataFile.getName(), UPLOAD_ID + ".zip");
+        assertEquals(fileHelper.getBytes(decryptedDataFile), DECRYPTED_CONTENT);
+    }
+
+    @Test
+    public void spillThresholdFromConfig() throws Exception {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.get(StreamingDecryptHandler.SPILL_THRESHOLD_PROPERTY)).thenReturn("4");
+        handler.setBridgeConfig(mockConfig);
+
+        handler.handle(ctx);
+        assertNull(ctx.getDecryptedData());
+        assertEquals(fileHelper.getBytes(ctx.getDecryptedDataFile()), DECRYPTED_CONTENT);
+    }
+
+    @Test(expectedExceptions = UploadValidationException.class)
+    public void decryptError() throws Exception {
+        when(mockSvc.decrypt(eq(APP_ID), any(InputStream.class))).thenReturn(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("test exception");
+            }
+        });
+        handler.handle(ctx);
+    }
+}
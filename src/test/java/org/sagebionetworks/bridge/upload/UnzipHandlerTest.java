@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.upload;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -90,4 +91,29 @@ public class UnzipHandlerTest {
         byte[] zippedFileInputStreamContent = ByteStreams.toByteArray(zippedFileInputStream);
         assertEquals(zippedFileInputStreamContent, ZIPPED_FILE_DUMMY_CONTENT);
     }
+
+    @Test
+    public void inMemoryData() throws Exception {
+        // In streaming mode, the decrypted data is held in memory instead of in a file.
+        InMemoryFileHelper inMemoryFileHelper = new InMemoryFileHelper();
+        File tmpDir = inMemoryFileHelper.createTempDir();
+
+        UploadValidationContext ctx = new UploadValidationContext();
+        ctx.setTempDir(tmpDir);
+        ctx.setDecryptedData(ZIPPED_FILE_DUMMY_CONTENT);
+
+        UploadArchiveService mockSvc = mock(UploadArchiveService.class);
+
+        UnzipHandler handler = new UnzipHandler();
+        handler.setFileHelper(inMemoryFileHelper);
+        handler.setUploadArchiveService(mockSvc);
+
+        // execute and verify the in-memory data is passed into mockSvc
+        handler.handle(ctx);
+        assertTrue(ctx.getUnzippedDataFileMap().isEmpty());
+
+        ArgumentCaptor<InputStream> zippedFileInputStreamCaptor = ArgumentCaptor.forClass(InputStream.class);
+        verify(mockSvc).unzip(zippedFileInputStreamCaptor.capture(), any(), any());
+        assertEquals(ByteStreams.toByteArray(zippedFileInputStreamCaptor.getValue()), ZIPPED_FILE_DUMMY_CONTENT);
+    }
 }
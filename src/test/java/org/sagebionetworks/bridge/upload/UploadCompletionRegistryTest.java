@@ -0,0 +1,160 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.cache.CacheInvalidationBus;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+public class UploadCompletionRegistryTest extends Mockito {
+    private static final String UPLOAD_ID = "upload-id";
+
+    @Mock
+    CacheInvalidationBus mockCacheInvalidationBus;
+
+    @Mock
+    BridgeConfig mockBridgeConfig;
+
+    @Captor
+    ArgumentCaptor<Consumer<String>> listenerCaptor;
+
+    UploadCompletionRegistry registry;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockBridgeConfig.get(UploadCompletionRegistry.PUBSUB_ENABLED_PROPERTY)).thenReturn("true");
+
+        registry = new UploadCompletionRegistry();
+        registry.setBridgeConfig(mockBridgeConfig);
+        registry.setCacheInvalidationBus(mockCacheInvalidationBus);
+    }
+
+    @Test
+    public void signalCompletesAllWaiters() {
+        CompletableFuture<Void> future1 = registry.register(UPLOAD_ID);
+        CompletableFuture<Void> future2 = registry.register(UPLOAD_ID);
+        CompletableFuture<Void> otherFuture = registry.register("other-upload-id");
+        assertEquals(registry.getWaitingCount(), 3);
+
+        registry.signalCompletion(UPLOAD_ID);
+        assertTrue(future1.isDone());
+        assertTrue(future2.isDone());
+        assertFalse(otherFuture.isDone());
+        assertEquals(registry.getWaitingCount(), 1);
+
+        verify(mockCacheInvalidationBus).publish(UploadCompletionRegistry.UPLOAD_COMPLETION_CHANNEL, UPLOAD_ID);
+    }
+
+    @Test
+    public void signalWithNoWaiters() {
+        registry.signalCompletion(UPLOAD_ID);
+        assertEquals(registry.getWaitingCount(), 0);
+        verify(mockCacheInvalidationBus).publish(UploadCompletionRegistry.UPLOAD_COMPLETION_CHANNEL, UPLOAD_ID);
+    }
+
+    @Test
+    public void signalNotPublishedWhenPubSubDisabled() {
+        when(mockBridgeConfig.get(UploadCompletionRegistry.PUBSUB_ENABLED_PROPERTY)).thenReturn("false");
+        registry.setBridgeConfig(mockBridgeConfig);
+        CompletableFuture<Void> future = registry.register(UPLOAD_ID);
+
+        registry.signalCompletion(UPLOAD_ID);
+        assertTrue(future.isDone());
+        verify(mockCacheInvalidationBus, never()).publish(any(), any());
+    }
+
+    @Test
+    public void signalFromOtherNodeCompletesWaiters() {
+        verify(mockCacheInvalidationBus).addListener(eq(UploadCompletionRegistry.UPLOAD_COMPLETION_CHANNEL),
+                listenerCaptor.capture());
+        CompletableFuture<Void> future = registry.register(UPLOAD_ID);
+
+        listenerCaptor.getValue().accept(UPLOAD_ID);
+        assertTrue(future.isDone());
+        assertEquals(registry.getWaitingCount(), 0);
+        verify(mockCacheInvalidationBus, never()).publish(any(), any());
+    }
+
+    @Test
+    public void cancelledWaiterIsRemoved() {
+        CompletableFuture<Void> cancelledFuture = registry.register(UPLOAD_ID);
+        CompletableFuture<Void> future = registry.register(UPLOAD_ID);
+
+        cancelledFuture.cancel(false);
+        assertEquals(registry.getWaitingCount(), 1);
+
+        registry.signalCompletion(UPLOAD_ID);
+        assertTrue(future.isDone());
+        assertFalse(future.isCancelled());
+        assertEquals(registry.getWaitingCount(), 0);
+    }
+
+    @Test
+    public void concurrentCompletions() throws Exception {
+        int numUploads = 500;
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            // Every upload has two waiters, registered concurrently, and is then completed concurrently with all the
+            // other uploads.
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<CompletableFuture<Void>>> registrations = new ArrayList<>();
+            for (int i = 0; i < numUploads; i++) {
+                String uploadId = "upload-" + i;
+                for (int j = 0; j < 2; j++) {
+                    registrations.add(executorService.submit(() -> {
+                        startLatch.await();
+                        return registry.register(uploadId);
+                    }));
+                }
+            }
+            startLatch.countDown();
+            List<CompletableFuture<Void>> waiters = new ArrayList<>();
+            for (Future<CompletableFuture<Void>> registration : registrations) {
+                waiters.add(registration.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(registry.getWaitingCount(), numUploads * 2);
+
+            CountDownLatch signalLatch = new CountDownLatch(1);
+            List<Future<?>> signals = new ArrayList<>();
+            for (int i = 0; i < numUploads; i++) {
+                String uploadId = "upload-" + i;
+                signals.add(executorService.submit(() -> {
+                    signalLatch.await();
+                    registry.signalCompletion(uploadId);
+                    return null;
+                }));
+            }
+            signalLatch.countDown();
+            for (Future<?> signal : signals) {
+                signal.get(10, TimeUnit.SECONDS);
+            }
+
+            CompletableFuture.allOf(waiters.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertEquals(registry.getWaitingCount(), 0);
+            verify(mockCacheInvalidationBus, times(numUploads)).publish(
+                    eq(UploadCompletionRegistry.UPLOAD_COMPLETION_CHANNEL), any());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
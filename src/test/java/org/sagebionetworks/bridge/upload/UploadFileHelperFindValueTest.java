@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.upload;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -10,21 +11,31 @@ import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.file.InMemoryFileHelper;
 import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
 import org.sagebionetworks.bridge.models.upload.UploadFieldType;
@@ -39,6 +50,7 @@ public class UploadFileHelperFindValueTest {
     private S3Helper mockS3Helper;
     private File tmpDir;
     private UploadFileHelper uploadFileHelper;
+    private AttachmentUploadBatch attachmentUploads;
     private ArgumentCaptor<ObjectMetadata> metadataCaptor;
 
     @BeforeMethod
@@ -49,10 +61,6 @@ public class UploadFileHelperFindValueTest {
         tmpDir = inMemoryFileHelper.createTempDir();
 
         // Mock dependencies.
-        DigestUtils mockMd5DigestUtils = mock(DigestUtils.class);
-        when(mockMd5DigestUtils.digest(any(File.class))).thenReturn(TestConstants.MOCK_MD5);
-        when(mockMd5DigestUtils.digest(any(byte[].class))).thenReturn(TestConstants.MOCK_MD5);
-
         mockS3Helper = mock(S3Helper.class);
 
         metadataCaptor = ArgumentCaptor.forClass(ObjectMetadata.class);
@@ -60,8 +68,11 @@ public class UploadFileHelperFindValueTest {
         // Create UploadFileHelper.
         uploadFileHelper = new UploadFileHelper();
         uploadFileHelper.setFileHelper(inMemoryFileHelper);
-        uploadFileHelper.setMd5DigestUtils(mockMd5DigestUtils);
         uploadFileHelper.setS3Helper(mockS3Helper);
+
+        // Attachments are uploaded on the calling thread, so tests can verify them right away.
+        uploadFileHelper.setAttachmentUploadExecutorService(MoreExecutors.newDirectExecutorService());
+        attachmentUploads = new AttachmentUploadBatch(UPLOAD_ID);
     }
 
     @Test
@@ -76,8 +87,11 @@ public class UploadFileHelperFindValueTest {
 
         // Execute
         String expectedAttachmentFilename = UPLOAD_ID + '-' + FIELD_NAME_FILE;
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertEquals(result.textValue(), expectedAttachmentFilename);
+        assertEquals(attachmentUploads.getPendingCount(), 1);
+        attachmentUploads.join();
 
         // Verify uploaded file
         verify(mockS3Helper).writeFileToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(expectedAttachmentFilename),
@@ -85,10 +99,63 @@ public class UploadFileHelperFindValueTest {
 
         ObjectMetadata metadata = metadataCaptor.getValue();
         assertEquals(metadata.getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
-                TestConstants.MOCK_MD5_HEX_ENCODED);
+                DigestUtils.md5Hex("dummy content"));
         assertEquals(metadata.getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
     }
 
+    @Test
+    public void attachmentFileUploadErrorIsThrownOnJoin() throws Exception {
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_FILE)
+                .withType(UploadFieldType.ATTACHMENT_V2).build();
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, "dummy content");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+        doThrow(IOException.class).when(mockS3Helper).writeFileToS3(any(), any(), any(File.class), any());
+
+        // The value is returned before the attachment upload is checked.
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
+        assertEquals(result.textValue(), UPLOAD_ID + '-' + FIELD_NAME_FILE);
+
+        try {
+            attachmentUploads.join();
+            fail("expected exception");
+        } catch (UploadValidationException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void attachmentFilesInFlightAreBoundedPerUpload() throws Exception {
+        // Mock executor, so that uploads are only finished when they're waited for.
+        Future<Object> mockFooFuture = mock(Future.class);
+        Future<Object> mockBarFuture = mock(Future.class);
+        ExecutorService mockExecutorService = mock(ExecutorService.class);
+        when(mockExecutorService.submit(any(Callable.class))).thenReturn(mockFooFuture, mockBarFuture);
+        uploadFileHelper.setAttachmentUploadExecutorService(mockExecutorService);
+        uploadFileHelper.setMaxAttachmentUploadsPerUpload(1);
+
+        UploadFieldDefinition fooFieldDef = new UploadFieldDefinition.Builder().withName("foo.bin")
+                .withType(UploadFieldType.ATTACHMENT_V2).build();
+        UploadFieldDefinition barFieldDef = new UploadFieldDefinition.Builder().withName("bar.bin")
+                .withType(UploadFieldType.ATTACHMENT_V2).build();
+        Map<String, File> fileMap = ImmutableMap.of("foo.bin", makeFileWithContent("foo.bin", "foo"),
+                "bar.bin", makeFileWithContent("bar.bin", "bar"));
+
+        uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fooFieldDef, ImmutableSet.of(), new HashMap<>(),
+                attachmentUploads);
+        verify(mockFooFuture, times(0)).get();
+
+        // The second attachment has to wait for the first.
+        uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, barFieldDef, ImmutableSet.of(), new HashMap<>(),
+                attachmentUploads);
+        verify(mockFooFuture).get();
+        assertEquals(attachmentUploads.getPendingCount(), 1);
+
+        attachmentUploads.join();
+        verify(mockBarFuture).get();
+    }
+
     @Test
     public void attachmentFileEmpty() throws Exception {
         // Make field def.
@@ -100,7 +167,8 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertNull(result);
 
         // Verify no uploaded files
@@ -118,7 +186,8 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertEquals(result.textValue(), "dummy content");
 
         // Verify no uploaded files
@@ -140,7 +209,8 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertNull(result);
 
         // Verify no uploaded files
@@ -160,7 +230,8 @@ public class UploadFileHelperFindValueTest {
                 .put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertNull(result);
 
         // Verify no uploaded files
@@ -181,7 +252,8 @@ public class UploadFileHelperFindValueTest {
 
         // Execute
         String expectedAttachmentFilename = UPLOAD_ID + '-' + FIELD_NAME_JSON_KEY;
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertEquals(result.textValue(), expectedAttachmentFilename);
 
         // Verify uploaded file
@@ -189,7 +261,7 @@ public class UploadFileHelperFindValueTest {
                 eq("\"record-value\"".getBytes(Charsets.UTF_8)), metadataCaptor.capture());
 
         ObjectMetadata metadata = metadataCaptor.getValue();
-        assertEquals(TestConstants.MOCK_MD5_HEX_ENCODED, metadata.getUserMetaDataOf(
+        assertEquals(DigestUtils.md5Hex("\"record-value\""), metadata.getUserMetaDataOf(
                 UploadFileHelper.KEY_CUSTOM_CONTENT_MD5));
         assertEquals(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION, metadata.getSSEAlgorithm());
     }
@@ -207,7 +279,8 @@ public class UploadFileHelperFindValueTest {
                 .put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertEquals(result.textValue(), "record-value");
 
         // Verify no uploaded files
@@ -230,7 +303,8 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.<String, File>builder().put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute - The file is too large. Skip.
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertEquals(result.textValue(), "Long but not too long");
 
         // Verify no uploaded files
@@ -253,7 +327,8 @@ public class UploadFileHelperFindValueTest {
         Map<String, File> fileMap = ImmutableMap.<String, File>builder().put(FIELD_NAME_FILE, recordJsonFile).build();
 
         // Execute - The file is long enough to warn, but not long enough to skip.
-        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(fieldDef.getName()), new HashMap<>(), attachmentUploads);
         assertNull(result);
 
         // Verify no uploaded files
@@ -278,11 +353,14 @@ public class UploadFileHelperFindValueTest {
 
         // Execute
         Map<String, Map<String, JsonNode>> cache = new HashMap<>();
+        Set<String> schemaFieldNames = ImmutableSet.of(fooFieldDef.getName(), barFieldDef.getName());
 
-        JsonNode fooResult = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fooFieldDef, cache);
+        JsonNode fooResult = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fooFieldDef, schemaFieldNames,
+                cache, attachmentUploads);
         assertEquals(fooResult.textValue(), "foo-value");
 
-        JsonNode barResult = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, barFieldDef, cache);
+        JsonNode barResult = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, barFieldDef, schemaFieldNames,
+                cache, attachmentUploads);
         assertEquals(barResult.textValue(), "bar-value");
 
         // Verify no uploaded files
@@ -292,6 +370,75 @@ public class UploadFileHelperFindValueTest {
         verify(inMemoryFileHelper, times(1)).getInputStream(recordJsonFile);
     }
 
+    @Test
+    public void onlyKeysInSchemaAreParsed() throws Exception {
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_JSON_KEY)
+                .withType(UploadFieldType.INT).build();
+
+        // The samples come before the key we want, and aren't in the schema.
+        String recordJsonText = "{\"items\":[{\"x\":1.0,\"y\":2.0},{\"x\":3.0,\"y\":4.0}],\"foo\":42,\"bar\":\"baz\"}";
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, recordJsonText);
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+
+        Map<String, Map<String, JsonNode>> cache = new HashMap<>();
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef,
+                ImmutableSet.of(FIELD_NAME_JSON_KEY, "other.json.items"), cache, attachmentUploads);
+        assertEquals(result.intValue(), 42);
+
+        // Only the key in the schema is in the cache.
+        assertEquals(cache.get(FIELD_NAME_FILE).keySet(), ImmutableSet.of("foo"));
+    }
+
+    @Test
+    public void parseTopLevelKeys() throws Exception {
+        String jsonText = "{\"samples\":[[1,2],[3,4]],\"sanitize!@#$foo\":{\"nested\":[1,2,3]},\"bar\":null}";
+        Map<String, JsonNode> result = UploadFileHelper.parseTopLevelKeys(toInputStream(jsonText),
+                ImmutableSet.of("sanitize____foo", "bar", "missing"));
+
+        assertEquals(result.size(), 2);
+        assertEquals(result.get("sanitize____foo").get("nested").size(), 3);
+        assertTrue(result.get("bar").isNull());
+    }
+
+    @Test
+    public void parseTopLevelKeysLastValueWins() throws Exception {
+        // "foo" appears twice, and "bar!" and "bar@" both sanitize to "bar_".
+        String jsonText = "{\"foo\":\"foo-first\",\"bar!\":\"bar-first\",\"samples\":[1,2],"
+                + "\"foo\":\"foo-second\",\"bar@\":\"bar-second\"}";
+        Map<String, JsonNode> result = UploadFileHelper.parseTopLevelKeys(toInputStream(jsonText),
+                ImmutableSet.of("foo", "bar_"));
+
+        assertEquals(result.size(), 2);
+        assertEquals(result.get("foo").textValue(), "foo-second");
+        assertEquals(result.get("bar_").textValue(), "bar-second");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void parseTopLevelKeysReadsWholeFile() throws Exception {
+        // Values after the last key found could still replace it, so a truncated file is still malformed.
+        String jsonText = "{\"foo\":\"foo-value\",\"samples\":[1,2,";
+        UploadFileHelper.parseTopLevelKeys(toInputStream(jsonText), ImmutableSet.of("foo"));
+    }
+
+    @Test
+    public void parseTopLevelKeysNotAnObject() throws Exception {
+        Map<String, JsonNode> result = UploadFileHelper.parseTopLevelKeys(toInputStream("[{\"foo\":1}]"),
+                ImmutableSet.of("foo"));
+        assertTrue(result.isEmpty());
+
+        result = UploadFileHelper.parseTopLevelKeys(toInputStream(""), ImmutableSet.of("foo"));
+        assertTrue(result.isEmpty());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void parseTopLevelKeysMalformed() throws Exception {
+        UploadFileHelper.parseTopLevelKeys(toInputStream("{\"foo\":"), ImmutableSet.of("foo"));
+    }
+
+    private static InputStream toInputStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(Charsets.UTF_8));
+    }
+
     private File makeFileWithContent(String name, String content) {
         File file = inMemoryFileHelper.newFile(tmpDir, name);
         inMemoryFileHelper.writeBytes(file, content.getBytes(Charsets.UTF_8));
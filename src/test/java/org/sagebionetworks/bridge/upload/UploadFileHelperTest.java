@@ -3,14 +3,30 @@ package org.sagebionetworks.bridge.upload;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.Upload;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
@@ -19,7 +35,8 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.s3.S3Helper;
 
 public class UploadFileHelperTest {
@@ -27,10 +44,16 @@ public class UploadFileHelperTest {
     private static final String FILENAME = "file.txt";
 
     @Mock
-    DigestUtils mockMd5DigestUtils;
+    S3Helper mockS3Helper;
 
     @Mock
-    S3Helper mockS3Helper;
+    FileHelper mockFileHelper;
+
+    @Mock
+    TransferManager mockTransferManager;
+
+    @Mock
+    BridgeConfig mockBridgeConfig;
 
     @InjectMocks
     UploadFileHelper helper;
@@ -39,8 +62,9 @@ public class UploadFileHelperTest {
     public void before() throws Exception {
         MockitoAnnotations.initMocks(this);
 
-        when(mockMd5DigestUtils.digest(any(File.class))).thenReturn(TestConstants.MOCK_MD5);
-        when(mockMd5DigestUtils.digest(any(byte[].class))).thenReturn(TestConstants.MOCK_MD5);
+        when(mockBridgeConfig.getInt(UploadFileHelper.MAX_ATTACHMENT_UPLOADS_PER_UPLOAD_PROPERTY)).thenReturn(4);
+        when(mockBridgeConfig.getInt(UploadFileHelper.MULTIPART_THRESHOLD_PROPERTY)).thenReturn(1000);
+        helper.setBridgeConfig(mockBridgeConfig);
     }
 
     @Test
@@ -54,7 +78,7 @@ public class UploadFileHelperTest {
                 metadataCaptor.capture());
         ObjectMetadata metadata = metadataCaptor.getValue();
         assertEquals(metadata.getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
-                TestConstants.MOCK_MD5_HEX_ENCODED);
+                DigestUtils.md5Hex(CONTENT));
         assertEquals(metadata.getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
     }
 
@@ -62,6 +86,7 @@ public class UploadFileHelperTest {
     public void uploadFileAsAttachment() throws Exception {
         // Execute.
         File mockFile = mock(File.class);
+        when(mockFileHelper.getInputStream(mockFile)).thenReturn(new ByteArrayInputStream(CONTENT));
         helper.uploadFileAsAttachment(FILENAME, mockFile);
 
         // Verify.
@@ -70,7 +95,82 @@ public class UploadFileHelperTest {
                 metadataCaptor.capture());
         ObjectMetadata metadata = metadataCaptor.getValue();
         assertEquals(metadata.getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
-                TestConstants.MOCK_MD5_HEX_ENCODED);
+                DigestUtils.md5Hex(CONTENT));
         assertEquals(metadata.getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+        verifyZeroInteractions(mockTransferManager);
+    }
+
+    @Test
+    public void uploadLargeFileAsAttachment() throws Exception {
+        File mockFile = mock(File.class);
+        when(mockFileHelper.getInputStream(mockFile)).thenReturn(new ByteArrayInputStream(CONTENT));
+        when(mockFileHelper.fileSize(mockFile)).thenReturn(1000L);
+        Upload mockUpload = mock(Upload.class);
+        when(mockTransferManager.upload(any(PutObjectRequest.class))).thenReturn(mockUpload);
+
+        // Execute.
+        helper.uploadFileAsAttachment(FILENAME, mockFile);
+
+        // Verify.
+        ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(mockTransferManager).upload(requestCaptor.capture());
+        verify(mockUpload).waitForCompletion();
+        verifyZeroInteractions(mockS3Helper);
+
+        PutObjectRequest request = requestCaptor.getValue();
+        assertEquals(request.getBucketName(), UploadFileHelper.ATTACHMENT_BUCKET);
+        assertEquals(request.getKey(), FILENAME);
+        assertSame(request.getFile(), mockFile);
+        assertEquals(request.getMetadata().getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
+                DigestUtils.md5Hex(CONTENT));
+        assertEquals(request.getMetadata().getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+    }
+
+    @Test
+    public void uploadAttachmentsConcurrently() throws Exception {
+        // Each attachment is large enough that the digests overlap, and has its own content.
+        int numAttachments = 20;
+        List<byte[]> contentList = new ArrayList<>();
+        for (int i = 0; i < numAttachments; i++) {
+            byte[] content = new byte[1024 * 1024];
+            Arrays.fill(content, (byte) i);
+            contentList.add(content);
+        }
+
+        ConcurrentMap<String, String> md5ByFilename = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            ObjectMetadata metadata = invocation.getArgument(3);
+            md5ByFilename.put(invocation.getArgument(1),
+                    metadata.getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5));
+            return null;
+        }).when(mockS3Helper).writeBytesToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), any(), any(), any());
+
+        // Execute. Start all the uploads at the same time.
+        ExecutorService executorService = Executors.newFixedThreadPool(numAttachments);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<?>> futureList = new ArrayList<>();
+            for (int i = 0; i < numAttachments; i++) {
+                String filename = "attachment-" + i;
+                byte[] content = contentList.get(i);
+                futureList.add(executorService.submit(() -> {
+                    startLatch.await();
+                    helper.uploadBytesAsAttachment(filename, content);
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<?> future : futureList) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        // Verify each attachment has the MD5 of its own content.
+        assertEquals(md5ByFilename.size(), numAttachments);
+        for (int i = 0; i < numAttachments; i++) {
+            assertEquals(md5ByFilename.get("attachment-" + i), DigestUtils.md5Hex(contentList.get(i)));
+        }
     }
 }
@@ -5,10 +5,8 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 
-import java.io.File;
 import java.io.IOException;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -20,7 +18,6 @@ import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.s3.S3Helper;
 
 public class UploadFileHelperUploadJsonAttachmentTest {
@@ -33,14 +30,9 @@ public class UploadFileHelperUploadJsonAttachmentTest {
 
     @BeforeMethod
     public void before() throws Exception {
-        DigestUtils mockMd5DigestUtils = mock(DigestUtils.class);
-        when(mockMd5DigestUtils.digest(any(File.class))).thenReturn(TestConstants.MOCK_MD5);
-        when(mockMd5DigestUtils.digest(any(byte[].class))).thenReturn(TestConstants.MOCK_MD5);
-
         mockS3Helper = mock(S3Helper.class);
 
         uploadFileHelper = new UploadFileHelper();
-        uploadFileHelper.setMd5DigestUtils(mockMd5DigestUtils);
         uploadFileHelper.setS3Helper(mockS3Helper);
     }
 
@@ -57,6 +49,8 @@ public class UploadFileHelperUploadJsonAttachmentTest {
         verify(mockS3Helper).writeBytesToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(EXPECTED_ATTACHMENT_NAME),
                 eq("\"dummy content\"".getBytes(Charsets.UTF_8)), metadataCaptor.capture());
         
+        assertEquals(metadataCaptor.getValue().getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
+                DigestUtils.md5Hex("\"dummy content\""));
         assertEquals(metadataCaptor.getValue().getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
     }
 
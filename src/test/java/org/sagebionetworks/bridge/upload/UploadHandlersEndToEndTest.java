@@ -24,7 +24,7 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import org.apache.commons.codec.digest.DigestUtils;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.joda.time.LocalDate;
@@ -189,14 +189,10 @@ public class UploadHandlersEndToEndTest {
         zippedFile = unzipService.zip(fileBytesMap);
 
         // Set up UploadFileHelper
-        DigestUtils mockMd5DigestUtils = mock(DigestUtils.class);
-        when(mockMd5DigestUtils.digest(any(File.class))).thenReturn(TestConstants.MOCK_MD5);
-        when(mockMd5DigestUtils.digest(any(byte[].class))).thenReturn(TestConstants.MOCK_MD5);
-
         UploadFileHelper uploadFileHelper = new UploadFileHelper();
         uploadFileHelper.setFileHelper(inMemoryFileHelper);
-        uploadFileHelper.setMd5DigestUtils(mockMd5DigestUtils);
         uploadFileHelper.setS3Helper(mockS3UploadHelper);
+        uploadFileHelper.setAttachmentUploadExecutorService(MoreExecutors.newDirectExecutorService());
 
         // set up S3DownloadHandler - mock S3 Helper
         // "S3" returns file unencrypted for simplicity of testing
@@ -236,15 +232,15 @@ public class UploadHandlersEndToEndTest {
         if (schema != null) {
             when(mockUploadSchemaService.getUploadSchemaByIdAndRev(TEST_APP_ID, schema.getSchemaId(),
                     schema.getRevision())).thenReturn(schema);
-            when(mockUploadSchemaService.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID,
+            when(mockUploadSchemaService.getCachedUploadSchemaByIdAndRev(TEST_APP_ID,
                     schema.getSchemaId(), schema.getRevision())).thenReturn(schema);
         }
 
         // mock survey service
         SurveyService mockSurveyService = mock(SurveyService.class);
         if (survey != null) {
-            when(mockSurveyService.getSurvey(TEST_APP_ID,
-                    new GuidCreatedOnVersionHolderImpl(survey.getGuid(), survey.getCreatedOn()), false, true))
+            when(mockSurveyService.getCachedSurvey(TEST_APP_ID,
+                    new GuidCreatedOnVersionHolderImpl(survey.getGuid(), survey.getCreatedOn())))
                             .thenReturn(survey);
         }
 
@@ -312,6 +308,8 @@ public class UploadHandlersEndToEndTest {
         taskFactory.setHandlerList(handlerList);
         taskFactory.setUploadDao(mockUploadDao);
         taskFactory.setHealthDataService(mockHealthDataService);
+        taskFactory.setUploadValidationMetrics(new UploadValidationMetrics());
+        taskFactory.setUploadCompletionRegistry(new UploadCompletionRegistry());
 
         // create task, execute
         UploadValidationTask task = taskFactory.newTask(TEST_APP_ID, UPLOAD);
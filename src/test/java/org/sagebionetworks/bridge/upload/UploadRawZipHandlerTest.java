@@ -1,13 +1,16 @@
 package org.sagebionetworks.bridge.upload;
 
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
 
 import java.io.File;
 import java.io.IOException;
 
+import com.google.common.base.Charsets;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -54,6 +57,20 @@ public class UploadRawZipHandlerTest {
         assertEquals(record.getRawDataAttachmentId(), EXPECTED_RAW_DATA_ATTACHMENT_ID);
     }
 
+    @Test
+    public void inMemoryData() throws Exception {
+        // In streaming mode, the decrypted data is held in memory.
+        byte[] decryptedData = "decrypted data".getBytes(Charsets.UTF_8);
+        context.setDecryptedDataFile(null);
+        context.setDecryptedData(decryptedData);
+
+        // Execute and validate.
+        handler.handle(context);
+        verify(mockUploadFileHelper).uploadBytesAsAttachment(EXPECTED_RAW_DATA_ATTACHMENT_ID, decryptedData);
+        verify(mockUploadFileHelper, never()).uploadFileAsAttachment(any(), any());
+        assertEquals(record.getRawDataAttachmentId(), EXPECTED_RAW_DATA_ATTACHMENT_ID);
+    }
+
     @Test(expectedExceptions = UploadValidationException.class)
     public void errorCase() throws Exception {
         // Mock uploadFileHelper to throw.
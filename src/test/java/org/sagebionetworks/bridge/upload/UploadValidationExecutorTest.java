@@ -0,0 +1,119 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+
+public class UploadValidationExecutorTest {
+    private static final long SMALL_UPLOAD_BYTES = 1000L;
+
+    private UploadValidationExecutor executor;
+    private UploadValidationMetrics metrics;
+
+    @BeforeMethod
+    public void before() {
+        metrics = new UploadValidationMetrics();
+        // One worker, so we can block it and control what's in the queue.
+        executor = new UploadValidationExecutor(1, 3, SMALL_UPLOAD_BYTES, metrics);
+    }
+
+    @AfterMethod
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void smallUploadsRunFirstThenInSubmissionOrder() throws Exception {
+        CountDownLatch blockerLatch = blockWorker();
+
+        List<String> ranList = new CopyOnWriteArrayList<>();
+        CountDownLatch doneLatch = new CountDownLatch(3);
+        executor.execute(makeTask("large", 5000L, ranList, doneLatch));
+        executor.execute(makeTask("small1", 10L, ranList, doneLatch));
+        executor.execute(makeTask("small2", SMALL_UPLOAD_BYTES, ranList, doneLatch));
+
+        blockerLatch.countDown();
+        assertTrue(doneLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(ranList, ImmutableList.of("small1", "small2", "large"));
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch blockerLatch = blockWorker();
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {});
+        }
+
+        try {
+            executor.execute(() -> {});
+            fail("expected exception");
+        } catch (RejectedExecutionException ex) {
+            // expected exception
+        }
+        assertEquals(metrics.getRejectedCount(), 1L);
+        assertEquals(executor.getQueue().remainingCapacity(), 0);
+        blockerLatch.countDown();
+    }
+
+    @Test
+    public void recordsQueueWaitAndExecution() throws Exception {
+        CountDownLatch doneLatch = new CountDownLatch(1);
+        executor.execute(doneLatch::countDown);
+        assertTrue(doneLatch.await(5, TimeUnit.SECONDS));
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(metrics.getQueueWaitStats().get("count").longValue(), 1L);
+        assertEquals(metrics.getExecutionStats().get("count").longValue(), 1L);
+    }
+
+    @Test
+    public void nonValidationTasksAreSmall() {
+        assertEquals(executor.getPriority(() -> {}), UploadValidationExecutor.PRIORITY_SMALL);
+    }
+
+    // Occupies the only worker until the returned latch is counted down.
+    private CountDownLatch blockWorker() throws Exception {
+        CountDownLatch startedLatch = new CountDownLatch(1);
+        CountDownLatch blockerLatch = new CountDownLatch(1);
+        executor.execute(() -> {
+            startedLatch.countDown();
+            try {
+                blockerLatch.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(startedLatch.await(5, TimeUnit.SECONDS));
+        return blockerLatch;
+    }
+
+    private static UploadValidationTask makeTask(String name, long contentLength, List<String> ranList,
+            CountDownLatch doneLatch) {
+        DynamoUpload2 upload = new DynamoUpload2();
+        upload.setContentLength(contentLength);
+
+        UploadValidationContext context = new UploadValidationContext();
+        context.setUpload(upload);
+        return new UploadValidationTask(context) {
+            @Override
+            public void run() {
+                ranList.add(name);
+                doneLatch.countDown();
+            }
+        };
+    }
+}
@@ -26,6 +26,8 @@ public class UploadValidationTaskFactoryTest {
         UploadDao dao = mock(UploadDao.class);
         FileHelper fileHelper = new FileHelper();
         HealthDataService healthDataService = new HealthDataService();
+        UploadValidationMetrics metrics = new UploadValidationMetrics();
+        UploadCompletionRegistry registry = new UploadCompletionRegistry();
 
         // set up task factory
         UploadValidationTaskFactory taskFactory = new UploadValidationTaskFactory();
@@ -33,6 +35,8 @@ public class UploadValidationTaskFactoryTest {
         taskFactory.setHandlerList(handlerList);
         taskFactory.setUploadDao(dao);
         taskFactory.setHealthDataService(healthDataService);
+        taskFactory.setUploadValidationMetrics(metrics);
+        taskFactory.setUploadCompletionRegistry(registry);
 
         // inputs
         App app = TestUtils.getValidApp(UploadValidationTaskFactoryTest.class);
@@ -49,5 +53,7 @@ public class UploadValidationTaskFactoryTest {
         assertSame(task.getHandlerList(), handlerList);
         assertSame(task.getUploadDao(), dao);
         assertSame(task.getHealthDataService(), healthDataService);
+        assertSame(task.getUploadValidationMetrics(), metrics);
+        assertSame(task.getUploadCompletionRegistry(), registry);
     }
 }
@@ -2,7 +2,9 @@ package org.sagebionetworks.bridge.upload;
 
 import static org.mockito.Mockito.notNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -17,6 +19,7 @@ import javax.annotation.Nonnull;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -57,6 +60,8 @@ public class UploadValidationTaskTest {
     private UploadValidationContext ctx;
     private InMemoryFileHelper inMemoryFileHelper;
     private UploadDao mockDao;
+    private UploadValidationMetrics metrics;
+    private UploadCompletionRegistry mockRegistry;
     private UploadValidationTask task;
     private Upload upload;
 
@@ -80,6 +85,8 @@ public class UploadValidationTaskTest {
         // Set up other pre-reqs
         inMemoryFileHelper = new InMemoryFileHelper();
         mockDao = mock(UploadDao.class);
+        metrics = new UploadValidationMetrics();
+        mockRegistry = mock(UploadCompletionRegistry.class);
 
         // Set up task. Spy so we can verify some calls.
         task = spy(new UploadValidationTask(ctx));
@@ -87,6 +94,8 @@ public class UploadValidationTaskTest {
         task.setHandlerList(handlerList);
         task.setHealthDataService(healthDataService);
         task.setUploadDao(mockDao);
+        task.setUploadValidationMetrics(metrics);
+        task.setUploadCompletionRegistry(mockRegistry);
     }
 
     @Test
@@ -103,6 +112,11 @@ public class UploadValidationTaskTest {
         assertEquals(messageList.get(0), "foo was here");
         assertEquals(messageList.get(1), "bar was here");
         assertEquals(messageList.get(2), "kilroy was here");
+
+        // validate that each handler's latency was recorded
+        Map<String, Map<String, Long>> handlerStats = metrics.getHandlerStats();
+        assertEquals(handlerStats.get(MessageHandler.class.getName()).get("count").longValue(), 3L);
+        assertEquals(handlerStats.get(RecordIdHandler.class.getName()).get("count").longValue(), 1L);
     }
 
     @Test
@@ -146,6 +160,11 @@ public class UploadValidationTaskTest {
         assertEquals(messageList.size(), 2);
         assertEquals(messageList.get(0), "foo succeeded");
         assertFalse(Strings.isNullOrEmpty(messageList.get(1)));
+
+        // Latency is recorded for the failed handler, but not for handlers that never ran.
+        Map<String, Map<String, Long>> handlerStats = metrics.getHandlerStats();
+        assertEquals(handlerStats.get(barHandler.getClass().getName()).get("count").longValue(), 1L);
+        assertFalse(handlerStats.containsKey(RecordIdHandler.class.getName()));
     }
 
     // helper test method, encapsulating core setup and validation
@@ -162,6 +181,9 @@ public class UploadValidationTaskTest {
         // validate the upload dao write validation status call
         verify(mockDao).writeValidationStatus(upload, expectedStatus, ctx.getMessageList(), expectedRecordId);
 
+        // Callers waiting for the validation status are woken up after the status is written.
+        verify(mockRegistry).signalCompletion("test-upload");
+
         // Validate that we clean up the temp directory.
         assertTrue(inMemoryFileHelper.isEmpty());
     }
@@ -184,6 +206,9 @@ public class UploadValidationTaskTest {
 
         // verify log helper was called
         verify(task).logWriteValidationStatusException(UploadStatus.SUCCEEDED, toThrow);
+
+        // Callers waiting for the validation status would only read the old status.
+        verify(mockRegistry, never()).signalCompletion(any());
     }
 
     // Test handler that makes its presence known only by writing a message to the validation context.
@@ -0,0 +1,84 @@
+package org.sagebionetworks.bridge.util;
+
+import static org.sagebionetworks.bridge.services.StudyConsentService.SIGNATURE_BLOCK;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.io.FileInputStream;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.Test;
+
+public class CompiledTemplateTest {
+    @Test
+    public void resolvesVariables() {
+        Map<String, String> map = ImmutableMap.of("baz", "Belgium", "box", "Albuquerque");
+        CompiledTemplate template = CompiledTemplate.compile("foo ${baz} bar ${baz} ${box} ${unused}");
+        assertEquals(template.render(map), "foo Belgium bar Belgium Albuquerque ${unused}");
+    }
+
+    @Test
+    public void nullValuesLeftAlone() {
+        Map<String, String> map = Maps.newHashMap();
+        map.put("baz", null);
+        assertEquals(CompiledTemplate.compile("foo ${baz}").render(map), "foo ${baz}");
+    }
+
+    @Test
+    public void noVariables() {
+        assertEquals(CompiledTemplate.compile("").render(ImmutableMap.of()), "");
+        assertEquals(CompiledTemplate.compile("no variables").render(ImmutableMap.of("a", "b")), "no variables");
+    }
+
+    @Test
+    public void incompleteVariablesAreLiteral() {
+        Map<String, String> map = ImmutableMap.of("a", "A", "b", "B");
+        assertEquals(CompiledTemplate.compile("${a${b} $${a} ${a").render(map), "${aB $A ${a");
+        assertEquals(CompiledTemplate.compile("} ${} ${a}}").render(map), "} ${} A}");
+    }
+
+    @Test
+    public void valuesAreNotResolved() {
+        Map<String, String> map = ImmutableMap.of("a", "${b}", "b", "B");
+        assertEquals(CompiledTemplate.compile("${a} ${b}").render(map), "${b} B");
+    }
+
+    @Test
+    public void rendersIntoBuilder() {
+        StringBuilder builder = new StringBuilder("prefix ");
+        CompiledTemplate.compile("${a}-${b}").render(ImmutableMap.of("a", "A", "b", "B"), builder);
+        assertEquals(builder.toString(), "prefix A-B");
+    }
+
+    @Test
+    public void forTemplateIsCached() {
+        String templateString = "cached ${a} " + System.nanoTime();
+        CompiledTemplate template = CompiledTemplate.forTemplate(templateString);
+        assertSame(CompiledTemplate.forTemplate(new String(templateString)), template);
+    }
+
+    @Test
+    public void matchesStringReplacementOnConsentDocument() throws Exception {
+        String pageTemplate = IOUtils.toString(new FileInputStream(new ClassPathResource(
+                "conf/app-defaults/consent-page.xhtml").getFile()));
+        String consentTemplate = pageTemplate.replace("${consent.body}",
+                "<p>This is a consent agreement for ${appName}, sponsored by ${sponsorName}.</p>" + SIGNATURE_BLOCK);
+        Map<String, String> map = new ImmutableMap.Builder<String, String>().put("appName", "App Name")
+                .put("sponsorName", "Sponsor Name").put("participant.name", "Test Person")
+                .put("participant.signing.date", "October 4, 2017 (GMT)")
+                .put("participant.contactInfo", "email@email.com").put("participant.contactLabel", "Email Address")
+                .put("participant.sharing", "Not Sharing").build();
+
+        // The template resolution used before templates were compiled.
+        String expected = consentTemplate;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            expected = expected.replace("${" + entry.getKey() + "}", entry.getValue());
+        }
+        assertEquals(CompiledTemplate.compile(consentTemplate).render(map), expected);
+    }
+}
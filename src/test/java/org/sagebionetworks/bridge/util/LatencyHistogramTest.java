@@ -0,0 +1,54 @@
+package org.sagebionetworks.bridge.util;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Map<String, Long> map = histogram.toMap();
+        assertEquals(map.get("count").longValue(), 0L);
+        assertEquals(map.get("meanMillis").longValue(), 0L);
+        assertEquals(map.get("p50Millis").longValue(), 0L);
+        assertEquals(map.get("maxMillis").longValue(), 0L);
+    }
+
+    @Test
+    public void percentilesUseBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 90 fast calls and 10 slow ones.
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(150);
+        }
+
+        assertEquals(histogram.getCount(), 100L);
+        assertEquals(histogram.getPercentileMillis(0.50), 5L);
+        assertEquals(histogram.getPercentileMillis(0.90), 5L);
+        assertEquals(histogram.getPercentileMillis(0.95), 150L);
+        assertEquals(histogram.getMaxMillis(), 150L);
+        assertEquals(histogram.toMap().get("meanMillis").longValue(), (90 * 3 + 10 * 150) / 100L);
+    }
+
+    @Test
+    public void overflowBucketReportsMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000L);
+        assertEquals(histogram.getPercentileMillis(0.99), 1_000_000L);
+    }
+
+    @Test
+    public void negativeIsRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(histogram.getCount(), 1L);
+        assertEquals(histogram.getMaxMillis(), 0L);
+        assertEquals(histogram.getPercentileMillis(0.5), 0L);
+    }
+}
@@ -0,0 +1,68 @@
+package org.sagebionetworks.bridge.util;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class RequestMetricsRegistryTest {
+    @Test
+    public void recordsLatencyAndStatusPerRoute() {
+        RequestMetricsRegistry registry = new RequestMetricsRegistry();
+        record(registry, "GET", "/v3/participants/{userId}", 200, 10L);
+        record(registry, "GET", "/v3/participants/{userId}", 404, 30L);
+        record(registry, "POST", "/v3/participants/{userId}", 500, 5L);
+
+        Map<String, Map<String, Object>> routes = getRoutes(registry);
+        assertEquals(routes.keySet().toString(), "[GET /v3/participants/{userId}, POST /v3/participants/{userId}]");
+
+        Map<String, Object> getStats = routes.get("GET /v3/participants/{userId}");
+        assertEquals(getStats.get("status").toString(), "{2xx=1, 4xx=1}");
+        assertEquals(latency(getStats).get("count").longValue(), 2L);
+        assertEquals(latency(getStats).get("maxMillis").longValue(), 30L);
+
+        Map<String, Object> postStats = routes.get("POST /v3/participants/{userId}");
+        assertEquals(postStats.get("status").toString(), "{5xx=1}");
+    }
+
+    @Test
+    public void unmatchedRequestsShareOneRoute() {
+        RequestMetricsRegistry registry = new RequestMetricsRegistry();
+        record(registry, "GET", null, 404, 1L);
+        record(registry, "PROPFIND", null, 404, 1L);
+
+        Map<String, Map<String, Object>> routes = getRoutes(registry);
+        String key = RequestMetricsRegistry.UNMATCHED_METHOD + " " + RequestMetricsRegistry.UNMATCHED_ROUTE;
+        assertEquals(routes.size(), 1);
+        assertEquals(latency(routes.get(key)).get("count").longValue(), 2L);
+    }
+
+    @Test
+    public void tracksRequestsInFlight() {
+        RequestMetricsRegistry registry = new RequestMetricsRegistry();
+        registry.requestStarted();
+        registry.requestStarted();
+        assertEquals(registry.getInFlightCount(), 2);
+        assertEquals(registry.getStats().get("inFlight"), 2);
+
+        registry.requestFinished("GET", "/v3/apps/self", 200, 1L);
+        assertEquals(registry.getInFlightCount(), 1);
+    }
+
+    private static void record(RequestMetricsRegistry registry, String method, String pattern, int status,
+            long millis) {
+        registry.requestStarted();
+        registry.requestFinished(method, pattern, status, millis);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> getRoutes(RequestMetricsRegistry registry) {
+        return (Map<String, Map<String, Object>>) registry.getStats().get("routes");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> latency(Map<String, Object> routeStats) {
+        return (Map<String, Long>) routeStats.get("latency");
+    }
+}
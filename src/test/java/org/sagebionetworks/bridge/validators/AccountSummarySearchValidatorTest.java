@@ -55,6 +55,30 @@ public class AccountSummarySearchValidatorTest {
         assertValidatorMessage(validator, builder.build(), "offsetBy", "cannot be less than 0");
     }
     
+    @Test
+    public void emptyOffsetKeyIsValid() {
+        builder.withOffsetKey("");
+        Validate.entityThrowingException(validator, builder.build());
+    }
+    
+    @Test
+    public void offsetKeyIsValid() {
+        builder.withOffsetKey("1500000000000:accountId");
+        Validate.entityThrowingException(validator, builder.build());
+    }
+    
+    @Test
+    public void offsetKeyMalformed() {
+        builder.withOffsetKey("accountId");
+        assertValidatorMessage(validator, builder.build(), "offsetKey", AccountSummarySearchValidator.OFFSET_KEY_ERROR);
+    }
+    
+    @Test
+    public void offsetKeyTimestampOutOfRange() {
+        builder.withOffsetKey("99999999999999999999:accountId");
+        assertValidatorMessage(validator, builder.build(), "offsetKey", AccountSummarySearchValidator.OFFSET_KEY_ERROR);
+    }
+    
     @Test
     public void pageSizeTooSmall() {
         builder.withPageSize(BridgeConstants.API_MINIMUM_PAGE_SIZE-1);